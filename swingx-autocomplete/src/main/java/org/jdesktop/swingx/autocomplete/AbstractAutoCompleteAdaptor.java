@@ -20,6 +20,7 @@
  */
 package org.jdesktop.swingx.autocomplete;
 
+import javax.swing.ListModel;
 import javax.swing.text.JTextComponent;
 
 /**
@@ -81,6 +82,34 @@ public abstract class AbstractAutoCompleteAdaptor {
      */
     public abstract Object getItem(int index);
     
+    /**
+     * Notifies this adaptor that the items are about to be searched for the
+     * given pattern. Adaptors which don't hold all items in memory can use
+     * this to provide the candidates for the pattern, see
+     * {@link AsyncAutoCompleteAdaptor}.
+     * <p>
+     * This implementation does nothing.
+     * 
+     * @param pattern the text to be completed
+     */
+    protected void prepareItems(String pattern) {
+    }
+    
+    /**
+     * Returns the list model holding the items of this adaptor, if any. If
+     * not <code>null</code>, the model's items must be the same as those
+     * returned by {@link #getItem(int)} and changes must be notified to its
+     * <code>ListDataListener</code>s. This allows {@link AutoCompleteDocument}
+     * to maintain an index for large item lists.
+     * <p>
+     * This implementation returns <code>null</code>.
+     * 
+     * @return the list model of the items or <code>null</code>
+     */
+    protected ListModel getListModel() {
+        return null;
+    }
+    
     /**
      * Returns true if the list contains the currently selected item.
      * @return true if the list contains the currently selected item.
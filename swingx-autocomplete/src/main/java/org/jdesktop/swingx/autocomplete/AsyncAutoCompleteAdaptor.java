@@ -0,0 +1,459 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.autocomplete;
+
+import static org.jdesktop.swingx.autocomplete.ObjectToStringConverter.DEFAULT_IMPLEMENTATION;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.SwingWorker;
+import javax.swing.text.Document;
+import javax.swing.text.JTextComponent;
+
+import org.jdesktop.swingx.util.Contract;
+
+/**
+ * An adaptor for a JTextComponent whose candidate items are retrieved from a
+ * {@link SuggestionProvider}, so they don't need to be held in memory.
+ * <p>
+ *
+ * Whenever the text to complete changes, the adaptor queries the provider for
+ * the items matching the text on a background thread, page by page, up to
+ * {@link #getMaxSuggestions() maxSuggestions} items. A query which is
+ * superseded by a new one is cancelled before it fetches its next page. The
+ * results of the most recent queries are kept in a cache with least recently
+ * used eviction; a complete result is also used to answer queries for longer
+ * prefixes without asking the provider.
+ * <p>
+ *
+ * Until the first page for the current text is loaded, the items are those
+ * of the longest cached prefix. When pages arrive, the completion of the
+ * typed text is refreshed unless the user moved the caret away from it.
+ * Consequently, strict matching only works against the items already loaded;
+ * this adaptor is meant to be used with non-strict matching.
+ * <p>
+ *
+ * All methods must be called on the EDT.
+ *
+ * <pre><code>
+ * SuggestionProvider provider = ...;
+ * AutoCompleteDecorator.decorate(textField, provider, null);
+ * </code></pre>
+ *
+ * @see SuggestionProvider
+ */
+public class AsyncAutoCompleteAdaptor extends AbstractAutoCompleteAdaptor {
+
+    private static final Logger LOG = Logger.getLogger(AsyncAutoCompleteAdaptor.class.getName());
+
+    /** The default number of items requested from the provider at once. */
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    /** The default maximum number of items loaded for a prefix. */
+    public static final int DEFAULT_MAX_SUGGESTIONS = 500;
+
+    /** The default number of prefixes whose items are cached. */
+    public static final int DEFAULT_CACHE_SIZE = 32;
+
+    private final JTextComponent textComponent;
+
+    private final SuggestionProvider provider;
+
+    private final ObjectToStringConverter stringConverter;
+
+    private Object selectedItem;
+
+    private int pageSize = DEFAULT_PAGE_SIZE;
+
+    private int maxSuggestions = DEFAULT_MAX_SUGGESTIONS;
+
+    private int cacheSize = DEFAULT_CACHE_SIZE;
+
+    /** the cached results, keyed by case folded prefix, in access order. */
+    private final Map<String, Suggestions> cache = new LinkedHashMap<String, Suggestions>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Suggestions> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    /** the items of the current prefix. */
+    private Suggestions current = new Suggestions("", true);
+
+    /** the items used while the current prefix is loading, or null. */
+    private List<Object> interim;
+
+    private Query query;
+
+    /**
+     * Creates a new adaptor for the given text component and provider, using
+     * the default string converter.
+     *
+     * @param textComponent the text component that will be used for
+     *        automatic completion
+     * @param provider the source of the items
+     */
+    public AsyncAutoCompleteAdaptor(JTextComponent textComponent, SuggestionProvider provider) {
+        this(textComponent, provider, null);
+    }
+
+    /**
+     * Creates a new adaptor for the given text component and provider.
+     *
+     * @param textComponent the text component that will be used for
+     *        automatic completion
+     * @param provider the source of the items
+     * @param stringConverter the converter used to transform items to
+     *        strings, may be <code>null</code> to use the default. Must be
+     *        the same as the one used by the AutoCompleteDocument.
+     */
+    public AsyncAutoCompleteAdaptor(JTextComponent textComponent, SuggestionProvider provider,
+            ObjectToStringConverter stringConverter) {
+        this.textComponent = Contract.asNotNull(textComponent, "textComponent cannot be null");
+        this.provider = Contract.asNotNull(provider, "provider cannot be null");
+        this.stringConverter = stringConverter == null ? DEFAULT_IMPLEMENTATION : stringConverter;
+    }
+
+    /**
+     * Returns the source of the items.
+     *
+     * @return the suggestion provider
+     */
+    public SuggestionProvider getSuggestionProvider() {
+        return provider;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object getSelectedItem() {
+        return selectedItem;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setSelectedItem(Object item) {
+        selectedItem = item;
+    }
+
+    /**
+     * Returns the number of items currently loaded for the text to complete.
+     *
+     * @return the number of loaded items
+     */
+    @Override
+    public int getItemCount() {
+        return getItems().size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object getItem(int index) {
+        return getItems().get(index);
+    }
+
+    private List<Object> getItems() {
+        return interim != null ? interim : current.items;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JTextComponent getTextComponent() {
+        return textComponent;
+    }
+
+    /**
+     * Provides the items for the given pattern: uses the cached items if
+     * available, otherwise starts a query and cancels the previous one.
+     *
+     * @param pattern the text to be completed
+     */
+    @Override
+    protected void prepareItems(String pattern) {
+        String key = AutoCompleteIndex.fold(pattern);
+        if (key.equals(current.key)) return;
+        cancel();
+        interim = null;
+        Suggestions suggestions = cache.get(key);
+        if (suggestions == null) {
+            suggestions = key.length() == 0 ? new Suggestions(key, true) : narrow(key);
+        }
+        current = suggestions;
+        if (!current.complete) {
+            query = new Query(pattern, current);
+            query.execute();
+        }
+    }
+
+    /**
+     * Returns the cached items of the longest prefix of the given key. If
+     * those are complete, they are filtered to the items for the key,
+     * otherwise an incomplete <code>Suggestions</code> is returned and the
+     * filtered items are used until the first page is loaded.
+     *
+     * @param key the case folded text to complete
+     * @return the items for the key
+     */
+    private Suggestions narrow(String key) {
+        for (int i = key.length() - 1; i > 0; i--) {
+            Suggestions shorter = cache.get(key.substring(0, i));
+            if (shorter != null) {
+                List<Object> items = new ArrayList<Object>();
+                for (Object item : shorter.items) {
+                    if (matches(stringConverter, item, key)) {
+                        items.add(item);
+                    }
+                }
+                if (shorter.complete && !shorter.truncated) {
+                    Suggestions suggestions = new Suggestions(key, true);
+                    suggestions.items.addAll(items);
+                    cache.put(key, suggestions);
+                    return suggestions;
+                }
+                interim = items;
+                break;
+            }
+        }
+        return new Suggestions(key, false);
+    }
+
+    /**
+     * Cancels the running query, if any.
+     */
+    public void cancel() {
+        if (query != null) {
+            query.cancel(false);
+            query = null;
+        }
+    }
+
+    /**
+     * Removes all cached items. The next change of the text queries the
+     * provider again.
+     */
+    public void clearCache() {
+        cancel();
+        cache.clear();
+        interim = null;
+        current = new Suggestions("", true);
+    }
+
+    /**
+     * Returns whether the items for the current text are still loading.
+     *
+     * @return true if a query is running
+     */
+    public boolean isLoading() {
+        return query != null;
+    }
+
+    /**
+     * Returns the number of items requested from the provider at once.
+     *
+     * @return the page size
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Sets the number of items requested from the provider at once. The
+     * first page is what the completion is based on, so this should be small
+     * enough to be delivered quickly.
+     *
+     * @param pageSize the page size, must be &gt; 0
+     */
+    public void setPageSize(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be > 0, was " + pageSize);
+        }
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Returns the maximum number of items loaded for a prefix.
+     *
+     * @return the maximum number of items
+     */
+    public int getMaxSuggestions() {
+        return maxSuggestions;
+    }
+
+    /**
+     * Sets the maximum number of items loaded for a prefix.
+     *
+     * @param maxSuggestions the maximum number of items, must be &gt; 0
+     */
+    public void setMaxSuggestions(int maxSuggestions) {
+        if (maxSuggestions <= 0) {
+            throw new IllegalArgumentException("maxSuggestions must be > 0, was " + maxSuggestions);
+        }
+        this.maxSuggestions = maxSuggestions;
+    }
+
+    /**
+     * Returns the number of prefixes whose items are cached.
+     *
+     * @return the cache size
+     */
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * Sets the number of prefixes whose items are cached.
+     *
+     * @param cacheSize the cache size, must be &gt;= 0
+     */
+    public void setCacheSize(int cacheSize) {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("cacheSize must be >= 0, was " + cacheSize);
+        }
+        this.cacheSize = cacheSize;
+        while (cache.size() > cacheSize) {
+            cache.remove(cache.keySet().iterator().next());
+        }
+    }
+
+    /**
+     * Returns true if any of the possible strings of the item starts with the
+     * prefix, ignoring case.
+     */
+    static boolean matches(ObjectToStringConverter stringConverter, Object item, String prefix) {
+        String[] possibleStrings = stringConverter.getPossibleStringsForItem(item);
+        if (possibleStrings != null) {
+            for (String possibleString : possibleStrings) {
+                if (possibleString != null
+                        && possibleString.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Refreshes the completion after items for the current text were loaded.
+     */
+    private void itemsLoaded() {
+        Document document = textComponent.getDocument();
+        if (document instanceof AutoCompleteDocument
+                && ((AutoCompleteDocument) document).adaptor == this) {
+            ((AutoCompleteDocument) document).refreshCompletion();
+        }
+    }
+
+    /**
+     * The items loaded for a prefix.
+     */
+    private static class Suggestions {
+        final String key;
+        final List<Object> items = new ArrayList<Object>();
+        /** true if loading is finished. */
+        boolean complete;
+        /** true if loading stopped at maxSuggestions. */
+        boolean truncated;
+
+        Suggestions(String key, boolean complete) {
+            this.key = key;
+            this.complete = complete;
+        }
+    }
+
+    /**
+     * Loads the pages for a prefix.
+     */
+    private class Query extends SwingWorker<Boolean, List<?>> {
+        private final String prefix;
+        private final Suggestions suggestions;
+        private final int pageSize;
+        private final int maxSuggestions;
+
+        Query(String prefix, Suggestions suggestions) {
+            this.prefix = prefix;
+            this.suggestions = suggestions;
+            // copy on the EDT
+            this.pageSize = getPageSize();
+            this.maxSuggestions = getMaxSuggestions();
+        }
+
+        @Override
+        protected Boolean doInBackground() throws Exception {
+            int start = 0;
+            while (!isCancelled() && start < maxSuggestions) {
+                int count = Math.min(pageSize, maxSuggestions - start);
+                List<?> page = provider.getSuggestions(prefix, start, count);
+                if (page == null) break;
+                publish(page);
+                start += page.size();
+                if (page.size() < count) return false;
+            }
+            return start >= maxSuggestions;
+        }
+
+        @Override
+        protected void process(List<List<?>> pages) {
+            // pages may still be delivered after done
+            if (current != suggestions) return;
+            for (List<?> page : pages) {
+                suggestions.items.addAll(page);
+            }
+            interim = null;
+            itemsLoaded();
+        }
+
+        @Override
+        protected void done() {
+            if (query != this) return;
+            query = null;
+            try {
+                suggestions.truncated = get();
+                suggestions.complete = true;
+                cache.put(suggestions.key, suggestions);
+            } catch (CancellationException e) {
+                // superseded
+            } catch (InterruptedException e) {
+                // can't happen, we are done
+            } catch (ExecutionException e) {
+                LOG.log(Level.WARNING, "failed to load suggestions for " + prefix, e.getCause());
+            }
+            // the interim items are still in use if no page was loaded
+            if (interim != null) {
+                interim = null;
+                itemsLoaded();
+            }
+        }
+    }
+}
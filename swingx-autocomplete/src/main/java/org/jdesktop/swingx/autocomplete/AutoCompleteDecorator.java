@@ -307,6 +307,23 @@ public class AutoCompleteDecorator {
         decorate(textComponent, document, adaptor);
     }
     
+    /**
+     * Enables automatic completion for the given JTextComponent based on the
+     * items retrieved from the given <tt>SuggestionProvider</tt>. The items
+     * are loaded asynchronously, so the completion is not strict.
+     * 
+     * @param textComponent the text component that will be used for automatic
+     * completion.
+     * @param provider the source of the items that are used for autocompletion
+     * @param stringConverter the converter used to transform items to strings
+     * @see AsyncAutoCompleteAdaptor
+     */
+    public static void decorate(JTextComponent textComponent, SuggestionProvider provider, ObjectToStringConverter stringConverter) {
+        AbstractAutoCompleteAdaptor adaptor = new AsyncAutoCompleteAdaptor(textComponent, provider, stringConverter);
+        AutoCompleteDocument document = createAutoCompleteDocument(adaptor, false, stringConverter, textComponent.getDocument());
+        decorate(textComponent, document, adaptor);
+    }
+    
     /**
      * Decorates a given text component for automatic completion using the
      * given AutoCompleteDocument and AbstractAutoCompleteAdaptor.
@@ -373,6 +390,12 @@ public class AutoCompleteDecorator {
                 }
             }
             
+            //stop listening to the items
+            ((AutoCompleteDocument) doc).releaseIndex();
+            if (((AutoCompleteDocument) doc).adaptor instanceof AsyncAutoCompleteAdaptor) {
+                ((AsyncAutoCompleteAdaptor) ((AutoCompleteDocument) doc).adaptor).cancel();
+            }
+            
             //reset to original document
             textComponent.setDocument(((AutoCompleteDocument) doc).delegate);
         }
@@ -23,6 +23,7 @@ package org.jdesktop.swingx.autocomplete;
 import java.util.Comparator;
 import static org.jdesktop.swingx.autocomplete.ObjectToStringConverter.DEFAULT_IMPLEMENTATION;
 
+import javax.swing.ListModel;
 import javax.swing.UIManager;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
@@ -33,6 +34,7 @@ import javax.swing.text.AttributeSet;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.Document;
 import javax.swing.text.Element;
+import javax.swing.text.JTextComponent;
 import javax.swing.text.PlainDocument;
 import javax.swing.text.Position;
 import javax.swing.text.Segment;
@@ -42,6 +44,13 @@ import org.jdesktop.swingx.util.Contract;
 /**
  * A document that can be plugged into any JTextComponent to enable automatic completion.
  * It finds and selects matching items using any implementation of the AbstractAutoCompleteAdaptor.
+ * <p>
+ * If the adaptor is backed by a {@code ListModel} with at least
+ * {@link #getIndexThreshold() indexThreshold} items, lookups are answered by a
+ * sorted index over the items' string representations instead of scanning all
+ * items. The index is built on a background thread, so the
+ * {@code ObjectToStringConverter} must be thread safe in this case. Until the
+ * index is ready, all items are scanned.
  */
 @SuppressWarnings("nls")
 public class AutoCompleteDocument implements Document {
@@ -178,6 +187,15 @@ public class AutoCompleteDocument implements Document {
 
     private final Handler handler;
 
+    /**
+     * The default minimum number of items for which an index is used to lookup items.
+     */
+    public static final int DEFAULT_INDEX_THRESHOLD = 1000;
+
+    private int indexThreshold = DEFAULT_INDEX_THRESHOLD;
+
+    private AutoCompleteIndex index;
+
     // Note: these comparators do not impose any ordering - e.g. they do not ensure that sgn(compare(x, y)) == -sgn(compare(y, x))
     private static final Comparator<String> EQUALS_IGNORE_CASE = new Comparator<String>() {
         @Override
@@ -235,6 +253,8 @@ public class AutoCompleteDocument implements Document {
             adaptor.setSelectedItemAsString(itemAsString);
         }
         this.adaptor.markEntireText();
+        // start building the index before the first lookup
+        getIndex();
     }
 
 
@@ -288,6 +308,17 @@ public class AutoCompleteDocument implements Document {
         if (selecting) return;
         // insert the string into the document
         delegate.insertString(offs, str, a);
+        complete(offs, str);
+    }
+
+    /**
+     * Looks up the item matching the text just inserted at the given offset
+     * and completes the text.
+     *
+     * @param offs the offset the text was inserted at
+     * @param str the inserted string
+     */
+    private void complete(int offs, String str) throws BadLocationException {
         // lookup and select a matching item
         LookupResult lookupResult;
         String pattern = getText(0, getLength());
@@ -330,6 +361,32 @@ public class AutoCompleteDocument implements Document {
         adaptor.markText(offs);
     }
 
+    /**
+     * Repeats the completion of the text typed so far. Does nothing if the
+     * user moved the caret away from the completed part. Used by adaptors
+     * which load their items asynchronously to update the completion once the
+     * items for the typed text are available.
+     *
+     * @see AsyncAutoCompleteAdaptor
+     */
+    void refreshCompletion() {
+        if (selecting) return;
+        JTextComponent textComponent = adaptor.getTextComponent();
+        int start = textComponent.getSelectionStart();
+        if (start == 0 || textComponent.getSelectionEnd() != getLength()) return;
+        try {
+            // remove the completed part, then complete the typed text again
+            delegate.remove(start, getLength() - start);
+            if (!strictMatching && !adaptor.listContainsSelectedItem()) {
+                // the typed text itself was selected for lack of a match
+                setSelectedItem(null, null);
+            }
+            complete(start, null);
+        } catch (BadLocationException e) {
+            throw new RuntimeException(e.toString());
+        }
+    }
+
     /**
      * Sets the text of this AutoCompleteDocument to the given text.
      *
@@ -366,6 +423,7 @@ public class AutoCompleteDocument implements Document {
      * @return the first item that matches the pattern or <code>null</code> if no item matches
      */
     private LookupResult lookupItem(String pattern) {
+        adaptor.prepareItems(pattern);
         Object selectedItem = adaptor.getSelectedItem();
 
         LookupResult lookupResult;
@@ -409,6 +467,12 @@ public class AutoCompleteDocument implements Document {
     }
 
     private LookupResult lookupItem(String pattern, Comparator<String> comparator) {
+        AutoCompleteIndex index = getIndex();
+        if (index != null && index.isReady()) {
+            return index.lookup(pattern,
+                    comparator == STARTS_WITH || comparator == STARTS_WITH_IGNORE_CASE,
+                    comparator == EQUALS_IGNORE_CASE || comparator == STARTS_WITH_IGNORE_CASE);
+        }
         // iterate over all items and return first match
         for (int i = 0, n = adaptor.getItemCount(); i < n; i++) {
             Object currentItem = adaptor.getItem(i);
@@ -418,7 +482,58 @@ public class AutoCompleteDocument implements Document {
         return null;
     }
 
-    private static class LookupResult {
+    /**
+     * Returns the index used to lookup items, lazily created. Releases an
+     * index which became invalid because the adaptor's model changed or
+     * shrank below the threshold.
+     *
+     * @return the index or <code>null</code> if items should be scanned
+     */
+    private AutoCompleteIndex getIndex() {
+        ListModel model = adaptor.getListModel();
+        if (model == null || model.getSize() < getIndexThreshold()) {
+            releaseIndex();
+        } else if (index == null || index.getModel() != model) {
+            releaseIndex();
+            index = new AutoCompleteIndex(model, stringConverter);
+        }
+        return index;
+    }
+
+    /**
+     * Stops maintaining the index, if any.
+     */
+    void releaseIndex() {
+        if (index != null) {
+            index.release();
+            index = null;
+        }
+    }
+
+    /**
+     * Returns the minimum number of items for which an index is used to
+     * lookup items.
+     *
+     * @return the index threshold
+     * @see #setIndexThreshold(int)
+     */
+    public int getIndexThreshold() {
+        return indexThreshold;
+    }
+
+    /**
+     * Sets the minimum number of items for which an index is used to lookup
+     * items. The index is used only if the adaptor is backed by a
+     * {@code ListModel}. {@code Integer.MAX_VALUE} disables the index.
+     *
+     * @param indexThreshold the minimum number of items to use an index for
+     */
+    public void setIndexThreshold(int indexThreshold) {
+        this.indexThreshold = indexThreshold;
+        getIndex();
+    }
+
+    static class LookupResult {
         Object matchingItem;
         String matchingString;
         public LookupResult(Object matchingItem, String matchingString) {
@@ -0,0 +1,648 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.autocomplete;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.ListModel;
+import javax.swing.SwingWorker;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+
+import org.jdesktop.swingx.autocomplete.AutoCompleteDocument.LookupResult;
+
+/**
+ * A sorted index over the string representations of the items of a
+ * <code>ListModel</code>, answering the exact and prefix lookups of
+ * {@link AutoCompleteDocument} in logarithmic time.
+ * <p>
+ *
+ * The index keeps two sorted views of all (string, item position) entries, one
+ * case sensitive and one on case folded keys. Matching entries of a lookup
+ * form a contiguous range in the sorted view, a segment tree over the item
+ * positions returns the first item in list order within that range - which is
+ * the item a linear scan would have found.
+ * <p>
+ *
+ * The initial index is built on a background thread from a snapshot of the
+ * model's items, so the <code>ObjectToStringConverter</code> is invoked off the
+ * EDT. Afterwards the index follows the model's <code>ListDataEvent</code>s
+ * lazily, as updating the sorted views takes linear time: a single event
+ * received since the last lookup is applied incrementally, converting only the
+ * changed items, while several events - like a series of
+ * <code>addElement</code> calls - are coalesced into one rebuild, started in
+ * the background by {@link #isReady()}. All methods must be called on the EDT.
+ */
+class AutoCompleteIndex implements ListDataListener {
+    private static final Logger LOG = Logger.getLogger(AutoCompleteIndex.class.getName());
+
+    private final ListModel model;
+
+    private final ObjectToStringConverter stringConverter;
+
+    private View caseSensitive;
+
+    private View ignoreCase;
+
+    private Builder builder;
+
+    /** true if the model changed while the builder was running. */
+    private boolean stale;
+
+    /** the single event received since the last lookup, if any. */
+    private ListDataEvent pending;
+
+    /** true if several events were received since the last lookup. */
+    private boolean outdated;
+
+    /**
+     * Creates an index for the given model and starts building it in the
+     * background.
+     *
+     * @param model the model whose items are indexed
+     * @param stringConverter the converter used to transform items to strings
+     */
+    AutoCompleteIndex(ListModel model, ObjectToStringConverter stringConverter) {
+        this.model = model;
+        this.stringConverter = stringConverter;
+        model.addListDataListener(this);
+        rebuild();
+    }
+
+    /**
+     * Returns the model this index is built for.
+     *
+     * @return the indexed model
+     */
+    ListModel getModel() {
+        return model;
+    }
+
+    /**
+     * Stops listening to the model.
+     */
+    void release() {
+        model.removeListDataListener(this);
+        if (builder != null) {
+            builder.cancel(false);
+            builder = null;
+        }
+        pending = null;
+        outdated = false;
+        caseSensitive = null;
+        ignoreCase = null;
+    }
+
+    /**
+     * Returns whether the index is built and can answer lookups. Applies the
+     * events received since the last lookup, several of them by starting a
+     * rebuild in the background.
+     *
+     * @return true if the index is ready
+     */
+    boolean isReady() {
+        update(false);
+        return caseSensitive != null;
+    }
+
+    /**
+     * Returns the first item in list order with a string representation
+     * matching the pattern.
+     *
+     * @param pattern the pattern to match
+     * @param prefix true to match string representations starting with the
+     *   pattern, false to match equal string representations
+     * @param ignoreCase true to match regardless of case
+     * @return the lookup result or null if there is no match
+     */
+    LookupResult lookup(String pattern, boolean prefix, boolean ignoreCase) {
+        update(true);
+        View view = ignoreCase ? this.ignoreCase : caseSensitive;
+        String key = ignoreCase ? fold(pattern) : pattern;
+        int from = view.lowerBound(key);
+        int to = prefix ? view.prefixEnd(from, key) : view.upperBound(from, key);
+        int position = view.argMin(from, to);
+        if (position < 0) return null;
+        return new LookupResult(model.getElementAt(itemOf(view.orders[position])), view.values[position]);
+    }
+
+//---------------------- ListDataListener
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void intervalAdded(ListDataEvent e) {
+        received(e);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void intervalRemoved(ListDataEvent e) {
+        received(e);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void contentsChanged(ListDataEvent e) {
+        // JComboBox models notify selection changes with negative indices
+        if (e.getIndex0() < 0 && e.getIndex1() < 0) return;
+        received(e);
+    }
+
+    /**
+     * Defers the event to the next lookup.
+     *
+     * @param e the event received
+     */
+    private void received(ListDataEvent e) {
+        if (builder != null) {
+            // the snapshot of the running builder is outdated
+            stale = true;
+            return;
+        }
+        if (pending == null && !outdated) {
+            pending = e;
+        } else {
+            pending = null;
+            outdated = true;
+        }
+    }
+
+    /**
+     * Applies the events received since the last lookup.
+     *
+     * @param wait true to rebuild the index on the EDT if needed, false to
+     *   rebuild it in the background
+     */
+    private void update(boolean wait) {
+        ListDataEvent e = pending;
+        boolean rebuild = outdated || (e != null && !canApply(e));
+        pending = null;
+        outdated = false;
+        if (rebuild) {
+            if (wait) {
+                buildNow();
+            } else {
+                rebuild();
+            }
+        } else if (e != null) {
+            apply(e);
+        }
+    }
+
+    /**
+     * Returns whether the event can be applied incrementally.
+     *
+     * @param e the event to apply
+     * @return true if the event can be applied to the current views
+     */
+    private boolean canApply(ListDataEvent e) {
+        if (e.getIndex0() < 0 || e.getIndex1() < 0 || caseSensitive == null) {
+            return false;
+        }
+        int count = Math.abs(e.getIndex1() - e.getIndex0()) + 1;
+        return e.getType() != ListDataEvent.CONTENTS_CHANGED || count <= model.getSize() / 2;
+    }
+
+    /**
+     * Updates the views from the event, converting only the changed items.
+     *
+     * @param e the event to apply
+     */
+    private void apply(ListDataEvent e) {
+        int first = Math.min(e.getIndex0(), e.getIndex1());
+        int count = Math.abs(e.getIndex1() - e.getIndex0()) + 1;
+        switch (e.getType()) {
+        case ListDataEvent.INTERVAL_ADDED:
+            List<Entry> added = createEntries(model, first, first + count, stringConverter);
+            caseSensitive = caseSensitive.shift(first, count).merge(added, false);
+            ignoreCase = ignoreCase.shift(first, count).merge(added, true);
+            break;
+        case ListDataEvent.INTERVAL_REMOVED:
+            caseSensitive = caseSensitive.remove(first, first + count).shift(first + count, -count);
+            ignoreCase = ignoreCase.remove(first, first + count).shift(first + count, -count);
+            break;
+        default:
+            int end = Math.min(model.getSize(), first + count);
+            List<Entry> changed = createEntries(model, first, end, stringConverter);
+            caseSensitive = caseSensitive.remove(first, end).merge(changed, false);
+            ignoreCase = ignoreCase.remove(first, end).merge(changed, true);
+        }
+    }
+
+//---------------------- building
+
+    private void rebuild() {
+        if (builder != null) {
+            stale = true;
+            return;
+        }
+        stale = false;
+        caseSensitive = null;
+        ignoreCase = null;
+        builder = new Builder(snapshot());
+        builder.execute();
+    }
+
+    /**
+     * Builds the views on the EDT, unless the builder is running.
+     */
+    private void buildNow() {
+        if (builder != null) {
+            stale = true;
+            return;
+        }
+        View[] views = createViews(snapshot(), stringConverter);
+        caseSensitive = views[0];
+        ignoreCase = views[1];
+    }
+
+    private Object[] snapshot() {
+        Object[] items = new Object[model.getSize()];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = model.getElementAt(i);
+        }
+        return items;
+    }
+
+    private static View[] createViews(Object[] items, ObjectToStringConverter stringConverter) {
+        List<Entry> entries = createEntries(Arrays.asList(items), stringConverter);
+        return new View[] {View.create(entries, false), View.create(entries, true)};
+    }
+
+    /**
+     * Creates the views from a snapshot of the model's items.
+     */
+    private class Builder extends SwingWorker<View[], Void> {
+        private final Object[] items;
+
+        Builder(Object[] items) {
+            this.items = items;
+        }
+
+        @Override
+        protected View[] doInBackground() throws Exception {
+            return createViews(items, stringConverter);
+        }
+
+        @Override
+        protected void done() {
+            if (builder != this) return;
+            builder = null;
+            if (stale) {
+                rebuild();
+                return;
+            }
+            try {
+                View[] views = get();
+                caseSensitive = views[0];
+                ignoreCase = views[1];
+            } catch (InterruptedException e) {
+                // ignore
+            } catch (ExecutionException e) {
+                LOG.log(Level.WARNING, "building the auto-complete index failed", e.getCause());
+            }
+        }
+    }
+
+    private static List<Entry> createEntries(final ListModel model, final int from, final int to,
+            ObjectToStringConverter stringConverter) {
+        List<Entry> entries = createEntries(new AbstractList<Object>() {
+            @Override
+            public Object get(int index) {
+                return model.getElementAt(from + index);
+            }
+
+            @Override
+            public int size() {
+                return to - from;
+            }
+        }, stringConverter);
+        for (Entry entry : entries) {
+            entry.order += ((long) from) << 32;
+        }
+        return entries;
+    }
+
+    private static List<Entry> createEntries(List<?> items, ObjectToStringConverter stringConverter) {
+        List<Entry> entries = new ArrayList<Entry>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            String[] strings = stringConverter.getPossibleStringsForItem(items.get(i));
+            if (strings == null) continue;
+            for (int j = 0; j < strings.length; j++) {
+                if (strings[j] != null) {
+                    entries.add(new Entry(strings[j], orderOf(i, j)));
+                }
+            }
+        }
+        return entries;
+    }
+
+//---------------------- helpers
+
+    /**
+     * Returns a key which is equal for two strings if and only if
+     * <code>String.equalsIgnoreCase</code> returns true for them.
+     *
+     * @param value the string to fold
+     * @return the case folded key
+     */
+    static String fold(String value) {
+        char[] chars = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            char folded = Character.toLowerCase(Character.toUpperCase(c));
+            if (folded != c) {
+                if (chars == null) {
+                    chars = value.toCharArray();
+                }
+                chars[i] = folded;
+            }
+        }
+        return chars == null ? value : new String(chars);
+    }
+
+    /**
+     * Encodes the position of a string: the item's index in the model and the
+     * string's index in the item's possible strings.
+     */
+    private static long orderOf(int item, int string) {
+        return (((long) item) << 32) | string;
+    }
+
+    private static int itemOf(long order) {
+        return (int) (order >>> 32);
+    }
+
+    private static class Entry {
+        final String value;
+        long order;
+
+        Entry(String value, long order) {
+            this.value = value;
+            this.order = order;
+        }
+    }
+
+    private static final Comparator<Entry> ENTRY_COMPARATOR = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry o1, Entry o2) {
+            int result = o1.value.compareTo(o2.value);
+            if (result != 0) return result;
+            return o1.order < o2.order ? -1 : (o1.order == o2.order ? 0 : 1);
+        }
+    };
+
+    /**
+     * An immutable sorted view of all entries.
+     */
+    private static class View {
+        /** the sort keys, case folded for ignore case views. */
+        final String[] keys;
+
+        /** the original strings. */
+        final String[] values;
+
+        final long[] orders;
+
+        /** the number of leaves of the segment tree, a power of two. */
+        final int capacity;
+
+        /** segment tree of minimum orders, leaves start at capacity. */
+        final long[] tree;
+
+        final boolean folded;
+
+        View(String[] keys, String[] values, long[] orders, boolean folded) {
+            this.keys = keys;
+            this.values = values;
+            this.orders = orders;
+            this.folded = folded;
+            int n = orders.length;
+            int leaves = 1;
+            while (leaves < n) {
+                leaves <<= 1;
+            }
+            capacity = leaves;
+            tree = new long[2 * capacity];
+            Arrays.fill(tree, Long.MAX_VALUE);
+            System.arraycopy(orders, 0, tree, capacity, n);
+            for (int i = capacity - 1; i > 0; i--) {
+                tree[i] = Math.min(tree[2 * i], tree[2 * i + 1]);
+            }
+        }
+
+        static View create(List<Entry> entries, boolean folded) {
+            List<Entry> sorted = new ArrayList<Entry>(entries.size());
+            for (Entry entry : entries) {
+                sorted.add(folded ? new FoldedEntry(entry) : entry);
+            }
+            Collections.sort(sorted, ENTRY_COMPARATOR);
+            int n = sorted.size();
+            String[] keys = new String[n];
+            String[] values = new String[n];
+            long[] orders = new long[n];
+            for (int i = 0; i < n; i++) {
+                Entry entry = sorted.get(i);
+                keys[i] = entry.value;
+                values[i] = folded ? ((FoldedEntry) entry).original : entry.value;
+                orders[i] = entry.order;
+            }
+            return new View(keys, values, orders, folded);
+        }
+
+        /**
+         * Returns a view with all item positions >= from moved by delta.
+         */
+        View shift(int from, int delta) {
+            long[] shifted = orders.clone();
+            long offset = ((long) delta) << 32;
+            for (int i = 0; i < shifted.length; i++) {
+                if (itemOf(shifted[i]) >= from) {
+                    shifted[i] += offset;
+                }
+            }
+            return new View(keys, values, shifted, folded);
+        }
+
+        /**
+         * Returns a view without the entries of the items in [from, to).
+         */
+        View remove(int from, int to) {
+            int n = orders.length;
+            String[] newKeys = new String[n];
+            String[] newValues = new String[n];
+            long[] newOrders = new long[n];
+            int size = 0;
+            for (int i = 0; i < n; i++) {
+                int item = itemOf(orders[i]);
+                if (item >= from && item < to) continue;
+                newKeys[size] = keys[i];
+                newValues[size] = values[i];
+                newOrders[size] = orders[i];
+                size++;
+            }
+            return new View(Arrays.copyOf(newKeys, size), Arrays.copyOf(newValues, size),
+                    Arrays.copyOf(newOrders, size), folded);
+        }
+
+        /**
+         * Returns a view containing the entries of this and the given.
+         */
+        View merge(List<Entry> entries, boolean folded) {
+            View other = create(entries, folded);
+            int n = keys.length + other.keys.length;
+            String[] newKeys = new String[n];
+            String[] newValues = new String[n];
+            long[] newOrders = new long[n];
+            int i = 0;
+            int j = 0;
+            for (int k = 0; k < n; k++) {
+                boolean takeThis;
+                if (i >= keys.length) {
+                    takeThis = false;
+                } else if (j >= other.keys.length) {
+                    takeThis = true;
+                } else {
+                    int result = keys[i].compareTo(other.keys[j]);
+                    takeThis = result < 0 || (result == 0 && orders[i] < other.orders[j]);
+                }
+                if (takeThis) {
+                    newKeys[k] = keys[i];
+                    newValues[k] = values[i];
+                    newOrders[k] = orders[i];
+                    i++;
+                } else {
+                    newKeys[k] = other.keys[j];
+                    newValues[k] = other.values[j];
+                    newOrders[k] = other.orders[j];
+                    j++;
+                }
+            }
+            return new View(newKeys, newValues, newOrders, folded);
+        }
+
+        /**
+         * Returns the position of the first key >= the given key.
+         */
+        int lowerBound(String key) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Returns the position after the last key equal to the given key,
+         * starting at the lower bound.
+         */
+        int upperBound(int from, String key) {
+            int low = from;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(key) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Returns the position after the last key starting with the given
+         * prefix, starting at the lower bound.
+         */
+        int prefixEnd(int from, String prefix) {
+            int low = from;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].startsWith(prefix)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Returns the position of the smallest order in [from, to).
+         *
+         * @return the position or -1 if the range is empty
+         */
+        int argMin(int from, int to) {
+            if (from >= to) return -1;
+            return argMin(1, 0, capacity, from, to);
+        }
+
+        private int argMin(int node, int low, int high, int from, int to) {
+            if (to <= low || high <= from || tree[node] == Long.MAX_VALUE) return -1;
+            if (from <= low && high <= to) {
+                // completely covered: follow the minimum down to its leaf
+                while (node < capacity) {
+                    node = tree[2 * node] == tree[node] ? 2 * node : 2 * node + 1;
+                }
+                return node - capacity;
+            }
+            int mid = (low + high) >>> 1;
+            int left = argMin(2 * node, low, mid, from, to);
+            int right = argMin(2 * node + 1, mid, high, from, to);
+            if (left < 0) return right;
+            if (right < 0) return left;
+            return orders[left] <= orders[right] ? left : right;
+        }
+    }
+
+    /**
+     * An entry sorted by its case folded string.
+     */
+    private static class FoldedEntry extends Entry {
+        final String original;
+
+        FoldedEntry(Entry entry) {
+            super(fold(entry.value), entry.order);
+            this.original = entry.value;
+        }
+    }
+}
@@ -21,6 +21,7 @@
 package org.jdesktop.swingx.autocomplete;
 
 import javax.swing.JList;
+import javax.swing.ListModel;
 import javax.swing.event.ListSelectionListener;
 import javax.swing.text.JTextComponent;
 
@@ -100,6 +101,14 @@ public class ListAdaptor extends AbstractAutoCompleteAdaptor implements ListSele
         return list.getModel().getElementAt(index);
     }
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected ListModel getListModel() {
+        return list.getModel();
+    }
+    
     @Override
     public void setSelectedItem(Object item) {
         list.setSelectedValue(item, true);
@@ -0,0 +1,116 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.autocomplete;
+
+import static org.jdesktop.swingx.autocomplete.ObjectToStringConverter.DEFAULT_IMPLEMENTATION;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jdesktop.swingx.util.Contract;
+
+/**
+ * A source of completion candidates which doesn't need to keep all items in
+ * memory, f.i. a database or a file index. Used by
+ * {@link AsyncAutoCompleteAdaptor}, which queries the provider on a background
+ * thread, page by page.
+ * <p>
+ *
+ * Implementations must return the items any of whose possible strings (as
+ * returned by the adaptor's <code>ObjectToStringConverter</code>) start with
+ * the given prefix, ignoring case. The order of the items must be stable for a
+ * given prefix, as pages are requested by position.
+ *
+ * @see AsyncAutoCompleteAdaptor
+ * @see AutoCompleteDecorator#decorate(javax.swing.text.JTextComponent,
+ *      SuggestionProvider, ObjectToStringConverter)
+ */
+public interface SuggestionProvider {
+
+    /**
+     * Returns a page of the items matching the given prefix. Returning less
+     * than <code>count</code> items signals that there are no more matches.
+     * <p>
+     * This method is called on a background thread.
+     *
+     * @param prefix the text to be completed, never empty
+     * @param start the position of the first item to return
+     * @param count the maximum number of items to return
+     * @return the matching items from position <code>start</code> on
+     * @throws Exception if the items can't be retrieved
+     */
+    List<?> getSuggestions(String prefix, int start, int count) throws Exception;
+
+    /**
+     * A provider for items held in a <code>List</code>. Mainly useful as a
+     * local stand-in for a remote source, as it scans the items.
+     * <p>
+     * The list must not be modified while it is in use.
+     */
+    public static class ListSuggestionProvider implements SuggestionProvider {
+
+        private final List<?> items;
+
+        private final ObjectToStringConverter stringConverter;
+
+        /**
+         * Creates a provider for the given items, using the default
+         * string converter.
+         *
+         * @param items the items to suggest
+         */
+        public ListSuggestionProvider(List<?> items) {
+            this(items, null);
+        }
+
+        /**
+         * Creates a provider for the given items.
+         *
+         * @param items the items to suggest
+         * @param stringConverter the converter used to transform items to
+         *        strings, may be <code>null</code> to use the default
+         */
+        public ListSuggestionProvider(List<?> items, ObjectToStringConverter stringConverter) {
+            this.items = Contract.asNotNull(items, "items cannot be null");
+            this.stringConverter = stringConverter == null ? DEFAULT_IMPLEMENTATION : stringConverter;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public List<?> getSuggestions(String prefix, int start, int count) {
+            List<Object> page = new ArrayList<Object>(Math.min(count, 64));
+            int skip = start;
+            for (int i = 0, n = items.size(); i < n && page.size() < count; i++) {
+                Object item = items.get(i);
+                if (AsyncAutoCompleteAdaptor.matches(stringConverter, item, prefix)) {
+                    if (skip > 0) {
+                        skip--;
+                    } else {
+                        page.add(item);
+                    }
+                }
+            }
+            return page;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.autocomplete;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
+
+import junit.framework.TestCase;
+
+import org.jdesktop.swingx.autocomplete.SuggestionProvider.ListSuggestionProvider;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class AsyncAutoCompleteAdaptorTest extends TestCase {
+
+    private static final List<String> ITEMS = Arrays.asList(
+            "alpha", "beta", "betamax", "gamma", "Bettina", "delta");
+
+    /**
+     * Counts the queries and pages requested.
+     */
+    private static class CountingProvider extends ListSuggestionProvider {
+        final AtomicInteger pages = new AtomicInteger();
+        final List<String> prefixes = new ArrayList<String>();
+
+        CountingProvider(List<?> items) {
+            super(items);
+        }
+
+        @Override
+        public List<?> getSuggestions(String prefix, int start, int count) {
+            pages.incrementAndGet();
+            if (start == 0) {
+                synchronized (prefixes) {
+                    prefixes.add(prefix);
+                }
+            }
+            return super.getSuggestions(prefix, start, count);
+        }
+    }
+
+    @Test
+    public void testListSuggestionProviderPages() {
+        ListSuggestionProvider provider = new ListSuggestionProvider(ITEMS);
+        assertEquals(Arrays.asList("beta", "betamax", "Bettina"), provider.getSuggestions("BE", 0, 10));
+        assertEquals(Arrays.asList("betamax"), provider.getSuggestions("be", 1, 1));
+        assertEquals(0, provider.getSuggestions("be", 3, 10).size());
+    }
+
+    @Test
+    public void testCompletesWhenLoaded() throws Exception {
+        final CountingProvider provider = new CountingProvider(ITEMS);
+        final JTextField field = decorate(provider);
+        type(field, "bet");
+        waitIdle(field);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                assertEquals("beta", field.getText());
+                assertEquals("a", field.getSelectedText());
+                assertEquals("beta", getAdaptor(field).getSelectedItem());
+            }
+        });
+    }
+
+    @Test
+    public void testPagedLoading() throws Exception {
+        List<String> items = new ArrayList<String>();
+        for (int i = 0; i < 25; i++) {
+            items.add("item" + i);
+        }
+        final CountingProvider provider = new CountingProvider(items);
+        final JTextField field = decorate(provider);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                getAdaptor(field).setPageSize(10);
+                getAdaptor(field).setMaxSuggestions(20);
+            }
+        });
+        type(field, "i");
+        waitIdle(field);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                assertEquals(20, getAdaptor(field).getItemCount());
+                assertEquals("item19", getAdaptor(field).getItem(19));
+            }
+        });
+        assertEquals(2, provider.pages.get());
+    }
+
+    @Test
+    public void testCacheAndNarrowing() throws Exception {
+        final CountingProvider provider = new CountingProvider(ITEMS);
+        final JTextField field = decorate(provider);
+        type(field, "b");
+        waitIdle(field);
+        // a complete result for "b" answers "be" and "bett" locally
+        type(field, "e");
+        waitIdle(field);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                field.setText("");
+            }
+        });
+        type(field, "BETT");
+        waitIdle(field);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                assertEquals("Bettina", field.getText());
+                assertEquals(1, getAdaptor(field).getItemCount());
+            }
+        });
+        assertEquals(Arrays.asList("b"), provider.prefixes);
+    }
+
+    @Test
+    public void testSupersededQueryIsCancelled() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountingProvider provider = new CountingProvider(ITEMS) {
+            @Override
+            public List<?> getSuggestions(String prefix, int start, int count) {
+                if (prefix.equals("d")) {
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        // fall through
+                    }
+                }
+                return super.getSuggestions(prefix, start, count);
+            }
+        };
+        final JTextField field = decorate(provider);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                getAdaptor(field).setPageSize(1);
+            }
+        });
+        type(field, "d");
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                assertTrue(getAdaptor(field).isLoading());
+                field.setText("");
+            }
+        });
+        type(field, "g");
+        release.countDown();
+        waitIdle(field);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                assertEquals("gamma", field.getText());
+            }
+        });
+        // the query for "d" must not fetch its second page
+        Thread.sleep(100);
+        assertTrue(provider.prefixes.contains("g"));
+        assertTrue("pages: " + provider.pages.get(), provider.pages.get() <= 3);
+    }
+
+    private JTextField decorate(final SuggestionProvider provider) throws Exception {
+        final JTextField[] field = new JTextField[1];
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                field[0] = new JTextField();
+                AutoCompleteDecorator.decorate(field[0], provider, null);
+            }
+        });
+        return field[0];
+    }
+
+    private AsyncAutoCompleteAdaptor getAdaptor(JTextField field) {
+        return (AsyncAutoCompleteAdaptor) ((AutoCompleteDocument) field.getDocument()).adaptor;
+    }
+
+    private void type(final JTextField field, final String text) throws Exception {
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < text.length(); i++) {
+                    field.replaceSelection(text.substring(i, i + 1));
+                }
+            }
+        });
+    }
+
+    private void waitIdle(final JTextField field) throws Exception {
+        final boolean[] loading = {true};
+        for (int i = 0; i < 200 && loading[0]; i++) {
+            Thread.sleep(10);
+            SwingUtilities.invokeAndWait(new Runnable() {
+                @Override
+                public void run() {
+                    loading[0] = getAdaptor(field).isLoading();
+                }
+            });
+        }
+        assertFalse("query must finish", loading[0]);
+        // flush pending process/done notifications
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.autocomplete;
+
+import javax.swing.DefaultComboBoxModel;
+import javax.swing.DefaultListModel;
+import javax.swing.JComboBox;
+import javax.swing.SwingUtilities;
+import javax.swing.text.JTextComponent;
+
+import junit.framework.TestCase;
+
+import org.jdesktop.swingx.autocomplete.AutoCompleteDocument.LookupResult;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class AutoCompleteIndexTest extends TestCase {
+
+    @Test
+    public void testFold() {
+        assertEquals("abc", AutoCompleteIndex.fold("aBC"));
+        String lower = "abc";
+        assertSame("unchanged strings must not be copied", lower, AutoCompleteIndex.fold(lower));
+    }
+
+    @Test
+    public void testLookupFirstInListOrder() throws Exception {
+        DefaultListModel model = new DefaultListModel();
+        model.addElement("Zebra");
+        model.addElement("apple");
+        model.addElement("Apricot");
+        model.addElement("apple pie");
+        model.addElement("Apple");
+        AutoCompleteIndex index = createIndex(model);
+
+        assertResult(index.lookup("apple", false, false), "apple", "apple");
+        assertResult(index.lookup("Apple", false, false), "Apple", "Apple");
+        assertResult(index.lookup("ap", true, false), "apple", "apple");
+        assertResult(index.lookup("Ap", true, false), "Apricot", "Apricot");
+        assertResult(index.lookup("APPLE", false, true), "apple", "apple");
+        assertResult(index.lookup("APR", true, true), "Apricot", "Apricot");
+        assertResult(index.lookup("z", true, true), "Zebra", "Zebra");
+        assertNull(index.lookup("b", true, true));
+        assertNull(index.lookup("Apples", false, true));
+    }
+
+    @Test
+    public void testPossibleStrings() throws Exception {
+        DefaultListModel model = new DefaultListModel();
+        model.addElement("Frankfurt");
+        model.addElement("Munich");
+        AutoCompleteIndex index = createIndex(model, new ObjectToStringConverter() {
+            @Override
+            public String[] getPossibleStringsForItem(Object item) {
+                String name = (String) item;
+                return new String[] {name, name.substring(0, 3).toUpperCase()};
+            }
+
+            @Override
+            public String getPreferredStringForItem(Object item) {
+                return (String) item;
+            }
+        });
+        assertResult(index.lookup("MUN", false, false), "Munich", "MUN");
+        assertResult(index.lookup("Mu", true, false), "Munich", "Munich");
+        assertResult(index.lookup("mu", true, true), "Munich", "Munich");
+        assertResult(index.lookup("FR", true, false), "Frankfurt", "FRA");
+    }
+
+    @Test
+    public void testUpdateFromListDataEvents() throws Exception {
+        final DefaultListModel model = new DefaultListModel();
+        for (int i = 0; i < 100; i++) {
+            model.addElement("item" + i);
+        }
+        final AutoCompleteIndex index = createIndex(model);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                model.add(0, "item50");
+                assertSame(model.getElementAt(0), index.lookup("item50", false, false).matchingItem);
+                assertResult(index.lookup("item99", false, false), "item99", "item99");
+                model.remove(0);
+                model.remove(0);
+                assertNull(index.lookup("item0", false, false));
+                assertResult(index.lookup("item1", true, false), "item1", "item1");
+                model.set(10, "changed");
+                assertNull(index.lookup("item11", false, false));
+                assertResult(index.lookup("ch", true, false), "changed", "changed");
+            }
+        });
+    }
+
+    /**
+     * A series of events is coalesced into a rebuild on the next lookup.
+     */
+    @Test
+    public void testManyEventsRebuildLazily() throws Exception {
+        final DefaultListModel model = new DefaultListModel();
+        final AutoCompleteIndex index = createIndex(model);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 1000; i++) {
+                    model.addElement("item" + i);
+                }
+                assertFalse("several events are applied by a background rebuild",
+                        index.isReady());
+            }
+        });
+        waitUntilReady(index);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                assertResult(index.lookup("item999", false, false), "item999", "item999");
+                model.addElement("last");
+                model.removeElement("item0");
+                assertResult(index.lookup("la", true, false), "last", "last");
+                assertNull(index.lookup("item0", false, false));
+            }
+        });
+    }
+
+    @Test
+    public void testDocumentUsesIndex() throws Exception {
+        final String[] items = new String[50];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = "item" + i;
+        }
+        final JComboBox[] comboBox = new JComboBox[1];
+        final AutoCompleteDocument[] document = new AutoCompleteDocument[1];
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                comboBox[0] = new JComboBox(new DefaultComboBoxModel(items));
+                ComboBoxAdaptor adaptor = new ComboBoxAdaptor(comboBox[0]) {
+                    @Override
+                    public JTextComponent getTextComponent() {
+                        return (JTextComponent) comboBox[0].getEditor().getEditorComponent();
+                    }
+                };
+                document[0] = new AutoCompleteDocument(adaptor, true);
+                document[0].setIndexThreshold(10);
+                adaptor.getTextComponent().setDocument(document[0]);
+            }
+        });
+        waitUntilReady(document[0]);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    document[0].remove(0, document[0].getLength());
+                    document[0].insertString(0, "ITEM4", null);
+                } catch (Exception e) {
+                    fail(e.getMessage());
+                }
+                assertEquals("item4", comboBox[0].getSelectedItem());
+            }
+        });
+    }
+
+    private void waitUntilReady(final AutoCompleteDocument document) throws Exception {
+        final AutoCompleteIndex[] index = new AutoCompleteIndex[1];
+        // the document doesn't expose its index, look it up through the model
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                ComboBoxAdaptor adaptor = (ComboBoxAdaptor) document.adaptor;
+                for (Object l : ((DefaultComboBoxModel) adaptor.getListModel()).getListDataListeners()) {
+                    if (l instanceof AutoCompleteIndex) {
+                        index[0] = (AutoCompleteIndex) l;
+                    }
+                }
+            }
+        });
+        assertNotNull(index[0]);
+        waitUntilReady(index[0]);
+    }
+
+    private AutoCompleteIndex createIndex(DefaultListModel model) throws Exception {
+        return createIndex(model, ObjectToStringConverter.DEFAULT_IMPLEMENTATION);
+    }
+
+    private AutoCompleteIndex createIndex(final DefaultListModel model,
+            final ObjectToStringConverter converter) throws Exception {
+        final AutoCompleteIndex[] index = new AutoCompleteIndex[1];
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                index[0] = new AutoCompleteIndex(model, converter);
+            }
+        });
+        waitUntilReady(index[0]);
+        return index[0];
+    }
+
+    private void waitUntilReady(final AutoCompleteIndex index) throws Exception {
+        final boolean[] ready = new boolean[1];
+        for (int i = 0; i < 200 && !ready[0]; i++) {
+            Thread.sleep(10);
+            SwingUtilities.invokeAndWait(new Runnable() {
+                @Override
+                public void run() {
+                    ready[0] = index.isReady();
+                }
+            });
+        }
+        assertTrue("index must be built", ready[0]);
+    }
+
+    private void assertResult(LookupResult result, Object item, String string) {
+        assertNotNull(result);
+        assertEquals(item, result.matchingItem);
+        assertEquals(string, result.matchingString);
+    }
+}
@@ -0,0 +1,616 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.util;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.font.LineBreakMeasurer;
+import java.awt.font.TextAttribute;
+import java.awt.font.TextLayout;
+import java.text.AttributedString;
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded cache of laid-out text, shared by painters and components which paint the same
+ * strings over and over again, f.i. when used as cell renderers. The least recently used
+ * entries are dropped if the capacity is exceeded.
+ * <p>
+ * 
+ * The cache holds {@link Glyphs} for a string in a font and render context, and
+ * {@link WrappedText} for a string broken into lines of a given width. Clients may store
+ * other layout products under their own keys, which must implement {@code equals} and
+ * {@code hashCode} and must not be equal to keys of other clients. Cached values are shared
+ * and must not be modified.
+ * <p>
+ * 
+ * This class is thread safe.
+ */
+public class TextLayoutCache {
+
+    /**
+     * The capacity of the shared cache.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final TextLayoutCache SHARED = new TextLayoutCache(DEFAULT_CAPACITY);
+
+    private final int capacity;
+
+    private final Map<Object, Object> entries;
+
+    private int hits;
+
+    private int misses;
+
+    /**
+     * Returns the cache shared by all SwingX painters and components.
+     * 
+     * @return the shared cache
+     */
+    public static TextLayoutCache getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Creates a cache which holds up to the given number of entries.
+     * 
+     * @param capacity the maximum number of entries
+     * @throws IllegalArgumentException if capacity is less than 1
+     */
+    public TextLayoutCache(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        entries = new LinkedHashMap<Object, Object>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the maximum number of entries.
+     * 
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the cached value for the given key.
+     * 
+     * @param key the key, must not be null
+     * @return the cached value or null if there is none
+     */
+    public synchronized Object get(Object key) {
+        Object value = entries.get(Contract.asNotNull(key, "key must not be null"));
+        if (value == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return value;
+    }
+
+    /**
+     * Caches the given value.
+     * 
+     * @param key the key, must not be null
+     * @param value the value, must not be null
+     */
+    public synchronized void put(Object key, Object value) {
+        entries.put(Contract.asNotNull(key, "key must not be null"),
+                Contract.asNotNull(value, "value must not be null"));
+    }
+
+    /**
+     * Returns the glyphs of the given text as rendered with the font into the graphics.
+     * 
+     * @param text the text, must not be null
+     * @param font the font, must not be null
+     * @param g the graphics the text is rendered into, determines the render context
+     * @return the laid-out glyphs
+     */
+    public Glyphs getGlyphs(String text, Font font, Graphics2D g) {
+        GlyphsKey key = new GlyphsKey(text, font, g.getFontRenderContext());
+        Glyphs glyphs = (Glyphs) get(key);
+        if (glyphs == null) {
+            glyphs = new Glyphs(text, font, g.getFontMetrics(font), key.frc);
+            put(key, glyphs);
+        }
+        return glyphs;
+    }
+
+    /**
+     * Returns the text broken into lines which fit into the given width. Lines are broken at
+     * line feeds and at word boundaries as found by a line {@link BreakIterator}, or within
+     * words which don't fit on a line of their own. Text which needs complex layout, like bidi
+     * or shaping, is broken by a {@link LineBreakMeasurer}.
+     * 
+     * @param text the text, must not be null
+     * @param metrics the metrics of the font and render context to lay out the text for
+     * @param width the width of the lines, or 0 to break at line feeds only
+     * @return the wrapped text
+     */
+    public WrappedText getWrappedText(String text, FontMetrics metrics, float width) {
+        WrappedTextKey key = new WrappedTextKey(text, metrics.getFont(),
+                metrics.getFontRenderContext(), Math.max(0, width));
+        WrappedText wrapped = (WrappedText) get(key);
+        if (wrapped == null) {
+            wrapped = new WrappedText(text, metrics, key.width);
+            put(key, wrapped);
+        }
+        return wrapped;
+    }
+
+    /**
+     * Returns the current number of entries.
+     * 
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of lookups which found a cached value.
+     * 
+     * @return the number of hits
+     */
+    public synchronized int getHitCount() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups which didn't find a cached value.
+     * 
+     * @return the number of misses
+     */
+    public synchronized int getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Removes all entries and resets the statistics.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * Returns whether the text can be drawn glyph by glyph, without bidi reordering,
+     * shaping or text attributes.
+     */
+    private static boolean isSimple(String text, Font font) {
+        if (font.hasLayoutAttributes()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            // combining marks and all scripts which may need shaping start here
+            if (text.charAt(i) >= '\u0300') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A single line of text laid out in a font and render context, with the metrics as reported
+     * by the {@code FontMetrics}.
+     */
+    public static final class Glyphs {
+        private final String text;
+
+        private final Font font;
+
+        private final GlyphVector glyphVector;
+
+        private final boolean simple;
+
+        private final int width;
+
+        private final int ascent;
+
+        private final int height;
+
+        Glyphs(String text, Font font, FontMetrics metrics, FontRenderContext frc) {
+            this.text = text;
+            this.font = font;
+            glyphVector = font.createGlyphVector(frc, text);
+            simple = isSimple(text, font);
+            width = metrics.stringWidth(text);
+            ascent = metrics.getAscent();
+            height = metrics.getHeight();
+        }
+
+        /**
+         * Returns the text.
+         * 
+         * @return the text
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * Returns the font.
+         * 
+         * @return the font
+         */
+        public Font getFont() {
+            return font;
+        }
+
+        /**
+         * Returns the glyph vector of the text. The vector is shared and must not be modified.
+         * 
+         * @return the glyph vector
+         */
+        public GlyphVector getGlyphVector() {
+            return glyphVector;
+        }
+
+        /**
+         * Returns the advance width of the text.
+         * 
+         * @return the width as reported by {@link FontMetrics#stringWidth(String)}
+         */
+        public int getWidth() {
+            return width;
+        }
+
+        /**
+         * Returns the ascent of the font.
+         * 
+         * @return the ascent as reported by {@link FontMetrics#getAscent()}
+         */
+        public int getAscent() {
+            return ascent;
+        }
+
+        /**
+         * Returns the line height of the font.
+         * 
+         * @return the height as reported by {@link FontMetrics#getHeight()}
+         */
+        public int getHeight() {
+            return height;
+        }
+
+        /**
+         * Draws the text with its baseline at the given position. Uses the cached glyphs if
+         * that renders the same as {@link Graphics2D#drawString(String, float, float)}, which
+         * is used otherwise.
+         * 
+         * @param g the graphics to draw into, must have the render context the glyphs were laid
+         *            out for
+         * @param x the x coordinate of the baseline start
+         * @param y the y coordinate of the baseline
+         */
+        public void draw(Graphics2D g, float x, float y) {
+            if (simple) {
+                g.drawGlyphVector(glyphVector, x, y);
+            } else {
+                Font old = g.getFont();
+                g.setFont(font);
+                g.drawString(text, x, y);
+                g.setFont(old);
+            }
+        }
+    }
+
+    /**
+     * A text broken into lines. Lines of simple text are measured and drawn like
+     * {@link Graphics2D#drawString(String, float, float)} does, lines of text which needs complex
+     * layout are laid out as {@code TextLayout}s.
+     */
+    public static final class WrappedText {
+        private final Font font;
+
+        private final FontRenderContext frc;
+
+        private final List<String> lines = new ArrayList<String>();
+
+        private final List<TextLayout> layouts = new ArrayList<TextLayout>();
+
+        private final List<Float> advances = new ArrayList<Float>();
+
+        private final List<Float> baselines = new ArrayList<Float>();
+
+        private final List<Boolean> paragraphEnds = new ArrayList<Boolean>();
+
+        private float width;
+
+        private float height;
+
+        WrappedText(String text, FontMetrics metrics, float wrappingWidth) {
+            font = metrics.getFont();
+            frc = metrics.getFontRenderContext();
+            
+            for (int start = 0; start <= text.length();) {
+                int end = text.indexOf('\n', start);
+                if (end < 0) {
+                    end = text.length();
+                }
+                String paragraph = text.substring(start, end);
+                // an empty paragraph is an empty line of the font's height
+                if (paragraph.length() == 0 || isSimple(paragraph, font)) {
+                    breakSimple(paragraph, metrics, wrappingWidth);
+                } else {
+                    breakComplex(paragraph, wrappingWidth);
+                }
+                paragraphEnds.set(paragraphEnds.size() - 1, Boolean.TRUE);
+                start = end + 1;
+            }
+        }
+
+        private void breakSimple(String paragraph, FontMetrics metrics, float wrappingWidth) {
+            char[] chars = paragraph.toCharArray();
+            int start = 0;
+            
+            if (wrappingWidth > 0) {
+                BreakIterator breaks = BreakIterator.getLineInstance();
+                breaks.setText(paragraph);
+                int fit = 0;
+                int end = breaks.next();
+                
+                while (end != BreakIterator.DONE) {
+                    if (getVisibleWidth(chars, start, end, metrics) <= wrappingWidth) {
+                        fit = end;
+                        end = breaks.next();
+                    } else if (fit > start) {
+                        addSimpleLine(chars, start, fit, metrics);
+                        start = fit;
+                    } else {
+                        // a word wider than the line, break it within
+                        int split = start + 1;
+                        while (split < end
+                                && metrics.charsWidth(chars, start, split + 1 - start) <= wrappingWidth) {
+                            split++;
+                        }
+                        addSimpleLine(chars, start, split, metrics);
+                        start = split;
+                        fit = split;
+                    }
+                }
+            }
+            if (start < chars.length || chars.length == 0) {
+                addSimpleLine(chars, start, chars.length, metrics);
+            }
+        }
+
+        private static int getVisibleWidth(char[] chars, int start, int end, FontMetrics metrics) {
+            while (end > start && Character.isWhitespace(chars[end - 1])) {
+                end--;
+            }
+            return metrics.charsWidth(chars, start, end - start);
+        }
+
+        private void addSimpleLine(char[] chars, int start, int end, FontMetrics metrics) {
+            addLine(new String(chars, start, end - start), null, getVisibleWidth(chars, start, end, metrics),
+                    metrics.getAscent(), metrics.getHeight());
+        }
+
+        private void breakComplex(String paragraph, float wrappingWidth) {
+            AttributedString styled = new AttributedString(paragraph);
+            styled.addAttribute(TextAttribute.FONT, font);
+            LineBreakMeasurer measurer = new LineBreakMeasurer(styled.getIterator(), frc);
+            
+            while (measurer.getPosition() < paragraph.length()) {
+                int start = measurer.getPosition();
+                TextLayout layout = measurer.nextLayout(wrappingWidth > 0 ? wrappingWidth : Float.MAX_VALUE);
+                addLine(paragraph.substring(start, measurer.getPosition()), layout,
+                        layout.getVisibleAdvance(), layout.getAscent(),
+                        layout.getAscent() + layout.getDescent() + layout.getLeading());
+            }
+        }
+
+        private void addLine(String line, TextLayout layout, float advance, float ascent, float lineHeight) {
+            lines.add(line);
+            layouts.add(layout);
+            advances.add(advance);
+            baselines.add(height + ascent);
+            paragraphEnds.add(Boolean.FALSE);
+            width = Math.max(width, advance);
+            height += lineHeight;
+        }
+
+        /**
+         * Returns the number of lines.
+         * 
+         * @return the number of lines, at least 1
+         */
+        public int getLineCount() {
+            return lines.size();
+        }
+
+        /**
+         * Returns the text of the given line.
+         * 
+         * @param line the index of the line
+         * @return the text of the line, including trailing white space
+         */
+        public String getLine(int line) {
+            return lines.get(line);
+        }
+
+        /**
+         * Returns the advance of the given line, without trailing white space.
+         * 
+         * @param line the index of the line
+         * @return the visible advance of the line
+         */
+        public float getAdvance(int line) {
+            return advances.get(line);
+        }
+
+        /**
+         * Returns the offset of the baseline of the given line from the top of the text.
+         * 
+         * @param line the index of the line
+         * @return the baseline of the line
+         */
+        public float getBaseline(int line) {
+            return baselines.get(line);
+        }
+
+        /**
+         * Returns whether the given line is the last line of a paragraph.
+         * 
+         * @param line the index of the line
+         * @return true if the line is followed by a line feed or is the last line
+         */
+        public boolean isParagraphEnd(int line) {
+            return paragraphEnds.get(line);
+        }
+
+        /**
+         * Returns the advance of the longest line.
+         * 
+         * @return the width of the text
+         */
+        public float getWidth() {
+            return width;
+        }
+
+        /**
+         * Returns the height of all lines.
+         * 
+         * @return the height of the text
+         */
+        public float getHeight() {
+            return height;
+        }
+
+        /**
+         * Draws the given line with its baseline at the given position.
+         * 
+         * @param g the graphics to draw into
+         * @param line the index of the line
+         * @param x the x coordinate of the baseline start
+         * @param y the y coordinate of the baseline
+         */
+        public void draw(Graphics2D g, int line, float x, float y) {
+            if (layouts.get(line) != null) {
+                layouts.get(line).draw(g, x, y);
+            } else if (lines.get(line).length() > 0) {
+                Font old = g.getFont();
+                g.setFont(font);
+                g.drawString(lines.get(line), x, y);
+                g.setFont(old);
+            }
+        }
+
+        /**
+         * Draws the given line with its baseline at the given position, justified to the given
+         * width.
+         * 
+         * @param g the graphics to draw into
+         * @param line the index of the line
+         * @param x the x coordinate of the baseline start
+         * @param y the y coordinate of the baseline
+         * @param justificationWidth the width to justify the line to
+         */
+        public void drawJustified(Graphics2D g, int line, float x, float y, float justificationWidth) {
+            TextLayout layout = layouts.get(line);
+            if (layout == null) {
+                if (lines.get(line).length() == 0) {
+                    return;
+                }
+                layout = new TextLayout(lines.get(line), font, frc);
+            }
+            layout.getJustifiedLayout(justificationWidth).draw(g, x, y);
+        }
+    }
+
+    private static final class GlyphsKey {
+        private final String text;
+
+        private final Font font;
+
+        private final FontRenderContext frc;
+
+        GlyphsKey(String text, Font font, FontRenderContext frc) {
+            this.text = Contract.asNotNull(text, "text must not be null");
+            this.font = Contract.asNotNull(font, "font must not be null");
+            this.frc = frc;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof GlyphsKey)) {
+                return false;
+            }
+            GlyphsKey other = (GlyphsKey) obj;
+            return text.equals(other.text) && font.equals(other.font) && frc.equals(other.frc);
+        }
+
+        @Override
+        public int hashCode() {
+            return (text.hashCode() * 31 + font.hashCode()) * 31 + frc.hashCode();
+        }
+    }
+
+    private static final class WrappedTextKey {
+        private final String text;
+
+        private final Font font;
+
+        private final FontRenderContext frc;
+
+        private final float width;
+
+        WrappedTextKey(String text, Font font, FontRenderContext frc, float width) {
+            this.text = Contract.asNotNull(text, "text must not be null");
+            this.font = Contract.asNotNull(font, "font must not be null");
+            this.frc = frc;
+            this.width = width;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof WrappedTextKey)) {
+                return false;
+            }
+            WrappedTextKey other = (WrappedTextKey) obj;
+            return width == other.width && text.equals(other.text) && font.equals(other.font)
+                    && frc.equals(other.frc);
+        }
+
+        @Override
+        public int hashCode() {
+            return ((text.hashCode() * 31 + font.hashCode()) * 31 + frc.hashCode()) * 31
+                    + Float.floatToIntBits(width);
+        }
+    }
+}
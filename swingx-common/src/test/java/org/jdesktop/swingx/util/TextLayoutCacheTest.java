@@ -0,0 +1,158 @@
+package org.jdesktop.swingx.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.font.TextAttribute;
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+
+import org.jdesktop.swingx.util.TextLayoutCache.Glyphs;
+import org.jdesktop.swingx.util.TextLayoutCache.WrappedText;
+import org.junit.Test;
+
+@SuppressWarnings("nls")
+public class TextLayoutCacheTest {
+    private static final Font FONT = new Font("Dialog", Font.PLAIN, 14);
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new TextLayoutCache(0);
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        TextLayoutCache cache = new TextLayoutCache(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+        cache.put("c", 3);
+        assertThat(cache.size(), is(2));
+        assertThat(cache.get("b"), is(nullValue()));
+        assertThat(cache.get("a"), is((Object) 1));
+        assertThat(cache.getHitCount(), is(2));
+        assertThat(cache.getMissCount(), is(1));
+    }
+
+    @Test
+    public void testGlyphsShared() {
+        TextLayoutCache cache = new TextLayoutCache(10);
+        BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        Glyphs glyphs = cache.getGlyphs("text", FONT, g);
+        FontMetrics metrics = g.getFontMetrics(FONT);
+        assertThat(glyphs.getWidth(), is(metrics.stringWidth("text")));
+        assertThat(glyphs.getAscent(), is(metrics.getAscent()));
+        assertThat(glyphs.getHeight(), is(metrics.getHeight()));
+        assertThat(cache.getGlyphs("text", FONT, g), is(sameInstance(glyphs)));
+        
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        assertThat(cache.getGlyphs("text", FONT, g), not(sameInstance(glyphs)));
+        g.dispose();
+    }
+
+    @Test
+    public void testWrappedText() {
+        TextLayoutCache cache = new TextLayoutCache(10);
+        BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        FontMetrics metrics = g.getFontMetrics(FONT);
+        g.dispose();
+        
+        WrappedText unwrapped = cache.getWrappedText("one two three\n\nfour", metrics, 0);
+        assertThat(unwrapped.getLineCount(), is(3));
+        assertThat(unwrapped.getLine(0), is("one two three"));
+        assertThat(unwrapped.getLine(1), is(""));
+        assertThat(unwrapped.isParagraphEnd(0), is(true));
+        assertEquals(3 * metrics.getHeight(), unwrapped.getHeight(), 0f);
+        assertEquals(metrics.stringWidth("one two three"), unwrapped.getWidth(), 0f);
+        assertThat(cache.getWrappedText("one two three\n\nfour", metrics, 0), is(sameInstance(unwrapped)));
+        
+        WrappedText wrapped = cache.getWrappedText("one two three", metrics,
+                metrics.stringWidth("one two"));
+        assertThat(wrapped.getLineCount(), is(2));
+        assertThat(wrapped.getLine(0), is("one two "));
+        assertEquals(metrics.stringWidth("one two"), wrapped.getAdvance(0), 0f);
+        assertThat(wrapped.isParagraphEnd(0), is(false));
+        assertEquals(metrics.getHeight() + metrics.getAscent(), wrapped.getBaseline(1), 0f);
+        
+        WrappedText split = cache.getWrappedText("abcdefgh", metrics, metrics.stringWidth("abcd"));
+        assertThat(split.getLine(0), is("abcd"));
+        assertThat(split.getLine(1), is("efgh"));
+    }
+
+    /**
+     * Empty paragraphs of text needing complex layout, f.i. with an underlined
+     * font, are empty lines of the font's height.
+     */
+    @Test
+    public void testWrappedTextEmptyComplexParagraphs() {
+        TextLayoutCache cache = new TextLayoutCache(10);
+        Font underlined = FONT.deriveFont(
+                Collections.singletonMap(TextAttribute.UNDERLINE, TextAttribute.UNDERLINE_ON));
+        BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        FontMetrics metrics = g.getFontMetrics(underlined);
+        g.dispose();
+        
+        WrappedText empty = cache.getWrappedText("", metrics, 100);
+        assertThat(empty.getLineCount(), is(1));
+        assertThat(empty.isParagraphEnd(0), is(true));
+        assertEquals(metrics.getHeight(), empty.getHeight(), 0f);
+        
+        WrappedText blank = cache.getWrappedText("first line\n\nthird", metrics, 0);
+        assertThat(blank.getLineCount(), is(3));
+        assertThat(blank.getLine(1), is(""));
+        assertThat(blank.isParagraphEnd(0), is(true));
+        assertThat(blank.isParagraphEnd(1), is(true));
+        
+        WrappedText leading = cache.getWrappedText("\nab", metrics, 0);
+        assertThat(leading.getLineCount(), is(2));
+        assertThat(leading.getLine(0), is(""));
+        assertThat(leading.isParagraphEnd(0), is(true));
+        assertThat(leading.getLine(1), is("ab"));
+        
+        WrappedText trailing = cache.getWrappedText("ab\n", metrics, 0);
+        assertThat(trailing.getLineCount(), is(2));
+        assertThat(trailing.isParagraphEnd(0), is(true));
+        assertThat(trailing.getLine(1), is(""));
+        assertThat(trailing.isParagraphEnd(1), is(true));
+    }
+
+    /**
+     * The cached glyphs must render like drawString, for simple and complex text.
+     */
+    @Test
+    public void testDrawLikeDrawString() {
+        TextLayoutCache cache = new TextLayoutCache(10);
+        for (String text : new String[] {"Hello World", "Gr\u00fc\u00dfe", "\u05e9\u05dc\u05d5\u05dd abc"}) {
+            BufferedImage expected = new BufferedImage(120, 30, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = expected.createGraphics();
+            g.setColor(Color.BLACK);
+            g.setFont(FONT);
+            g.drawString(text, 2, 20);
+            g.dispose();
+            
+            BufferedImage actual = new BufferedImage(120, 30, BufferedImage.TYPE_INT_ARGB);
+            g = actual.createGraphics();
+            g.setColor(Color.BLACK);
+            cache.getGlyphs(text, FONT, g).draw(g, 2, 20);
+            g.dispose();
+            
+            for (int y = 0; y < expected.getHeight(); y++) {
+                for (int x = 0; x < expected.getWidth(); x++) {
+                    assertEquals(text + " at " + x + ", " + y, expected.getRGB(x, y), actual.getRGB(x, y));
+                }
+            }
+        }
+    }
+}
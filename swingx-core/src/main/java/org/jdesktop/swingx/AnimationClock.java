@@ -0,0 +1,426 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+import org.jdesktop.swingx.util.Contract;
+
+/**
+ * A clock driving the animations of several components with a single timer.
+ * Instead of starting a {@code Timer} per component, animated components
+ * subscribe to the clock with the period of their animation:
+ * 
+ * <pre>
+ * Subscription subscription = AnimationClock.getDefault().subscribe(
+ *         component, 100, new ActionListener() {
+ *             public void actionPerformed(ActionEvent e) {
+ *                 nextFrame();
+ *                 component.repaint();
+ *             }
+ *         });
+ * ...
+ * subscription.cancel();
+ * </pre>
+ * 
+ * The clock counts time in steps of a fixed resolution and notifies each
+ * subscriber on every tick its period is due, so subscribers with the same
+ * period are notified in the same tick and stay in phase. The timer only fires
+ * as often as needed, at the greatest common divisor of the periods of the
+ * showing subscribers: a single busy label with a period of 100 ms wakes the
+ * EDT every 100 ms, not at every step of the resolution. A new subscriber whose
+ * component is showing gets its first notification right away, on the next
+ * event of the EDT. As all subscribers are notified in a single
+ * event, the repaints they request are coalesced by the
+ * {@code RepaintManager} and painted in one pass.
+ * <p>
+ * Subscribers whose component isn't showing are skipped. While none of the
+ * components is showing, the clock stops ticking; it resumes as soon as one of
+ * them is shown again.
+ * <p>
+ * The clock keeps statistics of the time spent notifying the subscribers per
+ * frame and of the actual interval between frames, which may be larger than
+ * the resolution if the EDT is busy.
+ * <p>
+ * The clock must be used on the EDT only.
+ */
+public class AnimationClock {
+    /**
+     * The default resolution of the clock in milliseconds.
+     */
+    public static final int DEFAULT_RESOLUTION = 10;
+    
+    private static AnimationClock defaultClock;
+    
+    private final int resolution;
+    private final Timer timer;
+    private final List<Subscription> subscriptions = new ArrayList<Subscription>();
+    private long tick;
+    private int step = 1;
+    
+    private long frameCount;
+    private long totalFrameTime;
+    private long maxFrameTime;
+    private long lastFrame;
+    private long intervalCount;
+    private long totalInterval;
+    private long maxInterval;
+    
+    /**
+     * Returns the clock shared by the components of SwingX.
+     * 
+     * @return the default clock
+     */
+    public static AnimationClock getDefault() {
+        if (defaultClock == null) {
+            defaultClock = new AnimationClock(DEFAULT_RESOLUTION);
+        }
+        
+        return defaultClock;
+    }
+    
+    /**
+     * Creates a clock with the given resolution.
+     * 
+     * @param resolution
+     *            the time between ticks in milliseconds
+     * @throws IllegalArgumentException
+     *             if {@code resolution} is not positive
+     */
+    public AnimationClock(int resolution) {
+        if (resolution <= 0) {
+            throw new IllegalArgumentException("resolution must be positive");
+        }
+        
+        this.resolution = resolution;
+        timer = new Timer(resolution, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                tick(e.getWhen());
+            }
+        });
+    }
+    
+    /**
+     * Returns the time between ticks.
+     * 
+     * @return the resolution in milliseconds
+     */
+    public int getResolution() {
+        return resolution;
+    }
+    
+    /**
+     * Subscribes a listener to be notified periodically while the component is
+     * showing. The period is rounded to a multiple of the resolution. The
+     * source of the events is the component.
+     * 
+     * @param component
+     *            the animated component
+     * @param period
+     *            the time between notifications in milliseconds
+     * @param listener
+     *            the listener to notify
+     * @return the subscription, used to change the period and to cancel
+     * @throws NullPointerException
+     *             if {@code component} or {@code listener} is {@code null}
+     */
+    public Subscription subscribe(JComponent component, int period, ActionListener listener) {
+        final Subscription subscription = new Subscription(
+                Contract.asNotNull(component, "component cannot be null"),
+                Contract.asNotNull(listener, "listener cannot be null"));
+        subscription.setPeriod(period);
+        subscriptions.add(subscription);
+        component.addHierarchyListener(subscription);
+        updateTimer();
+        
+        if (component.isShowing()) {
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    subscription.fire(System.currentTimeMillis());
+                }
+            });
+        }
+        
+        return subscription;
+    }
+    
+    /**
+     * Returns the number of subscriptions, including those whose component
+     * isn't showing.
+     * 
+     * @return the number of subscriptions
+     */
+    public int getSubscriptionCount() {
+        return subscriptions.size();
+    }
+    
+    /**
+     * Returns whether the clock is ticking, that is if any of the subscribed
+     * components is showing.
+     * 
+     * @return {@code true} if the clock is ticking
+     */
+    public boolean isRunning() {
+        return timer.isRunning();
+    }
+    
+    /**
+     * Returns the time between two events of the timer, a multiple of the
+     * resolution.
+     */
+    int getDelay() {
+        return timer.getDelay();
+    }
+    
+    /**
+     * Returns the number of frames, that is the ticks which notified at least
+     * one subscriber.
+     * 
+     * @return the number of frames
+     */
+    public long getFrameCount() {
+        return frameCount;
+    }
+    
+    /**
+     * Returns the average time spent notifying the subscribers per frame.
+     * 
+     * @return the average frame time in milliseconds
+     */
+    public double getAverageFrameTime() {
+        return frameCount == 0 ? 0 : totalFrameTime / 1e6 / frameCount;
+    }
+    
+    /**
+     * Returns the maximum time spent notifying the subscribers in a frame.
+     * 
+     * @return the maximum frame time in milliseconds
+     */
+    public double getMaxFrameTime() {
+        return maxFrameTime / 1e6;
+    }
+    
+    /**
+     * Returns the average time between two consecutive ticks while running.
+     * 
+     * @return the average tick interval in milliseconds
+     */
+    public double getAverageInterval() {
+        return intervalCount == 0 ? 0 : (double) totalInterval / intervalCount;
+    }
+    
+    /**
+     * Returns the maximum time between two consecutive ticks while running.
+     * 
+     * @return the maximum tick interval in milliseconds
+     */
+    public long getMaxInterval() {
+        return maxInterval;
+    }
+    
+    /**
+     * Resets the statistics.
+     */
+    public void resetStatistics() {
+        frameCount = 0;
+        totalFrameTime = 0;
+        maxFrameTime = 0;
+        intervalCount = 0;
+        totalInterval = 0;
+        maxInterval = 0;
+    }
+    
+    /**
+     * Notifies the subscribers which are due.
+     */
+    void tick(long when) {
+        if (lastFrame != 0) {
+            long interval = when - lastFrame;
+            intervalCount++;
+            totalInterval += interval;
+            maxInterval = Math.max(maxInterval, interval);
+        }
+        lastFrame = when;
+        tick += step;
+        
+        long start = System.nanoTime();
+        boolean notified = false;
+        
+        // copy, listeners may (un)subscribe
+        for (Subscription subscription : subscriptions.toArray(new Subscription[0])) {
+            if (tick % subscription.ticks == 0 && subscription.fire(when)) {
+                notified = true;
+            }
+        }
+        
+        if (notified) {
+            long time = System.nanoTime() - start;
+            frameCount++;
+            totalFrameTime += time;
+            maxFrameTime = Math.max(maxFrameTime, time);
+        }
+    }
+    
+    /**
+     * Starts the timer if any of the components is showing, stops it
+     * otherwise. Sets the delay of the timer to the greatest common divisor
+     * of the periods of the showing components.
+     */
+    private void updateTimer() {
+        boolean showing = false;
+        int gcd = 0;
+        
+        for (Subscription subscription : subscriptions) {
+            if (subscription.component.isShowing()) {
+                showing = true;
+                gcd = gcd(gcd, subscription.ticks);
+            }
+        }
+        
+        if (showing && gcd != step) {
+            step = gcd;
+            // keep the count a multiple of the step, so that every period stays due
+            tick -= tick % step;
+            timer.setDelay(step * resolution);
+            timer.setInitialDelay(step * resolution);
+            
+            if (timer.isRunning()) {
+                timer.restart();
+            }
+        }
+        
+        if (showing && !timer.isRunning()) {
+            lastFrame = 0;
+            timer.start();
+        } else if (!showing && timer.isRunning()) {
+            timer.stop();
+        }
+    }
+    
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int r = a % b;
+            a = b;
+            b = r;
+        }
+        
+        return a;
+    }
+    
+    /**
+     * The subscription of a component to an {@code AnimationClock}.
+     */
+    public final class Subscription implements HierarchyListener {
+        private final JComponent component;
+        private final ActionListener listener;
+        private int period;
+        private int ticks;
+        private boolean cancelled;
+        
+        private Subscription(JComponent component, ActionListener listener) {
+            this.component = component;
+            this.listener = listener;
+        }
+        
+        /**
+         * Returns the time between notifications.
+         * 
+         * @return the period in milliseconds
+         */
+        public int getPeriod() {
+            return period;
+        }
+        
+        /**
+         * Sets the time between notifications. The period is rounded to a
+         * multiple of the clock's resolution.
+         * 
+         * @param period
+         *            the period in milliseconds
+         */
+        public void setPeriod(int period) {
+            this.period = period;
+            ticks = Math.max(1, Math.round((float) period / resolution));
+            
+            if (!cancelled) {
+                updateTimer();
+            }
+        }
+        
+        /**
+         * Stops the notifications. Does nothing if already cancelled.
+         */
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                component.removeHierarchyListener(this);
+                subscriptions.remove(this);
+                updateTimer();
+            }
+        }
+        
+        /**
+         * Returns whether this subscription has been cancelled.
+         * 
+         * @return {@code true} if cancelled
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+        
+        /**
+         * Notifies the listener if not cancelled and the component is showing.
+         * 
+         * @return {@code true} if the listener was notified
+         */
+        private boolean fire(long when) {
+            if (cancelled || !component.isShowing()) {
+                return false;
+            }
+            
+            listener.actionPerformed(new ActionEvent(component,
+                    ActionEvent.ACTION_PERFORMED, null, when, 0));
+            
+            return true;
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void hierarchyChanged(HierarchyEvent e) {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+                updateTimer();
+            }
+        }
+    }
+}
@@ -0,0 +1,782 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.FileCacheImageInputStream;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.swing.SwingUtilities;
+
+import org.jdesktop.swingx.util.Contract;
+import org.jdesktop.swingx.util.GraphicsUtilities;
+
+/**
+ * A multi-resolution view of an image which is too large to be decoded as a
+ * whole. Level 0 is the image at full resolution, each further level halves
+ * its size, up to the first level which fits into a single tile. A tile is read
+ * by restricting the <code>ImageReader</code> to the tile's source region and
+ * subsampling it by the level's factor, so neither the full image nor a full
+ * level is ever held in memory. Formats which aren't stored in tiles, like PNG
+ * or JPEG, have to be decoded from the top of the image up to the requested
+ * region. For them whole rows of tiles are read together, as a band across the
+ * level of up to {@link #MAX_BAND_PIXELS}, so coarse levels are read in a single
+ * pass. If a single row of tiles is larger than that, the band spans only as
+ * many columns as fit.
+ * <p>
+ * 
+ * Tiles are decoded on a background thread. {@link #getTile(int, int, int)}
+ * answers cached tiles only and queues the missing ones, the
+ * <code>Listener</code> is notified on the EDT when a tile has been loaded. The
+ * tiles requested last are loaded first; when the view moves on faster than
+ * tiles can be decoded, the oldest requests are dropped. Decoded tiles are
+ * kept in a LRU cache of a bounded number of tiles, except for the single tile
+ * of the top level, which is loaded first and kept as long as the pyramid is
+ * in use. While the tiles of a level are loading, {@link #paint} draws the
+ * region from the finest level cached, so the image sharpens progressively.
+ * <p>
+ * 
+ * Except for the loading itself, all methods must be called on the EDT.
+ * 
+ * @see JXImageView#setTilingThreshold(long)
+ */
+class ImagePyramid {
+
+    private static final Logger LOG = Logger.getLogger(ImagePyramid.class.getName());
+
+    /** the default edge length of a tile, in pixels of its level. */
+    static final int DEFAULT_TILE_SIZE = 256;
+
+    /** the default maximum number of cached tiles. */
+    static final int DEFAULT_CACHE_SIZE = 128;
+
+    /** the maximum number of pixels read at once from formats without tiles. */
+    static final int MAX_BAND_PIXELS = 4 * 1024 * 1024;
+
+    /** the maximum number of queued tile requests. */
+    private static final int MAX_PENDING = 64;
+
+    private static ExecutorService loadingExecutor;
+
+    /**
+     * Notified on the EDT about loaded tiles.
+     */
+    interface Listener {
+        /**
+         * A tile has been loaded and can be painted.
+         * 
+         * @param pyramid the pyramid which loaded the tile
+         */
+        void tileLoaded(ImagePyramid pyramid);
+
+        /**
+         * A tile couldn't be read. The tile won't be requested again.
+         * 
+         * @param pyramid the pyramid which tried to load the tile
+         * @param error the cause
+         */
+        void tileFailed(ImagePyramid pyramid, Throwable error);
+    }
+
+    private final ImageReader reader;
+
+    private final int width;
+
+    private final int height;
+
+    private final int tileSize;
+
+    private final int levelCount;
+
+    // whether the format supports reading single tiles efficiently
+    private final boolean tiledSource;
+
+    private final Listener listener;
+
+    private final Map<Tile, BufferedImage> cache;
+
+    private int cacheSize;
+
+    private BufferedImage overview;
+
+    // requested tiles which are queued, being loaded or about to be cached
+    private final Set<Tile> requested = new HashSet<Tile>();
+
+    // tiles which couldn't be read
+    private final Set<Tile> failed = new HashSet<Tile>();
+
+    // guarded by itself, newest first
+    private final LinkedList<Tile> pending = new LinkedList<Tile>();
+
+    // guarded by pending
+    private boolean loading;
+
+    // guarded by pending
+    private boolean disposed;
+
+    /**
+     * Creates a pyramid of the first image read by the given reader. The
+     * pyramid takes ownership of the reader and its input, both are disposed
+     * by {@link #dispose()}. Starts loading the top level.
+     * 
+     * @param reader the reader, with its input set
+     * @param tileSize the edge length of a tile, in pixels of its level
+     * @param cacheSize the maximum number of tiles to keep
+     * @param listener notified about loaded tiles
+     * @throws IOException if the size of the image can't be read
+     */
+    ImagePyramid(ImageReader reader, int tileSize, int cacheSize, Listener listener) throws IOException {
+        this.reader = Contract.asNotNull(reader, "reader cannot be null");
+        this.listener = Contract.asNotNull(listener, "listener cannot be null");
+        if (tileSize <= 0) {
+            throw new IllegalArgumentException("tileSize must be positive " + tileSize);
+        }
+        this.tileSize = tileSize;
+        width = reader.getWidth(0);
+        height = reader.getHeight(0);
+        tiledSource = reader.isImageTiled(0);
+        int levels = 1;
+        while (ceilDiv(width, 1L << (levels - 1)) > tileSize
+                || ceilDiv(height, 1L << (levels - 1)) > tileSize) {
+            levels++;
+        }
+        levelCount = levels;
+        cache = new LinkedHashMap<Tile, BufferedImage>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Tile, BufferedImage> eldest) {
+                return size() > ImagePyramid.this.cacheSize;
+            }
+        };
+        setCacheSize(cacheSize);
+        getTile(levelCount - 1, 0, 0);
+    }
+
+    /**
+     * Returns a reader for the image at the given location, with its input
+     * set for random access. Local files are read in place, other locations are
+     * cached by <code>ImageIO</code>.
+     * 
+     * @param url the location of the image
+     * @return the reader or <code>null</code> if no registered reader
+     *         understands the image
+     * @throws IOException if the location can't be opened
+     */
+    static ImageReader createReader(URL url) throws IOException {
+        ImageInputStream in = null;
+        if ("file".equals(url.getProtocol())) {
+            try {
+                in = ImageIO.createImageInputStream(new File(url.toURI()));
+            } catch (URISyntaxException e) {
+                // fall back to the stream
+            } catch (IllegalArgumentException e) {
+                // fall back to the stream
+            }
+        }
+        if (in == null) {
+            in = createImageInputStream(url.openStream());
+        }
+        try {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                in.close();
+                return null;
+            }
+            ImageReader reader = readers.next();
+            reader.setInput(in, false, true);
+            return reader;
+        } catch (RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a cached image input stream reading the given stream, which is
+     * closed along with it. The streams <code>ImageIO</code> creates don't
+     * close their source.
+     * 
+     * @param source the stream to read
+     * @return the image input stream
+     * @throws IOException if the cache can't be created
+     */
+    private static ImageInputStream createImageInputStream(final InputStream source) 
+            throws IOException {
+        if (ImageIO.getUseCache()) {
+            try {
+                return new FileCacheImageInputStream(source, ImageIO.getCacheDirectory()) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            source.close();
+                        }
+                    }
+                };
+            } catch (IOException e) {
+                // fall back to the memory cache
+            } catch (SecurityException e) {
+                // fall back to the memory cache
+            }
+        }
+        return new MemoryCacheImageInputStream(source) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    source.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * Disposes the given reader and closes its input.
+     * 
+     * @param reader the reader to dispose
+     */
+    static void dispose(ImageReader reader) {
+        Object input = reader.getInput();
+        reader.dispose();
+        if (input instanceof ImageInputStream) {
+            try {
+                ((ImageInputStream) input).close();
+            } catch (IOException e) {
+                LOG.log(Level.FINE, "closing the image input failed", e);
+            }
+        }
+    }
+
+    /**
+     * @return the width of the image at full resolution
+     */
+    int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return the height of the image at full resolution
+     */
+    int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return the edge length of a tile, in pixels of its level
+     */
+    int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * @return the number of levels, the last one consists of a single tile
+     */
+    int getLevelCount() {
+        return levelCount;
+    }
+
+    /**
+     * Returns the coarsest level which still has at least one pixel per screen
+     * pixel at the given scale.
+     * 
+     * @param scale the scale the image is painted at
+     * @return the level to paint
+     */
+    int getLevel(double scale) {
+        if (scale >= 1 || scale <= 0) {
+            return 0;
+        }
+        int level = (int) Math.floor(Math.log(1 / scale) / Math.log(2) + 1e-9);
+        return Math.min(level, levelCount - 1);
+    }
+
+    /**
+     * @param level the level
+     * @return the number of image pixels covered by the edge of a tile
+     */
+    int getTileSpan(int level) {
+        return tileSize << level;
+    }
+
+    /**
+     * @param level the level
+     * @return the number of tile columns of the level
+     */
+    int getColumnCount(int level) {
+        return (int) ceilDiv(width, getTileSpan(level));
+    }
+
+    /**
+     * @param level the level
+     * @return the number of tile rows of the level
+     */
+    int getRowCount(int level) {
+        return (int) ceilDiv(height, getTileSpan(level));
+    }
+
+    /**
+     * Returns the region of the full resolution image covered by a tile.
+     * 
+     * @param level the level of the tile
+     * @param column the column of the tile
+     * @param row the row of the tile
+     * @return the region, in image pixels
+     */
+    Rectangle getSourceRegion(int level, int column, int row) {
+        int span = getTileSpan(level);
+        int x = column * span;
+        int y = row * span;
+        return new Rectangle(x, y, Math.min(span, width - x), Math.min(span, height - y));
+    }
+
+    /**
+     * Returns the given tile if it's loaded, otherwise queues it for loading.
+     * 
+     * @param level the level of the tile
+     * @param column the column of the tile
+     * @param row the row of the tile
+     * @return the tile or <code>null</code> if it's not loaded yet
+     */
+    BufferedImage getTile(int level, int column, int row) {
+        BufferedImage image = getCachedTile(level, column, row);
+        if (image == null) {
+            request(new Tile(level, column, row));
+        }
+        return image;
+    }
+
+    /**
+     * Returns the given tile if it's loaded.
+     * 
+     * @param level the level of the tile
+     * @param column the column of the tile
+     * @param row the row of the tile
+     * @return the tile or <code>null</code> if it's not loaded
+     */
+    BufferedImage getCachedTile(int level, int column, int row) {
+        if (level == levelCount - 1) {
+            return overview;
+        }
+        return cache.get(new Tile(level, column, row));
+    }
+
+    /**
+     * @return the number of cached tiles, excluding the top level
+     */
+    int getCachedTileCount() {
+        return cache.size();
+    }
+
+    /**
+     * @return the maximum number of cached tiles, excluding the top level
+     */
+    int getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * Sets the maximum number of cached tiles, excluding the top level. Drops
+     * the least recently used tiles which exceed the new size.
+     * 
+     * @param cacheSize the maximum number of tiles to keep
+     */
+    void setCacheSize(int cacheSize) {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("cacheSize must not be negative " + cacheSize);
+        }
+        this.cacheSize = cacheSize;
+        Iterator<Tile> it = cache.keySet().iterator();
+        for (int n = cache.size(); n > cacheSize; n--) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    /**
+     * Paints the part of the image inside the clip of the given graphics. Uses
+     * the level matching the scale; tiles which aren't loaded yet are painted
+     * from the finest coarser level cached, or left out.
+     * 
+     * @param g the graphics to paint on
+     * @param x the x coordinate of the image's upper left corner
+     * @param y the y coordinate of the image's upper left corner
+     * @param scale the scale to paint the image at
+     */
+    void paint(Graphics2D g, double x, double y, double scale) {
+        int level = getLevel(scale);
+        double span = getTileSpan(level) * scale;
+        Rectangle clip = g.getClipBounds();
+        int firstColumn = 0;
+        int lastColumn = getColumnCount(level) - 1;
+        int firstRow = 0;
+        int lastRow = getRowCount(level) - 1;
+        if (clip != null) {
+            firstColumn = Math.max(firstColumn, (int) Math.floor((clip.x - x) / span));
+            lastColumn = Math.min(lastColumn, (int) Math.floor((clip.x + clip.width - x) / span));
+            firstRow = Math.max(firstRow, (int) Math.floor((clip.y - y) / span));
+            lastRow = Math.min(lastRow, (int) Math.floor((clip.y + clip.height - y) / span));
+        }
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                Rectangle source = getSourceRegion(level, column, row);
+                // round the edges, not the sizes, to avoid gaps between tiles
+                int dx1 = (int) Math.floor(x + source.x * scale);
+                int dy1 = (int) Math.floor(y + source.y * scale);
+                int dx2 = (int) Math.floor(x + (source.x + source.width) * scale);
+                int dy2 = (int) Math.floor(y + (source.y + source.height) * scale);
+                BufferedImage tile = getTile(level, column, row);
+                if (tile != null) {
+                    g.drawImage(tile, dx1, dy1, dx2, dy2, 0, 0, tile.getWidth(), tile.getHeight(), null);
+                } else {
+                    paintFallback(g, source, level, dx1, dy1, dx2, dy2);
+                }
+            }
+        }
+    }
+
+    /**
+     * Paints the given source region from the finest cached level above the
+     * given one.
+     */
+    private void paintFallback(Graphics2D g, Rectangle source, int level,
+            int dx1, int dy1, int dx2, int dy2) {
+        for (int coarse = level + 1; coarse < levelCount; coarse++) {
+            int span = getTileSpan(coarse);
+            int column = source.x / span;
+            int row = source.y / span;
+            BufferedImage tile = getCachedTile(coarse, column, row);
+            if (tile != null) {
+                double factor = 1 << coarse;
+                int sx1 = (int) Math.floor((source.x - column * span) / factor);
+                int sy1 = (int) Math.floor((source.y - row * span) / factor);
+                int sx2 = Math.min(tile.getWidth(),
+                        (int) Math.ceil((source.x + source.width - column * span) / factor));
+                int sy2 = Math.min(tile.getHeight(),
+                        (int) Math.ceil((source.y + source.height - row * span) / factor));
+                g.drawImage(tile, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, null);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stops loading, drops the cached tiles and disposes the reader. The
+     * pyramid must not be used afterwards.
+     */
+    void dispose() {
+        boolean idle;
+        synchronized (pending) {
+            disposed = true;
+            pending.clear();
+            idle = !loading;
+        }
+        requested.clear();
+        cache.clear();
+        overview = null;
+        if (idle) {
+            dispose(reader);
+        }
+    }
+
+    private void request(Tile tile) {
+        if (failed.contains(tile)) {
+            return;
+        }
+        synchronized (pending) {
+            if (disposed) {
+                return;
+            }
+            if (!pending.remove(tile) && requested.contains(tile)) {
+                // being loaded
+                return;
+            }
+            pending.addFirst(tile);
+            requested.add(tile);
+            while (pending.size() > MAX_PENDING) {
+                requested.remove(pending.removeLast());
+            }
+            if (loading) {
+                return;
+            }
+            loading = true;
+        }
+        getLoadingExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                load();
+            }
+        });
+    }
+
+    /**
+     * Loads the queued tiles, runs on the loading executor.
+     */
+    private void load() {
+        while (true) {
+            final Tile tile;
+            synchronized (pending) {
+                if (disposed) {
+                    loading = false;
+                    dispose(reader);
+                    return;
+                }
+                if (pending.isEmpty()) {
+                    loading = false;
+                    return;
+                }
+                tile = pending.removeFirst();
+                if (!tiledSource) {
+                    // the band satisfies the other requests of its rows
+                    for (Iterator<Tile> it = pending.iterator(); it.hasNext();) {
+                        Tile other = it.next();
+                        if (isSameBand(other, tile)) {
+                            it.remove();
+                        }
+                    }
+                }
+            }
+            Map<Tile, BufferedImage> images = null;
+            Throwable error = null;
+            try {
+                images = tiledSource ? read(tile) : readBand(tile);
+            } catch (Exception e) {
+                error = e;
+            } catch (OutOfMemoryError e) {
+                error = e;
+            }
+            final Map<Tile, BufferedImage> result = images;
+            final Throwable failure = error;
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    loaded(tile, result, failure);
+                }
+            });
+        }
+    }
+
+    /**
+     * Decodes the given tile.
+     */
+    private Map<Tile, BufferedImage> read(Tile tile) throws IOException {
+        BufferedImage image = reader.read(0, 
+                createReadParam(tile.level, getSourceRegion(tile.level, tile.column, tile.row)));
+        return Collections.singletonMap(tile, GraphicsUtilities.toCompatibleImage(image));
+    }
+
+    /**
+     * Returns the number of tile rows read at once at the given level.
+     */
+    private int getBandRows(int level) {
+        long rowPixels = ceilDiv(width, 1L << level) * tileSize;
+        return (int) Math.max(1, MAX_BAND_PIXELS / rowPixels);
+    }
+
+    /**
+     * Returns the number of tile columns read at once at the given level, all
+     * unless a single row of tiles exceeds {@link #MAX_BAND_PIXELS}.
+     */
+    private int getBandColumns(int level) {
+        long rowPixels = ceilDiv(width, 1L << level) * tileSize;
+        if (rowPixels <= MAX_BAND_PIXELS) {
+            return getColumnCount(level);
+        }
+        return Math.max(1, MAX_BAND_PIXELS / (tileSize * tileSize));
+    }
+
+    /**
+     * Returns whether the given tiles are read in the same band.
+     */
+    private boolean isSameBand(Tile tile, Tile other) {
+        return tile.level == other.level 
+                && tile.row / getBandRows(tile.level) == other.row / getBandRows(tile.level)
+                && tile.column / getBandColumns(tile.level) 
+                        == other.column / getBandColumns(tile.level);
+    }
+
+    /**
+     * Decodes all tiles of the band containing the given tile at once.
+     */
+    private Map<Tile, BufferedImage> readBand(Tile requested) throws IOException {
+        int level = requested.level;
+        int bandRows = getBandRows(level);
+        int bandColumns = getBandColumns(level);
+        int firstRow = requested.row / bandRows * bandRows;
+        int lastRow = Math.min(firstRow + bandRows, getRowCount(level)) - 1;
+        int firstColumn = requested.column / bandColumns * bandColumns;
+        int lastColumn = Math.min(firstColumn + bandColumns, getColumnCount(level)) - 1;
+        Rectangle region = getSourceRegion(level, firstColumn, firstRow);
+        Rectangle last = getSourceRegion(level, lastColumn, lastRow);
+        region.width = last.x + last.width - region.x;
+        region.height = last.y + last.height - region.y;
+        BufferedImage image = reader.read(0, createReadParam(level, region));
+        Map<Tile, BufferedImage> tiles = new LinkedHashMap<Tile, BufferedImage>();
+        for (int row = firstRow; row <= lastRow; row++) {
+            int y = (row - firstRow) * tileSize;
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                int x = (column - firstColumn) * tileSize;
+                BufferedImage tile = image.getSubimage(x, y, Math.min(tileSize, image.getWidth() - x),
+                        Math.min(tileSize, image.getHeight() - y));
+                BufferedImage compatible = GraphicsUtilities.toCompatibleImage(tile);
+                // don't let the tile keep the band's raster alive
+                tiles.put(new Tile(level, column, row), compatible != tile ? compatible : copy(tile));
+            }
+        }
+        return tiles;
+    }
+
+    private ImageReadParam createReadParam(int level, Rectangle region) {
+        int factor = 1 << level;
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceRegion(region);
+        param.setSourceSubsampling(factor, factor, 0, 0);
+        return param;
+    }
+
+    private static BufferedImage copy(BufferedImage image) {
+        ColorModel colorModel = image.getColorModel();
+        WritableRaster raster = colorModel.createCompatibleWritableRaster(
+                image.getWidth(), image.getHeight());
+        raster.setRect(image.getRaster());
+        return new BufferedImage(colorModel, raster, colorModel.isAlphaPremultiplied(), null);
+    }
+
+    /**
+     * Caches loaded tiles and notifies the listener, runs on the EDT. Tiles
+     * read along with the requested one are cached as well, the requested ones
+     * as most recently used.
+     */
+    private void loaded(Tile tile, Map<Tile, BufferedImage> images, Throwable error) {
+        synchronized (pending) {
+            if (disposed) {
+                return;
+            }
+        }
+        if (error != null) {
+            LOG.log(Level.WARNING, "reading " + tile + " failed", error);
+            requested.remove(tile);
+            failed.add(tile);
+            listener.tileFailed(this, error);
+            return;
+        }
+        List<Tile> wanted = new ArrayList<Tile>();
+        for (Map.Entry<Tile, BufferedImage> entry : images.entrySet()) {
+            if (requested.remove(entry.getKey())) {
+                wanted.add(entry.getKey());
+            } else {
+                put(entry.getKey(), entry.getValue());
+            }
+        }
+        for (Tile loaded : wanted) {
+            put(loaded, images.get(loaded));
+        }
+        listener.tileLoaded(this);
+    }
+
+    private void put(Tile tile, BufferedImage image) {
+        if (tile.level == levelCount - 1) {
+            overview = image;
+        } else {
+            cache.put(tile, image);
+        }
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+
+    private static synchronized ExecutorService getLoadingExecutor() {
+        if (loadingExecutor == null) {
+            loadingExecutor = Executors.newFixedThreadPool(
+                    Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "ImagePyramid-loader");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return loadingExecutor;
+    }
+
+    /**
+     * Identifies a tile.
+     */
+    private static final class Tile {
+        final int level;
+        final int column;
+        final int row;
+
+        Tile(int level, int column, int row) {
+            this.level = level;
+            this.column = column;
+            this.row = row;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Tile)) {
+                return false;
+            }
+            Tile other = (Tile) obj;
+            return level == other.level && column == other.column && row == other.row;
+        }
+
+        @Override
+        public int hashCode() {
+            return (level * 31 + column) * 31 + row;
+        }
+
+        @Override
+        public String toString() {
+            return "tile " + column + "," + row + " of level " + level;
+        }
+    }
+}
@@ -27,7 +27,6 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 
 import javax.swing.JLabel;
-import javax.swing.Timer;
 import javax.swing.plaf.LabelUI;
 
 import org.jdesktop.beans.JavaBean;
@@ -89,6 +88,10 @@ import org.jdesktop.swingx.plaf.LookAndFeelAddons;
  * }
  * </code></pre>
  * 
+ * <p>All busy labels are animated by the shared {@link AnimationClock}, so
+ * labels with the same delay advance their frames together and the animation
+ * pauses while the label isn't showing.</p>
+ * 
  * @author rbair
  * @author joshy
  * @author rah003
@@ -99,7 +102,7 @@ public class JXBusyLabel extends JLabel {
 
     private static final long serialVersionUID = 5979268460848257147L;
     private BusyPainter busyPainter;
-    private Timer busy;
+    private transient AnimationClock.Subscription busy;
     private int delay;
     /** Status flag to save/restore status of timer when moving component between containers. */
     private boolean wasBusyOnNotify = false;
@@ -233,7 +236,7 @@ public class JXBusyLabel extends JLabel {
             stopAnimation();
         }
         
-        busy = new Timer(delay, new ActionListener() {
+        busy = AnimationClock.getDefault().subscribe(this, delay, new ActionListener() {
             BusyPainter busyPainter = getBusyPainter();
             int frame = busyPainter.getPoints();
             @Override
@@ -243,7 +246,6 @@ public class JXBusyLabel extends JLabel {
                 frameChanged();
             }
         });
-        busy.start();
     }
     
     
@@ -251,7 +253,7 @@ public class JXBusyLabel extends JLabel {
     
     private void stopAnimation() {
         if (busy != null) {
-            busy.stop();
+            busy.cancel();
             getBusyPainter().setFrame(-1);
             repaint();
             busy = null;
@@ -335,8 +337,8 @@ public class JXBusyLabel extends JLabel {
         int old = getDelay();
         this.delay = delay;
         if (old != getDelay()) {
-            if (busy != null && busy.isRunning()) {
-                busy.setDelay(getDelay());
+            if (busy != null) {
+                busy.setPeriod(getDelay());
             }
             firePropertyChange("delay", old, getDelay());
         }
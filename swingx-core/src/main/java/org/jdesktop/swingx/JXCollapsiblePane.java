@@ -43,7 +43,6 @@ import javax.swing.JComponent;
 import javax.swing.JViewport;
 import javax.swing.Scrollable;
 import javax.swing.SwingUtilities;
-import javax.swing.Timer;
 import javax.swing.border.Border;
 
 import org.jdesktop.beans.JavaBean;
@@ -332,13 +331,14 @@ public class JXCollapsiblePane extends JXPanel {
     private Direction direction = Direction.UP;
 
     /**
-     * Timer used for doing the transparency animation (fade-in)
+     * Subscription to the animation clock while animating, null otherwise
      */
-    private Timer animateTimer;
+    private transient AnimationClock.Subscription animation;
     private AnimationListener animator;
     private int currentDimension = -1;
     private WrapperContainer wrapper;
     private boolean useAnimation = true;
+    private boolean snapshotAnimation;
     private AnimationParams animationParams;
     private boolean collapseFiringState;
 
@@ -493,7 +493,7 @@ public class JXCollapsiblePane extends JXPanel {
             useAnimation = animated;
             
             if (!animated) {
-            	if (animateTimer.isRunning()) {
+            	if (isAnimating()) {
             		//TODO should we listen for animation state change?
             		//yes, but we're best off creating a UI delegate for these changes
             		SwingUtilities.invokeLater(new Runnable() {
@@ -518,12 +518,49 @@ public class JXCollapsiblePane extends JXPanel {
         return useAnimation;
     }
     
+    /**
+     * If true, the animation slides an image of the content instead of the 
+     * content itself. The default is false.
+     * 
+     * <p>
+     * Without a snapshot, the content pane is resized, laid out and painted 
+     * on every step of the animation, which is slow for large contents like 
+     * forms with many fields or tables. With a snapshot, the content is laid 
+     * out and painted once into an image when the animation starts and laid 
+     * out again when it ends; the steps in between only paint the visible part
+     * of the image. The content doesn't change its appearance while animating,
+     * so a content which adapts its layout to the available space is shown in
+     * its final layout.
+     * 
+     * @param snapshotAnimation true to animate a snapshot of the content
+     * @see #setAnimated(boolean)
+     * @javabean.property bound="true"
+     */
+    public void setSnapshotAnimation(boolean snapshotAnimation) {
+        boolean oldValue = isSnapshotAnimation();
+        this.snapshotAnimation = snapshotAnimation;
+        
+        if (!snapshotAnimation) {
+            wrapper.stopSnapshot();
+        }
+        firePropertyChange("snapshotAnimation", oldValue, isSnapshotAnimation());
+    }
+    
+    /**
+     * @return true if the animation slides a snapshot of the content, false 
+     *         otherwise
+     * @see #setSnapshotAnimation(boolean)
+     */
+    public boolean isSnapshotAnimation() {
+        return snapshotAnimation;
+    }
+    
     /**
      * {@inheritDoc}
      */
     @Override
     public void setComponentOrientation(ComponentOrientation o) {
-        if (animateTimer.isRunning()) {
+        if (isAnimating()) {
             throw new IllegalStateException("cannot be change component orientation while collapsing.");
         }
         
@@ -545,7 +582,7 @@ public class JXCollapsiblePane extends JXPanel {
      *    preferred="true"
      */
     public void setDirection(Direction direction) {
-        if (animateTimer.isRunning()) {
+        if (isAnimating()) {
             throw new IllegalStateException("cannot be change direction while collapsing.");
         }
         
@@ -613,7 +650,7 @@ public class JXCollapsiblePane extends JXPanel {
             
             // this ensures that if the user reverses the animation
             // before completion that no property change is fired
-            if (!animateTimer.isRunning()) {
+            if (!isAnimating()) {
                 collapseFiringState = oldValue;
             }
             
@@ -632,7 +669,11 @@ public class JXCollapsiblePane extends JXPanel {
                 animator.reinit(dimension, 0);
             }
             
-            animateTimer.start();
+            if (isSnapshotAnimation()) {
+                wrapper.startSnapshot();
+            }
+            animation = AnimationClock.getDefault().subscribe(this,
+                    animationParams.waitTime, animator);
         } else {
             wrapper.collapsedState = isCollapsed();
             wrapper.getView().setVisible(!isCollapsed());
@@ -760,12 +801,19 @@ public class JXCollapsiblePane extends JXPanel {
     private void setAnimationParams(AnimationParams params) {
         if (params == null) { throw new IllegalArgumentException(
                 "params can't be null"); }
-        if (animateTimer != null) {
-            animateTimer.stop();
-        }
+        stopAnimation();
         animationParams = params;
-        animateTimer = new Timer(animationParams.waitTime, animator);
-        animateTimer.setInitialDelay(0);
+    }
+    
+    private boolean isAnimating() {
+        return animation != null;
+    }
+    
+    private void stopAnimation() {
+        if (animation != null) {
+            animation.cancel();
+            animation = null;
+        }
     }
 
     /**
@@ -811,7 +859,7 @@ public class JXCollapsiblePane extends JXPanel {
 
     /**
      * This class actual provides the animation support for scrolling up/down this
-     * component. This listener is called whenever the animateTimer fires off. It
+     * component. This listener is called whenever the animation clock fires off. It
      * fires off in response to scroll up/down requests. This listener is
      * responsible for modifying the size of the content container and causing it
      * to be repainted.
@@ -852,8 +900,9 @@ public class JXCollapsiblePane extends JXPanel {
             */
             synchronized (ANIMATION_MUTEX) {
                 if (startDimension == finalDimension) {
-                    animateTimer.stop();
+                    stopAnimation();
                     animateAlpha = animationParams.alphaEnd;
+                    wrapper.stopSnapshot();
                     // keep the content pane hidden when it is collapsed, other it may
                     // still receive focus.
                     if (finalDimension > 0) {
@@ -952,6 +1001,7 @@ public class JXCollapsiblePane extends JXPanel {
                 }
                 
                 wrapper.setAlpha(animateAlpha);
+                wrapper.validateSnapshot();
                 
                 validate();
             }
@@ -999,6 +1049,9 @@ public class JXCollapsiblePane extends JXPanel {
         boolean collapsedState;
         private volatile float alpha;
         private boolean oldOpaque;
+        // the content painted at its full size while animating
+        private BufferedImage snapshot;
+        private int oldScrollMode;
 
         public WrapperContainer(Container c) {
             alpha = 1.0f;
@@ -1027,6 +1080,84 @@ public class JXCollapsiblePane extends JXPanel {
         	JXCollapsiblePane.this.scrollRectToVisible(aRect);
         }
 
+        /**
+         * Lays out and paints the content at its full size. The content keeps
+         * this size until the snapshot is stopped.
+         */
+        void startSnapshot() {
+            if (snapshot != null) {
+                // the animation is reversed, the content is unchanged
+                return;
+            }
+            
+            Component view = getView();
+            Dimension size = view.getPreferredSize();
+            if (direction.isVertical()) {
+                size.width = getWidth();
+            } else {
+                size.height = getHeight();
+            }
+            if (size.width <= 0 || size.height <= 0) {
+                return;
+            }
+            
+            view.setSize(size);
+            view.validate();
+            snapshot = view.isOpaque() 
+                    ? GraphicsUtilities.createCompatibleImage(size.width, size.height)
+                    : GraphicsUtilities.createCompatibleTranslucentImage(size.width, size.height);
+            Graphics2D gfx = snapshot.createGraphics();
+            
+            try {
+                view.paint(gfx);
+            } finally {
+                gfx.dispose();
+            }
+            
+            // moving the view must not blit or paint the content
+            oldScrollMode = getScrollMode();
+            setScrollMode(SIMPLE_SCROLL_MODE);
+        }
+        
+        /**
+         * Drops the snapshot if it doesn't fit the size across the direction
+         * of the animation anymore, f.i. if the parent is resized while
+         * animating.
+         */
+        void validateSnapshot() {
+            if (snapshot != null && (direction.isVertical() 
+                    ? snapshot.getWidth() != getWidth() 
+                    : snapshot.getHeight() != getHeight())) {
+                stopSnapshot();
+            }
+        }
+        
+        /**
+         * Releases the snapshot and lays out the content again.
+         */
+        void stopSnapshot() {
+            if (snapshot != null) {
+                snapshot.flush();
+                snapshot = null;
+                setScrollMode(oldScrollMode);
+                invalidate();
+                repaint();
+            }
+        }
+        
+        /**
+         * {@inheritDoc} <p>
+         * 
+         * Overridden to keep the size of the content while a snapshot is 
+         * animated.
+         */
+        @Override
+        public void doLayout() {
+            if (snapshot == null) {
+                super.doLayout();
+            }
+        }
+
         @Override
         public float getAlpha() {
             return alpha;
@@ -1075,7 +1206,7 @@ public class JXCollapsiblePane extends JXPanel {
         
         //support for Java 7 painting improvements
         protected boolean isPaintingOrigin() {
-            return getAlpha() < 1f;
+            return getAlpha() < 1f || snapshot != null;
         }
 
         /**
@@ -1086,8 +1217,10 @@ public class JXCollapsiblePane extends JXPanel {
          */
         @Override
         public void paint(Graphics g) {
-            //short circuit painting if no transparency
-            if (getAlpha() == 1f) {
+            if (snapshot != null) {
+                paintSnapshot(g);
+            } else if (getAlpha() == 1f) {
+                //short circuit painting if no transparency
                 super.paint(g);
             } else {
                 //the component is translucent, so we need to render to
@@ -1115,6 +1248,32 @@ public class JXCollapsiblePane extends JXPanel {
                 }
             }
         }
+        
+        /**
+         * Paints the visible part of the snapshot, which is the part next to 
+         * the edge the pane expands to.
+         */
+        private void paintSnapshot(Graphics g) {
+            Direction fixed = direction.getFixedDirection(JXCollapsiblePane.this
+                    .getComponentOrientation());
+            Point position = new Point();
+            if (fixed == Direction.DOWN) {
+                position.y = snapshot.getHeight() - getHeight();
+            } else if (fixed == Direction.RIGHT) {
+                position.x = snapshot.getWidth() - getWidth();
+            }
+            Graphics2D g2d = (Graphics2D) g.create();
+            
+            try {
+                if (getAlpha() < 1f) {
+                    g2d.setComposite(AlphaComposite.getInstance(
+                            AlphaComposite.SRC_OVER, getEffectiveAlpha()));
+                }
+                g2d.drawImage(snapshot, -position.x, -position.y, null);
+            } finally {
+                g2d.dispose();
+            }
+        }
     }
 
 // TEST CASE
@@ -64,7 +64,6 @@ import javax.swing.text.Document;
 import javax.swing.text.EditorKit;
 import javax.swing.text.Element;
 import javax.swing.text.MutableAttributeSet;
-import javax.swing.text.Segment;
 import javax.swing.text.SimpleAttributeSet;
 import javax.swing.text.StyleConstants;
 import javax.swing.text.StyledDocument;
@@ -81,6 +80,8 @@ import org.jdesktop.swingx.action.ActionManager;
 import org.jdesktop.swingx.action.Targetable;
 import org.jdesktop.swingx.action.TargetableSupport;
 import org.jdesktop.swingx.plaf.UIAction;
+import org.jdesktop.swingx.search.DocumentCharSequence;
+import org.jdesktop.swingx.search.IndexedDocumentSearchable;
 import org.jdesktop.swingx.search.SearchFactory;
 import org.jdesktop.swingx.search.Searchable;
 
@@ -583,7 +584,10 @@ public class JXEditorPane extends JEditorPane implements /*Searchable, */Targeta
     }
     
     /**
-     * A {@code Searchable} implementation for {@code Document}s.
+     * A {@code Searchable} implementation for {@code Document}s.<p>
+     * 
+     * Searches on the calling thread without caching matches. For large documents
+     * consider to use a {@link IndexedDocumentSearchable} instead.
      */
     public class DocumentSearchable implements Searchable {
         @Override
@@ -667,16 +671,13 @@ public class JXEditorPane extends JEditorPane implements /*Searchable, */Targeta
                     start = 0;
                 length = getDocument().getLength() - start;
             }
-            Segment segment = new Segment();
-
-            try {
-                getDocument().getText(start, length, segment);
-            } catch (BadLocationException ex) {
-                LOG.log(Level.FINE,
-                        "this should not happen (calculated the valid start/length) " , ex);
+            // searching backwards from the document start
+            if (length < 0) {
+                updateStateAfterNotFound();
+                return -1;
             }
-
-            Matcher matcher = pattern.matcher(segment.toString());
+            // access the text without copying it
+            Matcher matcher = pattern.matcher(new DocumentCharSequence(getDocument(), start, length));
             MatchResult currentResult = getMatchResult(matcher, !backwards);
             if (currentResult != null) {
                 updateStateAfterFound(currentResult, start);
@@ -705,15 +706,7 @@ public class JXEditorPane extends JEditorPane implements /*Searchable, */Targeta
                 return false;
             }
             int length = getDocument().getLength() - start;
-            Segment segment = new Segment();
-
-            try {
-                getDocument().getText(start, length, segment);
-            } catch (BadLocationException ex) {
-                LOG.log(Level.FINE,
-                        "this should not happen (calculated the valid start/length) " , ex);
-            }
-            Matcher matcher = pattern.matcher(segment.toString());
+            Matcher matcher = pattern.matcher(new DocumentCharSequence(getDocument(), start, length));
             MatchResult currentResult = getMatchResult(matcher, true);
             if (currentResult != null) {
                 // JW: how to compare match results reliably?
@@ -751,7 +744,7 @@ public class JXEditorPane extends JEditorPane implements /*Searchable, */Targeta
             getCaret().setSelectionVisible(true);
             lastFoundIndex = found;
             lastMatchResult = currentResult;
-            lastRegEx = ((Matcher) lastMatchResult).pattern().pattern();
+            lastRegEx = ((DocumentMatchResult) lastMatchResult).pattern.pattern();
             return found;
         }
 
@@ -763,7 +756,8 @@ public class JXEditorPane extends JEditorPane implements /*Searchable, */Targeta
         private MatchResult getMatchResult(Matcher matcher, boolean  useFirst) {
             MatchResult currentResult = null;
             while (matcher.find()) {
-                currentResult = matcher.toMatchResult();
+                // toMatchResult would copy the whole searched text
+                currentResult = new DocumentMatchResult(matcher);
                 if (useFirst) break;
             }
             return currentResult;
@@ -780,6 +774,74 @@ public class JXEditorPane extends JEditorPane implements /*Searchable, */Targeta
 
     }
     
+    /**
+     * The state of a match, recorded from the live matcher. Copies the matched
+     * groups only, not the searched text.
+     */
+    private static class DocumentMatchResult implements MatchResult {
+        private final Pattern pattern;
+        private final int[] starts;
+        private final int[] ends;
+        private final String[] groups;
+
+        DocumentMatchResult(Matcher matcher) {
+            pattern = matcher.pattern();
+            int count = matcher.groupCount() + 1;
+            starts = new int[count];
+            ends = new int[count];
+            groups = new String[count];
+            for (int i = 0; i < count; i++) {
+                starts[i] = matcher.start(i);
+                ends[i] = matcher.end(i);
+                groups[i] = matcher.group(i);
+            }
+        }
+
+        @Override
+        public int start() {
+            return start(0);
+        }
+
+        @Override
+        public int start(int group) {
+            checkGroup(group);
+            return starts[group];
+        }
+
+        @Override
+        public int end() {
+            return end(0);
+        }
+
+        @Override
+        public int end(int group) {
+            checkGroup(group);
+            return ends[group];
+        }
+
+        @Override
+        public String group() {
+            return group(0);
+        }
+
+        @Override
+        public String group(int group) {
+            checkGroup(group);
+            return groups[group];
+        }
+
+        @Override
+        public int groupCount() {
+            return groups.length - 1;
+        }
+
+        private void checkGroup(int group) {
+            if (group < 0 || group >= groups.length) {
+                throw new IndexOutOfBoundsException("No group " + group);
+            }
+        }
+    }
+    
     @Override
     public boolean hasCommand(Object command) {
         return targetSupport.hasCommand(command);
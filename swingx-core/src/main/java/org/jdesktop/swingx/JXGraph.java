@@ -37,19 +37,31 @@ import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
 import java.awt.event.MouseWheelEvent;
 import java.awt.event.MouseWheelListener;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.GeneralPath;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.nio.DoubleBuffer;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.SwingUtilities;
 
 import org.jdesktop.beans.AbstractBean;
 import org.jdesktop.beans.JavaBean;
 import org.jdesktop.swingx.painter.Painter;
+import org.jdesktop.swingx.util.GraphicsUtilities;
 
 // TODO: keyboard navigation
 // TODO: honor clip rect with text painting
@@ -289,6 +301,28 @@ import org.jdesktop.swingx.painter.Painter;
  * coordinates to world coordinates is mostly used to get the position in the
  * world of a mouse event.</p>
  *
+ * <h2>Performance</h2>
+ *
+ * <p>Plots are sampled adaptively: every other pixel, refined down to a 
+ * quarter pixel where the curve bends. The samples of each plot are cached 
+ * and reused as long as the horizontal extent of the view, the size of the
+ * component and the plot itself don't change. A vertical pan only 
+ * transforms the cached samples. The grid, the axis and the labels are
+ * rendered into cached images once their state is painted twice in a row,
+ * so repaints of an unchanged view only draw the plots.</p>
+ *
+ * <p>If plots are expensive to compute, the graph can evaluate them off the
+ * EDT while the view changes, see {@link #setAsynchronousSampling(boolean)}.
+ * </p>
+ *
+ * <h3>Plotting recorded data</h3>
+ *
+ * <p>Series of measured values are plotted by a {@link JXGraph.DataPlot}.
+ * It draws the minimum and maximum of the values covered by each pixel,
+ * looked up from a decimation pyramid, so painting doesn't depend on the
+ * length of the series. Values can be appended while the graph is shown,
+ * which repaints only the region of the new values.</p>
+ *
  * @see JXGraph.Plot
  * @author Romain Guy <romain.guy@mac.com>
  */
@@ -303,6 +337,21 @@ public class JXGraph extends JXPanel {
     // user zooms in or out
     private static final float ZOOM_MULTIPLIER = 1.1f;
     
+    private static final Logger LOG = Logger.getLogger(JXGraph.class.getName());
+    
+    // adaptive sampling: distance of the initial samples and the smallest
+    // refined distance in pixels, refinement starts at the tolerance in pixels
+    private static final double SAMPLE_STEP = 2.0;
+    private static final double MIN_SAMPLE_STEP = 0.25;
+    private static final double SAMPLE_TOLERANCE = 0.5;
+    
+    // plots taking longer to sample, in nanoseconds, are sampled off the EDT
+    // if asynchronous sampling is enabled
+    private static final long ASYNCHRONOUS_SAMPLING_THRESHOLD = 10000000L;
+    
+    // shared by all graphs, created lazily
+    private static ExecutorService samplingExecutor;
+    
     //listens to changes to plots and repaints the graph
     private PropertyChangeListener plotChangeListener;
 
@@ -351,6 +400,15 @@ public class JXGraph extends JXPanel {
     private NumberFormat mainFormatter;
     private NumberFormat secondFormatter;
 
+    // cached images of the grid and axis, painted below the plots, and of
+    // the labels, painted above; valid for the layer state only
+    private transient List<Object> layerState;
+    private transient BufferedImage gridLayer;
+    private transient BufferedImage labelLayer;
+    
+    // enables sampling of expensive plots off the EDT
+    private boolean asynchronousSampling;
+
     // input handlers
     private boolean inputEnabled = true;
     private ZoomHandler zoomHandler;
@@ -536,7 +594,18 @@ public class JXGraph extends JXPanel {
         plotChangeListener = new PropertyChangeListener() {
             @Override
             public void propertyChange(PropertyChangeEvent evt) {
-                repaint();
+                for (DrawablePlot drawable : plots) {
+                    if (drawable.getEquation() == evt.getSource()) {
+                        drawable.invalidate();
+                    }
+                }
+                if (evt.getSource() instanceof DataPlot 
+                        && "size".equals(evt.getPropertyName())) {
+                    repaintAppended((DataPlot) evt.getSource(), 
+                            (Integer) evt.getOldValue());
+                } else {
+                    repaint();
+                }
             }
         };
     }
@@ -552,6 +621,37 @@ public class JXGraph extends JXPanel {
         return super.isOpaque();
     }
     
+    /**
+     * <p>Enables or disables the sampling of expensive plots off the EDT.
+     * When enabled, a plot whose last sampling took longer than about
+     * 10 ms is re-sampled on a background thread after the view changed,
+     * several plots in parallel. Meanwhile, its previous samples are drawn
+     * transformed to the new view.</p>
+     *
+     * <p>Enable only if all plots can be computed concurrently to the EDT,
+     * that is {@link Plot#compute(double)} must not depend on state which
+     * is modified while the graph is displayed, other than by changes
+     * which are followed by a property change event of the plot.</p>
+     *
+     * @param asynchronousSampling true to sample expensive plots off the EDT
+     * @see #isAsynchronousSampling()
+     */
+    public void setAsynchronousSampling(boolean asynchronousSampling) {
+        boolean old = isAsynchronousSampling();
+        this.asynchronousSampling = asynchronousSampling;
+        firePropertyChange("asynchronousSampling", old, isAsynchronousSampling());
+    }
+
+    /**
+     * <p>Indicates whether expensive plots are sampled off the EDT.</p>
+     *
+     * @return true if expensive plots are sampled off the EDT
+     * @see #setAsynchronousSampling(boolean)
+     */
+    public boolean isAsynchronousSampling() {
+        return asynchronousSampling;
+    }
+
     /**
      * {@inheritDoc}
      * @see #setInputEnabled(boolean)
@@ -1276,17 +1376,90 @@ public class JXGraph extends JXPanel {
         }
         
         Graphics2D g2 = (Graphics2D) g;
-        setupGraphics(g2);
-
-        paintBackground(g2);
-        drawGrid(g2);
-        drawAxis(g2);
-        drawPlots(g2);
-        drawLabels(g2);
+        // the cached layers are set up when rendered, blit them untransformed
+        Graphics2D blit = (Graphics2D) g2.create();
+        try {
+            setupGraphics(g2);
+
+            paintBackground(g2);
+            boolean layersCached = updateLayers(blit);
+            if (layersCached) {
+                blit.drawImage(gridLayer, 0, 0, null);
+            } else {
+                drawGrid(g2);
+                drawAxis(g2);
+            }
+            drawPlots(g2);
+            if (layersCached) {
+                blit.drawImage(labelLayer, 0, 0, null);
+            } else {
+                drawLabels(g2);
+            }
+        } finally {
+            blit.dispose();
+        }
         
         paintExtra(g2);
     }
     
+    // Validates the cached layers. The layers are rendered only if the
+    // same state is painted twice in a row, so that panning and zooming
+    // don't pay for rendering images which are used once. They are not
+    // used if the graphics isn't translated by whole pixels only, f.i.
+    // scaled on HiDPI screens, as they would be blurred.
+    private boolean updateLayers(Graphics2D g2) {
+        int width = getWidth();
+        int height = getHeight();
+        if (width <= 0 || height <= 0) {
+            return false;
+        }
+        AffineTransform transform = g2.getTransform();
+        if ((transform.getType() & ~AffineTransform.TYPE_TRANSLATION) != 0
+                || transform.getTranslateX() != Math.rint(transform.getTranslateX())
+                || transform.getTranslateY() != Math.rint(transform.getTranslateY())) {
+            return false;
+        }
+        List<Object> state = Arrays.<Object>asList(width, height,
+                minX, maxX, minY, maxY, originX, originY,
+                majorX, minorCountX, majorY, minorCountY,
+                isGridPainted(), isAxisPainted(), isTextPainted(),
+                getMajorGridColor(), getMinorGridColor(), getAxisColor(),
+                getForeground(), getFont());
+        if (!state.equals(layerState)) {
+            layerState = state;
+            gridLayer = null;
+            labelLayer = null;
+            return false;
+        }
+        if (gridLayer == null) {
+            gridLayer = createLayer(width, height, true);
+            labelLayer = createLayer(width, height, false);
+        }
+        return true;
+    }
+    
+    // Renders the grid and axis or the labels into a translucent image.
+    private BufferedImage createLayer(int width, int height, boolean grid) {
+        BufferedImage image = GraphicsUtilities.createCompatibleTranslucentImage(
+                width, height);
+        Graphics2D g2 = image.createGraphics();
+        try {
+            g2.setFont(getFont());
+            g2.setColor(getForeground());
+            setupGraphics(g2);
+            g2.setClip(0, 0, width, height);
+            if (grid) {
+                drawGrid(g2);
+                drawAxis(g2);
+            } else {
+                drawLabels(g2);
+            }
+        } finally {
+            g2.dispose();
+        }
+        return image;
+    }
+    
     /**
      * <p>This painting method is meant to be overridden by subclasses of
      * <code>JXGraph</code>. This method is called after all the painting
@@ -1305,30 +1478,177 @@ public class JXGraph extends JXPanel {
     protected void paintExtra(Graphics2D g2) {
     }
 
+    // Repaints the region from the last old value to the right border.
+    private void repaintAppended(DataPlot plot, int oldSize) {
+        double x = plot.getX(Math.max(0, oldSize - 1));
+        int position = Math.max(0, (int) Math.floor(xPositionToPixel(x)) - 1);
+        if (position < getWidth()) {
+            repaint(position, 0, getWidth() - position, getHeight());
+        }
+    }
+
     // Draw all the registered plots with the appropriate color.
     private void drawPlots(Graphics2D g2) {
         for (DrawablePlot drawable: plots) {
             g2.setColor(drawable.getColor());
-            drawPlot(g2, drawable.getEquation());
+            drawPlot(g2, drawable);
         }
     }
 
-    // Draw a single plot as a GeneralPath made of straight lines.
-    private void drawPlot(Graphics2D g2, Plot equation) {
-        float x = 0.0f;
-        float y = (float) yPositionToPixel(equation.compute(xPixelToPosition(0.0)));
-        
-        GeneralPath path = new GeneralPath();
-        path.moveTo(x, y);
-        
-        float width = getWidth();
-        for (x = 0.0f; x < width; x += 1.0f) {
-            double position = xPixelToPosition(x);
-            y = (float) yPositionToPixel(equation.compute(position));
-            path.lineTo(x, y);
+    // Draw a single plot as a GeneralPath made of straight lines. The samples
+    // and the path are cached, expensive plots may be sampled asynchronously.
+    private void drawPlot(Graphics2D g2, DrawablePlot drawable) {
+        int width = getWidth();
+        int height = getHeight();
+        if (width <= 0 || height <= 0) {
+            return;
         }
-        
-        g2.draw(path);
+        SampleKey key = new SampleKey(minX, maxX, width,
+                (maxY - minY) / height, drawable.generation);
+        PlotSamples samples = drawable.samples;
+        if (samples == null || !samples.key.equals(key)) {
+            if (isAsynchronousSampling() && samples != null
+                    && !(drawable.getEquation() instanceof DataPlot)
+                    && drawable.samplingTime > ASYNCHRONOUS_SAMPLING_THRESHOLD) {
+                // draw the previous samples until the new ones are available
+                sampleAsynchronously(drawable, key);
+            } else {
+                long start = System.nanoTime();
+                samples = sample(drawable.getEquation(), key);
+                drawable.samplingTime = System.nanoTime() - start;
+                drawable.samples = samples;
+            }
+        }
+        g2.draw(getPath(drawable, samples));
+    }
+    
+    // Returns the path of the samples in the current view, cached.
+    private GeneralPath getPath(DrawablePlot drawable, PlotSamples samples) {
+        int width = getWidth();
+        int height = getHeight();
+        double[] view = {minX, maxX, minY, maxY, width, height};
+        if (drawable.path != null && drawable.pathSamples == samples
+                && Arrays.equals(drawable.pathView, view)) {
+            return drawable.path;
+        }
+        double xScale = width / (maxX - minX);
+        double yScale = height / (maxY - minY);
+        // keep far away points representable 
+        double yLimit = 10.0 * height;
+        GeneralPath path = new GeneralPath(GeneralPath.WIND_NON_ZERO, 
+                samples.count + 1);
+        boolean connected = false;
+        for (int i = 0; i < samples.count; i++) {
+            double y = samples.ys[i];
+            if (Double.isNaN(y) || Double.isInfinite(y)) {
+                connected = false;
+                continue;
+            }
+            float px = (float) ((samples.xs[i] - minX) * xScale);
+            float py = (float) Math.max(-yLimit, Math.min(height + yLimit,
+                    height - (y - minY) * yScale));
+            if (connected) {
+                path.lineTo(px, py);
+            } else {
+                path.moveTo(px, py);
+                connected = true;
+            }
+        }
+        drawable.path = path;
+        drawable.pathSamples = samples;
+        drawable.pathView = view;
+        return path;
+    }
+    
+    // Samples the plot on a background thread and installs the samples on
+    // the EDT. At most one sampling per plot is pending: the repaint after
+    // installing the samples requests the then current view.
+    private void sampleAsynchronously(final DrawablePlot drawable, final SampleKey key) {
+        if (drawable.pendingKey != null) {
+            return;
+        }
+        drawable.pendingKey = key;
+        getSamplingExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                PlotSamples samples = null;
+                long start = System.nanoTime();
+                try {
+                    samples = sample(drawable.getEquation(), key);
+                } catch (RuntimeException e) {
+                    LOG.log(Level.FINE, "sampling failed, retrying on the EDT", e);
+                }
+                final PlotSamples result = samples;
+                final long samplingTime = samples != null ? System.nanoTime() - start : 0;
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        drawable.pendingKey = null;
+                        drawable.samplingTime = samplingTime;
+                        if (result != null && key.generation == drawable.generation) {
+                            drawable.samples = result;
+                        }
+                        repaint();
+                    }
+                });
+            }
+        });
+    }
+    
+    private static synchronized ExecutorService getSamplingExecutor() {
+        if (samplingExecutor == null) {
+            samplingExecutor = Executors.newFixedThreadPool(
+                    Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "JXGraph-sampler");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return samplingExecutor;
+    }
+    
+    // Samples the plot every SAMPLE_STEP pixels and refines the segments
+    // where the curve bends or leaves the domain of the plot.
+    private static PlotSamples sample(Plot plot, SampleKey key) {
+        if (plot instanceof DataPlot) {
+            return ((DataPlot) plot).sample(key);
+        }
+        int count = (int) Math.ceil(key.width / SAMPLE_STEP) + 1;
+        double xStep = (key.maxX - key.minX) / key.width * SAMPLE_STEP;
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        for (int i = 0; i < count; i++) {
+            xs[i] = key.minX + i * xStep;
+            ys[i] = plot.compute(xs[i]);
+        }
+        Sampler sampler = new Sampler(plot, key, count);
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && (isBent(ys, i - 1, key) || isBent(ys, i, key))) {
+                sampler.refine(xs[i - 1], ys[i - 1], xs[i], ys[i]);
+            }
+            sampler.add(xs[i], ys[i]);
+        }
+        return new PlotSamples(key, sampler.xs, sampler.ys, sampler.count);
+    }
+    
+    // Checks the second difference around the sample in pixels.
+    private static boolean isBent(double[] ys, int i, SampleKey key) {
+        if (isNotFinite(ys[i])) {
+            return true;
+        }
+        if (i == 0 || i == ys.length - 1) {
+            return false;
+        }
+        double difference = ys[i - 1] - 2 * ys[i] + ys[i + 1];
+        return isNotFinite(difference) 
+                || Math.abs(difference) / key.yPerPixel > SAMPLE_TOLERANCE;
+    }
+    
+    private static boolean isNotFinite(double value) {
+        return Double.isNaN(value) || Double.isInfinite(value);
     }
 
     // Draws the grid. First draw the vertical lines, then the horizontal lines.
@@ -1627,10 +1947,457 @@ public class JXGraph extends JXPanel {
         public abstract double compute(double value);
     }
 
+    /**
+     * <p>A plot of a series of values at equidistant positions on the X axis,
+     * f.i. the measurements of a sensor. The value with index <code>i</code>
+     * is located at <code>startX + i * stepX</code>.</p>
+     *
+     * <p>The plot keeps a decimation pyramid of the minimum and maximum of 
+     * blocks of 16, 64, 256... values, which needs about a sixth of the 
+     * memory of the series. Where a pixel covers several values, the graph
+     * draws the range from their minimum to their maximum, looked up from the
+     * pyramid, so each paint touches a number of entries proportional to the
+     * width of the graph, not to the length of the series. Where the values 
+     * are further apart, they are connected by straight lines. 
+     * <code>NaN</code> values leave a gap.</p>
+     *
+     * <p>The values can be held by an array or by a <code>DoubleBuffer</code>,
+     * f.i. a view of a memory-mapped file:</p>
+     *
+     * <pre>
+     * MappedByteBuffer mapped = channel.map(MapMode.READ_ONLY, 0, channel.size());
+     * graph.addPlots(Color.BLUE, new JXGraph.DataPlot(0.0, 0.001, 
+     *     mapped.asDoubleBuffer()));
+     * </pre>
+     *
+     * <p>Values appended by {@link #append(double...)} are stored in a heap
+     * buffer which grows as needed, the initial values are copied into it
+     * on the first append. Appending fires a property change event for
+     * the property <code>size</code>, which makes the graph repaint the
+     * region of the new values only.</p>
+     *
+     * <p>This class is not thread safe and should be used only from the
+     * EDT.</p>
+     */
+    public static class DataPlot extends Plot {
+        // size of the blocks of the pyramid's first level and growth factor
+        private static final int BLOCK_SIZE = 16;
+        private static final int LEVEL_FACTOR = 4;
+        
+        private final double startX;
+        private final double stepX;
+        private DoubleBuffer values;
+        private int size;
+        // min and max per block and level
+        private double[][] mins;
+        private double[][] maxs;
+        
+        /**
+         * <p>Creates a plot of the given values. The array is used directly,
+         * without copying. Its elements must not be modified, except 
+         * by appending.</p>
+         *
+         * @param startX the position of the first value on the X axis
+         * @param stepX the distance between two values on the X axis
+         * @param values the values to plot
+         * @throws IllegalArgumentException if stepX is not &gt; 0.0 or values
+         *   is null
+         */
+        public DataPlot(double startX, double stepX, double... values) {
+            this(startX, stepX, values != null ? DoubleBuffer.wrap(values) : null);
+        }
+        
+        /**
+         * <p>Creates a plot of the values between the buffer's position and 
+         * limit. The buffer is used directly, without copying. Its values must 
+         * not be modified, except by appending.</p>
+         *
+         * @param startX the position of the first value on the X axis
+         * @param stepX the distance between two values on the X axis
+         * @param values the values to plot
+         * @throws IllegalArgumentException if stepX is not &gt; 0.0 or values
+         *   is null
+         */
+        public DataPlot(double startX, double stepX, DoubleBuffer values) {
+            if (!(stepX > 0.0)) {
+                throw new IllegalArgumentException("stepX must be > 0.0");
+            }
+            if (values == null) {
+                throw new IllegalArgumentException("values cannot be null.");
+            }
+            this.startX = startX;
+            this.stepX = stepX;
+            this.values = values.slice();
+            this.size = this.values.remaining();
+            this.mins = new double[0][];
+            this.maxs = new double[0][];
+            updatePyramid(0);
+        }
+        
+        /**
+         * <p>Returns the position of the first value on the X axis.</p>
+         *
+         * @return the position of the first value
+         */
+        public double getStartX() {
+            return startX;
+        }
+        
+        /**
+         * <p>Returns the distance between two values on the X axis.</p>
+         *
+         * @return the distance between two values
+         */
+        public double getStepX() {
+            return stepX;
+        }
+        
+        /**
+         * <p>Returns the number of values.</p>
+         *
+         * @return the number of values
+         */
+        public int getSize() {
+            return size;
+        }
+        
+        /**
+         * <p>Returns the value with the given index.</p>
+         *
+         * @param index the index of the value
+         * @return the value
+         * @throws IndexOutOfBoundsException if index is not &gt;= 0 and 
+         *   &lt; getSize()
+         */
+        public double getValue(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("index " + index + " size " + size);
+            }
+            return values.get(index);
+        }
+        
+        /**
+         * <p>Returns the position of the value with the given index on the
+         * X axis.</p>
+         *
+         * @param index the index of the value
+         * @return the position of the value
+         */
+        public double getX(int index) {
+            return startX + index * stepX;
+        }
+        
+        /**
+         * <p>Appends values to the series and fires a property change
+         * event for the property <code>size</code>.</p>
+         *
+         * @param appended the values to append
+         */
+        public void append(double... appended) {
+            if (appended == null || appended.length == 0) {
+                return;
+            }
+            int oldSize = size;
+            if (values.isReadOnly() || !values.hasArray() 
+                    || values.capacity() - size < appended.length) {
+                DoubleBuffer grown = DoubleBuffer.allocate(
+                        Math.max(size + appended.length, size + (size >> 1) + 16));
+                values.position(0).limit(size);
+                grown.put(values);
+                values = grown;
+            }
+            values.clear();
+            values.position(size);
+            values.put(appended);
+            size += appended.length;
+            values.clear();
+            updatePyramid(oldSize);
+            firePropertyChange("size", oldSize, size);
+        }
+        
+        /**
+         * <p>Returns the value at the given position, interpolated linearly
+         * between the adjacent values, or <code>NaN</code> outside of the 
+         * series.</p>
+         *
+         * @param value a position on the X axis
+         * @return the interpolated value at the position
+         */
+        @Override
+        public double compute(double value) {
+            double index = (value - startX) / stepX;
+            if (!(index >= 0.0 && index <= size - 1)) {
+                return Double.NaN;
+            }
+            int lower = (int) index;
+            if (lower == size - 1) {
+                return values.get(lower);
+            }
+            double fraction = index - lower;
+            return values.get(lower) * (1.0 - fraction) + values.get(lower + 1) * fraction;
+        }
+        
+        /**
+         * Stores the minimum and maximum of the values with indices from 
+         * inclusive to exclusive into the result. Both are NaN if all values 
+         * in the range are NaN.
+         */
+        void getRange(int from, int to, double[] result) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            while (from < to) {
+                // the largest block starting at from and ending before to
+                int level = mins.length - 1;
+                int blockSize = getBlockSize(level);
+                while (level >= 0 && (from % blockSize != 0 || from + blockSize > to)) {
+                    level--;
+                    blockSize /= LEVEL_FACTOR;
+                }
+                double blockMin;
+                double blockMax;
+                if (level < 0) {
+                    blockMin = blockMax = values.get(from);
+                    from++;
+                } else {
+                    blockMin = mins[level][from / blockSize];
+                    blockMax = maxs[level][from / blockSize];
+                    from += blockSize;
+                }
+                // comparisons are false for NaN
+                if (blockMin < min) {
+                    min = blockMin;
+                }
+                if (blockMax > max) {
+                    max = blockMax;
+                }
+            }
+            result[0] = min <= max ? min : Double.NaN;
+            result[1] = min <= max ? max : Double.NaN;
+        }
+        
+        private static int getBlockSize(int level) {
+            int blockSize = BLOCK_SIZE;
+            for (int i = 0; i < level; i++) {
+                blockSize *= LEVEL_FACTOR;
+            }
+            return blockSize;
+        }
+        
+        // Updates the blocks containing the values from the given index on,
+        // adding levels as needed. Added levels are filled completely.
+        private void updatePyramid(int from) {
+            int levels = 0;
+            for (long blockSize = BLOCK_SIZE; blockSize < size; blockSize *= LEVEL_FACTOR) {
+                levels++;
+            }
+            int oldLevels = mins.length;
+            if (levels > mins.length) {
+                mins = Arrays.copyOf(mins, levels);
+                maxs = Arrays.copyOf(maxs, levels);
+            }
+            int blockSize = BLOCK_SIZE;
+            int childSize = 1;
+            for (int level = 0; level < mins.length; level++) {
+                int count = (size + blockSize - 1) / blockSize;
+                if (mins[level] == null || mins[level].length < count) {
+                    int capacity = Math.max(count, count + (count >> 1));
+                    mins[level] = mins[level] == null ? new double[capacity] 
+                            : Arrays.copyOf(mins[level], capacity);
+                    maxs[level] = maxs[level] == null ? new double[capacity] 
+                            : Arrays.copyOf(maxs[level], capacity);
+                }
+                int first = level < oldLevels ? from / blockSize : 0;
+                for (int block = first; block < count; block++) {
+                    double min = Double.POSITIVE_INFINITY;
+                    double max = Double.NEGATIVE_INFINITY;
+                    int end = Math.min(size, (block + 1) * blockSize);
+                    for (int i = block * blockSize; i < end; i += childSize) {
+                        double childMin;
+                        double childMax;
+                        if (level == 0) {
+                            childMin = childMax = values.get(i);
+                        } else {
+                            childMin = mins[level - 1][i / childSize];
+                            childMax = maxs[level - 1][i / childSize];
+                        }
+                        if (childMin < min) {
+                            min = childMin;
+                        }
+                        if (childMax > max) {
+                            max = childMax;
+                        }
+                    }
+                    mins[level][block] = min <= max ? min : Double.NaN;
+                    maxs[level][block] = min <= max ? max : Double.NaN;
+                }
+                childSize = blockSize;
+                blockSize *= LEVEL_FACTOR;
+            }
+        }
+        
+        // Samples the values in the view: the values themselves where they
+        // are at least half a pixel apart, the minimum and maximum per pixel 
+        // otherwise.
+        private PlotSamples sample(SampleKey key) {
+            double xPerPixel = (key.maxX - key.minX) / key.width;
+            int first = Math.max(0, (int) Math.floor((key.minX - startX) / stepX));
+            int last = Math.min(size - 1, (int) Math.ceil((key.maxX - startX) / stepX));
+            if (first > last) {
+                return new PlotSamples(key, new double[0], new double[0], 0);
+            }
+            if (xPerPixel / stepX <= 2.0) {
+                int count = last - first + 1;
+                double[] xs = new double[count];
+                double[] ys = new double[count];
+                for (int i = 0; i < count; i++) {
+                    xs[i] = getX(first + i);
+                    ys[i] = values.get(first + i);
+                }
+                return new PlotSamples(key, xs, ys, count);
+            }
+            double[] xs = new double[2 * key.width];
+            double[] ys = new double[xs.length];
+            double[] range = new double[2];
+            int count = 0;
+            for (int pixel = 0; pixel < key.width; pixel++) {
+                double x = key.minX + pixel * xPerPixel;
+                int from = Math.max(0, (int) Math.ceil((x - startX) / stepX));
+                int to = Math.min(size, (int) Math.ceil((x + xPerPixel - startX) / stepX));
+                if (from >= to) {
+                    continue;
+                }
+                getRange(from, to, range);
+                double center = x + xPerPixel / 2.0;
+                xs[count] = center;
+                ys[count++] = range[0];
+                xs[count] = center;
+                ys[count++] = range[1];
+            }
+            return new PlotSamples(key, xs, ys, count);
+        }
+    }
+
+    // Collects the refined samples of a plot.
+    private static class Sampler {
+        private final Plot plot;
+        private final double minStep;
+        private final double yTolerance;
+        private double[] xs;
+        private double[] ys;
+        private int count;
+        
+        private Sampler(Plot plot, SampleKey key, int capacity) {
+            this.plot = plot;
+            this.minStep = (key.maxX - key.minX) / key.width * MIN_SAMPLE_STEP;
+            this.yTolerance = key.yPerPixel * SAMPLE_TOLERANCE;
+            this.xs = new double[capacity + capacity / 2];
+            this.ys = new double[xs.length];
+        }
+        
+        private void add(double x, double y) {
+            if (count == xs.length) {
+                xs = Arrays.copyOf(xs, count * 2);
+                ys = Arrays.copyOf(ys, count * 2);
+            }
+            xs[count] = x;
+            ys[count++] = y;
+        }
+        
+        // Adds the samples between, but excluding, the end points. 
+        private void refine(double x0, double y0, double x1, double y1) {
+            if (x1 - x0 <= minStep) {
+                return;
+            }
+            double x = (x0 + x1) / 2.0;
+            double y = plot.compute(x);
+            boolean finite = !isNotFinite(y0) && !isNotFinite(y1) && !isNotFinite(y);
+            if (!finite && isNotFinite(y0) && isNotFinite(y1) && isNotFinite(y)) {
+                // outside of the domain
+                add(x, y);
+            } else if (!finite || Math.abs(y - (y0 + y1) / 2.0) > yTolerance) {
+                refine(x0, y0, x, y);
+                add(x, y);
+                refine(x, y, x1, y1);
+            } else {
+                add(x, y);
+            }
+        }
+    }
+    
+    // Identifies the samples of a plot: valid for the horizontal extent
+    // of the view, the width and the vertical scale of the component and
+    // the generation of the plot.
+    private static final class SampleKey {
+        private final double minX;
+        private final double maxX;
+        private final int width;
+        private final double yPerPixel;
+        private final int generation;
+        
+        private SampleKey(double minX, double maxX, int width, double yPerPixel,
+                int generation) {
+            this.minX = minX;
+            this.maxX = maxX;
+            this.width = width;
+            this.yPerPixel = yPerPixel;
+            this.generation = generation;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SampleKey)) {
+                return false;
+            }
+            SampleKey that = (SampleKey) o;
+            return minX == that.minX && maxX == that.maxX && width == that.width
+                    && yPerPixel == that.yPerPixel && generation == that.generation;
+        }
+
+        @Override
+        public int hashCode() {
+            long bits = Double.doubleToLongBits(minX) 
+                    + 31 * Double.doubleToLongBits(maxX)
+                    + 31 * 31 * Double.doubleToLongBits(yPerPixel);
+            return (int) (bits ^ (bits >>> 32)) + 29 * width + generation;
+        }
+    }
+    
+    // The sampled positions of a plot in graph units.
+    private static final class PlotSamples {
+        private final SampleKey key;
+        private final double[] xs;
+        private final double[] ys;
+        private final int count;
+        
+        private PlotSamples(SampleKey key, double[] xs, double[] ys, int count) {
+            this.key = key;
+            this.xs = xs;
+            this.ys = ys;
+            this.count = count;
+        }
+    }
+
     // Encapsulates a plot and its color. Avoids the use of a full-blown Map.
+    // Caches the samples and path of the plot.
     private static class DrawablePlot {
         private final Plot equation;
         private final Color color;
+        
+        // incremented on every change of the plot
+        private int generation;
+        // the latest samples, possibly of a previous view or generation
+        private PlotSamples samples;
+        // the duration of the latest sampling in nanoseconds
+        private long samplingTime;
+        // the key of the pending asynchronous sampling, if any
+        private SampleKey pendingKey;
+        // the path of the samples in the view it was created for
+        private GeneralPath path;
+        private PlotSamples pathSamples;
+        private double[] pathView;
 
         private DrawablePlot(Plot equation, Color color) {
             this.equation = equation;
@@ -1644,6 +2411,12 @@ public class JXGraph extends JXPanel {
         private Color getColor() {
             return color;
         }
+        
+        // Marks the samples as outdated, they are still drawn while 
+        // sampling asynchronously.
+        private void invalidate() {
+            generation++;
+        }
 
         @Override
         public boolean equals(Object o) {
@@ -26,6 +26,7 @@ import java.awt.Component;
 import java.awt.Cursor;
 import java.awt.Dialog;
 import java.awt.FileDialog;
+import java.awt.Dimension;
 import java.awt.Frame;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
@@ -44,6 +45,8 @@ import java.awt.geom.Point2D;
 import java.awt.image.AffineTransformOp;
 import java.awt.image.BufferedImage;
 import java.awt.image.BufferedImageOp;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
@@ -52,6 +55,7 @@ import java.util.List;
 import java.util.logging.Logger;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
 import javax.swing.AbstractAction;
 import javax.swing.Action;
 import javax.swing.JComponent;
@@ -83,6 +87,18 @@ import org.jdesktop.swingx.util.PaintUtils;
  * to any attached {@link org.jdesktop.swingx.error.ErrorListener} added by the
  * <CODE>{@link #addErrorListener}()</CODE> method.</p>
  *
+ * <p>Images loaded from a URL or file whose pixel count exceeds the
+ * {@link #setTilingThreshold(long) tiling threshold}, which is off by default,
+ * are not decoded as a whole. Instead the view reads them tile by tile, at the resolution matching
+ * the current scale: each zoom level halves the resolution of the one below and
+ * is decoded with source subsampling, restricted to the region of the tile.
+ * Only the visible tiles are requested, they are loaded on a background thread
+ * and painted from a coarser level until they arrive. The number of decoded
+ * tiles kept in memory is bounded by the {@link #setTileCacheSize(int) tile
+ * cache size}. Such a tiled image has no <code>Image</code>,
+ * {@link #getImage()} returns <code>null</code> while it's shown and the
+ * save and rotate actions are disabled.</p>
+ *
  * @author Joshua Marinacci joshua.marinacci@sun.com
  */
 @JavaBean
@@ -112,6 +128,34 @@ public class JXImageView extends JXPanel {
     private String exportName = "UntitledImage";
     // controls the format and filename extension of the dropped file
     private String exportFormat = "png";
+    // the tiles of an image too large to be decoded as a whole, if any
+    private ImagePyramid pyramid;
+    // the pixel count above which images are loaded as tiles
+    private long tilingThreshold = DEFAULT_TILING_THRESHOLD;
+    // the maximum number of decoded tiles to keep
+    private int tileCacheSize = ImagePyramid.DEFAULT_CACHE_SIZE;
+    // repaints loaded tiles and reports failed ones
+    private ImagePyramid.Listener tileHandler = new ImagePyramid.Listener() {
+        @Override
+        public void tileLoaded(ImagePyramid source) {
+            if (source == pyramid) {
+                repaint();
+            }
+        }
+
+        @Override
+        public void tileFailed(ImagePyramid source, Throwable error) {
+            if (source == pyramid) {
+                fireError(error);
+            }
+        }
+    };
+
+    /**
+     * The default pixel count above which images are loaded as tiles: 
+     * <code>Long.MAX_VALUE</code>, that is images are always decoded as a whole.
+     */
+    public static final long DEFAULT_TILING_THRESHOLD = Long.MAX_VALUE;
     
     /** Creates a new instance of JXImageView */
     public JXImageView() {
@@ -156,11 +200,24 @@ public class JXImageView extends JXPanel {
      * @param image the new image to set, or null.
      */
     public void setImage(Image image) {
+        setImage(image, null);
+    }
+
+    /**
+     * Sets the image or the tiles of an image, disposes the tiles shown so far.
+     */
+    private void setImage(Image image, ImagePyramid pyramid) {
         Image oldImage = getImage();
+        boolean oldTiled = isImageTiled();
         this.image = image;
+        if (this.pyramid != null) {
+            this.pyramid.dispose();
+        }
+        this.pyramid = pyramid;
         setImageLocation(null);
         setScale(1.0);
         firePropertyChange("image",oldImage,image);
+        firePropertyChange("imageTiled", oldTiled, isImageTiled());
         repaint();
     }
     
@@ -174,6 +231,104 @@ public class JXImageView extends JXPanel {
         //setImage(ImageIO.read(url));
     }
     
+    /**
+     * Returns whether the current image is shown as tiles, because it was
+     * loaded from a URL and exceeds the tiling threshold.
+     * @return true if the current image is tiled
+     * @see #setTilingThreshold(long)
+     */
+    public boolean isImageTiled() {
+        return pyramid != null;
+    }
+    
+    /**
+     * Returns the pixel count above which images loaded from a URL or file are
+     * read as tiles instead of as a whole.
+     * @return the tiling threshold
+     */
+    public long getTilingThreshold() {
+        return tilingThreshold;
+    }
+    
+    /**
+     * Sets the pixel count above which images loaded from a URL or file are
+     * read as tiles instead of as a whole. Applies to images loaded afterwards.
+     * The default is {@link #DEFAULT_TILING_THRESHOLD}, which disables 
+     * tiling; f.i. <code>4096L * 4096L</code> tiles images larger than 16
+     * megapixels.
+     * @param tilingThreshold the maximum number of pixels of an image decoded
+     *   as a whole, must not be negative
+     */
+    public void setTilingThreshold(long tilingThreshold) {
+        if (tilingThreshold < 0) {
+            throw new IllegalArgumentException("tilingThreshold must not be negative " + tilingThreshold);
+        }
+        long old = getTilingThreshold();
+        this.tilingThreshold = tilingThreshold;
+        firePropertyChange("tilingThreshold", old, getTilingThreshold());
+    }
+    
+    /**
+     * Returns the maximum number of decoded tiles of a tiled image kept in memory.
+     * @return the tile cache size
+     */
+    public int getTileCacheSize() {
+        return tileCacheSize;
+    }
+    
+    /**
+     * Sets the maximum number of decoded tiles of a tiled image kept in memory.
+     * A tile takes up to 256 x 256 pixels, the default of 128 tiles needs up to
+     * 32MB for 32bit images. The cache should hold at least the tiles visible at
+     * once, else tiles are decoded over and over.
+     * @param tileCacheSize the maximum number of tiles to keep, must not be negative
+     */
+    public void setTileCacheSize(int tileCacheSize) {
+        if (tileCacheSize < 0) {
+            throw new IllegalArgumentException("tileCacheSize must not be negative " + tileCacheSize);
+        }
+        int old = getTileCacheSize();
+        this.tileCacheSize = tileCacheSize;
+        if (pyramid != null) {
+            pyramid.setCacheSize(tileCacheSize);
+        }
+        firePropertyChange("tileCacheSize", old, getTileCacheSize());
+    }
+    
+    /**
+     * Keeps the given action, which needs the current <code>Image</code>,
+     * disabled while a tiled image is shown.
+     */
+    private void disableWhileTiled(final Action action) {
+        action.setEnabled(!isImageTiled());
+        addPropertyChangeListener("imageTiled", new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                action.setEnabled(!isImageTiled());
+            }
+        });
+    }
+    
+    /**
+     * Returns the tiles of the current image, or null if it isn't tiled.
+     */
+    ImagePyramid getImagePyramid() {
+        return pyramid;
+    }
+    
+    /**
+     * Returns the size of the current image in pixels, or null if there is none.
+     */
+    private Dimension getImageSize() {
+        if (pyramid != null) {
+            return new Dimension(pyramid.getWidth(), pyramid.getHeight());
+        }
+        if (getImage() != null) {
+            return new Dimension(getImage().getWidth(null), getImage().getHeight(null));
+        }
+        return null;
+    }
+    
     /**
      * Set the current image to an image pointed to by this File.
      * @param file a File pointing to an image
@@ -364,6 +519,9 @@ public class JXImageView extends JXPanel {
             @Override
             public void actionPerformed(ActionEvent evt) {
                 Image img = getImage();
+                if (img == null) {
+                    return;
+                }
                 BufferedImage dst = new BufferedImage(
                             img.getWidth(null),
                             img.getHeight(null), 
@@ -406,6 +564,7 @@ public class JXImageView extends JXPanel {
         };
 
         action.putValue(Action.NAME,"Save");
+        disableWhileTiled(action);
         return action;
     }
     
@@ -420,6 +579,9 @@ public class JXImageView extends JXPanel {
             @Override
             public void actionPerformed(ActionEvent evt) {
                 Image img = getImage();
+                if (img == null) {
+                    return;
+                }
                 BufferedImage src = new BufferedImage(
                             img.getWidth(null),
                             img.getHeight(null), 
@@ -445,6 +607,7 @@ public class JXImageView extends JXPanel {
             }
         };
         action.putValue(Action.NAME,"Rotate Clockwise");
+        disableWhileTiled(action);
         return action;        
     }
     
@@ -459,6 +622,9 @@ public class JXImageView extends JXPanel {
             @Override
             public void actionPerformed(ActionEvent evt) {
                 Image img = getImage();
+                if (img == null) {
+                    return;
+                }
                 BufferedImage src = new BufferedImage(
                             img.getWidth(null),
                             img.getHeight(null), 
@@ -483,6 +649,7 @@ public class JXImageView extends JXPanel {
             }
         };
         action.putValue(Action.NAME, "Rotate CounterClockwise");
+        disableWhileTiled(action);
         return action;        
     }
        
@@ -528,18 +695,23 @@ public class JXImageView extends JXPanel {
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        if(getImage() != null) {
+        Dimension size = getImageSize();
+        if(size != null) {
             Point2D center = new Point2D.Double(getWidth()/2,getHeight()/2);
             if(getImageLocation() != null) {
                 center = getImageLocation();
             }
             Point2D loc = new Point2D.Double();
-            double width = getImage().getWidth(null)*getScale();
-            double height = getImage().getHeight(null)*getScale();
+            double width = size.width*getScale();
+            double height = size.height*getScale();
             loc.setLocation(center.getX()-width/2, center.getY()-height/2);
-            g.drawImage(getImage(), (int)loc.getX(), (int)loc.getY(),
-                    (int)width,(int)height,
-                    null);
+            if (pyramid != null) {
+                pyramid.paint((Graphics2D) g, (int)loc.getX(), (int)loc.getY(), getScale());
+            } else {
+                g.drawImage(getImage(), (int)loc.getX(), (int)loc.getY(),
+                        (int)width,(int)height,
+                        null);
+            }
         }
     }
 
@@ -578,7 +750,7 @@ public class JXImageView extends JXPanel {
             int offy = curr.y - prev.y;
             Point2D offset = getImageLocation();
             if (offset == null) {
-                if (image != null) {
+                if (image != null || pyramid != null) {
                     offset = new Point2D.Double(getWidth() / 2, getHeight() / 2);
                 } else {
                     offset = new Point2D.Double(0, 0);
@@ -640,6 +812,9 @@ public class JXImageView extends JXPanel {
         @Override
         protected Transferable createTransferable(JComponent c) {
             JXImageView view = (JXImageView)c;
+            if (view.getImage() == null) {
+                return null;
+            }
             return new ImageTransferable(view.getImage(),
                     view.getExportName(), view.getExportFormat());
         }
@@ -754,11 +929,38 @@ public class JXImageView extends JXPanel {
         return imageURL;
     }
 
+    /**
+     * Sets the current image to the image at the given URL. Images larger than
+     * the tiling threshold are shown as tiles, smaller ones are read
+     * completely.
+     * @param imageURL a URL pointing to an image
+     * @throws java.io.IOException thrown if the image cannot be loaded
+     * @see #setTilingThreshold(long)
+     */
     public void setImageURL(URL imageURL) throws IOException {
         URL old = getImageURL();
         this.imageURL = imageURL;
         firePropertyChange("imageURL", old, getImageURL());
-        setImage(ImageIO.read(getImageURL()));
+        ImageReader reader = ImagePyramid.createReader(getImageURL());
+        if (reader == null) {
+            setImage((Image) null);
+            return;
+        }
+        boolean tiled = false;
+        try {
+            if ((long) reader.getWidth(0) * reader.getHeight(0) > getTilingThreshold()) {
+                ImagePyramid tiles = new ImagePyramid(reader, ImagePyramid.DEFAULT_TILE_SIZE,
+                        getTileCacheSize(), tileHandler);
+                tiled = true;
+                setImage(null, tiles);
+            } else {
+                setImage(reader.read(0));
+            }
+        } finally {
+            if (!tiled) {
+                ImagePyramid.dispose(reader);
+            }
+        }
     }
     
     /** Returns the current image's URL (if available) as a string.
@@ -40,6 +40,10 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.Reader;
 import java.io.StringReader;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.swing.Icon;
 import javax.swing.JLabel;
@@ -61,6 +65,7 @@ import javax.swing.text.IconView;
 import javax.swing.text.LabelView;
 import javax.swing.text.MutableAttributeSet;
 import javax.swing.text.ParagraphView;
+import javax.swing.text.Position;
 import javax.swing.text.SimpleAttributeSet;
 import javax.swing.text.StyleConstants;
 import javax.swing.text.StyledEditorKit;
@@ -71,6 +76,8 @@ import javax.swing.text.WrappedPlainView;
 import org.jdesktop.beans.JavaBean;
 import org.jdesktop.swingx.painter.AbstractPainter;
 import org.jdesktop.swingx.painter.Painter;
+import org.jdesktop.swingx.util.TextLayoutCache;
+import org.jdesktop.swingx.util.TextLayoutCache.WrappedText;
 
 /**
  * <p>
@@ -99,7 +106,19 @@ import org.jdesktop.swingx.painter.Painter;
  *
  * <p>
  * Multi-line text is enabled via the <code>lineWrap</code> property. Simply set it to true. By default, line wrapping
- * occurs on word boundaries.
+ * occurs on word boundaries. The styled documents holding the wrapped text are kept in the
+ * {@linkplain TextLayoutCache#getShared() shared text layout cache}, and each label keeps the
+ * views of its recently shown texts. So a line wrapping label used as renderer doesn't build and
+ * lay out the text again for each cell it stamps.
+ * </p>
+ *
+ * <p>
+ * With the <code>lightweightLineWrap</code> property the text is instead broken into lines at
+ * the word boundaries found by a line <code>BreakIterator</code> and painted by
+ * <code>drawString</code>, without any document or view hierarchy. Only text which needs complex
+ * layout, like bidi or shaping, is broken by a <code>LineBreakMeasurer</code> and painted as
+ * <code>TextLayout</code>s. This is much cheaper for labels used as renderers, at the price of supporting
+ * plain text in a single font only.
  * </p>
  *
  * <p>
@@ -156,6 +175,8 @@ public class JXLabel extends JLabel implements BackgroundPaintable {
 
     private boolean multiLine;
 
+    private boolean lightweightLineWrap;
+
     private int pWidth;
 
     private int pHeight;
@@ -165,6 +186,11 @@ public class JXLabel extends JLabel implements BackgroundPaintable {
 
     private int occupiedWidth;
 
+    /**
+     * The recently used wrapping views by document key, reused when the text is shown again.
+     */
+    private transient Map<List<Object>, Renderer> wrappingViews;
+
     private static final String oldRendererKey = "was" + BasicHTML.propertyKey;
     
 //    private static final Logger log = Logger.getAnonymousLogger();
@@ -321,7 +347,7 @@ public class JXLabel extends JLabel implements BackgroundPaintable {
             w = getVisibleRect().width;
         }
         View view = (View) getClientProperty(BasicHTML.propertyKey);
-        if (view != null && view instanceof Renderer) {
+        if (isWrappingView(view)) {
             view.setSize(w - occupiedWidth, h);
         }
     }
@@ -564,12 +590,19 @@ public class JXLabel extends JLabel implements BackgroundPaintable {
             return null;
         }
         View view = (View) getClientProperty(BasicHTML.propertyKey);
-        if (!(view instanceof Renderer)) {
+        if (!isWrappingView(view)) {
             return null;
         }
         return view;
     }
 
+    /**
+     * Returns whether the given view is one of the views installed for line wrapping.
+     */
+    private static boolean isWrappingView(Object view) {
+        return view instanceof Renderer || view instanceof LayoutRenderer;
+    }
+
     private Container getViewport() {
         for(Container p = this; p != null; p = p.getParent()) {
             if(p instanceof Window || p instanceof Applet || p instanceof JViewport) {
@@ -660,6 +693,35 @@ public class JXLabel extends JLabel implements BackgroundPaintable {
         return this.multiLine;
     }
 
+    /**
+     * Sets whether wrapped text is laid out by the lightweight text layout engine instead of
+     * the text views. The lightweight engine breaks the text at the word boundaries found by a
+     * line {@link java.text.BreakIterator}, or by a {@link java.awt.font.LineBreakMeasurer} if
+     * the text needs complex layout, and computes the preferred height without creating
+     * a document, which makes it the better choice for labels used as cell renderers. The
+     * laid-out lines are kept in the {@linkplain TextLayoutCache#getShared() shared cache}.
+     * <p>
+     * The property has effect only if the label wraps plain text.
+     *
+     * @param lightweightLineWrap true to use the lightweight engine, false to use the text views
+     * @see #setLineWrap(boolean)
+     */
+    public void setLightweightLineWrap(boolean lightweightLineWrap) {
+        boolean old = isLightweightLineWrap();
+        this.lightweightLineWrap = lightweightLineWrap;
+        firePropertyChange("lightweightLineWrap", old, isLightweightLineWrap());
+    }
+
+    /**
+     * Returns whether wrapped text is laid out by the lightweight text layout engine. The
+     * default value is false.
+     *
+     * @return true if the lightweight engine is used, false if the text views are used
+     */
+    public boolean isLightweightLineWrap() {
+        return lightweightLineWrap;
+    }
+
     private boolean paintBorderInsets = true;
 
     private int maxLineSpan = -1;
@@ -952,6 +1014,11 @@ public class JXLabel extends JLabel implements BackgroundPaintable {
 
         private static BasicEditorKit basicFactory;
 
+        /**
+         * The maximum number of wrapping views kept per label.
+         */
+        private static final int MAX_CACHED_VIEWS = 64;
+
         @Override
         public void propertyChange(PropertyChangeEvent evt) {
             String name = evt.getPropertyName();
@@ -960,7 +1027,7 @@ public class JXLabel extends JLabel implements BackgroundPaintable {
                 src.dontIgnoreRepaint = true;
             }
             if (src.isLineWrap()) {
-                if ("font".equals(name) || "foreground".equals(name) || "maxLineSpan".equals(name) || "textAlignment".equals(name) || "icon".equals(name) || "iconTextGap".equals(name)) {
+                if ("font".equals(name) || "foreground".equals(name) || "maxLineSpan".equals(name) || "textAlignment".equals(name) || "icon".equals(name) || "iconTextGap".equals(name) || "lightweightLineWrap".equals(name)) {
                     if (evt.getOldValue() != null && !isHTML(src.getText())) {
                         updateRenderer(src);
                     }
@@ -991,7 +1058,7 @@ public class JXLabel extends JLabel implements BackgroundPaintable {
 
         private static void restoreHtmlRenderer(JXLabel src) {
             Object current = src.getClientProperty(BasicHTML.propertyKey);
-            if (current == null || current instanceof Renderer) {
+            if (current == null || isWrappingView(current)) {
                 src.putClientProperty(BasicHTML.propertyKey, src.getClientProperty(oldRendererKey));
             }
         }
@@ -1001,28 +1068,99 @@ public class JXLabel extends JLabel implements BackgroundPaintable {
         }
 
         public static View createView(JXLabel c) {
-            BasicEditorKit kit = getFactory();
-            float rightIndent = 0;
-            if (c.getIcon() != null && c.getHorizontalTextPosition() != SwingConstants.CENTER) {
-                rightIndent = c.getIcon().getIconWidth() + c.getIconTextGap(); 
+            if (c.isLightweightLineWrap()) {
+                return new LayoutRenderer(c);
             }
-            Document doc = kit.createDefaultDocument(c.getFont(), c.getForeground(), c.getTextAlignment(), rightIndent);
-            Reader r = new StringReader(c.getText() == null ? "" : c.getText());
-            try {
-                kit.read(r, doc, 0);
-            } catch (Throwable e) {
-            }
-            ViewFactory f = kit.getViewFactory();
-            View hview = f.create(doc.getDefaultRootElement());
+            return createView(c, getDocumentKey(c));
+        }
+
+        private static View createView(JXLabel c, List<Object> documentKey) {
+            ViewFactory f = getFactory().getViewFactory();
+            View hview = f.create(getDocument(documentKey).getDefaultRootElement());
             View v = new Renderer(c, f, hview, true);
             return v;
         }
 
+        /**
+         * Returns the space kept free for the icon on the right of the text.
+         */
+        private static float getRightIndent(JXLabel c) {
+            if (c.getIcon() != null && c.getHorizontalTextPosition() != SwingConstants.CENTER) {
+                return c.getIcon().getIconWidth() + c.getIconTextGap(); 
+            }
+            return 0;
+        }
+
+        /**
+         * Returns the key of the document holding the label's text as styled for wrapping.
+         */
+        private static List<Object> getDocumentKey(JXLabel c) {
+            return Arrays.<Object>asList(BasicDocument.class, c.getText() == null ? "" : c.getText(),
+                    c.getFont(), c.getForeground(), c.getTextAlignment(), getRightIndent(c));
+        }
+
+        /**
+         * Returns the document for the given key from the shared cache. The document is never
+         * modified once created, so it may back the views of several labels.
+         */
+        private static Document getDocument(List<Object> key) {
+            TextLayoutCache cache = TextLayoutCache.getShared();
+            Document doc = (Document) cache.get(key);
+            if (doc == null) {
+                BasicEditorKit kit = getFactory();
+                doc = kit.createDefaultDocument((Font) key.get(2), (Color) key.get(3),
+                        (TextAlignment) key.get(4), (Float) key.get(5));
+                Reader r = new StringReader((String) key.get(1));
+                try {
+                    kit.read(r, doc, 0);
+                } catch (Throwable e) {
+                }
+                cache.put(key, doc);
+            }
+            return doc;
+        }
+
+        /**
+         * Returns the wrapping view of the label's current text, reusing one of the recently
+         * used views if possible.
+         */
+        private static View getCachedView(final JXLabel c) {
+            if (c.isLightweightLineWrap()) {
+                // cheap to create, the laid-out lines are cached
+                return new LayoutRenderer(c);
+            }
+            if (c.wrappingViews == null) {
+                c.wrappingViews = new LinkedHashMap<List<Object>, Renderer>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<List<Object>, Renderer> eldest) {
+                        if (size() > MAX_CACHED_VIEWS) {
+                            Renderer renderer = eldest.getValue();
+                            renderer.retained = false;
+                            // the current view is detached when replaced
+                            if (renderer != c.getClientProperty(BasicHTML.propertyKey)) {
+                                renderer.getView(0).setParent(null);
+                            }
+                            return true;
+                        }
+                        return false;
+                    }
+                };
+            }
+            List<Object> key = getDocumentKey(c);
+            Renderer view = c.wrappingViews.get(key);
+            if (view == null) {
+                view = (Renderer) createView(c, key);
+                view.retained = true;
+                c.wrappingViews.put(key, view);
+            }
+            return view;
+        }
+
         public static void updateRenderer(JXLabel c) {
             View value = null;
             View oldValue = (View) c.getClientProperty(BasicHTML.propertyKey);
-            if (oldValue == null || oldValue instanceof Renderer) {
-                value = createView(c);
+            if (oldValue == null || isWrappingView(oldValue)) {
+                value = getCachedView(c);
             }
             if (value != oldValue && oldValue != null) {
                 for (int i = 0; i < oldValue.getViewCount(); i++) {
@@ -1068,7 +1206,7 @@ public class JXLabel extends JLabel implements BackgroundPaintable {
             } else if (kind.equals(AbstractDocument.ParagraphElementName)) {
                 view = new ParagraphView(elem);
             } else if (kind.equals(AbstractDocument.SectionElementName)) {
-                view = new BoxView(elem, View.Y_AXIS);
+                view = new SectionView(elem);
             } else if (kind.equals(StyleConstants.ComponentElementName)) {
                 view = new ComponentView(elem);
             } else if (kind.equals(StyleConstants.IconElementName)) {
@@ -1078,6 +1216,163 @@ public class JXLabel extends JLabel implements BackgroundPaintable {
         }
     }
 
+    /**
+     * Root view of the lightweight line wrapping, which lays out the text with the help of the
+     * shared text layout cache instead of a document and child views.
+     */
+    static class LayoutRenderer extends View {
+
+        private final JXLabel host;
+
+        private final String text;
+
+        private final Font font;
+
+        private final float rightIndent;
+
+        private boolean invalidated;
+
+        private float width;
+
+        private float height;
+
+        LayoutRenderer(JXLabel c) {
+            super(null);
+            host = c;
+            text = c.getText() == null ? "" : c.getText();
+            font = c.getFont();
+            rightIndent = MultiLineSupport.getRightIndent(c);
+            int w = host.getVisibleRect().width;
+            if (w == 0) {
+                invalidated = true;
+                return;
+            }
+            setSize(c.getMaxLineSpan() > -1 ? c.getMaxLineSpan() : w, host.getVisibleRect().height);
+        }
+
+        /**
+         * Returns the text wrapped at the given width of this view.
+         */
+        private WrappedText getWrappedText(float viewWidth) {
+            float wrappingWidth = viewWidth > 0 ? Math.max(1, viewWidth - rightIndent) : 0;
+            return TextLayoutCache.getShared().getWrappedText(text, host.getFontMetrics(font), wrappingWidth);
+        }
+
+        @Override
+        public void setSize(float width, float height) {
+            if (host.maxLineSpan > 0) {
+                width = Math.min(width, host.maxLineSpan);
+            }
+            if (width == this.width && height == this.height) {
+                return;
+            }
+            this.width = (int) width;
+            this.height = (int) height;
+            if (this.height == 0) {
+                this.height = getPreferredSpan(Y_AXIS);
+            }
+        }
+
+        @Override
+        public float getPreferredSpan(int axis) {
+            if (axis == X_AXIS) {
+                if (invalidated) {
+                    int w = host.getVisibleRect().width;
+                    if (w != 0) {
+                        invalidated = false;
+                        setSize(w - host.getOccupiedWidth(), host.getVisibleRect().height);
+                    }
+                }
+                return width > 0 ? width : getWrappedText(0).getWidth() + rightIndent;
+            }
+            return getWrappedText(width).getHeight();
+        }
+
+        @Override
+        public void paint(Graphics g, Shape allocation) {
+            Rectangle alloc = allocation.getBounds();
+            WrappedText wrapped = getWrappedText(width);
+            float span = (width > 0 ? width : alloc.width) - rightIndent;
+            Graphics2D g2 = (Graphics2D) g;
+            g2.setColor(host.getForeground());
+            
+            for (int i = 0; i < wrapped.getLineCount(); i++) {
+                float x = alloc.x;
+                float y = alloc.y + wrapped.getBaseline(i);
+                switch (host.getTextAlignment()) {
+                case CENTER:
+                    x += (span - wrapped.getAdvance(i)) / 2;
+                    break;
+                case RIGHT:
+                    x += span - wrapped.getAdvance(i);
+                    break;
+                case JUSTIFY:
+                    if (!wrapped.isParagraphEnd(i)) {
+                        wrapped.drawJustified(g2, i, x, y, span);
+                        continue;
+                    }
+                    break;
+                default:
+                    break;
+                }
+                wrapped.draw(g2, i, x, y);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * Returns null, the lightweight view has no document.
+         */
+        @Override
+        public Document getDocument() {
+            return null;
+        }
+
+        @Override
+        public AttributeSet getAttributes() {
+            return null;
+        }
+
+        @Override
+        public Container getContainer() {
+            return host;
+        }
+
+        @Override
+        public Shape modelToView(int pos, Shape a, Position.Bias b) {
+            return a;
+        }
+
+        @Override
+        public int viewToModel(float x, float y, Shape a, Position.Bias[] biasReturn) {
+            return 0;
+        }
+    }
+
+    /**
+     * Root of the text views, which stays attached while its renderer is retained for reuse.
+     */
+    private static class SectionView extends BoxView {
+        SectionView(Element elem) {
+            super(elem, View.Y_AXIS);
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * Overridden to ignore detaching, f.i. by the label ui on text change, if the
+         * renderer is retained.
+         */
+        @Override
+        public void setParent(View parent) {
+            if (parent == null && getParent() instanceof Renderer && ((Renderer) getParent()).retained) {
+                return;
+            }
+            super.setParent(parent);
+        }
+    }
+
     static class BasicDocument extends DefaultStyledDocument {
         BasicDocument(Font defaultFont, Color foreground, TextAlignment textAlignment, float rightIndent) {
             setFontAndColor(defaultFont, foreground);
@@ -1139,6 +1434,11 @@ public class JXLabel extends JLabel implements BackgroundPaintable {
 
         boolean invalidated = false;
 
+        /**
+         * Whether this renderer is kept for reuse by its host, which keeps its views attached.
+         */
+        boolean retained;
+
         private float width;
 
         private float height;
@@ -69,6 +69,11 @@ import org.jdesktop.swingx.util.JVM;
  * further information.
  * </p>
  * <p>
+ * A translucent {@code JXPanel} renders the part of its subtree inside the clip into an
+ * intermediate image and composites that at the effective alpha. As the panel is the painting
+ * origin of its children, the repaint of a child renders only the child's dirty region.
+ * </p>
+ * <p>
  * A transparency example, this following code will show the black background of the parent:
  * 
  * <pre>
@@ -579,13 +584,25 @@ public class JXPanel extends JPanel implements AlphaPaintable, BackgroundPaintab
         if (getAlpha() == 1f) {
             super.paint(g);
         } else {
-            //the component is translucent, so we need to render to
-            //an intermediate image before painting
-            // TODO should we cache this image? repaint to same image unless size changes?
-            BufferedImage img = createCompatibleTranslucentImage(getWidth(), getHeight());
+            //the component is translucent, so we need to render the clipped part
+            //to an intermediate image before painting
+            Rectangle region = new Rectangle(0, 0, getWidth(), getHeight());
+            Rectangle clip = g.getClipBounds();
+            
+            if (clip != null) {
+                region = region.intersection(clip);
+            }
+            
+            if (region.isEmpty()) {
+                return;
+            }
+            
+            BufferedImage img = createCompatibleTranslucentImage(region.width, region.height);
             Graphics2D gfx = img.createGraphics();
             
             try {
+                gfx.translate(-region.x, -region.y);
+                gfx.clip(region);
                 super.paint(gfx);
             } finally {
                 gfx.dispose();
@@ -597,8 +614,7 @@ public class JXPanel extends JPanel implements AlphaPaintable, BackgroundPaintab
             try {
                 Composite alphaComp = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, getEffectiveAlpha());
                 g2d.setComposite(alphaComp);
-                //TODO should we cache the image?
-                g2d.drawImage(img, null, 0, 0);
+                g2d.drawImage(img, null, region.x, region.y);
             } finally {
                 g2d.setComposite(oldComp);
             }
@@ -32,12 +32,14 @@ import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.Window;
 import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
 import java.awt.print.PrinterException;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.net.URI;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
@@ -74,6 +76,7 @@ import javax.swing.RowSorter.SortKey;
 import javax.swing.ScrollPaneConstants;
 import javax.swing.SortOrder;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.UIDefaults;
 import javax.swing.UIManager;
 import javax.swing.border.LineBorder;
@@ -1637,12 +1640,20 @@ public class JXTable extends JTable implements TableColumnModelExtListener {
      * true.
      * <li> update string representation control after structureChanged
      * <li> core bug #6791934 logic to force revalidate if appropriate
+     * <li> buffer cell updates if coalescingUpdates is true
      * </ul>
      * <p>
      * 
+     * @see #setCoalescingUpdates(boolean)
      */
     @Override
     public void tableChanged(TableModelEvent e) {
+        if (isCoalescingUpdates() && isCoalescable(e)) {
+            coalesceUpdate(e);
+            return;
+        }
+        // pending updates are applied once the sorter knows about the change
+        shiftPendingUpdates(e);
         preprocessModelChange(e);
         super.tableChanged(e);
         if (isStructureChanged(e) && getAutoCreateColumnsFromModel()) {
@@ -1653,6 +1664,7 @@ public class JXTable extends JTable implements TableColumnModelExtListener {
             updateStringValueRegistryColumnClasses();
         }
         postprocessModelChange(e);
+        flushUpdates();
     }
 
 //----> start hack around core issue 6791934: 
@@ -1872,6 +1884,267 @@ public class JXTable extends JTable implements TableColumnModelExtListener {
         return e == null || e.getFirstRow() == TableModelEvent.HEADER_ROW;
     }
 
+    // -------------------------------- coalescing model updates
+
+    /** the time updates are buffered before they are applied. */
+    protected static final int COALESCING_DELAY = 16;
+    
+    private boolean coalescingUpdates;
+    
+    /** the model the pending updates were received from. */
+    private TableModel pendingUpdatesModel;
+    
+    /** dirty rows in model coordinates, keyed by model column or ALL_COLUMNS. */
+    private Map<Integer, BitSet> pendingUpdates;
+    
+    private Timer coalescingTimer;
+    
+    private long receivedUpdateCount;
+    
+    private long appliedUpdateCount;
+    
+    /**
+     * Sets the property to coalesce cell updates of the model. If true, 
+     * updates of rows and cells (that is TableModelEvents of type update, 
+     * except dataChanged and structureChanged) are buffered for one frame 
+     * (about 16 milliseconds) and then applied in a single step: the 
+     * SortController is notified once for the range of dirty rows, and 
+     * only the dirty cells are repainted if neither sorting nor filtering
+     * can be affected. Any other event applies the buffered updates 
+     * right after it is processed, moved to the rows' new positions if the
+     * event inserted or deleted rows.
+     * <p>
+     * 
+     * This is meant for models which update single cells at a high rate, 
+     * f.i. from a live data feed. The default value is false.
+     * 
+     * @param coalescingUpdates true to coalesce cell updates, false to
+     *   process each event immediately.
+     * @see #getReceivedUpdateCount()
+     * @see #getAppliedUpdateCount()
+     */
+    public void setCoalescingUpdates(boolean coalescingUpdates) {
+        boolean old = isCoalescingUpdates();
+        if (!coalescingUpdates) {
+            flushUpdates();
+        }
+        this.coalescingUpdates = coalescingUpdates;
+        firePropertyChange("coalescingUpdates", old, isCoalescingUpdates());
+    }
+    
+    /**
+     * Returns a boolean indicating whether cell updates of the model are
+     * coalesced.
+     * 
+     * @return true if cell updates are coalesced, false otherwise.
+     * @see #setCoalescingUpdates(boolean)
+     */
+    public boolean isCoalescingUpdates() {
+        return coalescingUpdates;
+    }
+    
+    /**
+     * Returns the number of update events buffered while coalescingUpdates
+     * is true.
+     * 
+     * @return the number of update events received for coalescing.
+     * @see #setCoalescingUpdates(boolean)
+     */
+    public long getReceivedUpdateCount() {
+        return receivedUpdateCount;
+    }
+    
+    /**
+     * Returns the number of batches the buffered update events have been 
+     * merged into and applied as.
+     * 
+     * @return the number of applied update batches.
+     * @see #setCoalescingUpdates(boolean)
+     */
+    public long getAppliedUpdateCount() {
+        return appliedUpdateCount;
+    }
+    
+    /**
+     * Applies the buffered cell updates, if any. Called automatically one 
+     * frame after the first buffered update and after processing any 
+     * other model event.
+     */
+    public void flushUpdates() {
+        if (pendingUpdates == null) return;
+        if (coalescingTimer != null) {
+            coalescingTimer.stop();
+        }
+        Map<Integer, BitSet> updates = pendingUpdates;
+        TableModel model = pendingUpdatesModel;
+        pendingUpdates = null;
+        pendingUpdatesModel = null;
+        if (model != getModel()) return;
+        appliedUpdateCount++;
+        applyUpdates(updates);
+    }
+    
+    /**
+     * Returns a boolean to indicate whether the event can be buffered.
+     * 
+     * @param e the event received from the model
+     * @return true if the event updates rows or cells.
+     */
+    protected boolean isCoalescable(TableModelEvent e) {
+        return isUpdate(e) && (e.getFirstRow() >= 0) 
+            && (e.getFirstRow() <= e.getLastRow());
+    }
+    
+    private void coalesceUpdate(TableModelEvent e) {
+        receivedUpdateCount++;
+        if (pendingUpdates == null) {
+            pendingUpdates = new HashMap<Integer, BitSet>();
+            pendingUpdatesModel = getModel();
+            if (coalescingTimer == null) {
+                coalescingTimer = new Timer(COALESCING_DELAY, new ActionListener() {
+                    
+                    @Override
+                    public void actionPerformed(ActionEvent e) {
+                        flushUpdates();
+                    }
+                });
+                coalescingTimer.setRepeats(false);
+            }
+            coalescingTimer.start();
+        }
+        BitSet rows = pendingUpdates.get(e.getColumn());
+        if (rows == null) {
+            rows = new BitSet();
+            pendingUpdates.put(e.getColumn(), rows);
+        }
+        rows.set(e.getFirstRow(), e.getLastRow() + 1);
+    }
+    
+    /**
+     * Moves the buffered updates to the row coordinates after the given 
+     * insert or delete: rows behind an insert move down, deleted rows are
+     * dropped and rows behind them move up.
+     * 
+     * @param e the event received from the model
+     */
+    private void shiftPendingUpdates(TableModelEvent e) {
+        if ((pendingUpdates == null) || isUpdate(e) 
+                || (e.getFirstRow() < 0) || (e.getLastRow() < e.getFirstRow())) return;
+        int first = e.getFirstRow();
+        int last = e.getLastRow();
+        if (last == Integer.MAX_VALUE) {
+            last = e.getType() == TableModelEvent.DELETE ? Integer.MAX_VALUE - 1 : first;
+        }
+        int count = last - first + 1;
+        for (Map.Entry<Integer, BitSet> entry : pendingUpdates.entrySet()) {
+            BitSet rows = entry.getValue();
+            BitSet shifted = rows.get(0, first);
+            for (int row = rows.nextSetBit(first); row >= 0; row = rows.nextSetBit(row + 1)) {
+                if (e.getType() == TableModelEvent.INSERT) {
+                    shifted.set(row + count);
+                } else if (row > last) {
+                    shifted.set(row - count);
+                }
+            }
+            entry.setValue(shifted);
+        }
+    }
+    
+    /**
+     * Applies the merged updates: passes a single event covering all dirty rows
+     * through the normal processing if the updates might change the sort
+     * order or the filtering, notifies the sorter and repaints the dirty cells
+     * otherwise.
+     * 
+     * @param updates the dirty rows in model coordinates, keyed by column
+     */
+    private void applyUpdates(Map<Integer, BitSet> updates) {
+        int rowCount = getModel().getRowCount();
+        BitSet all = new BitSet();
+        for (BitSet rows : updates.values()) {
+            all.or(rows);
+        }
+        all.clear(rowCount, Math.max(rowCount, all.length()));
+        if (all.isEmpty()) return;
+        int first = all.nextSetBit(0);
+        int last = all.length() - 1;
+        int column = updates.size() == 1 ? updates.keySet().iterator().next() 
+                : TableModelEvent.ALL_COLUMNS;
+        if (column >= getModel().getColumnCount()) {
+            column = TableModelEvent.ALL_COLUMNS;
+        }
+        if (isSortingAffected()) {
+            TableModelEvent merged = new TableModelEvent(getModel(), first, last, column);
+            preprocessModelChange(merged);
+            super.tableChanged(merged);
+            postprocessModelChange(merged);
+            return;
+        }
+        RowSorter<?> sorter = getRowSorter();
+        if (sorter != null) {
+            if (column == TableModelEvent.ALL_COLUMNS) {
+                sorter.rowsUpdated(first, last);
+            } else {
+                sorter.rowsUpdated(first, last, column);
+            }
+        }
+        for (Map.Entry<Integer, BitSet> entry : updates.entrySet()) {
+            repaintUpdatedCells(entry.getKey(), entry.getValue(), rowCount);
+        }
+    }
+    
+    /**
+     * Returns a boolean indicating whether updated rows might change their
+     * position in the view.
+     */
+    private boolean isSortingAffected() {
+        RowSorter<?> sorter = getRowSorter();
+        if (sorter == null) return false;
+        if (!(sorter instanceof SortController<?>)) return true;
+        SortController<?> controller = (SortController<?>) sorter;
+        return controller.getSortsOnUpdates() 
+            && (!sorter.getSortKeys().isEmpty() || (controller.getRowFilter() != null));
+    }
+    
+    /**
+     * Repaints the cells of the given model column and rows, merging adjacent
+     * rows in view coordinates.
+     */
+    private void repaintUpdatedCells(int modelColumn, BitSet rows, int rowCount) {
+        int viewColumn = -1;
+        if (modelColumn != TableModelEvent.ALL_COLUMNS) {
+            viewColumn = convertColumnIndexToView(modelColumn);
+            if (viewColumn < 0) return;
+        }
+        int start = -1;
+        int end = -1;
+        for (int row = rows.nextSetBit(0); (row >= 0) && (row < rowCount); row = rows.nextSetBit(row + 1)) {
+            int viewRow = convertRowIndexToView(row);
+            if (viewRow < 0) continue;
+            if ((start >= 0) && (viewRow == end + 1)) {
+                end = viewRow;
+                continue;
+            }
+            if (start >= 0) {
+                repaintCells(start, end, viewColumn);
+            }
+            start = end = viewRow;
+        }
+        if (start >= 0) {
+            repaintCells(start, end, viewColumn);
+        }
+    }
+    
+    private void repaintCells(int firstRow, int lastRow, int viewColumn) {
+        Rectangle dirty = getCellRect(firstRow, Math.max(viewColumn, 0), false);
+        dirty.add(getCellRect(lastRow, Math.max(viewColumn, 0), false));
+        if (viewColumn < 0) {
+            dirty.x = 0;
+            dirty.width = getColumnModel().getTotalColumnWidth();
+        }
+        repaint(dirty);
+    }
+
 
     // -------------------------------- sorting: configure sorter
 
@@ -3197,6 +3470,10 @@ public class JXTable extends JTable implements TableColumnModelExtListener {
                 throw new IllegalArgumentException("invalid column index, must be positive and less than " 
                         + getColumnCount() + " was: " + modelColumn);
             }
+            if (table.getColumnModel() instanceof DefaultTableColumnModelExt) {
+                return ((DefaultTableColumnModelExt) table.getColumnModel())
+                        .getColumnByModelIndex(modelColumn);
+            }
             List<TableColumn> columns = table.getColumns(true);
             for (Iterator<TableColumn> iter = columns.iterator(); iter
                     .hasNext();) {
@@ -27,12 +27,16 @@ import java.awt.event.MouseEvent;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.Serializable;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.logging.Logger;
 
 import javax.swing.JTable;
 import javax.swing.SortOrder;
 import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
 import javax.swing.event.MouseInputListener;
+import javax.swing.event.TableColumnModelEvent;
 import javax.swing.table.JTableHeader;
 import javax.swing.table.TableCellRenderer;
 import javax.swing.table.TableColumn;
@@ -43,6 +47,7 @@ import org.jdesktop.swingx.plaf.LookAndFeelAddons;
 import org.jdesktop.swingx.plaf.TableHeaderAddon;
 import org.jdesktop.swingx.sort.SortController;
 import org.jdesktop.swingx.table.TableColumnExt;
+import org.jdesktop.swingx.table.TableColumnModelExt;
 
 /**
  * TableHeader with extended functionality if associated Table is of
@@ -71,6 +76,10 @@ import org.jdesktop.swingx.table.TableColumnExt;
  * <li> Listens to TableColumn propertyChanges to update itself accordingly.
  * <li> Supports per-column header ToolTips. 
  * <li> Guarantees reasonable minimal height > 0 for header preferred height.
+ * <li> Caches its preferred size and the measured height of each column's header,
+ *  if the column model is of type TableColumnModelExt. The cached height of a column
+ *  is dropped on changes of its properties, all cached sizes on changes of the
+ *  header's font, border, ui, default renderer or column model.
 * </ul>
  * 
  * 
@@ -94,6 +103,10 @@ public class JXTableHeader extends JTableHeader
     private transient PropertyChangeListener tablePropertyChangeListener;
     private boolean resortsOnDoubleClick;
     private Point popupTriggerLocation;
+    /** the cached preferred size, null if invalid. */
+    private transient Dimension cachedPreferredSize;
+    /** the measured preferred height of the header per column. */
+    private transient Map<TableColumn, Integer> columnHeights;
 
     /**
      *  Constructs a <code>JTableHeader</code> with a default 
@@ -118,6 +131,28 @@ public class JXTableHeader extends JTableHeader
         super(columnModel);
     }
 
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Overridden to install a listener which invalidates the cached sizes. 
+     */
+    @Override
+    protected void initializeLocalVars() {
+        super.initializeLocalVars();
+        addPropertyChangeListener(new PropertyChangeListener() {
+            
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                String property = evt.getPropertyName();
+                if ("font".equals(property) || "border".equals(property)
+                        || "UI".equals(property) || "columnModel".equals(property)
+                        || "table".equals(property)) {
+                    invalidateCachedSize(null);
+                }
+            }
+        });
+    }
+
 
     /**
      * {@inheritDoc} <p>
@@ -184,9 +219,86 @@ public class JXTableHeader extends JTableHeader
     @Override
     public void columnPropertyChange(PropertyChangeEvent event) {
        if (isColumnEvent(event)) return;
+       if (event.getSource() instanceof TableColumn) {
+           invalidateCachedSize((TableColumn) event.getSource());
+       } else {
+           invalidateCachedSize(null);
+       }
        resizeAndRepaint(); 
     }
     
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Overridden to invalidate the cached preferred size.
+     */
+    @Override
+    public void columnAdded(TableColumnModelEvent e) {
+        cachedPreferredSize = null;
+        super.columnAdded(e);
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Overridden to invalidate the cached preferred size.
+     */
+    @Override
+    public void columnRemoved(TableColumnModelEvent e) {
+        cachedPreferredSize = null;
+        super.columnRemoved(e);
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Overridden to invalidate the cached preferred size.
+     */
+    @Override
+    public void columnMarginChanged(ChangeEvent e) {
+        cachedPreferredSize = null;
+        super.columnMarginChanged(e);
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Overridden to invalidate the cached sizes.
+     */
+    @Override
+    public void setDefaultRenderer(TableCellRenderer defaultRenderer) {
+        super.setDefaultRenderer(defaultRenderer);
+        invalidateCachedSize(null);
+    }
+
+    /**
+     * Invalidates the cached preferred size and the measured height of the
+     * given column's header. Must be called if a header renderer's size
+     * requirements changed without notification.
+     * 
+     * @param column the column to re-measure, or null to re-measure all columns
+     */
+    public void invalidateCachedSize(TableColumn column) {
+        cachedPreferredSize = null;
+        if (columnHeights == null) return;
+        if (column == null) {
+            columnHeights.clear();
+        } else {
+            columnHeights.remove(column);
+        }
+    }
+
+    /**
+     * Returns a boolean indicating whether the sizes can be cached. This
+     * implementation returns true if the column model is of type 
+     * TableColumnModelExt, which notifies about property changes of its columns.
+     * 
+     * @return true if the sizes can be cached, false otherwise.
+     */
+    protected boolean isSizeCacheable() {
+        return getColumnModel() instanceof TableColumnModelExt;
+    }
+    
     
     /**
      * Returns a boolean indicating if a property change event received
@@ -383,9 +495,16 @@ public class JXTableHeader extends JTableHeader
      */
     @Override
     public Dimension getPreferredSize() {
+        boolean cacheable = isSizeCacheable() && !isPreferredSizeSet();
+        if (cacheable && cachedPreferredSize != null) {
+            return new Dimension(cachedPreferredSize);
+        }
         Dimension pref = super.getPreferredSize();
         pref = getPreferredSize(pref);
         pref.height = getMinimumHeight(pref.height);
+        if (cacheable) {
+            cachedPreferredSize = new Dimension(pref);
+        }
         return pref;
     }
     
@@ -402,11 +521,27 @@ public class JXTableHeader extends JTableHeader
      */
     protected Dimension getPreferredSize(Dimension pref) {
         int height = pref.height;
+        boolean cacheable = isSizeCacheable();
+        if (cacheable && columnHeights == null) {
+            columnHeights = new IdentityHashMap<TableColumn, Integer>();
+        }
         for (int i = 0; i < getColumnModel().getColumnCount(); i++) {
-            TableCellRenderer renderer = getCellRenderer(i);
-            Component comp = renderer.getTableCellRendererComponent(table, 
-                    getColumnModel().getColumn(i).getHeaderValue(), false, false, -1, i);
-            height = Math.max(height, comp.getPreferredSize().height);
+            TableColumn column = getColumnModel().getColumn(i);
+            Integer columnHeight = cacheable ? columnHeights.get(column) : null;
+            if (columnHeight == null) {
+                TableCellRenderer renderer = getCellRenderer(i);
+                Component comp = renderer.getTableCellRendererComponent(table, 
+                        column.getHeaderValue(), false, false, -1, i);
+                columnHeight = comp.getPreferredSize().height;
+                if (cacheable) {
+                    columnHeights.put(column, columnHeight);
+                }
+            }
+            height = Math.max(height, columnHeight);
+        }
+        if (cacheable && columnHeights.size() > 2 * getColumnModel().getColumnCount()) {
+            // removed columns accumulated
+            columnHeights.clear();
         }
         pref.height = height;
         return pref;
@@ -0,0 +1,743 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx;
+
+import java.applet.Applet;
+import java.awt.AWTEvent;
+import java.awt.Component;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.awt.Window;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.InvocationEvent;
+import java.awt.event.PaintEvent;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.swing.JComponent;
+import javax.swing.RepaintManager;
+
+/**
+ * A {@code RepaintManager} which records what is repainted and how responsive
+ * the EDT is, for profiling applications in production without attaching a
+ * profiler. It records
+ * <ul>
+ * <li>the number and area of dirty regions per component class,</li>
+ * <li>the number and duration of paint passes,</li>
+ * <li>the number and duration of dispatched events and their latency, that is
+ * the time between posting and dispatching,</li>
+ * <li>stack traces of the EDT for tasks running longer than the
+ * {@link #setLongTaskThreshold(long) long task threshold}.</li>
+ * </ul>
+ * Profiling is opt-in. Installing the manager wraps the current repaint
+ * manager, pushes an {@code EventQueue} which measures the dispatching and
+ * registers the manager with the platform MBean server as
+ * {@value #OBJECT_NAME}:
+ * 
+ * <pre>
+ * ProfilingRepaintManager profiler = ProfilingRepaintManager.install();
+ * ...
+ * ProfilingRepaintManager.Snapshot snapshot = profiler.getSnapshot();
+ * profiler.uninstall();
+ * </pre>
+ * 
+ * Paint passes of the wrapped manager are recognized by the events it posts to
+ * process the dirty regions. Latency is measured for events carrying a
+ * timestamp, which are input, action and invocation events. Events dispatched
+ * while a modal dialog is showing are nested in the event showing the dialog,
+ * which is not recorded.
+ * <p>
+ * The long tasks are sampled by a background thread, the most recent
+ * {@value #MAX_LONG_TASKS} are kept.
+ */
+public class ProfilingRepaintManager extends ForwardingRepaintManager implements
+        ProfilingRepaintManagerMXBean {
+    /**
+     * The name under which the manager is registered with the platform MBean
+     * server.
+     */
+    public static final String OBJECT_NAME = "org.jdesktop.swingx:type=ProfilingRepaintManager";
+    
+    /**
+     * The default long task threshold in milliseconds.
+     */
+    public static final long DEFAULT_LONG_TASK_THRESHOLD = 100;
+    
+    /**
+     * The number of long tasks kept.
+     */
+    public static final int MAX_LONG_TASKS = 50;
+    
+    private static final Logger LOG = Logger.getLogger(ProfilingRepaintManager.class.getName());
+    
+    // the events of the wrapped manager to paint the dirty regions
+    private static final String PAINT_RUNNABLE = "RepaintManager$ProcessingRunnable";
+    
+    // period of the long task sampling in milliseconds
+    private static final long SAMPLING_PERIOD = 20;
+    
+    private final Object lock = new Object();
+    // count and area by component class
+    private final Map<Class<?>, long[]> dirtyRegions = new HashMap<Class<?>, long[]>();
+    private final LinkedList<LongTask> longTasks = new LinkedList<LongTask>();
+    private long paintCount;
+    private long paintTime;
+    private long maxPaintTime;
+    private long eventCount;
+    private long dispatchTime;
+    private long maxDispatchTime;
+    private long latencyCount;
+    private long latency;
+    private long maxLatency;
+    
+    private volatile long longTaskThreshold = DEFAULT_LONG_TASK_THRESHOLD;
+    
+    private ProfilingEventQueue eventQueue;
+    private ScheduledExecutorService sampler;
+    private ObjectName objectName;
+    
+    /**
+     * Creates a new manager that forwards all calls to the delegate. The
+     * manager records dirty regions and direct calls to
+     * {@link #paintDirtyRegions()} only, unless it's installed.
+     * 
+     * @param delegate
+     *            the manager backing this {@code ProfilingRepaintManager}
+     * @throws NullPointerException
+     *             if {@code delegate} is {@code null}
+     * @see #install()
+     */
+    public ProfilingRepaintManager(RepaintManager delegate) {
+        super(delegate);
+    }
+    
+    /**
+     * Wraps the current repaint manager with a new profiling manager and
+     * starts profiling.
+     * 
+     * @return the installed manager
+     */
+    public static ProfilingRepaintManager install() {
+        ProfilingRepaintManager manager = new ProfilingRepaintManager(
+                RepaintManager.currentManager((Component) null));
+        RepaintManager.setCurrentManager(manager);
+        manager.start();
+        
+        return manager;
+    }
+    
+    /**
+     * Stops profiling and restores the wrapped repaint manager if this manager
+     * is the current one. The statistics remain available.
+     */
+    public void uninstall() {
+        stop();
+        
+        if (RepaintManager.currentManager((Component) null) == this) {
+            RepaintManager.setCurrentManager(getDelegateManager());
+        }
+    }
+    
+    private synchronized void start() {
+        if (eventQueue != null) {
+            return;
+        }
+        
+        eventQueue = new ProfilingEventQueue();
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(eventQueue);
+        
+        sampler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ProfilingRepaintManager");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        sampler.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                eventQueue.sample();
+            }
+        }, SAMPLING_PERIOD, SAMPLING_PERIOD, TimeUnit.MILLISECONDS);
+        
+        try {
+            objectName = new ObjectName(OBJECT_NAME);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        } catch (JMException e) {
+            LOG.log(Level.WARNING, "cannot register " + OBJECT_NAME, e);
+            objectName = null;
+        }
+    }
+    
+    private synchronized void stop() {
+        if (eventQueue == null) {
+            return;
+        }
+        
+        sampler.shutdownNow();
+        sampler = null;
+        eventQueue.uninstall();
+        eventQueue = null;
+        
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (JMException e) {
+                LOG.log(Level.WARNING, "cannot unregister " + OBJECT_NAME, e);
+            }
+            objectName = null;
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addDirtyRegion(Applet applet, int x, int y, int w, int h) {
+        recordDirtyRegion(applet.getClass(), w, h);
+        super.addDirtyRegion(applet, x, y, w, h);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addDirtyRegion(JComponent c, int x, int y, int w, int h) {
+        recordDirtyRegion(c.getClass(), w, h);
+        super.addDirtyRegion(c, x, y, w, h);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addDirtyRegion(Window window, int x, int y, int w, int h) {
+        recordDirtyRegion(window.getClass(), w, h);
+        super.addDirtyRegion(window, x, y, w, h);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void paintDirtyRegions() {
+        long start = System.nanoTime();
+        
+        try {
+            super.paintDirtyRegions();
+        } finally {
+            recordPaint(System.nanoTime() - start);
+        }
+    }
+    
+    private void recordDirtyRegion(Class<?> type, int w, int h) {
+        synchronized (lock) {
+            long[] region = dirtyRegions.get(type);
+            
+            if (region == null) {
+                region = new long[2];
+                dirtyRegions.put(type, region);
+            }
+            
+            region[0]++;
+            region[1] += (long) Math.max(0, w) * Math.max(0, h);
+        }
+    }
+    
+    private void recordPaint(long time) {
+        synchronized (lock) {
+            paintCount++;
+            paintTime += time;
+            maxPaintTime = Math.max(maxPaintTime, time);
+        }
+    }
+    
+    private void recordEvent(long time, long eventLatency) {
+        synchronized (lock) {
+            if (time >= 0) {
+                eventCount++;
+                dispatchTime += time;
+                maxDispatchTime = Math.max(maxDispatchTime, time);
+            }
+            
+            if (eventLatency >= 0) {
+                latencyCount++;
+                latency += eventLatency;
+                maxLatency = Math.max(maxLatency, eventLatency);
+            }
+        }
+    }
+    
+    private void recordLongTask(LongTask task) {
+        synchronized (lock) {
+            longTasks.add(task);
+            
+            if (longTasks.size() > MAX_LONG_TASKS) {
+                longTasks.removeFirst();
+            }
+        }
+    }
+    
+    /**
+     * Returns a copy of the current statistics.
+     * 
+     * @return the statistics
+     */
+    public Snapshot getSnapshot() {
+        synchronized (lock) {
+            return new Snapshot(this);
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset() {
+        synchronized (lock) {
+            dirtyRegions.clear();
+            longTasks.clear();
+            paintCount = 0;
+            paintTime = 0;
+            maxPaintTime = 0;
+            eventCount = 0;
+            dispatchTime = 0;
+            maxDispatchTime = 0;
+            latencyCount = 0;
+            latency = 0;
+            maxLatency = 0;
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLongTaskThreshold() {
+        return longTaskThreshold;
+    }
+    
+    /**
+     * Sets the duration after which the stack trace of a running task is
+     * recorded. The default is {@value #DEFAULT_LONG_TASK_THRESHOLD}
+     * milliseconds.
+     * 
+     * @param threshold
+     *            the threshold in milliseconds
+     * @throws IllegalArgumentException
+     *             if {@code threshold} is not positive
+     */
+    @Override
+    public void setLongTaskThreshold(long threshold) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("threshold must be positive");
+        }
+        
+        longTaskThreshold = threshold;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getPaintCount() {
+        return getSnapshot().getPaintCount();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getAveragePaintTime() {
+        return getSnapshot().getAveragePaintTime();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getMaxPaintTime() {
+        return getSnapshot().getMaxPaintTime();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getEventCount() {
+        return getSnapshot().getEventCount();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getAverageDispatchTime() {
+        return getSnapshot().getAverageDispatchTime();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getMaxDispatchTime() {
+        return getSnapshot().getMaxDispatchTime();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getAverageLatency() {
+        return getSnapshot().getAverageLatency();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getMaxLatency() {
+        return getSnapshot().getMaxLatency();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Long> getDirtyRegionCounts() {
+        return getSnapshot().getDirtyRegionCounts();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Long> getDirtyRegionAreas() {
+        return getSnapshot().getDirtyRegionAreas();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String[] getLongTasks() {
+        List<LongTask> tasks = getSnapshot().getLongTasks();
+        String[] result = new String[tasks.size()];
+        
+        for (int i = 0; i < result.length; i++) {
+            result[i] = tasks.get(i).toString();
+        }
+        
+        return result;
+    }
+    
+    /**
+     * The statistics of a {@code ProfilingRepaintManager} at some point in
+     * time. Times are in milliseconds.
+     */
+    public static final class Snapshot {
+        private final long paintCount;
+        private final double averagePaintTime;
+        private final double maxPaintTime;
+        private final long eventCount;
+        private final double averageDispatchTime;
+        private final double maxDispatchTime;
+        private final double averageLatency;
+        private final long maxLatency;
+        private final Map<String, Long> dirtyRegionCounts;
+        private final Map<String, Long> dirtyRegionAreas;
+        private final List<LongTask> longTasks;
+        
+        Snapshot(ProfilingRepaintManager manager) {
+            paintCount = manager.paintCount;
+            averagePaintTime = average(manager.paintTime, paintCount) / 1e6;
+            maxPaintTime = manager.maxPaintTime / 1e6;
+            eventCount = manager.eventCount;
+            averageDispatchTime = average(manager.dispatchTime, eventCount) / 1e6;
+            maxDispatchTime = manager.maxDispatchTime / 1e6;
+            averageLatency = average(manager.latency, manager.latencyCount);
+            maxLatency = manager.maxLatency;
+            
+            Map<String, Long> counts = new HashMap<String, Long>();
+            Map<String, Long> areas = new HashMap<String, Long>();
+            
+            for (Map.Entry<Class<?>, long[]> entry : manager.dirtyRegions.entrySet()) {
+                counts.put(entry.getKey().getName(), entry.getValue()[0]);
+                areas.put(entry.getKey().getName(), entry.getValue()[1]);
+            }
+            
+            dirtyRegionCounts = Collections.unmodifiableMap(counts);
+            dirtyRegionAreas = Collections.unmodifiableMap(areas);
+            longTasks = Collections.unmodifiableList(new ArrayList<LongTask>(manager.longTasks));
+        }
+        
+        private static double average(long total, long count) {
+            return count == 0 ? 0 : (double) total / count;
+        }
+        
+        /**
+         * @return the number of paint passes
+         */
+        public long getPaintCount() {
+            return paintCount;
+        }
+        
+        /**
+         * @return the average duration of a paint pass
+         */
+        public double getAveragePaintTime() {
+            return averagePaintTime;
+        }
+        
+        /**
+         * @return the maximum duration of a paint pass
+         */
+        public double getMaxPaintTime() {
+            return maxPaintTime;
+        }
+        
+        /**
+         * @return the number of events dispatched on the EDT
+         */
+        public long getEventCount() {
+            return eventCount;
+        }
+        
+        /**
+         * @return the average time spent dispatching an event
+         */
+        public double getAverageDispatchTime() {
+            return averageDispatchTime;
+        }
+        
+        /**
+         * @return the maximum time spent dispatching an event
+         */
+        public double getMaxDispatchTime() {
+            return maxDispatchTime;
+        }
+        
+        /**
+         * @return the average time between posting and dispatching an event
+         */
+        public double getAverageLatency() {
+            return averageLatency;
+        }
+        
+        /**
+         * @return the maximum time between posting and dispatching an event
+         */
+        public long getMaxLatency() {
+            return maxLatency;
+        }
+        
+        /**
+         * @return the number of dirty regions added, by component class name
+         */
+        public Map<String, Long> getDirtyRegionCounts() {
+            return dirtyRegionCounts;
+        }
+        
+        /**
+         * @return the area in pixels of the dirty regions added, by component
+         *         class name
+         */
+        public Map<String, Long> getDirtyRegionAreas() {
+            return dirtyRegionAreas;
+        }
+        
+        /**
+         * @return the recorded long tasks, oldest first
+         */
+        public List<LongTask> getLongTasks() {
+            return longTasks;
+        }
+    }
+    
+    /**
+     * A task which ran on the EDT for longer than the long task threshold.
+     */
+    public static final class LongTask {
+        private final long time;
+        private final long duration;
+        private final String event;
+        private final StackTraceElement[] stackTrace;
+        
+        LongTask(long time, long duration, String event, StackTraceElement[] stackTrace) {
+            this.time = time;
+            this.duration = duration;
+            this.event = event;
+            this.stackTrace = stackTrace;
+        }
+        
+        /**
+         * @return the time the stack trace was sampled, as returned by
+         *         {@code System.currentTimeMillis()}
+         */
+        public long getTime() {
+            return time;
+        }
+        
+        /**
+         * @return the time the task had been running when sampled, in
+         *         milliseconds
+         */
+        public long getDuration() {
+            return duration;
+        }
+        
+        /**
+         * @return the type and source of the event being dispatched
+         */
+        public String getEvent() {
+            return event;
+        }
+        
+        /**
+         * @return the stack trace of the EDT when sampled
+         */
+        public StackTraceElement[] getStackTrace() {
+            return stackTrace.clone();
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append(event).append(" running for ").append(duration).append(" ms");
+            
+            for (StackTraceElement element : stackTrace) {
+                builder.append("\n\tat ").append(element);
+            }
+            
+            return builder.toString();
+        }
+    }
+    
+    /**
+     * Measures the dispatching of events.
+     */
+    private final class ProfilingEventQueue extends EventQueue {
+        // the event being dispatched, accessed by the sampler
+        private volatile Thread dispatchThread;
+        private volatile AWTEvent dispatchedEvent;
+        private volatile long dispatchStart;
+        private volatile long dispatchSequence;
+        private long sampledSequence;
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void dispatchEvent(AWTEvent event) {
+            long sequence = ++dispatchSequence;
+            long when = getWhen(event);
+            long eventLatency = when > 0 ? Math.max(0, System.currentTimeMillis() - when) : -1;
+            boolean paint = isPaint(event);
+            dispatchThread = Thread.currentThread();
+            dispatchedEvent = event;
+            long start = System.nanoTime();
+            dispatchStart = start;
+            
+            try {
+                super.dispatchEvent(event);
+            } finally {
+                long time = System.nanoTime() - start;
+                dispatchStart = 0;
+                dispatchedEvent = null;
+                
+                // events dispatched by a nested loop, f.i. of a modal dialog,
+                // are recorded on their own
+                boolean nested = sequence != dispatchSequence;
+                recordEvent(nested ? -1 : time, eventLatency);
+                
+                if (paint && !nested) {
+                    recordPaint(time);
+                }
+            }
+        }
+        
+        private long getWhen(AWTEvent event) {
+            if (event instanceof InputEvent) {
+                return ((InputEvent) event).getWhen();
+            } else if (event instanceof InvocationEvent) {
+                return ((InvocationEvent) event).getWhen();
+            } else if (event instanceof ActionEvent) {
+                return ((ActionEvent) event).getWhen();
+            }
+            
+            return 0;
+        }
+        
+        private boolean isPaint(AWTEvent event) {
+            return event instanceof PaintEvent || event instanceof InvocationEvent
+                    && event.getSource() == Toolkit.getDefaultToolkit()
+                    && event.paramString().contains(PAINT_RUNNABLE);
+        }
+        
+        /**
+         * Records the stack trace of the EDT if the current event has been
+         * dispatched for longer than the threshold. Called by the sampler.
+         */
+        void sample() {
+            long start = dispatchStart;
+            long sequence = dispatchSequence;
+            AWTEvent event = dispatchedEvent;
+            Thread thread = dispatchThread;
+            
+            if (start == 0 || event == null || sequence == sampledSequence) {
+                return;
+            }
+            
+            long duration = (System.nanoTime() - start) / 1000000;
+            
+            if (duration >= getLongTaskThreshold()) {
+                sampledSequence = sequence;
+                Object source = event.getSource();
+                recordLongTask(new LongTask(System.currentTimeMillis(), duration, 
+                        event.getClass().getName() + " on "
+                        + (source == null ? null : source.getClass().getName()),
+                        thread.getStackTrace()));
+            }
+        }
+        
+        void uninstall() {
+            pop();
+        }
+    }
+}
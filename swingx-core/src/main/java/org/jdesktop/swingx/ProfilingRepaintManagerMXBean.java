@@ -0,0 +1,102 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx;
+
+import java.util.Map;
+
+/**
+ * The management interface of a {@link ProfilingRepaintManager}, registered
+ * with the platform MBean server as
+ * {@value ProfilingRepaintManager#OBJECT_NAME}. Times are in milliseconds.
+ */
+public interface ProfilingRepaintManagerMXBean {
+    /**
+     * @return the number of paint passes
+     */
+    long getPaintCount();
+
+    /**
+     * @return the average duration of a paint pass
+     */
+    double getAveragePaintTime();
+
+    /**
+     * @return the maximum duration of a paint pass
+     */
+    double getMaxPaintTime();
+
+    /**
+     * @return the number of events dispatched on the EDT
+     */
+    long getEventCount();
+
+    /**
+     * @return the average time spent dispatching an event
+     */
+    double getAverageDispatchTime();
+
+    /**
+     * @return the maximum time spent dispatching an event
+     */
+    double getMaxDispatchTime();
+
+    /**
+     * @return the average time between posting and dispatching an event
+     */
+    double getAverageLatency();
+
+    /**
+     * @return the maximum time between posting and dispatching an event
+     */
+    long getMaxLatency();
+
+    /**
+     * @return the number of dirty regions added, by component class
+     */
+    Map<String, Long> getDirtyRegionCounts();
+
+    /**
+     * @return the area in pixels of the dirty regions added, by component
+     *         class
+     */
+    Map<String, Long> getDirtyRegionAreas();
+
+    /**
+     * @return the recorded long tasks, with their stack trace
+     */
+    String[] getLongTasks();
+
+    /**
+     * @return the duration after which a task is recorded as long task
+     */
+    long getLongTaskThreshold();
+
+    /**
+     * @param threshold
+     *            the duration after which a task is recorded as long task
+     */
+    void setLongTaskThreshold(long threshold);
+
+    /**
+     * Clears all statistics.
+     */
+    void reset();
+}
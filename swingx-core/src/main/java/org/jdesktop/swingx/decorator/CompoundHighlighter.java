@@ -24,6 +24,8 @@ package org.jdesktop.swingx.decorator;
 import java.awt.Component;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
@@ -49,6 +51,15 @@ public class CompoundHighlighter extends AbstractHighlighter
     /** the listener for changes in contained Highlighters. */
     private ChangeListener highlighterChangeListener;
 
+    /** flag to indicate whether the pipeline is compiled per column. */
+    private boolean compiled;
+    
+    /** the compiled plans per component, indexed by model column. */
+    private Map<Object, ColumnPlan[]> plans;
+    
+    /** the listener to drop the compiled plans on any change. */
+    private ChangeListener planInvalidator;
+
     
     /**
      * Instantiates a CompoundHighlighter containing the given 
@@ -167,6 +178,57 @@ public class CompoundHighlighter extends AbstractHighlighter
         return highlighters.toArray(new Highlighter[highlighters.size()]);
     }
 
+    /**
+     * Sets whether the pipeline is compiled. A compiled CompoundHighlighter 
+     * analyzes the HighlightPredicates of the contained Highlighters once per
+     * column and change: parts which depend on the column only (the 
+     * column, identifier and column type predicates) are resolved up-front,
+     * Highlighters which can't apply to a column are skipped for that column. 
+     * Predicates on the row index (EVEN, ODD, row groups) are replaced by a
+     * lookup table. Everything else is evaluated at paint time, as usual. 
+     * <p>
+     * 
+     * This is meant for pipelines with many column-bound Highlighters, 
+     * f.i. one per column. The result is the same as without compiling, as
+     * long as the predicates are immutable. Custom predicates and 
+     * Highlighters which override <code>highlight</code> are not analyzed.
+     * <p>
+     * 
+     * The default value is false.
+     * 
+     * @param compiled true to compile the pipeline, false to evaluate all
+     *   predicates for each cell.
+     */
+    public void setCompiled(boolean compiled) {
+        if (compiled == isCompiled()) return;
+        this.compiled = compiled;
+        if (compiled) {
+            plans = new WeakHashMap<Object, ColumnPlan[]>();
+            planInvalidator = new ChangeListener() {
+                
+                @Override
+                public void stateChanged(ChangeEvent e) {
+                    plans.clear();
+                }
+            };
+            addChangeListener(planInvalidator);
+        } else {
+            removeChangeListener(planInvalidator);
+            planInvalidator = null;
+            plans = null;
+        }
+    }
+    
+    /**
+     * Returns whether the pipeline is compiled.
+     * 
+     * @return true if the pipeline is compiled, false otherwise.
+     * @see #setCompiled(boolean)
+     */
+    public boolean isCompiled() {
+        return compiled;
+    }
+    
 //--------------------- implement UIDependent
 
     /**
@@ -233,12 +295,304 @@ public class CompoundHighlighter extends AbstractHighlighter
      */
     @Override
     protected Component doHighlight(Component stamp, ComponentAdapter adapter) {
+        ColumnPlan plan = isCompiled() ? getColumnPlan(adapter) : null;
+        if (plan != null) {
+            return doHighlight(stamp, adapter, plan);
+        }
         for (Highlighter highlighter : highlighters) {
             stamp = highlighter.highlight(stamp, adapter);
         }
         return stamp;
     }
     
+    private Component doHighlight(Component stamp, ComponentAdapter adapter, ColumnPlan plan) {
+        for (int i = 0; i < plan.highlighters.length; i++) {
+            HighlightPredicate predicate = plan.predicates[i];
+            if (predicate == null) {
+                stamp = plan.highlighters[i].highlight(stamp, adapter);
+            } else {
+                AbstractHighlighter highlighter = (AbstractHighlighter) plan.highlighters[i];
+                if (highlighter.canHighlight(stamp, adapter) 
+                        && ((predicate == HighlightPredicate.ALWAYS) 
+                                || predicate.isHighlighted(stamp, adapter))) {
+                    stamp = highlighter.doHighlight(stamp, adapter);
+                }
+            }
+        }
+        return stamp;
+    }
+    
+//------------------- compiled pipeline    
+    
+    /**
+     * The Highlighters applicable to a column with the predicates reduced
+     * to what is left to evaluate per cell. A null predicate marks a 
+     * Highlighter which wasn't analyzed.
+     */
+    private static class ColumnPlan {
+        Highlighter[] highlighters;
+        HighlightPredicate[] predicates;
+        /** the column properties the plan depends on. */
+        boolean dependsOnIdentifier;
+        Object identifier;
+        boolean dependsOnClass;
+        Class<?> columnClass;
+        
+        boolean isValid(ComponentAdapter adapter, int modelColumn) {
+            if (dependsOnIdentifier 
+                    && !areEqual(identifier, adapter.getColumnIdentifierAt(modelColumn))) {
+                return false;
+            }
+            return !dependsOnClass || (columnClass == adapter.getColumnClass(modelColumn));
+        }
+        
+        private static boolean areEqual(Object first, Object second) {
+            return first == null ? second == null : first.equals(second);
+        }
+    }
+    
+    /**
+     * Returns the plan for the adapter's current column, compiles it 
+     * if necessary. Returns null if the column is not valid.
+     */
+    private ColumnPlan getColumnPlan(ComponentAdapter adapter) {
+        int modelColumn = adapter.convertColumnIndexToModel(adapter.column);
+        if ((modelColumn < 0) || (modelColumn >= adapter.getColumnCount())) {
+            // nothing to compile against
+            return null;
+        }
+        ColumnPlan[] columnPlans = plans.get(adapter.getComponent());
+        if ((columnPlans == null) || (columnPlans.length <= modelColumn)) {
+            ColumnPlan[] old = columnPlans;
+            columnPlans = new ColumnPlan[Math.max(modelColumn + 1, adapter.getColumnCount())];
+            if (old != null) {
+                System.arraycopy(old, 0, columnPlans, 0, old.length);
+            }
+            plans.put(adapter.getComponent(), columnPlans);
+        }
+        ColumnPlan plan = columnPlans[modelColumn];
+        if ((plan == null) || !plan.isValid(adapter, modelColumn)) {
+            plan = compile(adapter, modelColumn);
+            columnPlans[modelColumn] = plan;
+        }
+        return plan;
+    }
+    
+    /**
+     * Creates the plan for the given column.
+     */
+    private ColumnPlan compile(ComponentAdapter adapter, int modelColumn) {
+        ColumnPlan plan = new ColumnPlan();
+        plan.identifier = adapter.getColumnIdentifierAt(modelColumn);
+        plan.columnClass = adapter.getColumnClass(modelColumn);
+        List<Highlighter> applicable = new ArrayList<Highlighter>();
+        List<HighlightPredicate> predicates = new ArrayList<HighlightPredicate>();
+        for (Highlighter highlighter : highlighters) {
+            HighlightPredicate predicate = null;
+            if (isAnalyzable(highlighter)) {
+                predicate = reduce(((AbstractHighlighter) highlighter).getHighlightPredicate(), 
+                        modelColumn, plan);
+                if (predicate == HighlightPredicate.NEVER) continue;
+                predicate = tabulate(predicate);
+            }
+            applicable.add(highlighter);
+            predicates.add(predicate);
+        }
+        plan.highlighters = applicable.toArray(new Highlighter[applicable.size()]);
+        plan.predicates = predicates.toArray(new HighlightPredicate[predicates.size()]);
+        return plan;
+    }
+    
+    /**
+     * Returns whether the highlighter's predicate can be evaluated by the
+     * pipeline, that is it doesn't override highlight.
+     */
+    private static boolean isAnalyzable(Highlighter highlighter) {
+        if (!(highlighter instanceof AbstractHighlighter)) return false;
+        try {
+            return highlighter.getClass().getMethod("highlight", Component.class, 
+                    ComponentAdapter.class).getDeclaringClass() == AbstractHighlighter.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Returns the predicate with all column dependent parts resolved for 
+     * the given column. Records the column properties used in the plan.
+     */
+    private static HighlightPredicate reduce(HighlightPredicate predicate, int modelColumn, 
+            ColumnPlan plan) {
+        Class<?> type = predicate.getClass();
+        if (type == HighlightPredicate.ColumnHighlightPredicate.class) {
+            return constant(((HighlightPredicate.ColumnHighlightPredicate) predicate)
+                    .columnList.contains(modelColumn));
+        }
+        if (type == HighlightPredicate.IdentifierHighlightPredicate.class) {
+            plan.dependsOnIdentifier = true;
+            return constant((plan.identifier != null) 
+                    && ((HighlightPredicate.IdentifierHighlightPredicate) predicate)
+                    .columnList.contains(plan.identifier));
+        }
+        if (type == HighlightPredicate.ColumnTypeHighlightPredicate.class) {
+            plan.dependsOnClass = true;
+            return constant(((HighlightPredicate.ColumnTypeHighlightPredicate) predicate)
+                    .getType().isAssignableFrom(plan.columnClass));
+        }
+        if (type == HighlightPredicate.NotHighlightPredicate.class) {
+            HighlightPredicate inner = ((HighlightPredicate.NotHighlightPredicate) predicate)
+                    .getHighlightPredicate();
+            HighlightPredicate reduced = reduce(inner, modelColumn, plan);
+            if (reduced == HighlightPredicate.ALWAYS) return HighlightPredicate.NEVER;
+            if (reduced == HighlightPredicate.NEVER) return HighlightPredicate.ALWAYS;
+            return reduced == inner ? predicate : new HighlightPredicate.NotHighlightPredicate(reduced);
+        }
+        boolean and = type == HighlightPredicate.AndHighlightPredicate.class;
+        if (and || (type == HighlightPredicate.OrHighlightPredicate.class)) {
+            HighlightPredicate[] inner = and 
+                ? ((HighlightPredicate.AndHighlightPredicate) predicate).getHighlightPredicates()
+                : ((HighlightPredicate.OrHighlightPredicate) predicate).getHighlightPredicates();
+            // the neutral and the deciding element
+            HighlightPredicate neutral = constant(and);
+            HighlightPredicate decided = constant(!and);
+            List<HighlightPredicate> reduced = new ArrayList<HighlightPredicate>();
+            boolean changed = false;
+            for (HighlightPredicate element : inner) {
+                HighlightPredicate r = reduce(element, modelColumn, plan);
+                if (r == decided) return decided;
+                changed |= r != element;
+                if (r != neutral) {
+                    reduced.add(r);
+                }
+            }
+            if (reduced.isEmpty()) return neutral;
+            if (reduced.size() == 1) return reduced.get(0);
+            if (!changed && (reduced.size() == inner.length)) return predicate;
+            HighlightPredicate[] elements = reduced.toArray(new HighlightPredicate[reduced.size()]);
+            return and ? new HighlightPredicate.AndHighlightPredicate(elements)
+                    : new HighlightPredicate.OrHighlightPredicate(elements);
+        }
+        return predicate;
+    }
+    
+    private static HighlightPredicate constant(boolean value) {
+        return value ? HighlightPredicate.ALWAYS : HighlightPredicate.NEVER;
+    }
+    
+    /** the maximal period of row predicates replaced by a table. */
+    private static final int MAX_ROW_PERIOD = 1024;
+    
+    /**
+     * Returns a table lookup predicate if the given predicate depends on the
+     * row index only, the predicate itself otherwise.
+     */
+    private static HighlightPredicate tabulate(HighlightPredicate predicate) {
+        if ((predicate == HighlightPredicate.ALWAYS) 
+                || (predicate == HighlightPredicate.EVEN) 
+                || (predicate == HighlightPredicate.ODD)) {
+            // nothing to gain
+            return predicate;
+        }
+        int period = getRowPeriod(predicate);
+        if ((period <= 0) || (period > MAX_ROW_PERIOD)) return predicate;
+        boolean[] table = new boolean[period];
+        for (int row = 0; row < period; row++) {
+            table[row] = isHighlighted(predicate, row);
+        }
+        return new RowTableHighlightPredicate(predicate, table);
+    }
+    
+    /**
+     * Returns the number of rows after which the predicate's result repeats,
+     * or -1 if the predicate depends on more than the row index.
+     */
+    private static int getRowPeriod(HighlightPredicate predicate) {
+        if ((predicate == HighlightPredicate.EVEN) || (predicate == HighlightPredicate.ODD)) {
+            return 2;
+        }
+        if ((predicate == HighlightPredicate.ALWAYS) || (predicate == HighlightPredicate.NEVER)) {
+            return 1;
+        }
+        Class<?> type = predicate.getClass();
+        if (type == HighlightPredicate.RowGroupHighlightPredicate.class) {
+            return 2 * ((HighlightPredicate.RowGroupHighlightPredicate) predicate).getLinesPerGroup();
+        }
+        if (type == HighlightPredicate.NotHighlightPredicate.class) {
+            return getRowPeriod(((HighlightPredicate.NotHighlightPredicate) predicate)
+                    .getHighlightPredicate());
+        }
+        HighlightPredicate[] inner = null;
+        if (type == HighlightPredicate.AndHighlightPredicate.class) {
+            inner = ((HighlightPredicate.AndHighlightPredicate) predicate).getHighlightPredicates();
+        } else if (type == HighlightPredicate.OrHighlightPredicate.class) {
+            inner = ((HighlightPredicate.OrHighlightPredicate) predicate).getHighlightPredicates();
+        }
+        if (inner == null) return -1;
+        long period = 1;
+        for (HighlightPredicate element : inner) {
+            int p = getRowPeriod(element);
+            if (p <= 0) return -1;
+            period = period / gcd(period, p) * p;
+            if (period > MAX_ROW_PERIOD) return -1;
+        }
+        return (int) period;
+    }
+    
+    private static long gcd(long a, long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+    
+    /**
+     * Evaluates a predicate of the row index, see getRowPeriod.
+     */
+    private static boolean isHighlighted(HighlightPredicate predicate, int row) {
+        if (predicate == HighlightPredicate.EVEN) return row % 2 == 0;
+        if (predicate == HighlightPredicate.ODD) return row % 2 != 0;
+        if (predicate == HighlightPredicate.ALWAYS) return true;
+        if (predicate == HighlightPredicate.NEVER) return false;
+        if (predicate instanceof HighlightPredicate.RowGroupHighlightPredicate) {
+            return (row / ((HighlightPredicate.RowGroupHighlightPredicate) predicate)
+                    .getLinesPerGroup()) % 2 == 1;
+        }
+        if (predicate instanceof HighlightPredicate.NotHighlightPredicate) {
+            return !isHighlighted(((HighlightPredicate.NotHighlightPredicate) predicate)
+                    .getHighlightPredicate(), row);
+        }
+        if (predicate instanceof HighlightPredicate.AndHighlightPredicate) {
+            for (HighlightPredicate element : ((HighlightPredicate.AndHighlightPredicate) predicate)
+                    .getHighlightPredicates()) {
+                if (!isHighlighted(element, row)) return false;
+            }
+            return true;
+        }
+        for (HighlightPredicate element : ((HighlightPredicate.OrHighlightPredicate) predicate)
+                .getHighlightPredicates()) {
+            if (isHighlighted(element, row)) return true;
+        }
+        return false;
+    }
+    
+    /**
+     * A predicate looking up the result for the adapter's row in a table.
+     */
+    private static class RowTableHighlightPredicate implements HighlightPredicate {
+        private final HighlightPredicate predicate;
+        private final boolean[] table;
+        
+        RowTableHighlightPredicate(HighlightPredicate predicate, boolean[] table) {
+            this.predicate = predicate;
+            this.table = table;
+        }
+
+        @Override
+        public boolean isHighlighted(Component renderer, ComponentAdapter adapter) {
+            if (adapter.row < 0) {
+                return predicate.isHighlighted(renderer, adapter);
+            }
+            return table[adapter.row % table.length];
+        }
+    }
+    
     
 
 }
@@ -33,6 +33,8 @@ import java.util.EventObject;
  */
 public class ErrorEvent extends EventObject {
     private Throwable throwable;
+    /** not serialized, ErrorInfo isn't Serializable. */
+    private transient ErrorInfo errorInfo;
     
     /**
      * Creates a new instance of <CODE>ErrorEvent</CODE>
@@ -43,6 +45,16 @@ public class ErrorEvent extends EventObject {
         super(source);
         this.throwable = throwable;
     }
+    
+    /**
+     * Creates a new instance of <CODE>ErrorEvent</CODE> for a fully described incident.
+     * @param info The information about the incident, must not be null.
+     * @param source The object which threw the Error or Exception
+     */
+    public ErrorEvent(ErrorInfo info, Object source) {
+        this(info.getErrorException(), source);
+        this.errorInfo = info;
+    }
 
     /**
      * Gets the Error or Exception which occurred.
@@ -51,5 +63,13 @@ public class ErrorEvent extends EventObject {
     public Throwable getThrowable() {
         return throwable;
     }
+
+    /**
+     * Gets the information about the incident, if available.
+     * @return The ErrorInfo the event was created with or null.
+     */
+    public ErrorInfo getErrorInfo() {
+        return errorInfo;
+    }
     
 }
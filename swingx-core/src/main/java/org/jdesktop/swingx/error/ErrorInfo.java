@@ -21,6 +21,7 @@
 
 package org.jdesktop.swingx.error;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
@@ -74,6 +75,17 @@ public class ErrorInfo {
      *  reports.
      */
     private Map<String,String> state;
+    /**
+     * The System properties, captured when the state is first requested and
+     * shared with other instances.
+     */
+    private Map<String,String> systemState;
+    private long timeMillis;
+    private boolean onEDT;
+    
+    private static Properties snapshotSource;
+    private static int snapshotHash;
+    private static Map<String,String> systemSnapshot;
     
     /**
      * Creates a new ErrorInfo based on the provided data.
@@ -121,36 +133,45 @@ public class ErrorInfo {
         this.category = category;
         this.errorException = errorException;
         this.errorLevel = errorLevel == null ? Level.SEVERE : errorLevel;
-        this.state = new HashMap<String,String>();
-        
-        //first add all the System properties
+        this.timeMillis = System.currentTimeMillis();
+        this.onEDT = SwingUtilities.isEventDispatchThread();
+        this.state = state == null || state.isEmpty() ? null : new HashMap<String,String>(state);
+    }
+    
+    /**
+     * Returns an unmodifiable snapshot of the System properties. The snapshot is
+     * shared until the properties change, so creating many ErrorInfos in a short
+     * time doesn't copy the properties for each of them.
+     * 
+     * @return a snapshot of the System properties, empty if they can't be read.
+     */
+    static Map<String,String> getSystemState() {
         try {
+            Properties props = System.getProperties();
             //NOTE: This is not thread safe because System.getProperties() does not appear
             //to create a copy of the map. Thus, another thread could be modifying the System
             //properties and the "state" at the time of this exception may not be
             //accurate!
-            Properties props = System.getProperties();
-            for (Map.Entry<Object, Object> entry : props.entrySet()) {
-                String key = entry.getKey() == null ? null : entry.getKey().toString();
-                String val = entry.getKey() == null ? null : entry.getValue().toString();
-                if (key != null) {
-                    this.state.put(key, val);
+            int hash = props.hashCode();
+            synchronized (ErrorInfo.class) {
+                if (systemSnapshot == null || props != snapshotSource || hash != snapshotHash) {
+                    Map<String,String> snapshot = new HashMap<String,String>();
+                    for (Map.Entry<Object, Object> entry : props.entrySet()) {
+                        String key = entry.getKey() == null ? null : entry.getKey().toString();
+                        String val = entry.getValue() == null ? null : entry.getValue().toString();
+                        if (key != null) {
+                            snapshot.put(key, val);
+                        }
+                    }
+                    systemSnapshot = Collections.unmodifiableMap(snapshot);
+                    snapshotSource = props;
+                    snapshotHash = hash;
                 }
+                return systemSnapshot;
             }
         } catch (SecurityException e) {
             //probably running in a sandbox, don't worry about this
-        }
-        
-        //add the automatically supported properties
-        this.state.put("System.currentTimeMillis", "" + System.currentTimeMillis());
-        this.state.put("isOnEDT", "" + SwingUtilities.isEventDispatchThread());
-        
-        //now add all the data in the param "state". Thus, if somebody specified a key in the
-        //state map, it overrides whatever was in the System map
-        if (state != null) {
-            for (Map.Entry<String,String> entry : state.entrySet()) {
-                this.state.put(entry.getKey(), entry.getValue());
-            }
+            return Collections.emptyMap();
         }
     }
     
@@ -252,9 +273,22 @@ public class ErrorInfo {
      * the properties on another thread. This is unlikely to occur, but in some
      * applications <em>may</em> occur.</p>
      *
+     * <p>The System properties are captured when the state is first requested,
+     * not when the incident occurred, and shared by all ErrorInfos until they
+     * change. The returned map is assembled on each call.</p>
+     *
      * @return a copy of the application state. This will never be null.
      */
     public Map<String,String> getState() {
-        return new HashMap<String,String>(state);
+        if (systemState == null) {
+            systemState = getSystemState();
+        }
+        Map<String,String> copy = new HashMap<String,String>(systemState);
+        copy.put("System.currentTimeMillis", "" + timeMillis);
+        copy.put("isOnEDT", "" + onEDT);
+        if (state != null) {
+            copy.putAll(state);
+        }
+        return copy;
     }
 }
\ No newline at end of file
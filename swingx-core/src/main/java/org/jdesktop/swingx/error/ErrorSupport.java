@@ -22,27 +22,91 @@
 package org.jdesktop.swingx.error;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import javax.swing.SwingUtilities;
 
+import org.jdesktop.swingx.util.Contract;
+
 /**
  * ErrorSupport provides support for managing error listeners.
+ * <p>
+ * 
+ * To protect the application from a storm of errors, f.i. when a backend
+ * is down, ErrorSupport can be configured to
+ * <ul>
+ * <li> suppress repeated errors with the same signature (the exception type
+ *   and the top of its stack trace) for a while, see 
+ *   {@link #setSuppressionInterval(long)}
+ * <li> deliver at most a given number of events per second, see 
+ *   {@link #setMaxEventsPerSecond(int)}. This limits the number of dialogs
+ *   opened by listeners which show a <code>JXErrorPane</code>.
+ * </ul>
+ * Both are off by default. Suppressed errors are counted, as are all errors
+ * per category, see {@link #getErrorCount(String)}.
+ * <p>
+ * 
+ * Events are delivered on the EDT, errors fired in quick succession are
+ * delivered in a single pass. The <code>ErrorInfo</code> of delivered errors is
+ * passed to the added {@link ErrorReporter}s on a background thread, in 
+ * batches.
+ * 
  * @author Joshua Marinacci joshua.marinacci@sun.com
  * @see ErrorListener
  * @see ErrorEvent
  */
 public class ErrorSupport {
+    private static final Logger LOG = Logger.getLogger(ErrorSupport.class.getName());
+    
+    /** the maximum number of signatures remembered for suppression. */
+    private static final int MAX_SIGNATURES = 256;
+    /** the number of stack frames per throwable included in the signature. */
+    private static final int SIGNATURE_FRAMES = 3;
+    
+    private static ScheduledExecutorService reportExecutor;
+    
     private List<ErrorListener> listeners;
+    private List<ErrorReporter> reporters;
     private Object source;
     
+    private long suppressionInterval;
+    private int maxEventsPerSecond;
+    private long reportDelay = 500;
+    
+    /** guards the state below, errors may be fired on any thread. */
+    private final Object lock = new Object();
+    private final Map<String, Long> lastDelivered = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_SIGNATURES;
+        }
+    };
+    private final Map<String, Integer> categoryCounts = new HashMap<String, Integer>();
+    private int errorCount;
+    private int suppressedCount;
+    private long windowStart;
+    private int windowEvents;
+    private List<ErrorEvent> pendingEvents = new ArrayList<ErrorEvent>();
+    private List<ErrorInfo> pendingReports = new ArrayList<ErrorInfo>();
+    
     /**
      * Creates a new instance of <CODE>ErrorSupport</CODE>
      * @param source The object which will fire the <CODE>ErrorEvent</CODE>s
      */
     public ErrorSupport(Object source) {
         this.source = source;
-        listeners = new ArrayList<ErrorListener>();
+        listeners = new CopyOnWriteArrayList<ErrorListener>();
+        reporters = new CopyOnWriteArrayList<ErrorReporter>();
     }
     
     /**
@@ -68,7 +132,173 @@ public class ErrorSupport {
      * added.
      */
     public ErrorListener[] getErrorListeners() {
-        return listeners.toArray(null);
+        return listeners.toArray(new ErrorListener[0]);
+    }
+
+    /**
+     * Add an ErrorReporter which is passed the delivered errors on a
+     * background thread.
+     * @param reporter the reporter to add
+     */
+    public void addErrorReporter(ErrorReporter reporter) {
+        reporters.add(Contract.asNotNull(reporter, "reporter must not be null"));
+    }
+    
+    /**
+     * Remove an error reporter
+     * @param reporter the reporter to remove
+     */
+    public void removeErrorReporter(ErrorReporter reporter) {
+        reporters.remove(reporter);
+    }
+    
+    /**
+     * Returns an array of all the reporters which were added with
+     * <CODE>addErrorReporter()</CODE>.
+     * @return all of the <CODE>ErrorReporter</CODE>s added or an empty array.
+     */
+    public ErrorReporter[] getErrorReporters() {
+        return reporters.toArray(new ErrorReporter[0]);
+    }
+    
+    /**
+     * Sets the time an error is suppressed after an error with the same
+     * signature was delivered. A value of 0 disables suppression.
+     * 
+     * @param millis the suppression interval in milliseconds, must not be negative.
+     * @throws IllegalArgumentException if millis is negative
+     */
+    public void setSuppressionInterval(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("interval must not be negative, was: " + millis);
+        }
+        synchronized (lock) {
+            this.suppressionInterval = millis;
+            lastDelivered.clear();
+        }
+    }
+    
+    /**
+     * Returns the time an error is suppressed after an error with the same
+     * signature was delivered.
+     * @return the suppression interval in milliseconds, 0 if disabled.
+     */
+    public long getSuppressionInterval() {
+        synchronized (lock) {
+            return suppressionInterval;
+        }
+    }
+    
+    /**
+     * Sets the maximum number of events delivered per second. Errors exceeding
+     * the limit are suppressed. A value of 0 disables the limit.
+     * 
+     * @param max the maximum number of events per second, must not be negative.
+     * @throws IllegalArgumentException if max is negative
+     */
+    public void setMaxEventsPerSecond(int max) {
+        if (max < 0) {
+            throw new IllegalArgumentException("maximum must not be negative, was: " + max);
+        }
+        synchronized (lock) {
+            this.maxEventsPerSecond = max;
+        }
+    }
+    
+    /**
+     * Returns the maximum number of events delivered per second.
+     * @return the maximum number of events per second, 0 if unlimited.
+     */
+    public int getMaxEventsPerSecond() {
+        synchronized (lock) {
+            return maxEventsPerSecond;
+        }
+    }
+    
+    /**
+     * Sets the time reports are collected before they are passed to the
+     * reporters.
+     * 
+     * @param millis the delay in milliseconds, must not be negative.
+     * @throws IllegalArgumentException if millis is negative
+     */
+    public void setReportDelay(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("delay must not be negative, was: " + millis);
+        }
+        synchronized (lock) {
+            this.reportDelay = millis;
+        }
+    }
+    
+    /**
+     * Returns the time reports are collected before they are passed to the
+     * reporters. The default is 500 milliseconds.
+     * @return the delay in milliseconds
+     */
+    public long getReportDelay() {
+        synchronized (lock) {
+            return reportDelay;
+        }
+    }
+    
+    /**
+     * Returns the number of errors fired since creation or the last reset,
+     * including suppressed errors.
+     * @return the number of errors
+     */
+    public int getErrorCount() {
+        synchronized (lock) {
+            return errorCount;
+        }
+    }
+    
+    /**
+     * Returns the number of errors fired in the given category since 
+     * creation or the last reset, including suppressed errors. Errors fired
+     * without <code>ErrorInfo</code> have the category null.
+     * 
+     * @param category the category, may be null
+     * @return the number of errors in the category
+     */
+    public int getErrorCount(String category) {
+        synchronized (lock) {
+            Integer count = categoryCounts.get(category);
+            return count == null ? 0 : count;
+        }
+    }
+    
+    /**
+     * Returns the number of errors per category.
+     * @return a copy of the error counts, keyed by category
+     */
+    public Map<String, Integer> getCategoryCounts() {
+        synchronized (lock) {
+            return new HashMap<String, Integer>(categoryCounts);
+        }
+    }
+    
+    /**
+     * Returns the number of errors which were not delivered since creation
+     * or the last reset.
+     * @return the number of suppressed errors
+     */
+    public int getSuppressedCount() {
+        synchronized (lock) {
+            return suppressedCount;
+        }
+    }
+    
+    /**
+     * Resets all counts and forgets the signatures of delivered errors.
+     */
+    public void resetCounts() {
+        synchronized (lock) {
+            errorCount = 0;
+            suppressedCount = 0;
+            categoryCounts.clear();
+            lastDelivered.clear();
+        }
     }
 
     /**
@@ -76,15 +306,165 @@ public class ErrorSupport {
      * @param throwable The <CODE>{@link Error}</CODE> or <CODE>{@link Exception}</CODE> which occured.
      */
     public void fireErrorEvent(final Throwable throwable) {
-        final ErrorEvent evt = new ErrorEvent(throwable, source);
-        SwingUtilities.invokeLater(new Runnable() {
+        fire(new ErrorEvent(throwable, source), null);
+    }
+    
+    /**
+     * Report that an error has occurred.
+     * @param info The information about the incident, must not be null.
+     */
+    public void fireErrorEvent(ErrorInfo info) {
+        Contract.asNotNull(info, "info must not be null");
+        fire(new ErrorEvent(info, source), info.getCategory());
+    }
+    
+    private void fire(ErrorEvent evt, String category) {
+        synchronized (lock) {
+            errorCount++;
+            Integer count = categoryCounts.get(category);
+            categoryCounts.put(category, count == null ? 1 : count + 1);
+            if (isSuppressed(evt)) {
+                suppressedCount++;
+                return;
+            }
+            if (pendingEvents.isEmpty()) {
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        deliverPending();
+                    }
+                });
+            }
+            pendingEvents.add(evt);
+            if (!reporters.isEmpty()) {
+                if (pendingReports.isEmpty()) {
+                    scheduleReport(this, reportDelay);
+                }
+                ErrorInfo info = evt.getErrorInfo();
+                if (info == null) {
+                    Throwable t = evt.getThrowable();
+                    info = new ErrorInfo(null, t == null ? null : t.getMessage(), 
+                            null, null, t, null, null);
+                }
+                pendingReports.add(info);
+            }
+        }
+    }
+    
+    /**
+     * Checks the event against suppression interval and rate limit. Called 
+     * while holding the lock.
+     */
+    private boolean isSuppressed(ErrorEvent evt) {
+        if (suppressionInterval == 0 && maxEventsPerSecond == 0) {
+            return false;
+        }
+        long now = System.nanoTime() / 1000000;
+        String signature = null;
+        if (suppressionInterval > 0) {
+            signature = getSignature(evt);
+            Long last = lastDelivered.get(signature);
+            if (last != null && now - last < suppressionInterval) {
+                return true;
+            }
+        }
+        if (maxEventsPerSecond > 0) {
+            if (now - windowStart >= 1000) {
+                windowStart = now;
+                windowEvents = 0;
+            }
+            if (windowEvents >= maxEventsPerSecond) {
+                return true;
+            }
+            windowEvents++;
+        }
+        if (signature != null) {
+            lastDelivered.put(signature, now);
+        }
+        return false;
+    }
+    
+    /**
+     * Returns the signature used to identify repeated errors. The default
+     * consists of the types of the throwable and its causes and the top of
+     * their stack traces. If the event has no throwable, the category and
+     * the basic error message are used.
+     * <p>
+     * Called while holding a lock, subclasses must not call back into
+     * this ErrorSupport.
+     * 
+     * @param evt the event to create the signature for
+     * @return the signature
+     */
+    protected String getSignature(ErrorEvent evt) {
+        StringBuilder builder = new StringBuilder();
+        Throwable t = evt.getThrowable();
+        if (t == null) {
+            ErrorInfo info = evt.getErrorInfo();
+            if (info != null) {
+                builder.append(info.getCategory()).append('|').append(info.getBasicErrorMessage());
+            }
+            return builder.toString();
+        }
+        for (int depth = 0; t != null && depth < 5; t = t.getCause(), depth++) {
+            builder.append(t.getClass().getName());
+            StackTraceElement[] trace = t.getStackTrace();
+            for (int i = 0; i < Math.min(SIGNATURE_FRAMES, trace.length); i++) {
+                builder.append('|').append(trace[i]);
+            }
+            builder.append(';');
+        }
+        return builder.toString();
+    }
+    
+    private void deliverPending() {
+        List<ErrorEvent> events;
+        synchronized (lock) {
+            events = pendingEvents;
+            pendingEvents = new ArrayList<ErrorEvent>();
+        }
+        for (ErrorEvent evt : events) {
+            for (ErrorListener el : listeners) {
+                el.errorOccured(evt);
+            }
+        }
+    }
+    
+    private void reportPending() {
+        List<ErrorInfo> infos;
+        synchronized (lock) {
+            infos = pendingReports;
+            pendingReports = new ArrayList<ErrorInfo>();
+        }
+        for (ErrorReporter reporter : reporters) {
+            for (ErrorInfo info : infos) {
+                try {
+                    reporter.reportError(info);
+                } catch (RuntimeException e) {
+                    // reporters must not throw, don't let one break the others
+                    LOG.log(Level.FINE, "reporter failed", e);
+                }
+            }
+        }
+    }
+    
+    private static synchronized void scheduleReport(final ErrorSupport support, long delay) {
+        if (reportExecutor == null) {
+            reportExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "ErrorSupport-reporter");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        reportExecutor.schedule(new Runnable() {
             @Override
             public void run() {
-                for(ErrorListener el : listeners) {
-                    el.errorOccured(evt);
-                }
+                support.reportPending();
             }
-        });
+        }, delay, TimeUnit.MILLISECONDS);
     }
     
 }
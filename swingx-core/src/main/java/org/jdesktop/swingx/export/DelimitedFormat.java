@@ -0,0 +1,135 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.export;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * The format of a text file with one record per line and fields separated by
+ * a delimiter, as written by {@link ViewExporter}. Fields containing the 
+ * delimiter, a quote or a line break are enclosed in quotes, quotes inside
+ * are doubled (as defined for CSV in RFC 4180).
+ * 
+ * @see #CSV
+ * @see #TSV
+ */
+public class DelimitedFormat {
+
+    /** Comma separated values with CRLF line endings. */
+    public static final DelimitedFormat CSV = new DelimitedFormat(',', "\r\n");
+    
+    /** Tab separated values with LF line endings. */
+    public static final DelimitedFormat TSV = new DelimitedFormat('\t', "\n");
+    
+    private static final char QUOTE = '"';
+    
+    private final char delimiter;
+    
+    private final String lineSeparator;
+    
+    /**
+     * Instantiates a format with the given delimiter and line separator.
+     * 
+     * @param delimiter the character to separate fields, must not be a 
+     *   quote or a line break
+     * @param lineSeparator the string to terminate records, must not be null
+     * @throws IllegalArgumentException if the delimiter is a quote or a 
+     *   line break
+     * @throws NullPointerException if the line separator is null
+     */
+    public DelimitedFormat(char delimiter, String lineSeparator) {
+        if ((delimiter == QUOTE) || (delimiter == '\r') || (delimiter == '\n')) {
+            throw new IllegalArgumentException("invalid delimiter: " + delimiter);
+        }
+        if (lineSeparator == null) {
+            throw new NullPointerException("line separator must not be null");
+        }
+        this.delimiter = delimiter;
+        this.lineSeparator = lineSeparator;
+    }
+    
+    /**
+     * @return the character separating fields
+     */
+    public char getDelimiter() {
+        return delimiter;
+    }
+    
+    /**
+     * @return the string terminating records
+     */
+    public String getLineSeparator() {
+        return lineSeparator;
+    }
+    
+    /**
+     * Writes a record of the given fields, including the line separator.
+     * 
+     * @param out the writer to write to
+     * @param fields the fields of the record, null fields are written as
+     *   empty fields
+     * @throws IOException if writing fails
+     */
+    public void writeRecord(Writer out, String... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                out.write(delimiter);
+            }
+            writeField(out, fields[i]);
+        }
+        out.write(lineSeparator);
+    }
+    
+    /**
+     * Writes a single field, quoted if necessary.
+     * 
+     * @param out the writer to write to
+     * @param field the field, may be null
+     * @throws IOException if writing fails
+     */
+    protected void writeField(Writer out, String field) throws IOException {
+        if ((field == null) || (field.length() == 0)) return;
+        if (!needsQuotes(field)) {
+            out.write(field);
+            return;
+        }
+        out.write(QUOTE);
+        int start = 0;
+        for (int i = field.indexOf(QUOTE); i >= 0; i = field.indexOf(QUOTE, start)) {
+            out.write(field, start, i + 1 - start);
+            out.write(QUOTE);
+            start = i + 1;
+        }
+        out.write(field, start, field.length() - start);
+        out.write(QUOTE);
+    }
+    
+    private boolean needsQuotes(String field) {
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if ((c == delimiter) || (c == QUOTE) || (c == '\r') || (c == '\n')) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
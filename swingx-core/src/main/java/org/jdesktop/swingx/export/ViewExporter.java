@@ -0,0 +1,581 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.export;
+
+import java.io.BufferedWriter;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ConcurrentModificationException;
+
+import javax.swing.RowSorter;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.RowSorterEvent;
+import javax.swing.event.RowSorterListener;
+import javax.swing.event.TableColumnModelEvent;
+import javax.swing.event.TableColumnModelListener;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.TableModel;
+
+import org.jdesktop.swingx.JXList;
+import org.jdesktop.swingx.JXTable;
+import org.jdesktop.swingx.util.Contract;
+
+/**
+ * Exports the contents of a collection view as delimited text on a background
+ * thread. The rows and columns are written as the user sees them: in view
+ * order, respecting sorting and filtering, without hidden columns, each cell
+ * converted by the column's <code>StringValue</code> (see 
+ * <code>JXTable.getStringAt</code>).<p>
+ * 
+ * To stay consistent with the model and keep memory bounded, the cells are
+ * read on the EDT in chunks of rows, which are written to the 
+ * <code>Writer</code> off the EDT. If the view changes while exporting (rows
+ * added or removed, sorting, filtering, columns, or cells which were already
+ * read), the export fails with a <code>ConcurrentModificationException</code>,
+ * wrapped into the <code>ExecutionException</code> thrown by <code>get</code>.
+ * Updates of cells which aren't exported or not read yet don't affect the 
+ * export.<p>
+ * 
+ * Progress is reported in the <code>progress</code> property, 
+ * <code>cancel</code> stops the export after the current chunk. The writer is
+ * flushed, but not closed:
+ * 
+ * <pre><code>
+ * final Writer writer = new OutputStreamWriter(new FileOutputStream(file), &quot;UTF-8&quot;);
+ * ViewExporter exporter = new ViewExporter.TableExporter(table, writer, DelimitedFormat.CSV) {
+ *     &#64;Override
+ *     protected void done() {
+ *         // close the writer, report success or failure
+ *     }
+ * };
+ * exporter.addPropertyChangeListener(progressListener);
+ * exporter.execute();
+ * </code></pre>
+ * 
+ * @see DelimitedFormat
+ */
+public abstract class ViewExporter extends SwingWorker<Integer, Void> {
+
+    /** the default number of rows read on the EDT in one go. */
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+    
+    private final Writer writer;
+    
+    private final DelimitedFormat format;
+    
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    
+    private boolean headerIncluded = true;
+    
+    /** flag set on the EDT if the view changed. */
+    private volatile boolean viewChanged;
+    
+    private volatile int exportedRowCount;
+    
+    /** the number of rows read so far, accessed on the EDT only. */
+    private int readRowCount;
+    
+    /**
+     * Instantiates an exporter writing to the given writer.
+     * 
+     * @param writer the writer to export to, must not be null
+     * @param format the format to use, CSV if null
+     */
+    protected ViewExporter(Writer writer, DelimitedFormat format) {
+        Contract.asNotNull(writer, "writer must not be null");
+        this.writer = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer);
+        this.format = format != null ? format : DelimitedFormat.CSV;
+    }
+    
+    /**
+     * Instantiates an exporter writing to the given channel.
+     * 
+     * @param channel the channel to export to, must not be null
+     * @param charset the charset to encode the text, must not be null
+     * @param format the format to use, CSV if null
+     */
+    protected ViewExporter(WritableByteChannel channel, Charset charset, DelimitedFormat format) {
+        this(Channels.newWriter(Contract.asNotNull(channel, "channel must not be null"),
+                charset.newEncoder(), -1), format);
+    }
+    
+    /**
+     * Sets the number of rows read on the EDT in one go. Bigger chunks 
+     * block the EDT longer, smaller chunks add overhead.
+     * 
+     * @param chunkSize the number of rows per chunk, must be > 0
+     * @throws IllegalArgumentException if chunkSize < 1
+     */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize < 1) 
+            throw new IllegalArgumentException("chunk size must be > 0, was: " + chunkSize);
+        this.chunkSize = chunkSize;
+    }
+    
+    /**
+     * @return the number of rows read on the EDT in one go.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+    
+    /**
+     * Sets whether the first record contains the column names.
+     * The default is true.
+     * 
+     * @param headerIncluded true to write a header, false otherwise.
+     */
+    public void setHeaderIncluded(boolean headerIncluded) {
+        this.headerIncluded = headerIncluded;
+    }
+    
+    /**
+     * @return true if a header is written, false otherwise.
+     */
+    public boolean isHeaderIncluded() {
+        return headerIncluded;
+    }
+    
+    /**
+     * Returns the number of rows written so far, excluding the header.
+     * 
+     * @return the number of rows written.
+     */
+    public int getExportedRowCount() {
+        return exportedRowCount;
+    }
+    
+    /**
+     * @return the format used to write the rows.
+     */
+    public DelimitedFormat getFormat() {
+        return format;
+    }
+    
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Implemented to read the view in chunks on the EDT and write them to the
+     * writer.
+     * 
+     * @return the number of rows exported.
+     * @throws ConcurrentModificationException if the view changed while
+     *    exporting.
+     */
+    @Override
+    protected Integer doInBackground() throws Exception {
+        final int[] size = new int[2];
+        final String[][] header = new String[1][];
+        onEDT(new Runnable() {
+            @Override
+            public void run() {
+                size[0] = getRowCount();
+                size[1] = getColumnCount();
+                if (isHeaderIncluded()) {
+                    header[0] = new String[size[1]];
+                    for (int column = 0; column < size[1]; column++) {
+                        header[0][column] = getColumnName(column);
+                    }
+                }
+                installViewListener();
+            }
+        });
+        final int rowCount = size[0];
+        final int columnCount = size[1];
+        try {
+            if (header[0] != null) {
+                format.writeRecord(writer, header[0]);
+            }
+            final String[][] chunk = new String[Math.min(chunkSize, rowCount)][columnCount];
+            for (int start = 0; (start < rowCount) && !isCancelled(); start += chunk.length) {
+                final int first = start;
+                final int end = Math.min(rowCount, start + chunk.length);
+                onEDT(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (viewChanged) return;
+                        for (int row = first; row < end; row++) {
+                            for (int column = 0; column < columnCount; column++) {
+                                chunk[row - first][column] = getStringAt(row, column);
+                            }
+                        }
+                        readRowCount = end;
+                    }
+                });
+                if (viewChanged) {
+                    throw new ConcurrentModificationException("view changed while exporting");
+                }
+                for (int row = 0; row < end - first; row++) {
+                    format.writeRecord(writer, chunk[row]);
+                }
+                exportedRowCount = end;
+                setProgress((int) (100L * end / rowCount));
+            }
+            writer.flush();
+        } finally {
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    uninstallViewListener();
+                }
+            });
+        }
+        return exportedRowCount;
+    }
+    
+    /**
+     * Marks the export as failed because the view changed. To be called by 
+     * the view listeners.
+     */
+    protected void viewChanged() {
+        viewChanged = true;
+    }
+    
+    /**
+     * Returns the number of rows read from the view so far. Updates of later
+     * rows are part of the export. To be called on the EDT by the view 
+     * listeners.
+     * 
+     * @return the number of rows read, in view coordinates.
+     */
+    protected int getReadRowCount() {
+        return readRowCount;
+    }
+    
+    /**
+     * Runs the given runnable on the EDT and waits for it to finish.
+     */
+    private void onEDT(Runnable runnable) throws InterruptedException, InvocationTargetException {
+        if (SwingUtilities.isEventDispatchThread()) {
+            runnable.run();
+        } else {
+            SwingUtilities.invokeAndWait(runnable);
+        }
+    }
+    
+    // --------------------------- view access, called on the EDT
+    
+    /**
+     * @return the number of rows in the view.
+     */
+    protected abstract int getRowCount();
+    
+    /**
+     * @return the number of columns in the view.
+     */
+    protected abstract int getColumnCount();
+    
+    /**
+     * @param column the column in view coordinates
+     * @return the name of the column.
+     */
+    protected abstract String getColumnName(int column);
+    
+    /**
+     * @param row the row in view coordinates
+     * @param column the column in view coordinates
+     * @return the string representation of the cell.
+     */
+    protected abstract String getStringAt(int row, int column);
+    
+    /**
+     * Installs the listeners which call {@link #viewChanged()} when the view
+     * changes.
+     */
+    protected abstract void installViewListener();
+    
+    /**
+     * Removes the listeners installed in {@link #installViewListener()}.
+     */
+    protected abstract void uninstallViewListener();
+    
+    /**
+     * Exports a JXTable (or JXTreeTable).
+     */
+    public static class TableExporter extends ViewExporter {
+        private final JXTable table;
+        private TableModel model;
+        private RowSorter<?> sorter;
+        private ViewListener listener;
+
+        /**
+         * Instantiates an exporter of the given table.
+         * 
+         * @param table the table to export, must not be null
+         * @param writer the writer to export to, must not be null
+         * @param format the format to use, CSV if null
+         */
+        public TableExporter(JXTable table, Writer writer, DelimitedFormat format) {
+            super(writer, format);
+            this.table = Contract.asNotNull(table, "table must not be null");
+        }
+        
+        /**
+         * Instantiates an exporter of the given table.
+         * 
+         * @param table the table to export, must not be null
+         * @param channel the channel to export to, must not be null
+         * @param charset the charset to encode the text, must not be null
+         * @param format the format to use, CSV if null
+         */
+        public TableExporter(JXTable table, WritableByteChannel channel, Charset charset, 
+                DelimitedFormat format) {
+            super(channel, charset, format);
+            this.table = Contract.asNotNull(table, "table must not be null");
+        }
+        
+        @Override
+        protected int getRowCount() {
+            return table.getRowCount();
+        }
+
+        @Override
+        protected int getColumnCount() {
+            return table.getColumnCount();
+        }
+
+        @Override
+        protected String getColumnName(int column) {
+            Object header = table.getColumn(column).getHeaderValue();
+            return header != null ? header.toString() : table.getColumnName(column);
+        }
+
+        @Override
+        protected String getStringAt(int row, int column) {
+            return table.getStringAt(row, column);
+        }
+
+        @Override
+        protected void installViewListener() {
+            listener = new ViewListener();
+            model = table.getModel();
+            model.addTableModelListener(listener);
+            sorter = table.getRowSorter();
+            if (sorter != null) {
+                sorter.addRowSorterListener(listener);
+            }
+            table.getColumnModel().addColumnModelListener(listener);
+        }
+
+        @Override
+        protected void uninstallViewListener() {
+            if (listener == null) return;
+            model.removeTableModelListener(listener);
+            if (sorter != null) {
+                sorter.removeRowSorterListener(listener);
+            }
+            table.getColumnModel().removeColumnModelListener(listener);
+            listener = null;
+        }
+        
+        private class ViewListener implements TableModelListener, RowSorterListener, 
+                TableColumnModelListener {
+
+            @Override
+            public void tableChanged(TableModelEvent e) {
+                if (!isUnreadUpdate(e)) {
+                    viewChanged();
+                }
+            }
+            
+            /**
+             * Returns whether the event only updates cells which aren't 
+             * exported or not read yet.
+             */
+            private boolean isUnreadUpdate(TableModelEvent e) {
+                if (e.getType() != TableModelEvent.UPDATE 
+                        || e.getFirstRow() == TableModelEvent.HEADER_ROW
+                        || e.getLastRow() == Integer.MAX_VALUE) {
+                    return false;
+                }
+                if (e.getColumn() != TableModelEvent.ALL_COLUMNS 
+                        && table.convertColumnIndexToView(e.getColumn()) < 0) {
+                    return true;
+                }
+                for (int row = e.getFirstRow(); row <= e.getLastRow(); row++) {
+                    int viewRow = table.convertRowIndexToView(row);
+                    if (viewRow >= 0 && viewRow < getReadRowCount()) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public void sorterChanged(RowSorterEvent e) {
+                viewChanged();
+            }
+
+            @Override
+            public void columnAdded(TableColumnModelEvent e) {
+                viewChanged();
+            }
+
+            @Override
+            public void columnRemoved(TableColumnModelEvent e) {
+                viewChanged();
+            }
+
+            @Override
+            public void columnMoved(TableColumnModelEvent e) {
+                if (e.getFromIndex() != e.getToIndex()) {
+                    viewChanged();
+                }
+            }
+
+            @Override
+            public void columnMarginChanged(ChangeEvent e) {
+            }
+
+            @Override
+            public void columnSelectionChanged(ListSelectionEvent e) {
+            }
+        }
+    }
+    
+    /**
+     * Exports a JXList, as a single column without header.
+     */
+    public static class ListExporter extends ViewExporter {
+        private final JXList list;
+        private RowSorter<?> sorter;
+        private ViewListener listener;
+
+        /**
+         * Instantiates an exporter of the given list.
+         * 
+         * @param list the list to export, must not be null
+         * @param writer the writer to export to, must not be null
+         * @param format the format to use, CSV if null
+         */
+        public ListExporter(JXList list, Writer writer, DelimitedFormat format) {
+            super(writer, format);
+            this.list = Contract.asNotNull(list, "list must not be null");
+            setHeaderIncluded(false);
+        }
+        
+        /**
+         * Instantiates an exporter of the given list.
+         * 
+         * @param list the list to export, must not be null
+         * @param channel the channel to export to, must not be null
+         * @param charset the charset to encode the text, must not be null
+         * @param format the format to use, CSV if null
+         */
+        public ListExporter(JXList list, WritableByteChannel channel, Charset charset, 
+                DelimitedFormat format) {
+            super(channel, charset, format);
+            this.list = Contract.asNotNull(list, "list must not be null");
+            setHeaderIncluded(false);
+        }
+        
+        @Override
+        protected int getRowCount() {
+            return list.getElementCount();
+        }
+
+        @Override
+        protected int getColumnCount() {
+            return 1;
+        }
+
+        @Override
+        protected String getColumnName(int column) {
+            return "";
+        }
+
+        @Override
+        protected String getStringAt(int row, int column) {
+            return list.getStringAt(row);
+        }
+
+        @Override
+        protected void installViewListener() {
+            listener = new ViewListener();
+            list.getModel().addListDataListener(listener);
+            sorter = list.getRowSorter();
+            if (sorter != null) {
+                sorter.addRowSorterListener(listener);
+            }
+        }
+
+        @Override
+        protected void uninstallViewListener() {
+            if (listener == null) return;
+            list.getModel().removeListDataListener(listener);
+            if (sorter != null) {
+                sorter.removeRowSorterListener(listener);
+            }
+            listener = null;
+        }
+        
+        private class ViewListener implements ListDataListener, RowSorterListener {
+
+            @Override
+            public void intervalAdded(ListDataEvent e) {
+                viewChanged();
+            }
+
+            @Override
+            public void intervalRemoved(ListDataEvent e) {
+                viewChanged();
+            }
+
+            @Override
+            public void contentsChanged(ListDataEvent e) {
+                if (!isUnreadUpdate(e)) {
+                    viewChanged();
+                }
+            }
+            
+            /**
+             * Returns whether the event only updates elements not read yet.
+             */
+            private boolean isUnreadUpdate(ListDataEvent e) {
+                if (e.getIndex0() < 0) {
+                    return false;
+                }
+                for (int index = Math.min(e.getIndex0(), e.getIndex1()); 
+                        index <= Math.max(e.getIndex0(), e.getIndex1()); index++) {
+                    int viewIndex = list.convertIndexToView(index);
+                    if (viewIndex >= 0 && viewIndex < getReadRowCount()) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public void sorterChanged(RowSorterEvent e) {
+                viewChanged();
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.renderer;
+
+import java.text.Format;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A <code>FormatStringValue</code> which remembers the strings of the most
+ * recently formatted values. Formatting numbers or dates is comparatively 
+ * expensive, and a table repaints the same cells over and over while scrolling. 
+ * The cache is bounded, evicting the least recently used entries.
+ * <p>
+ * 
+ * The values are used as keys, so they must be immutable and implement 
+ * <code>equals</code> and <code>hashCode</code> consistently with the format,
+ * as do all <code>Number</code> and <code>String</code> types of the jdk. 
+ * The cache is cleared automatically if the format instance is replaced. 
+ * Client code which changes the properties of the format itself must call 
+ * <code>clearCache</code>.
+ * <p>
+ * 
+ * F.i. to render large numeric columns:
+ * 
+ * <pre><code>
+ *    StringValue stringValue = new CachingFormatStringValue(
+ *        NumberFormat.getNumberInstance(), 1000);
+ *    table.setDefaultRenderer(Number.class, 
+ *        new DefaultTableRenderer(stringValue, JLabel.RIGHT));  
+ * </code></pre>
+ * 
+ * Instances are not thread-safe, they are meant to be used on the EDT only.
+ * 
+ * @see org.jdesktop.swingx.table.PrimitiveTableModel
+ */
+public class CachingFormatStringValue extends FormatStringValue {
+
+    private static final long serialVersionUID = 8357402037220913967L;
+
+    /** the default maximum number of cached strings. */
+    public static final int DEFAULT_CACHE_SIZE = 512;
+
+    private final int cacheSize;
+
+    private final Map<Object, String> cache;
+
+    /** the format the cached strings were created with. */
+    private Format cachedFormat;
+
+    /**
+     * Instantiates a caching converter with the given Format and default
+     * cache size.
+     * 
+     * @param format the format to use in creating the String representation.
+     */
+    public CachingFormatStringValue(Format format) {
+        this(format, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Instantiates a caching converter with the given Format and cache size.
+     * 
+     * @param format the format to use in creating the String representation.
+     * @param cacheSize the maximum number of cached strings, must be positive.
+     * @throws IllegalArgumentException if cacheSize is not positive
+     */
+    public CachingFormatStringValue(Format format, int cacheSize) {
+        super(format);
+        if (cacheSize <= 0) {
+            throw new IllegalArgumentException("cache size must be positive but was " + cacheSize);
+        }
+        this.cacheSize = cacheSize;
+        this.cache = new StringCache(cacheSize);
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Overridden to look up the string in the cache before formatting.
+     */
+    @Override
+    public String getString(Object value) {
+        if (value == null) return "";
+        if (cachedFormat != format) {
+            cache.clear();
+            cachedFormat = format;
+        }
+        String string = cache.get(value);
+        if (string == null) {
+            string = super.getString(value);
+            cache.put(value, string);
+        }
+        return string;
+    }
+
+    /**
+     * Removes all cached strings. Must be called after changing the 
+     * properties of the format.
+     */
+    public void clearCache() {
+        cache.clear();
+    }
+
+    /**
+     * Returns the maximum number of cached strings.
+     * 
+     * @return the maximum number of cached strings.
+     */
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * A map of the least recently used strings, limited to the cache size.
+     */
+    private static class StringCache extends LinkedHashMap<Object, String> {
+        private static final long serialVersionUID = 4209465855682398074L;
+
+        private final int maxSize;
+
+        StringCache(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, String> eldest) {
+            return size() > maxSize;
+        }
+    }
+}
@@ -24,6 +24,7 @@ import javax.swing.BorderFactory;
 import javax.swing.Icon;
 import javax.swing.tree.DefaultMutableTreeNode;
 
+import org.jdesktop.swingx.JXLabel;
 import org.jdesktop.swingx.rollover.RolloverRenderer;
 import org.jdesktop.swingx.treetable.TreeTableNode;
 
@@ -157,6 +158,10 @@ public class WrappingProvider extends
      * Sets the given provider as delegate for the node content. 
      * If the delegate is null, a default LabelProvider is set.<p>
      * 
+     * If the delegate renders with a <code>JXLabel</code>, the label is 
+     * switched to the lightweight line wrapping, which doesn't build
+     * text views for each node.<p>
+     * 
      *  PENDING: rename to setDelegate?
      *  
      * @param delegate the provider to use as delegate. 
@@ -165,6 +170,9 @@ public class WrappingProvider extends
         if (delegate == null) {
             delegate = new LabelProvider();
         }
+        if (delegate.rendererComponent instanceof JXLabel) {
+            ((JXLabel) delegate.rendererComponent).setLightweightLineWrap(true);
+        }
         this.wrappee = delegate;
     }
 
@@ -0,0 +1,151 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.search;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
+
+/**
+ * A <code>CharSequence</code> view of a range of a {@link Document}. The text
+ * is accessed through a {@link Segment} with partial return enabled, so the
+ * document content isn't copied as long as the content implementation can
+ * hand out its internal array (which <code>GapContent</code> does for each
+ * side of the gap).
+ * <p>
+ *
+ * The sequence doesn't track changes: its length is fixed at creation time.
+ * Callers must make sure the document isn't modified while the sequence is in
+ * use, f.i. by accessing it on the EDT only or inside of
+ * {@link Document#render(Runnable)}.
+ */
+public class DocumentCharSequence implements CharSequence {
+
+    private final Document document;
+
+    private final int offset;
+
+    private final int length;
+
+    private final Segment segment;
+
+    /** start of the currently loaded chunk, relative to offset. */
+    private int chunkStart;
+
+    /** end of the currently loaded chunk, relative to offset. */
+    private int chunkEnd;
+
+    /**
+     * Creates a sequence covering the complete document.
+     *
+     * @param document the document to access
+     */
+    public DocumentCharSequence(Document document) {
+        this(document, 0, document.getLength());
+    }
+
+    /**
+     * Creates a sequence covering the given range of the document.
+     *
+     * @param document the document to access
+     * @param offset the start offset in the document
+     * @param length the number of characters
+     * @throws IndexOutOfBoundsException if the range isn't contained in the
+     *   document
+     */
+    public DocumentCharSequence(Document document, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > document.getLength()) {
+            throw new IndexOutOfBoundsException("range [" + offset + ", " + (offset + length)
+                    + ") not in document of length " + document.getLength());
+        }
+        this.document = document;
+        this.offset = offset;
+        this.length = length;
+        this.segment = new Segment();
+        segment.setPartialReturn(true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int length() {
+        return length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public char charAt(int index) {
+        if (index < chunkStart || index >= chunkEnd) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("index " + index + " not in [0, " + length + ")");
+            }
+            loadChunk(index);
+        }
+        return segment.array[segment.offset + index - chunkStart];
+    }
+
+    /**
+     * Loads the largest chunk starting at index the document content
+     * can provide without copying.
+     *
+     * @param index the relative index to start the chunk at
+     */
+    private void loadChunk(int index) {
+        try {
+            document.getText(offset + index, length - index, segment);
+        } catch (BadLocationException e) {
+            // the document was changed under our feet
+            throw new IndexOutOfBoundsException(e.getMessage());
+        }
+        chunkStart = index;
+        chunkEnd = index + segment.count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("range [" + start + ", " + end
+                    + ") not in [0, " + length + ")");
+        }
+        return new DocumentCharSequence(document, offset + start, end - start);
+    }
+
+    /**
+     * Returns the characters of this sequence as String. Note that this
+     * copies the text.
+     *
+     * @return the text of this sequence
+     */
+    @Override
+    public String toString() {
+        try {
+            return document.getText(offset, length);
+        } catch (BadLocationException e) {
+            throw new IndexOutOfBoundsException(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,773 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.search;
+
+import java.awt.Color;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultHighlighter;
+import javax.swing.text.Document;
+import javax.swing.text.Highlighter;
+import javax.swing.text.JTextComponent;
+
+/**
+ * A {@code Searchable} for {@code JTextComponent}s which is suited for large
+ * documents.
+ * <p>
+ *
+ * The document text is never copied into a String: all matching is done
+ * on a {@link DocumentCharSequence}. Once a pattern is searched, all its
+ * matches are collected chunk by chunk on a background thread and cached as
+ * offset arrays. Subsequent searches for the same pattern - in either
+ * direction - are answered from the cache as far as it is complete. A
+ * document change invalidates the cached matches from the changed offset on;
+ * they are re-collected in the background.
+ * <p>
+ *
+ * If highlightAll is enabled (the default), every collected match is marked
+ * with the target's {@link Highlighter}, highlights are added in bulk for each
+ * collected chunk.
+ * <p>
+ *
+ * Contrary to {@code JXEditorPane.DocumentSearchable}, matching always happens
+ * against the complete document, that is anchors and look-around constructs
+ * see the text before the start position. All methods must be called on the
+ * EDT.
+ *
+ * <pre><code>
+ * JXEditorPane editor = new JXEditorPane(url);
+ * editor.setSearchable(new IndexedDocumentSearchable(editor));
+ * </code></pre>
+ *
+ * @see DocumentCharSequence
+ */
+public class IndexedDocumentSearchable implements Searchable {
+
+    private static final Logger LOG = Logger.getLogger(IndexedDocumentSearchable.class
+            .getName());
+
+    /** the default number of characters scanned per chunk. */
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    private final JTextComponent target;
+
+    private final Handler handler;
+
+    private Document document;
+
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    private boolean highlightAll = true;
+
+    private Highlighter.HighlightPainter highlightPainter;
+
+    // the match cache, valid for pattern
+    private Pattern pattern;
+
+    private int[] starts = new int[16];
+
+    private int[] ends = new int[16];
+
+    private Object[] highlightTags = new Object[16];
+
+    private int matchCount;
+
+    /** the document offset up to which all match starts are collected. */
+    private int indexedTo;
+
+    /** incremented on each invalidation, stale chunks are ignored. */
+    private int generation;
+
+    private IndexWorker worker;
+
+    private boolean restartPending;
+
+    // the last search result
+    private int lastFoundIndex = -1;
+
+    private String lastRegEx;
+
+    /**
+     * Creates a searchable for the given text component.
+     *
+     * @param target the text component to search in, must not be null
+     */
+    public IndexedDocumentSearchable(JTextComponent target) {
+        if (target == null) {
+            throw new NullPointerException("target must not be null");
+        }
+        this.target = target;
+        this.handler = new Handler();
+        target.addPropertyChangeListener("document", handler);
+        setDocument(target.getDocument());
+    }
+
+    /**
+     * Returns the text component this searchable searches in.
+     *
+     * @return the target component
+     */
+    public JTextComponent getTarget() {
+        return target;
+    }
+
+    /**
+     * Stops background work, removes all match highlights and all listeners
+     * installed by this searchable.
+     */
+    public void release() {
+        invalidate(0);
+        pattern = null;
+        target.removePropertyChangeListener("document", handler);
+        setDocument(null);
+    }
+
+    /**
+     * Returns the number of characters scanned per background chunk.
+     *
+     * @return the chunk size
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Sets the number of characters scanned per background chunk. Each chunk
+     * is scanned while holding the document's read lock, so smaller chunks
+     * block writers for a shorter time at the price of more overhead.
+     *
+     * @param chunkSize the chunk size, must be &gt; 0
+     */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunk size must be > 0 but was " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Returns whether all matches of the last searched pattern are
+     * highlighted.
+     *
+     * @return true if all matches are highlighted
+     */
+    public boolean isHighlightAll() {
+        return highlightAll;
+    }
+
+    /**
+     * Sets whether all matches of the last searched pattern are highlighted.
+     *
+     * @param highlightAll true to highlight all matches
+     */
+    public void setHighlightAll(boolean highlightAll) {
+        if (this.highlightAll == highlightAll) return;
+        this.highlightAll = highlightAll;
+        if (highlightAll) {
+            addHighlights(0, matchCount);
+        } else {
+            removeHighlights(0);
+        }
+    }
+
+    /**
+     * Returns the painter used to highlight matches, lazily created.
+     *
+     * @return the painter used to highlight matches
+     */
+    public Highlighter.HighlightPainter getHighlightPainter() {
+        if (highlightPainter == null) {
+            highlightPainter = new DefaultHighlighter.DefaultHighlightPainter(Color.YELLOW.brighter());
+        }
+        return highlightPainter;
+    }
+
+    /**
+     * Sets the painter used to highlight matches. If null, a default painter
+     * is used.
+     *
+     * @param highlightPainter the painter used to highlight matches
+     */
+    public void setHighlightPainter(Highlighter.HighlightPainter highlightPainter) {
+        this.highlightPainter = highlightPainter;
+        if (isHighlightAll()) {
+            removeHighlights(0);
+            addHighlights(0, matchCount);
+        }
+    }
+
+    /**
+     * Returns the number of matches collected so far for the last searched
+     * pattern.
+     *
+     * @return the number of collected matches
+     * @see #isIndexComplete()
+     */
+    public int getMatchCount() {
+        return matchCount;
+    }
+
+    /**
+     * Returns the start offsets of the matches collected so far for the last
+     * searched pattern.
+     *
+     * @return the start offsets of the collected matches, in ascending order
+     */
+    public int[] getMatchStarts() {
+        return Arrays.copyOf(starts, matchCount);
+    }
+
+    /**
+     * Returns whether the matches of the last searched pattern are collected
+     * for the complete document.
+     *
+     * @return true if all matches are collected
+     */
+    public boolean isIndexComplete() {
+        return pattern != null && document != null && indexedTo >= document.getLength();
+    }
+
+//------------------------- Searchable
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int search(String searchString) {
+        return search(searchString, -1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int search(String searchString, int startIndex) {
+        return search(searchString, startIndex, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int search(String searchString, int startIndex, boolean backward) {
+        Pattern pattern = null;
+        if ((searchString != null) && (searchString.length() > 0)) {
+            pattern = Pattern.compile(searchString, 0);
+        }
+        return search(pattern, startIndex, backward);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int search(Pattern pattern) {
+        return search(pattern, -1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int search(Pattern pattern, int startIndex) {
+        return search(pattern, startIndex, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     *
+     * Starts collecting all matches of the pattern in the background, if the
+     * pattern differs from the last.
+     */
+    @Override
+    public int search(Pattern pattern, int startIndex, boolean backwards) {
+        int length = document != null ? document.getLength() : 0;
+        if ((pattern == null) || (length == 0)
+                || ((startIndex > -1) && (length < startIndex))) {
+            updateStateAfterNotFound();
+            return -1;
+        }
+        ensureIndex(pattern);
+
+        int start = startIndex;
+        if ((startIndex >= 0) && (startIndex == lastFoundIndex)) {
+            if (!pattern.pattern().equals(lastRegEx)) {
+                // the pattern changed, f.i. by incremental typing: try
+                // to re-match at the same position
+                Matcher matcher = createMatcher(new DocumentCharSequence(document));
+                matcher.region(start, length);
+                if (matcher.lookingAt() && matcher.end() > matcher.start()) {
+                    updateStateAfterFound(pattern, matcher.start(), matcher.end());
+                    return lastFoundIndex;
+                }
+            }
+            start++;
+        }
+        if (backwards) {
+            findBackward(pattern, startIndex < 0 ? length : startIndex);
+        } else {
+            findForward(pattern, start < 0 ? 0 : start);
+        }
+        return lastFoundIndex;
+    }
+
+    /**
+     * Finds the first match starting at or after start and updates state.
+     *
+     * @param pattern the pattern to search
+     * @param start the offset to start searching at
+     */
+    private void findForward(Pattern pattern, int start) {
+        int length = document.getLength();
+        if (start > length) {
+            updateStateAfterNotFound();
+            return;
+        }
+        // the cached matches are the result of a scan from the document start:
+        // the first cached match at or after start is the next match if start
+        // isn't inside of a cached match
+        int index = firstMatchAtOrAfter(start);
+        boolean insideMatch = index > 0 && ends[index - 1] > start;
+        if (!insideMatch) {
+            if (index < matchCount) {
+                updateStateAfterFound(pattern, starts[index], ends[index]);
+                return;
+            }
+            if (indexedTo >= length) {
+                updateStateAfterNotFound();
+                return;
+            }
+        }
+        Matcher matcher = createMatcher(new DocumentCharSequence(document));
+        matcher.region(start, length);
+        while (matcher.find()) {
+            if (matcher.end() > matcher.start()) {
+                updateStateAfterFound(pattern, matcher.start(), matcher.end());
+                return;
+            }
+        }
+        updateStateAfterNotFound();
+    }
+
+    /**
+     * Finds the last match ending at or before limit and updates state.
+     *
+     * @param pattern the pattern to search
+     * @param limit the offset the match must end at or before
+     */
+    private void findBackward(Pattern pattern, int limit) {
+        if (limit <= 0) {
+            updateStateAfterNotFound();
+            return;
+        }
+        int foundStart = -1;
+        int foundEnd = -1;
+        int index = lastMatchEndingAtOrBefore(limit);
+        if (index >= 0) {
+            foundStart = starts[index];
+            foundEnd = ends[index];
+        }
+        if (indexedTo < limit) {
+            // continue the scan where the cache ends
+            int resume = matchCount > 0 ? Math.max(ends[matchCount - 1], indexedTo) : indexedTo;
+            if (resume < limit) {
+                Matcher matcher = createMatcher(new DocumentCharSequence(document));
+                matcher.region(resume, limit);
+                while (matcher.find()) {
+                    if (matcher.end() > matcher.start()) {
+                        foundStart = matcher.start();
+                        foundEnd = matcher.end();
+                    }
+                }
+            }
+        }
+        if (foundStart >= 0) {
+            updateStateAfterFound(pattern, foundStart, foundEnd);
+        } else {
+            updateStateAfterNotFound();
+        }
+    }
+
+    private Matcher createMatcher(CharSequence text) {
+        Matcher matcher = pattern.matcher(text);
+        matcher.useAnchoringBounds(false);
+        matcher.useTransparentBounds(true);
+        return matcher;
+    }
+
+    private void updateStateAfterFound(Pattern pattern, int start, int end) {
+        target.select(start, end);
+        target.getCaret().setSelectionVisible(true);
+        lastFoundIndex = start;
+        lastRegEx = pattern.pattern();
+    }
+
+    private void updateStateAfterNotFound() {
+        lastFoundIndex = -1;
+        lastRegEx = null;
+        target.setCaretPosition(target.getSelectionEnd());
+    }
+
+//------------------------- match cache
+
+    /**
+     * Resets the cache if the pattern differs from the cached.
+     *
+     * @param pattern the pattern to search
+     */
+    private void ensureIndex(Pattern pattern) {
+        if (isSamePattern(pattern)) return;
+        invalidate(0);
+        this.pattern = pattern;
+        restartWorker();
+    }
+
+    private boolean isSamePattern(Pattern other) {
+        return pattern != null && pattern.pattern().equals(other.pattern())
+                && pattern.flags() == other.flags();
+    }
+
+    /**
+     * Drops all cached matches which might be affected by a change at the given
+     * offset and stops the background scan.
+     *
+     * @param offset the document offset the invalidation starts at
+     */
+    private void invalidate(int offset) {
+        generation++;
+        if (worker != null) {
+            worker.cancel(false);
+            worker = null;
+        }
+        // a match ending at the offset might be extended by an insert
+        int keep = offset <= 0 ? 0 : lastMatchEndingAtOrBefore(offset - 1) + 1;
+        removeHighlights(keep);
+        matchCount = keep;
+        indexedTo = Math.min(indexedTo, keep > 0 ? ends[keep - 1] : 0);
+    }
+
+    private void scheduleRestart() {
+        if (restartPending || pattern == null) return;
+        restartPending = true;
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                restartPending = false;
+                if (worker == null) {
+                    restartWorker();
+                }
+            }
+        });
+    }
+
+    private void restartWorker() {
+        if (pattern == null || document == null) return;
+        worker = new IndexWorker(document, pattern, indexedTo, chunkSize, generation);
+        worker.execute();
+    }
+
+    /**
+     * Appends the matches of a scanned chunk.
+     *
+     * @param chunk the scanned chunk
+     */
+    private void appendChunk(Chunk chunk) {
+        if (chunk.generation != generation) return;
+        int oldCount = matchCount;
+        for (int i = 0; i < chunk.count; i++) {
+            if (chunk.starts[i] < indexedTo) continue;
+            ensureCapacity(matchCount + 1);
+            starts[matchCount] = chunk.starts[i];
+            ends[matchCount] = chunk.ends[i];
+            matchCount++;
+        }
+        indexedTo = chunk.end;
+        addHighlights(oldCount, matchCount);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= starts.length) return;
+        int newLength = Math.max(capacity, starts.length * 2);
+        starts = Arrays.copyOf(starts, newLength);
+        ends = Arrays.copyOf(ends, newLength);
+        highlightTags = Arrays.copyOf(highlightTags, newLength);
+    }
+
+    /**
+     * Returns the index of the first cached match starting at or after the
+     * given offset.
+     *
+     * @param offset the document offset
+     * @return the index of the match or matchCount if there is none
+     */
+    private int firstMatchAtOrAfter(int offset) {
+        int index = Arrays.binarySearch(starts, 0, matchCount, offset);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Returns the index of the last cached match ending at or before the
+     * given offset.
+     *
+     * @param offset the document offset
+     * @return the index of the match or -1 if there is none
+     */
+    private int lastMatchEndingAtOrBefore(int offset) {
+        int index = Arrays.binarySearch(ends, 0, matchCount, offset);
+        return index >= 0 ? index : -index - 2;
+    }
+
+//------------------------- highlights
+
+    private void addHighlights(int from, int to) {
+        if (!isHighlightAll() || from >= to) return;
+        Highlighter highlighter = target.getHighlighter();
+        if (highlighter == null) return;
+        Highlighter.HighlightPainter painter = getHighlightPainter();
+        for (int i = from; i < to; i++) {
+            try {
+                highlightTags[i] = highlighter.addHighlight(starts[i], ends[i], painter);
+            } catch (BadLocationException e) {
+                LOG.log(Level.FINE, "match out of document bounds", e);
+            }
+        }
+    }
+
+    private void removeHighlights(int from) {
+        Highlighter highlighter = target.getHighlighter();
+        for (int i = from; i < matchCount; i++) {
+            if (highlightTags[i] != null) {
+                if (highlighter != null) {
+                    highlighter.removeHighlight(highlightTags[i]);
+                }
+                highlightTags[i] = null;
+            }
+        }
+    }
+
+//------------------------- document tracking
+
+    private void setDocument(Document document) {
+        if (this.document != null) {
+            this.document.removeDocumentListener(handler);
+        }
+        this.document = document;
+        if (document != null) {
+            document.addDocumentListener(handler);
+        }
+    }
+
+    private void documentChanged(int offset) {
+        lastFoundIndex = -1;
+        lastRegEx = null;
+        invalidate(offset);
+        scheduleRestart();
+    }
+
+    private class Handler implements DocumentListener, PropertyChangeListener {
+
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            changed(e);
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            changed(e);
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {
+            // attribute changes don't affect the text
+        }
+
+        private void changed(final DocumentEvent e) {
+            if (SwingUtilities.isEventDispatchThread()) {
+                documentChanged(e.getOffset());
+            } else {
+                // the offset might be stale by the time we get the EDT
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        documentChanged(0);
+                    }
+                });
+            }
+        }
+
+        @Override
+        public void propertyChange(PropertyChangeEvent evt) {
+            invalidate(0);
+            setDocument(target.getDocument());
+            documentChanged(0);
+        }
+    }
+
+//------------------------- background scanning
+
+    /**
+     * The matches found in a range of the document.
+     */
+    private static class Chunk {
+        final int generation;
+        final int end;
+        final int[] starts;
+        final int[] ends;
+        final int count;
+
+        Chunk(int generation, int end, int[] starts, int[] ends, int count) {
+            this.generation = generation;
+            this.end = end;
+            this.starts = starts;
+            this.ends = ends;
+            this.count = count;
+        }
+    }
+
+    /**
+     * Collects all matches from a start offset to the end of the document,
+     * chunk by chunk. Each chunk is scanned while holding the document's read
+     * lock.
+     */
+    private class IndexWorker extends SwingWorker<Void, Chunk> {
+        private final Document document;
+        private final Pattern pattern;
+        private final int chunkSize;
+        private final int generation;
+        private int position;
+        private boolean done;
+
+        IndexWorker(Document document, Pattern pattern, int start, int chunkSize,
+                int generation) {
+            this.document = document;
+            this.pattern = pattern;
+            this.position = start;
+            this.chunkSize = chunkSize;
+            this.generation = generation;
+        }
+
+        @Override
+        protected Void doInBackground() throws Exception {
+            while (!done && !isCancelled()) {
+                document.render(new Runnable() {
+                    @Override
+                    public void run() {
+                        scanChunk();
+                    }
+                });
+            }
+            return null;
+        }
+
+        /**
+         * Scans the matches starting in the next chunk. Must be called with
+         * the document read-locked.<p>
+         * 
+         * The matcher's region ends a margin behind the chunk, so a failing
+         * find doesn't scan to the end of the document. If the matcher hit 
+         * the region's end, a match might be cut off or continue behind it,
+         * so the find is repeated with a wider region.
+         */
+        private void scanChunk() {
+            int length = document.getLength();
+            if (position >= length) {
+                done = true;
+                publish(new Chunk(generation, position, new int[0], new int[0], 0));
+                return;
+            }
+            int chunkEnd = Math.min(position + chunkSize, length);
+            Matcher matcher = pattern.matcher(new DocumentCharSequence(document, 0, length));
+            matcher.useAnchoringBounds(false);
+            matcher.useTransparentBounds(true);
+            List<int[]> found = new ArrayList<int[]>();
+            int next = chunkEnd;
+            int from = position;
+            int limit = Math.min(length, chunkEnd + Math.max(chunkSize / 4, 1));
+            while (from < chunkEnd) {
+                matcher.region(from, limit);
+                // a failed find means there are no more matches in this chunk
+                if (!matcher.find() || matcher.start() >= chunkEnd) break;
+                if ((matcher.end() == limit || matcher.requireEnd()) && limit < length) {
+                    // the match might continue behind the region
+                    limit = Math.min(length, limit + chunkSize);
+                    continue;
+                }
+                if (matcher.end() > matcher.start()) {
+                    found.add(new int[] {matcher.start(), matcher.end()});
+                    next = Math.max(next, matcher.end());
+                    from = matcher.end();
+                } else {
+                    from = matcher.end() + 1;
+                }
+            }
+            int[] starts = new int[found.size()];
+            int[] ends = new int[found.size()];
+            for (int i = 0; i < starts.length; i++) {
+                starts[i] = found.get(i)[0];
+                ends[i] = found.get(i)[1];
+            }
+            position = next;
+            done = position >= length;
+            publish(new Chunk(generation, position, starts, ends, starts.length));
+        }
+
+        @Override
+        protected void process(List<Chunk> chunks) {
+            if (worker != this) return;
+            for (Chunk chunk : chunks) {
+                appendChunk(chunk);
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (worker == this) {
+                worker = null;
+            }
+            if (isCancelled()) return;
+            try {
+                get();
+            } catch (InterruptedException e) {
+                // ignore
+            } catch (CancellationException e) {
+                // ignore
+            } catch (ExecutionException e) {
+                LOG.log(Level.FINE, "scanning the document failed", e.getCause());
+            }
+        }
+    }
+}
@@ -4,10 +4,14 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.security.AccessControlException;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
-import java.util.prefs.BackingStoreException;
 import java.util.prefs.Preferences;
 
 import javax.swing.JMenuItem;
@@ -21,14 +25,25 @@ import org.jdesktop.swingx.plaf.UIManagerExt;
 
 /**
  * Maintains a list of recent searches and persists this list automatically
- * using {@link Preferences}. A recent searches popup menu can be installed on
- * a {@link JXSearchField} using {@link #install(JXSearchField)}.
+ * using {@link Preferences} or a custom {@link RecentSearchesStore}. A recent
+ * searches popup menu can be installed on a {@link JXSearchField} using
+ * {@link #install(JXSearchField)}.
+ * <p>
+ * 
+ * By default each change is written synchronously. Heavy use, f.i. by an
+ * instant search field, should enable write-behind with
+ * {@link #setWriteBehindDelay(long)}, which coalesces changes and writes them
+ * on a background thread.
  * 
  * @author Peter Weishapl <petw@gmx.net>
  * 
  */
 public class RecentSearches implements ActionListener {
-	private Preferences prefsNode;
+	private static ScheduledExecutorService writer;
+
+	private static final Set<RecentSearches> pendingWrites = new LinkedHashSet<RecentSearches>();
+
+	private RecentSearchesStore store;
 
 	private int maxRecents = 5;
 
@@ -36,6 +51,14 @@ public class RecentSearches implements ActionListener {
 
 	private List<ChangeListener> listeners = new ArrayList<ChangeListener>();
 
+	private long writeBehindDelay;
+
+	/** the snapshot waiting to be written, guarded by this. */
+	private List<String> pendingWrite;
+
+	/** serializes writes to the store. */
+	private final Object writeLock = new Object();
+
 	/**
 	 * Creates a list of recent searches and uses <code>saveName</code> to
 	 * persist this list under the {@link Preferences} user root node. Existing
@@ -74,7 +97,27 @@ public class RecentSearches implements ActionListener {
 		}
 
 		if (prefs != null && saveName != null) {
-			this.prefsNode = prefs.node(saveName);
+			this.store = new RecentSearchesStore.PreferencesStore(prefs.node(saveName));
+			load();
+		}
+	}
+
+	/**
+	 * Creates a list of recent searches which is persisted in the given
+	 * <code>store</code>. Existing entries will be loaded automatically.
+	 * 
+	 * @param store
+	 *            the store used to persist this list. If store is
+	 *            <code>null</code>, the list will not be persisted
+	 * @param writeBehindDelay
+	 *            the write-behind delay in milliseconds, a value <= 0 writes
+	 *            changes synchronously
+	 * @see #setWriteBehindDelay(long)
+	 */
+	public RecentSearches(RecentSearchesStore store, long writeBehindDelay) {
+		this.store = store;
+		this.writeBehindDelay = writeBehindDelay;
+		if (store != null) {
 			load();
 		}
 	}
@@ -82,30 +125,150 @@ public class RecentSearches implements ActionListener {
 	private void load() {
 		// load persisted entries
 		try {
-			String[] recent = new String[prefsNode.keys().length];
-			for (String key : prefsNode.keys()) {
-				recent[prefsNode.getInt(key, -1)] = key;
-			}
-			recentSearches.addAll(Arrays.asList(recent));
+			recentSearches.addAll(store.load());
 		} catch (Exception ex) {
 			// ignore
 		}
 	}
 
 	private void save() {
-		if (prefsNode == null) {
+		if (store == null) {
 			return;
 		}
 
-		try {
-			prefsNode.clear();
-		} catch (BackingStoreException e) {
-			// ignore
+		List<String> snapshot = new ArrayList<String>(recentSearches);
+		if (getWriteBehindDelay() <= 0) {
+			synchronized (writeLock) {
+				synchronized (this) {
+					pendingWrite = null;
+				}
+				store.store(snapshot);
+			}
+			return;
 		}
 
-		int i = 0;
-		for (String search : recentSearches) {
-			prefsNode.putInt(search, i++);
+		boolean scheduled;
+		synchronized (this) {
+			scheduled = pendingWrite != null;
+			pendingWrite = snapshot;
+		}
+		if (!scheduled) {
+			scheduleFlush(this, getWriteBehindDelay());
+		}
+	}
+
+	private static synchronized void scheduleFlush(final RecentSearches recentSearches, long delay) {
+		if (writer == null) {
+			writer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "RecentSearches-writer");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			try {
+				Runtime.getRuntime().addShutdownHook(new Thread("RecentSearches-shutdown") {
+					@Override
+					public void run() {
+						flushAll();
+					}
+				});
+			} catch (SecurityException e) {
+				// pending writes are lost on exit, if we aren't allowed to hook
+				// into the shutdown
+				Logger.getLogger(RecentSearches.class.getName()).warning(
+						"cannot add shutdown hook. pending recent searches might be lost on exit.");
+			}
+		}
+		synchronized (pendingWrites) {
+			pendingWrites.add(recentSearches);
+		}
+		writer.schedule(new Runnable() {
+			@Override
+			public void run() {
+				recentSearches.flush();
+			}
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+
+	private static void flushAll() {
+		RecentSearches[] pending;
+		synchronized (pendingWrites) {
+			pending = pendingWrites.toArray(new RecentSearches[pendingWrites.size()]);
+		}
+		for (RecentSearches recentSearches : pending) {
+			recentSearches.flush();
+		}
+	}
+
+	/**
+	 * Writes pending changes to the store. Does nothing if there are no
+	 * changes waiting to be written.
+	 * <p>
+	 * 
+	 * Changes are pending only if write-behind is enabled. This method can be
+	 * called from any thread, f.i. before disposing the application's main
+	 * frame. Pending changes are flushed on JVM shutdown as well.
+	 * 
+	 * @see #setWriteBehindDelay(long)
+	 */
+	public void flush() {
+		synchronized (writeLock) {
+			// deregister before taking the pending write: a save after taking
+			// it registers again and is flushed on shutdown
+			synchronized (pendingWrites) {
+				pendingWrites.remove(this);
+			}
+			List<String> snapshot;
+			synchronized (this) {
+				snapshot = pendingWrite;
+				pendingWrite = null;
+			}
+			if (snapshot != null) {
+				store.store(snapshot);
+			}
+		}
+	}
+
+	/**
+	 * Returns the store used to persist this list of recent searches.
+	 * 
+	 * @return the store or <code>null</code> if this list isn't persisted
+	 */
+	public RecentSearchesStore getStore() {
+		return store;
+	}
+
+	/**
+	 * Returns the write-behind delay in milliseconds.
+	 * 
+	 * @return the write-behind delay, a value <= 0 means changes are written
+	 *         synchronously
+	 * @see #setWriteBehindDelay(long)
+	 */
+	public long getWriteBehindDelay() {
+		return writeBehindDelay;
+	}
+
+	/**
+	 * Sets the write-behind delay in milliseconds. If the delay is > 0,
+	 * changes aren't written to the store immediately but on a background
+	 * thread after the delay has elapsed. All changes within that period are
+	 * coalesced into a single write of the latest list. The default is 0,
+	 * which writes every change synchronously on the calling thread.
+	 * <p>
+	 * 
+	 * Setting a delay <= 0 flushes pending changes.
+	 * 
+	 * @param writeBehindDelay
+	 *            the delay in milliseconds
+	 * @see #flush()
+	 */
+	public void setWriteBehindDelay(long writeBehindDelay) {
+		this.writeBehindDelay = writeBehindDelay;
+		if (writeBehindDelay <= 0) {
+			flush();
 		}
 	}
 
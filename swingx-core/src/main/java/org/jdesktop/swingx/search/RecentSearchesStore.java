@@ -0,0 +1,275 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.search;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+
+/**
+ * The storage used by {@link RecentSearches} to persist its list of recent
+ * searches.
+ * <p>
+ *
+ * Implementations must be thread safe: if write-behind is enabled on the
+ * <code>RecentSearches</code>, {@link #store(List)} is called on a background
+ * thread.
+ *
+ * @see RecentSearches#setWriteBehindDelay(long)
+ */
+public interface RecentSearchesStore {
+
+	/**
+	 * Returns the persisted recent searches, most recent first.
+	 *
+	 * @return the persisted recent searches, never <code>null</code>
+	 */
+	List<String> load();
+
+	/**
+	 * Replaces the persisted recent searches with the given list.
+	 *
+	 * @param recentSearches
+	 *            the recent searches to persist, most recent first
+	 */
+	void store(List<String> recentSearches);
+
+	/**
+	 * Persists recent searches under a {@link Preferences} node. Each search
+	 * string is used as key, its position in the list as value.
+	 */
+	public static class PreferencesStore implements RecentSearchesStore {
+		private final Preferences prefsNode;
+
+		/**
+		 * Creates a store which persists the recent searches under the given
+		 * preferences node.
+		 *
+		 * @param prefsNode
+		 *            the node to store the recent searches under, must not be
+		 *            <code>null</code>
+		 */
+		public PreferencesStore(Preferences prefsNode) {
+			if (prefsNode == null) {
+				throw new NullPointerException("preferences node must not be null");
+			}
+			this.prefsNode = prefsNode;
+		}
+
+		/**
+		 * Returns the preferences node the recent searches are stored under.
+		 *
+		 * @return the preferences node
+		 */
+		public Preferences getPreferencesNode() {
+			return prefsNode;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public List<String> load() {
+			try {
+				String[] keys = prefsNode.keys();
+				String[] recent = new String[keys.length];
+				for (String key : keys) {
+					recent[prefsNode.getInt(key, -1)] = key;
+				}
+				return new ArrayList<String>(Arrays.asList(recent));
+			} catch (Exception ex) {
+				// ignore
+			}
+			return new ArrayList<String>();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public synchronized void store(List<String> recentSearches) {
+			try {
+				prefsNode.clear();
+			} catch (BackingStoreException e) {
+				// ignore
+			}
+
+			int i = 0;
+			for (String search : recentSearches) {
+				prefsNode.putInt(search, i++);
+			}
+		}
+	}
+
+	/**
+	 * Persists recent searches in a plain UTF-8 encoded text file, one search
+	 * per line. The file is written to a temporary sibling first and renamed
+	 * over the file afterwards, so a crash while writing does not lose the
+	 * previous list. Where renaming doesn't replace an existing file, the file
+	 * is deleted before renaming; if the store is interrupted in between, the
+	 * list is loaded from the temporary file.
+	 */
+	public static class FileStore implements RecentSearchesStore {
+		private static final Logger LOG = Logger.getLogger(FileStore.class.getName());
+
+		private static final String ENCODING = "UTF-8";
+
+		private final File file;
+
+		/**
+		 * Creates a store which persists the recent searches in the given file.
+		 *
+		 * @param file
+		 *            the file to store the recent searches in, must not be
+		 *            <code>null</code>
+		 */
+		public FileStore(File file) {
+			if (file == null) {
+				throw new NullPointerException("file must not be null");
+			}
+			this.file = file;
+		}
+
+		/**
+		 * Returns the file the recent searches are stored in.
+		 *
+		 * @return the file
+		 */
+		public File getFile() {
+			return file;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public synchronized List<String> load() {
+			List<String> recent = new ArrayList<String>();
+			File source = file;
+			if (!source.isFile()) {
+				// a store interrupted after deleting the file leaves the list
+				// in the temporary file only
+				source = getTempFile();
+				if (!source.isFile()) {
+					return recent;
+				}
+			}
+			BufferedReader reader = null;
+			try {
+				reader = new BufferedReader(new InputStreamReader(new FileInputStream(source), ENCODING));
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (line.length() > 0) {
+						recent.add(line);
+					}
+				}
+			} catch (IOException e) {
+				LOG.log(Level.WARNING, "cannot read recent searches from " + source, e);
+			} finally {
+				close(reader);
+			}
+			return recent;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public synchronized void store(List<String> recentSearches) {
+			File tmp = getTempFile();
+			BufferedWriter writer = null;
+			try {
+				writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), ENCODING));
+				for (String search : recentSearches) {
+					// line breaks would split the entry on load
+					writer.write(search.replace('\n', ' ').replace('\r', ' '));
+					writer.newLine();
+				}
+				writer.close();
+				writer = null;
+				if (!tmp.renameTo(file)) {
+					// renameTo doesn't replace existing files on all platforms
+					file.delete();
+					if (!tmp.renameTo(file)) {
+						throw new IOException("cannot rename " + tmp + " to " + file);
+					}
+				}
+			} catch (IOException e) {
+				LOG.log(Level.WARNING, "cannot write recent searches to " + file, e);
+			} finally {
+				close(writer);
+			}
+		}
+
+		private File getTempFile() {
+			return new File(file.getPath() + ".tmp");
+		}
+
+		private static void close(Closeable closeable) {
+			if (closeable == null) {
+				return;
+			}
+			try {
+				closeable.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+
+	/**
+	 * Keeps recent searches in memory only. Useful for tests and for
+	 * applications which must not touch the file system.
+	 */
+	public static class MemoryStore implements RecentSearchesStore {
+		private List<String> recentSearches = Collections.emptyList();
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public synchronized List<String> load() {
+			return new ArrayList<String>(recentSearches);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public synchronized void store(List<String> recentSearches) {
+			this.recentSearches = new ArrayList<String>(recentSearches);
+		}
+	}
+}
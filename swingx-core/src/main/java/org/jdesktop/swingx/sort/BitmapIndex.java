@@ -0,0 +1,485 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.sort;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.swing.RowFilter;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.TableModel;
+
+import org.jdesktop.swingx.util.Contract;
+
+/**
+ * A bitmap index of the values of a <code>TableModel</code>, and a factory
+ * of <code>RowFilter</code>s which look up the rows in the index instead of 
+ * evaluating the cells. Intended for faceted filtering of large tables by 
+ * categorical columns, that is columns with comparatively few distinct values.
+ * <p>
+ * 
+ * For every column used in a filter, the index lazily builds a 
+ * <code>BitSet</code> of the model rows per distinct value, the values being 
+ * compared by <code>equals</code>. Filters of the same index are combined by 
+ * bitwise operations on those sets, the result is cached until the model 
+ * changes. So a filter pass costs a bit lookup per row, independent of the 
+ * number of combined filters.
+ * 
+ * <pre><code>
+ * BitmapIndex index = new BitmapIndex(table.getModel());
+ * table.setRowFilter(index.andFilter(
+ *     index.inFilter(COUNTRY_COLUMN, "Germany", "France"),
+ *     index.equalFilter(STATUS_COLUMN, Status.OPEN)));
+ * </code></pre>
+ * 
+ * The index keeps itself up to date by listening to the model. Updates and 
+ * appended rows are applied incrementally, other changes discard the affected
+ * column indices which are rebuilt on next access. The index must be notified
+ * before the table's <code>RowSorter</code> re-filters: as models notify their 
+ * listeners in reverse order of registration, the index must be created 
+ * after the model is set to the table. Call <code>dispose</code> to stop 
+ * listening.
+ * <p>
+ * 
+ * The filters expect the identifier of an entry to be the row index 
+ * in model coordinates, as passed by a <code>TableSortController</code>.
+ * Like the model, the index and its filters must be used on the EDT only.
+ */
+public class BitmapIndex {
+
+    private final TableModel model;
+
+    private final TableModelListener modelListener;
+
+    /** the value indices per model column, created lazily. */
+    private final Map<Integer, Map<Object, BitSet>> columns;
+
+    /** the row count the index is in sync with. */
+    private int rowCount;
+
+    /** incremented on every change of the index. */
+    private int modificationCount;
+
+    /**
+     * Creates an index of the given model and registers it as listener to
+     * the model.
+     * 
+     * @param model the model to index
+     * @throws NullPointerException if model is null
+     */
+    public BitmapIndex(TableModel model) {
+        this.model = Contract.asNotNull(model, "model must not be null");
+        this.columns = new HashMap<Integer, Map<Object, BitSet>>();
+        this.rowCount = model.getRowCount();
+        this.modelListener = new TableModelListener() {
+            @Override
+            public void tableChanged(TableModelEvent e) {
+                modelChanged(e);
+            }
+        };
+        model.addTableModelListener(modelListener);
+    }
+
+    /**
+     * Returns the indexed model.
+     * 
+     * @return the indexed model
+     */
+    public TableModel getModel() {
+        return model;
+    }
+
+    /**
+     * Unregisters the index from the model and releases all indexed rows.
+     * Filters created by this index must not be used after disposing.
+     */
+    public void dispose() {
+        model.removeTableModelListener(modelListener);
+        columns.clear();
+        modificationCount++;
+    }
+
+    /**
+     * Returns the model rows which contain the given value in the given column.
+     * 
+     * @param column the column in model coordinates
+     * @param value the value to look up, may be null
+     * @return a new <code>BitSet</code> with the bits of the model rows set
+     */
+    public BitSet getRows(int column, Object value) {
+        BitSet rows = getColumnIndex(column).get(value);
+        return rows != null ? (BitSet) rows.clone() : new BitSet();
+    }
+
+    /**
+     * Returns the number of model rows which contain the given value in the
+     * given column.
+     * 
+     * @param column the column in model coordinates
+     * @param value the value to look up, may be null
+     * @return the number of rows with the value
+     */
+    public int getRowCount(int column, Object value) {
+        BitSet rows = getColumnIndex(column).get(value);
+        return rows != null ? rows.cardinality() : 0;
+    }
+
+    /**
+     * Returns the distinct values of the given column.
+     * 
+     * @param column the column in model coordinates
+     * @return an unmodifiable view of the distinct values
+     */
+    public Set<Object> getValues(int column) {
+        return Collections.unmodifiableSet(getColumnIndex(column).keySet());
+    }
+
+    /**
+     * Returns a counter which is incremented on every change of the index.
+     * 
+     * @return the modification count
+     */
+    public int getModificationCount() {
+        return modificationCount;
+    }
+
+    /**
+     * Returns a filter which includes the rows containing the given value in
+     * the given column.
+     * 
+     * @param column the column in model coordinates
+     * @param value the value to include, may be null
+     * @return a filter including the rows with the value
+     * @throws IllegalArgumentException if column is negative
+     */
+    public IndexFilter equalFilter(int column, Object value) {
+        return inFilter(column, value);
+    }
+
+    /**
+     * Returns a filter which includes the rows containing any of the given 
+     * values in the given column.
+     * 
+     * @param column the column in model coordinates
+     * @param values the values to include
+     * @return a filter including the rows with any of the values
+     * @throws IllegalArgumentException if column is negative
+     */
+    public IndexFilter inFilter(final int column, final Object... values) {
+        if (column < 0) {
+            throw new IllegalArgumentException("column must be >= 0 but was " + column);
+        }
+        Contract.asNotNull(values, "values must not be null");
+        final Object[] copy = values.clone();
+        return new IndexFilter(this) {
+            @Override
+            protected BitSet computeRows() {
+                Map<Object, BitSet> index = getColumnIndex(column);
+                BitSet rows = new BitSet();
+                for (Object value : copy) {
+                    BitSet valueRows = index.get(value);
+                    if (valueRows != null) {
+                        rows.or(valueRows);
+                    }
+                }
+                return rows;
+            }
+        };
+    }
+
+    /**
+     * Returns a filter which includes the rows included by all of the given
+     * filters.
+     * 
+     * @param filters the filters to combine, must be created by this index
+     * @return a filter including the intersection of the filters' rows
+     * @throws IllegalArgumentException if a filter is created by a different index
+     */
+    public IndexFilter andFilter(IndexFilter... filters) {
+        final IndexFilter[] copy = checkFilters(filters);
+        return new IndexFilter(this) {
+            @Override
+            protected BitSet computeRows() {
+                if (copy.length == 0) {
+                    return allRows();
+                }
+                BitSet rows = (BitSet) copy[0].getRows().clone();
+                for (int i = 1; i < copy.length && !rows.isEmpty(); i++) {
+                    rows.and(copy[i].getRows());
+                }
+                return rows;
+            }
+        };
+    }
+
+    /**
+     * Returns a filter which includes the rows included by any of the given
+     * filters.
+     * 
+     * @param filters the filters to combine, must be created by this index
+     * @return a filter including the union of the filters' rows
+     * @throws IllegalArgumentException if a filter is created by a different index
+     */
+    public IndexFilter orFilter(IndexFilter... filters) {
+        final IndexFilter[] copy = checkFilters(filters);
+        return new IndexFilter(this) {
+            @Override
+            protected BitSet computeRows() {
+                BitSet rows = new BitSet();
+                for (IndexFilter filter : copy) {
+                    rows.or(filter.getRows());
+                }
+                return rows;
+            }
+        };
+    }
+
+    /**
+     * Returns a filter which includes the rows not included by the given filter.
+     * 
+     * @param filter the filter to negate, must be created by this index
+     * @return a filter including the complement of the filter's rows
+     * @throws IllegalArgumentException if the filter is created by a different index
+     */
+    public IndexFilter notFilter(IndexFilter filter) {
+        final IndexFilter[] copy = checkFilters(filter);
+        return new IndexFilter(this) {
+            @Override
+            protected BitSet computeRows() {
+                BitSet rows = allRows();
+                rows.andNot(copy[0].getRows());
+                return rows;
+            }
+        };
+    }
+
+    private IndexFilter[] checkFilters(IndexFilter... filters) {
+        Contract.asNotNull(filters, "filters must not be null");
+        IndexFilter[] copy = filters.clone();
+        for (IndexFilter filter : copy) {
+            Contract.asNotNull(filter, "filters must not contain null");
+            if (filter.index != this) {
+                throw new IllegalArgumentException("filter must be created by this index: " + filter);
+            }
+        }
+        return copy;
+    }
+
+    private BitSet allRows() {
+        BitSet rows = new BitSet(rowCount);
+        rows.set(0, rowCount);
+        return rows;
+    }
+
+    /**
+     * Returns the index of the given column, building it if necessary.
+     * 
+     * @param column the column in model coordinates
+     * @return the model rows per value
+     */
+    private Map<Object, BitSet> getColumnIndex(int column) {
+        Map<Object, BitSet> index = columns.get(column);
+        if (index == null) {
+            index = new HashMap<Object, BitSet>();
+            if (column < model.getColumnCount()) {
+                addRows(index, column, 0, rowCount - 1);
+            }
+            columns.put(column, index);
+        }
+        return index;
+    }
+
+    private void addRows(Map<Object, BitSet> index, int column, int firstRow, int lastRow) {
+        for (int row = firstRow; row <= lastRow; row++) {
+            Object value = model.getValueAt(row, column);
+            BitSet rows = index.get(value);
+            if (rows == null) {
+                rows = new BitSet();
+                index.put(value, rows);
+            }
+            rows.set(row);
+        }
+    }
+
+    private void updateRows(Map<Object, BitSet> index, int column, int firstRow, int lastRow) {
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (Iterator<BitSet> it = index.values().iterator(); it.hasNext();) {
+                BitSet rows = it.next();
+                if (rows.get(row)) {
+                    rows.clear(row);
+                    if (rows.isEmpty()) {
+                        it.remove();
+                    }
+                    break;
+                }
+            }
+        }
+        addRows(index, column, firstRow, lastRow);
+    }
+
+    private void removeRows(Map<Object, BitSet> index, int firstRow, int lastRow) {
+        for (Iterator<BitSet> it = index.values().iterator(); it.hasNext();) {
+            BitSet rows = it.next();
+            rows.clear(firstRow, lastRow + 1);
+            if (rows.isEmpty()) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Updates the index on changes of the model. Updates, appended and
+     * truncated rows are applied incrementally to the column indices, 
+     * everything else discards them.
+     * 
+     * @param e the event received from the model
+     */
+    protected void modelChanged(TableModelEvent e) {
+        modificationCount++;
+        int oldRowCount = rowCount;
+        rowCount = model.getRowCount();
+        if (columns.isEmpty()) return;
+        if (e == null || e.getFirstRow() == TableModelEvent.HEADER_ROW
+                || e.getLastRow() == Integer.MAX_VALUE) {
+            columns.clear();
+            return;
+        }
+        int firstRow = e.getFirstRow();
+        int lastRow = e.getLastRow();
+        switch (e.getType()) {
+        case TableModelEvent.UPDATE:
+            if (rowCount != oldRowCount || lastRow >= rowCount) {
+                // inconsistent notification, don't guess
+                columns.clear();
+                return;
+            }
+            for (Map.Entry<Integer, Map<Object, BitSet>> entry : getIndexedColumns(e.getColumn())) {
+                updateRows(entry.getValue(), entry.getKey(), firstRow, lastRow);
+            }
+            break;
+        case TableModelEvent.INSERT:
+            if (firstRow != oldRowCount || lastRow != rowCount - 1) {
+                columns.clear();
+                return;
+            }
+            for (Map.Entry<Integer, Map<Object, BitSet>> entry : getIndexedColumns(TableModelEvent.ALL_COLUMNS)) {
+                addRows(entry.getValue(), entry.getKey(), firstRow, lastRow);
+            }
+            break;
+        case TableModelEvent.DELETE:
+            if (lastRow != oldRowCount - 1 || firstRow != rowCount) {
+                columns.clear();
+                return;
+            }
+            for (Map<Object, BitSet> index : columns.values()) {
+                removeRows(index, firstRow, lastRow);
+            }
+            break;
+        default:
+            columns.clear();
+        }
+    }
+
+    private List<Map.Entry<Integer, Map<Object, BitSet>>> getIndexedColumns(int column) {
+        List<Map.Entry<Integer, Map<Object, BitSet>>> indexed = 
+            new ArrayList<Map.Entry<Integer, Map<Object, BitSet>>>();
+        for (Map.Entry<Integer, Map<Object, BitSet>> entry : columns.entrySet()) {
+            if (column == TableModelEvent.ALL_COLUMNS || column == entry.getKey()) {
+                if (entry.getKey() < model.getColumnCount()) {
+                    indexed.add(entry);
+                }
+            }
+        }
+        return indexed;
+    }
+
+    /**
+     * A <code>RowFilter</code> backed by a <code>BitmapIndex</code>. Includes 
+     * an entry if the bit of its identifier, the row index in model 
+     * coordinates, is set in the rows computed from the index. 
+     * The rows are computed once per change of the index.
+     * <p>
+     * 
+     * Instances are created by the factory methods of the index.
+     */
+    public static abstract class IndexFilter extends RowFilter<Object, Integer> {
+
+        private final BitmapIndex index;
+
+        private BitSet rows;
+
+        private int computedAt;
+
+        /**
+         * Creates a filter backed by the given index.
+         * 
+         * @param index the index to look up the rows
+         */
+        protected IndexFilter(BitmapIndex index) {
+            this.index = Contract.asNotNull(index, "index must not be null");
+        }
+
+        /**
+         * Returns the index which backs this filter.
+         * 
+         * @return the index
+         */
+        public BitmapIndex getIndex() {
+            return index;
+        }
+
+        /**
+         * Returns the included model rows, computing them if the index changed.
+         * The returned set must not be modified.
+         * 
+         * @return the included rows
+         */
+        protected BitSet getRows() {
+            if (rows == null || computedAt != index.getModificationCount()) {
+                rows = computeRows();
+                computedAt = index.getModificationCount();
+            }
+            return rows;
+        }
+
+        /**
+         * Computes the included model rows from the index.
+         * 
+         * @return a set with the bits of the included model rows set
+         */
+        protected abstract BitSet computeRows();
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean include(Entry<? extends Object, ? extends Integer> entry) {
+            return getRows().get(entry.getIdentifier());
+        }
+    }
+}
@@ -37,6 +37,7 @@ import org.jdesktop.swingx.util.Contract;
  * concrete RowFilter are private. Expose the base as public for custom subclasses
  * 
  * @author Jeanette Winzenburg
+ * @see BitmapIndex
  */
 @SuppressWarnings("unchecked")
 public class RowFilters {
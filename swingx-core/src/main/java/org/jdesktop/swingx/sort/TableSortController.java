@@ -23,20 +23,61 @@ package org.jdesktop.swingx.sort;
 
 import java.text.Collator;
 import java.util.Comparator;
+import java.util.List;
 
+import javax.swing.SortOrder;
 import javax.swing.table.TableModel;
 
+import org.jdesktop.swingx.table.PrimitiveTableModel;
+
 /**
  * A SortController to use for a JXTable.<p>
  * 
+ * If the model is a <code>PrimitiveTableModel</code>, its primitive columns
+ * are compared by their primitive values, unless a custom comparator is set.
+ * As the underlying <code>DefaultRowSorter</code> accesses the cell values as
+ * objects for every comparison, the values of primitive sort columns are 
+ * boxed once per sort and looked up from that cache while sorting.
+ * 
  * @author Jeanette Winzenburg
+ * 
+ * @see PrimitiveTableModel
  */
 public class TableSortController<M extends TableModel> extends DefaultSortController<M>  {
+    
+    /**
+     * Comparator for the values of primitive double columns.
+     */
+    public static final Comparator<Number> DOUBLE_COMPARATOR = new Comparator<Number>() {
+        @Override
+        public int compare(Number o1, Number o2) {
+            return Double.compare(o1.doubleValue(), o2.doubleValue());
+        }
+    };
+    
+    /**
+     * Comparator for the values of primitive long columns.
+     */
+    public static final Comparator<Number> LONG_COMPARATOR = new Comparator<Number>() {
+        @Override
+        public int compare(Number o1, Number o2) {
+            long l1 = o1.longValue();
+            long l2 = o2.longValue();
+            return l1 < l2 ? -1 : (l1 == l2 ? 0 : 1);
+        }
+    };
+    
     /**
      * Underlying model.
      */
     private M tableModel;
     
+    /**
+     * The boxed values of the primitive sort columns, indexed by model column,
+     * available while sorting only.
+     */
+    private Object[][] primitiveValues;
+    
     public TableSortController() {
         this(null);
     }
@@ -77,6 +118,10 @@ public class TableSortController<M extends TableModel> extends DefaultSortContro
      * <code>compareTo</code> method.  Otherwise
      * <code>Collator.getInstance</code> is returned.<p>
      * 
+     * If the model is a <code>PrimitiveTableModel</code> and the column is 
+     * primitive, a <code>Comparator</code> comparing the primitive values
+     * is returned.<p>
+     * 
      * PENDING JW: think about implications to string value lookup!
      *
      * @throws IndexOutOfBoundsException {@inheritDoc}
@@ -87,6 +132,13 @@ public class TableSortController<M extends TableModel> extends DefaultSortContro
         if (comparator != null) {
             return comparator;
         }
+        Class<?> primitiveClass = getPrimitiveClass(column);
+        if (primitiveClass == double.class) {
+            return DOUBLE_COMPARATOR;
+        }
+        if (primitiveClass == long.class) {
+            return LONG_COMPARATOR;
+        }
         Class<?> columnClass = getModel().getColumnClass(column);
         if (columnClass == String.class) {
             return Collator.getInstance();
@@ -113,6 +165,9 @@ public class TableSortController<M extends TableModel> extends DefaultSortContro
         if (comparator != null) {
             return false;
         }
+        if (getPrimitiveClass(column) != null) {
+            return false;
+        }
         Class<?> columnClass = getModel().getColumnClass(column);
         if (columnClass == String.class) {
             return false;
@@ -123,6 +178,106 @@ public class TableSortController<M extends TableModel> extends DefaultSortContro
         return true;
     }
 
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Overridden to box the values of primitive sort columns once before 
+     * sorting.
+     */
+    @Override
+    public void sort() {
+        Object[][] values = createPrimitiveValues(getSortKeys());
+        if (values == null) {
+            super.sort();
+            return;
+        }
+        primitiveValues = values;
+        try {
+            super.sort();
+        } finally {
+            primitiveValues = null;
+        }
+    }
+
+    /**
+     * {@inheritDoc} <p>
+     * 
+     * Overridden to box the values of primitive sort columns once before 
+     * re-sorting.
+     */
+    @Override
+    public void setSortKeys(List<? extends SortKey> sortKeys) {
+        Object[][] values = createPrimitiveValues(sortKeys);
+        if (values == null) {
+            super.setSortKeys(sortKeys);
+            return;
+        }
+        primitiveValues = values;
+        try {
+            super.setSortKeys(sortKeys);
+        } finally {
+            primitiveValues = null;
+        }
+    }
+
+    /**
+     * Returns the boxed values of all sorted primitive columns which are
+     * compared by their primitive values.
+     * 
+     * @param sortKeys the sort keys to box the columns of, may be null
+     * @return the boxed values indexed by column, or null if there are no
+     *   such columns or the values are already boxed
+     */
+    private Object[][] createPrimitiveValues(List<? extends SortKey> sortKeys) {
+        if (!(tableModel instanceof PrimitiveTableModel) || sortKeys == null
+                || primitiveValues != null) return null;
+        PrimitiveTableModel model = (PrimitiveTableModel) tableModel;
+        int rowCount = model.getRowCount();
+        Object[][] values = null;
+        for (SortKey key : sortKeys) {
+            if (key == null) continue;
+            int column = key.getColumn();
+            if (key.getSortOrder() == SortOrder.UNSORTED
+                    || column >= model.getColumnCount()
+                    || super.getComparator(column) != null) {
+                continue;
+            }
+            Class<?> primitiveClass = getPrimitiveClass(column);
+            if (primitiveClass == null) continue;
+            if (values == null) {
+                values = new Object[model.getColumnCount()][];
+            }
+            if (values[column] != null) continue;
+            Object[] columnValues = new Object[rowCount];
+            if (primitiveClass == double.class) {
+                for (int row = 0; row < rowCount; row++) {
+                    columnValues[row] = model.getDouble(row, column);
+                }
+            } else {
+                for (int row = 0; row < rowCount; row++) {
+                    columnValues[row] = model.getLong(row, column);
+                }
+            }
+            values[column] = columnValues;
+        }
+        return values;
+    }
+    
+    /**
+     * Returns the primitive class of the given column as reported by a 
+     * <code>PrimitiveTableModel</code>.
+     * 
+     * @param column the column in model coordinates
+     * @return <code>double.class</code>, <code>long.class</code> or null if
+     *   the column isn't primitive or the model isn't a 
+     *   <code>PrimitiveTableModel</code>
+     */
+    private Class<?> getPrimitiveClass(int column) {
+        if (!(tableModel instanceof PrimitiveTableModel)) return null;
+        Class<?> primitiveClass = ((PrimitiveTableModel) tableModel).getPrimitiveClass(column);
+        return (primitiveClass == double.class || primitiveClass == long.class) 
+                ? primitiveClass : null;
+    }
 
     /**
      * Implementation of DefaultRowSorter.ModelWrapper that delegates to a
@@ -146,6 +301,9 @@ public class TableSortController<M extends TableModel> extends DefaultSortContro
 
         @Override
         public Object getValueAt(int row, int column) {
+            if (primitiveValues != null && primitiveValues[column] != null) {
+                return primitiveValues[column][row];
+            }
             return tableModel.getValueAt(row, column);
         }
 
@@ -21,25 +21,42 @@
 
 package org.jdesktop.swingx.table;
 
+import java.awt.Component;
 import java.awt.ComponentOrientation;
 import java.awt.Dimension;
 import java.awt.Insets;
 import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.ItemEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.swing.AbstractAction;
+import javax.swing.AbstractListModel;
 import javax.swing.Action;
+import javax.swing.BorderFactory;
 import javax.swing.Icon;
 import javax.swing.JButton;
 import javax.swing.JComboBox;
 import javax.swing.JComponent;
+import javax.swing.JLabel;
 import javax.swing.JMenuItem;
 import javax.swing.JPopupMenu;
+import javax.swing.JScrollPane;
+import javax.swing.ListModel;
+import javax.swing.ListSelectionModel;
+import javax.swing.RowFilter;
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 import javax.swing.event.ChangeEvent;
@@ -50,11 +67,21 @@ import javax.swing.plaf.UIResource;
 import javax.swing.table.TableColumn;
 import javax.swing.table.TableColumnModel;
 
+import org.jdesktop.swingx.JXList;
+import org.jdesktop.swingx.JXSearchField;
 import org.jdesktop.swingx.JXTable;
 import org.jdesktop.swingx.action.AbstractActionExt;
 import org.jdesktop.swingx.action.ActionContainerFactory;
+import org.jdesktop.swingx.decorator.ColorHighlighter;
+import org.jdesktop.swingx.decorator.ComponentAdapter;
+import org.jdesktop.swingx.decorator.HighlightPredicate;
 import org.jdesktop.swingx.plaf.ColumnControlButtonAddon;
 import org.jdesktop.swingx.plaf.LookAndFeelAddons;
+import org.jdesktop.swingx.renderer.BooleanValue;
+import org.jdesktop.swingx.renderer.CheckBoxProvider;
+import org.jdesktop.swingx.renderer.DefaultListRenderer;
+import org.jdesktop.swingx.renderer.MappedValue;
+import org.jdesktop.swingx.renderer.StringValue;
 import org.jdesktop.swingx.table.ColumnControlPopup.ActionGrouper;
 import org.jdesktop.swingx.table.ColumnControlPopup.ActionGroupable;
 
@@ -637,6 +664,340 @@ public class ColumnControlButton extends JButton {
         }
 
     }
+    /**
+     * A ColumnControlPopup for tables with many columns. Instead of one menu
+     * item per column, it shows the columns in a <code>JXList</code> with a
+     * field to filter them by their header value. The list renders the
+     * columns' state directly, so a <code>ColumnVisibilityAction</code> is
+     * created only for a column which is toggled by the user. Columns added to
+     * the table are appended to the list without re-populating the popup.
+     * <p>
+     * 
+     * The default <code>ColumnControlButton</code> uses a
+     * <code>DefaultColumnControlPopup</code>, override the factory method to
+     * use this instead:
+     * 
+     * <pre><code>
+     * table.setColumnControl(new ColumnControlButton(table) {
+     *     &#64;Override
+     *     protected ColumnControlPopup createColumnControlPopup() {
+     *         return new ColumnChooserPopup();
+     *     }
+     * });
+     * </code></pre>
+     * 
+     * Additional actions are added as menu items below the list.
+     */
+    public class ColumnChooserPopup extends DefaultColumnControlPopup {
+        private ColumnListModel listModel;
+        private JXList list;
+        private JXSearchField filterField;
+        private JScrollPane scrollPane;
+        /** the actions created for toggled columns. */
+        private final Map<TableColumn, ColumnVisibilityAction> actions = 
+            new IdentityHashMap<TableColumn, ColumnVisibilityAction>();
+
+        public ColumnChooserPopup() {
+            this(null);
+        }
+
+        public ColumnChooserPopup(ActionGrouper grouper) {
+            super(grouper);
+        }
+
+        /**
+         * Sets the columns to show and adds the filter field and the column
+         * list to the popup. Called by the <code>ColumnControlButton</code>
+         * when populating the popup from scratch, after all 
+         * <code>ColumnVisibilityAction</code>s have been released.
+         * 
+         * @param columns all columns of the table, including hidden columns
+         */
+        public void setColumns(List<TableColumn> columns) {
+            actions.clear();
+            getListModel().setColumns(columns);
+            getPopupMenu().add(getFilterField());
+            getPopupMenu().add(getScrollPane());
+        }
+
+        /**
+         * Appends a column added to the table.
+         * 
+         * @param column the added column
+         */
+        public void columnAdded(TableColumn column) {
+            getListModel().add(column);
+        }
+
+        /**
+         * Removes the rows of columns removed from the table, releasing their
+         * actions, if any.
+         * 
+         * @param columns all columns of the table, including hidden columns
+         */
+        public void columnRemoved(List<TableColumn> columns) {
+            Set<TableColumn> contained = Collections.newSetFromMap(
+                    new IdentityHashMap<TableColumn, Boolean>());
+            contained.addAll(columns);
+            ColumnListModel listModel = getListModel();
+            for (int i = listModel.getSize() - 1; i >= 0; i--) {
+                if (!contained.contains(listModel.getElementAt(i))) {
+                    listModel.remove(i);
+                }
+            }
+            for (Iterator<TableColumn> iter = actions.keySet().iterator(); iter.hasNext();) {
+                TableColumn column = iter.next();
+                if (!contained.contains(column)) {
+                    ColumnVisibilityAction action = actions.get(column);
+                    action.releaseColumn();
+                    getColumnVisibilityActions().remove(action);
+                    iter.remove();
+                }
+            }
+        }
+
+        /**
+         * Repaints the list after the state of columns changed.
+         */
+        public void columnsChanged() {
+            if (list != null) {
+                list.repaint();
+            }
+        }
+
+        /**
+         * Toggles the visibility of the column at the given position in the
+         * list, if it can be controlled. Hiding the last visible column
+         * isn't allowed.
+         * 
+         * @param viewIndex the row of the column in the list's coordinates
+         */
+        protected void toggleColumn(int viewIndex) {
+            if (viewIndex < 0) return;
+            TableColumn column = (TableColumn) getList().getElementAt(viewIndex);
+            ColumnVisibilityAction action = getAction(column);
+            if ((action == null) || !action.isEnabled()) return;
+            boolean visible = ((TableColumnExt) column).isVisible();
+            if (visible && (table.getColumnCount() <= 1)) {
+                UIManager.getLookAndFeel().provideErrorFeedback(getList());
+                return;
+            }
+            action.setSelected(!visible);
+            columnsChanged();
+        }
+
+        /**
+         * Returns the action for the given column, lazily creates it if
+         * necessary.
+         * 
+         * @param column the column to get the action for
+         * @return the action for the column or null if the column should not
+         *   be controlled.
+         * @see ColumnControlButton#createColumnVisibilityAction(TableColumn)
+         */
+        protected ColumnVisibilityAction getAction(TableColumn column) {
+            ColumnVisibilityAction action = actions.get(column);
+            if ((action == null) && !actions.containsKey(column)) {
+                action = createColumnVisibilityAction(column);
+                actions.put(column, action);
+                if (action != null) {
+                    getColumnVisibilityActions().add(action);
+                }
+            }
+            return action;
+        }
+
+        /**
+         * Updates the row filter of the list from the filter field.
+         */
+        protected void updateFilter() {
+            final String text = getFilterField().getText().trim().toLowerCase();
+            if (text.length() == 0) {
+                getList().setRowFilter(null);
+                return;
+            }
+            getList().setRowFilter(new RowFilter<ListModel<?>, Integer>() {
+                @Override
+                public boolean include(Entry<? extends ListModel<?>, ? extends Integer> entry) {
+                    TableColumn column = (TableColumn) entry.getValue(0);
+                    return String.valueOf(column.getHeaderValue()).toLowerCase().contains(text);
+                }
+            });
+        }
+
+        protected ColumnListModel getListModel() {
+            if (listModel == null) {
+                listModel = new ColumnListModel();
+            }
+            return listModel;
+        }
+
+        /**
+         * 
+         * @return the list showing the columns, guaranteed to be != null.
+         */
+        protected JXList getList() {
+            if (list == null) {
+                list = createList();
+            }
+            return list;
+        }
+
+        /**
+         * Creates and configures the list showing the columns. 
+         * 
+         * @return the list to show the columns
+         */
+        protected JXList createList() {
+            final JXList list = new JXList(getListModel(), true);
+            list.setVisibleRowCount(12);
+            list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+            list.setFocusable(false);
+            StringValue header = new StringValue() {
+                @Override
+                public String getString(Object value) {
+                    return String.valueOf(((TableColumn) value).getHeaderValue());
+                }
+            };
+            BooleanValue visible = new BooleanValue() {
+                @Override
+                public boolean getBoolean(Object value) {
+                    return !(value instanceof TableColumnExt) || ((TableColumnExt) value).isVisible();
+                }
+            };
+            list.setCellRenderer(new DefaultListRenderer(new CheckBoxProvider(
+                    new MappedValue(header, null, visible), JLabel.LEADING)));
+            HighlightPredicate notHideable = new HighlightPredicate() {
+                @Override
+                public boolean isHighlighted(Component renderer, ComponentAdapter adapter) {
+                    Object value = adapter.getValue();
+                    return (value instanceof TableColumnExt) && !((TableColumnExt) value).isHideable();
+                }
+            };
+            list.addHighlighter(new ColorHighlighter(notHideable, null, 
+                    UIManager.getColor("Label.disabledForeground")));
+            list.addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseReleased(MouseEvent e) {
+                    if (SwingUtilities.isLeftMouseButton(e)) {
+                        toggleColumn(list.locationToIndex(e.getPoint()));
+                    }
+                }
+            });
+            return list;
+        }
+
+        /**
+         * 
+         * @return the field to filter the columns, guaranteed to be != null.
+         */
+        protected JXSearchField getFilterField() {
+            if (filterField == null) {
+                filterField = new JXSearchField();
+                filterField.addActionListener(new ActionListener() {
+                    @Override
+                    public void actionPerformed(ActionEvent e) {
+                        updateFilter();
+                    }
+                });
+                filterField.addKeyListener(new KeyAdapter() {
+                    @Override
+                    public void keyPressed(KeyEvent e) {
+                        navigate(e);
+                    }
+                });
+            }
+            return filterField;
+        }
+
+        /**
+         * Moves the list selection on up/down and toggles the selected column on
+         * enter key events typed in the filter field.
+         * 
+         * @param e the key event
+         */
+        private void navigate(KeyEvent e) {
+            JXList list = getList();
+            int selected = list.getSelectedIndex();
+            int count = list.getElementCount();
+            if ((e.getKeyCode() == KeyEvent.VK_DOWN) && (selected < count - 1)) {
+                list.setSelectedIndex(selected + 1);
+            } else if ((e.getKeyCode() == KeyEvent.VK_UP) && (selected > 0)) {
+                list.setSelectedIndex(selected - 1);
+            } else if (e.getKeyCode() == KeyEvent.VK_ENTER) {
+                toggleColumn(selected);
+            } else {
+                return;
+            }
+            list.ensureIndexIsVisible(list.getSelectedIndex());
+            e.consume();
+        }
+
+        protected JScrollPane getScrollPane() {
+            if (scrollPane == null) {
+                scrollPane = new JScrollPane(getList());
+                scrollPane.setBorder(BorderFactory.createEmptyBorder());
+            }
+            return scrollPane;
+        }
+    }
+
+    /**
+     * A ListModel of TableColumns. 
+     */
+    protected static class ColumnListModel extends AbstractListModel<TableColumn> {
+        private static final long serialVersionUID = -8055433544316591056L;
+
+        private final List<TableColumn> columns = new ArrayList<TableColumn>();
+
+        @Override
+        public int getSize() {
+            return columns.size();
+        }
+
+        @Override
+        public TableColumn getElementAt(int index) {
+            return columns.get(index);
+        }
+
+        /**
+         * Replaces the columns.
+         * 
+         * @param columns the new columns
+         */
+        public void setColumns(List<TableColumn> columns) {
+            int oldSize = this.columns.size();
+            this.columns.clear();
+            if (oldSize > 0) {
+                fireIntervalRemoved(this, 0, oldSize - 1);
+            }
+            this.columns.addAll(columns);
+            if (!columns.isEmpty()) {
+                fireIntervalAdded(this, 0, columns.size() - 1);
+            }
+        }
+
+        /**
+         * Appends the column.
+         * 
+         * @param column the column to add.
+         */
+        public void add(TableColumn column) {
+            columns.add(column);
+            fireIntervalAdded(this, columns.size() - 1, columns.size() - 1);
+        }
+
+        /**
+         * Removes the column at the given index.
+         * 
+         * @param index the index of the column to remove.
+         */
+        public void remove(int index) {
+            columns.remove(index);
+            fireIntervalRemoved(this, index, index);
+        }
+    }
+
     /**
      * Returns to popup component for user interaction. Lazily 
      * creates the component if necessary.
@@ -712,8 +1073,13 @@ public class ColumnControlButton extends JButton {
     protected void populatePopup() {
         clearAll();
         if (canControl()) {
-            createVisibilityActions();
-            addVisibilityActionItems();
+            if (getColumnControlPopup() instanceof ColumnChooserPopup) {
+                // actions are created lazily by the popup 
+                ((ColumnChooserPopup) getColumnControlPopup()).setColumns(table.getColumns(true));
+            } else {
+                createVisibilityActions();
+                addVisibilityActionItems();
+            }
         }
         addAdditionalActionItems();
     }
@@ -981,7 +1347,8 @@ public class ColumnControlButton extends JButton {
      * own.
      * <p>
      * Implementation note: this listener reacts to "real" columnRemoved/-Added by
-     * populating the popups content from scratch.
+     * populating the popups content from scratch, except for a 
+     * <code>ColumnChooserPopup</code> which adds or removes the affected row only.
      * 
      * @return the <code>TableColumnModelListener</code> for use with the
      *         table's columnModel.
@@ -991,8 +1358,16 @@ public class ColumnControlButton extends JButton {
             /** Tells listeners that a column was added to the model. */
             @Override
             public void columnAdded(TableColumnModelEvent e) {
-                // quickfix for #192
-                if (!isVisibilityChange(e, true)) {
+                if (getColumnControlPopup() instanceof ColumnChooserPopup) {
+                    ColumnChooserPopup chooser = (ColumnChooserPopup) getColumnControlPopup();
+                    if (isVisibilityChange(e, true)) {
+                        chooser.columnsChanged();
+                    } else {
+                        // added columns are appended to the hidden columns as well
+                        chooser.columnAdded(table.getColumnModel().getColumn(e.getToIndex()));
+                    }
+                } else if (!isVisibilityChange(e, true)) {
+                    // quickfix for #192
                     populatePopup();
                 }
             }
@@ -1000,7 +1375,14 @@ public class ColumnControlButton extends JButton {
             /** Tells listeners that a column was removed from the model. */
             @Override
             public void columnRemoved(TableColumnModelEvent e) {
-                if (!isVisibilityChange(e, false)) {
+                if (getColumnControlPopup() instanceof ColumnChooserPopup) {
+                    ColumnChooserPopup chooser = (ColumnChooserPopup) getColumnControlPopup();
+                    if (isVisibilityChange(e, false)) {
+                        chooser.columnsChanged();
+                    } else {
+                        chooser.columnRemoved(table.getColumns(true));
+                    }
+                } else if (!isVisibilityChange(e, false)) {
                     populatePopup();
                 }
             }
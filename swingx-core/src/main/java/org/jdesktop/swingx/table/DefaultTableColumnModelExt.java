@@ -25,9 +25,11 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.swing.event.EventListenerList;
 import javax.swing.event.TableColumnModelListener;
@@ -69,6 +71,19 @@ public class DefaultTableColumnModelExt extends DefaultTableColumnModel
      */
     private List<TableColumn> currentColumns = new ArrayList<TableColumn>();
 
+    /**
+     * maps identifiers to the first TableColumnExt with that identifier in
+     * initialColumns. Updated on adding, dropped on removing columns and
+     * identifier changes, rebuilt lazily.
+     */
+    private transient Map<Object, TableColumnExt> columnsByIdentifier;
+    
+    /**
+     * maps model indices to the first column with that model index in
+     * initialColumns. Maintained like columnsByIdentifier.
+     */
+    private transient TableColumn[] columnsByModelIndex;
+
     /**
      * Listener attached to TableColumnExt instances to listen for changes
      * to their visibility status, and to hide/show the column as oppropriate
@@ -111,13 +126,86 @@ public class DefaultTableColumnModelExt extends DefaultTableColumnModel
      */
     @Override
     public TableColumnExt getColumnExt(Object identifier) {
-        for (Iterator<TableColumn> iter = initialColumns.iterator(); iter.hasNext();) {
-            TableColumn column = iter.next();
-            if ((column instanceof TableColumnExt) && (identifier.equals(column.getIdentifier()))) {
-                return (TableColumnExt) column;
+        if (columnsByIdentifier == null) {
+            columnsByIdentifier = new HashMap<Object, TableColumnExt>();
+            for (TableColumn column : initialColumns) {
+                indexIdentifier(column);
             }
         }
-        return null;
+        return columnsByIdentifier.get(identifier);
+    }
+    
+    /**
+     * Returns the first contained <code>TableColumn</code> with the given
+     * model index, or null if none is found. The returned column may be
+     * visible or hidden.
+     * 
+     * @param modelIndex the column index in model coordinates
+     * @return the first contained column with the given model index, or null
+     *   if none is found
+     */
+    public TableColumn getColumnByModelIndex(int modelIndex) {
+        if (columnsByModelIndex == null) {
+            columnsByModelIndex = new TableColumn[0];
+            for (TableColumn column : initialColumns) {
+                indexModelIndex(column);
+            }
+        }
+        if (modelIndex < 0 || modelIndex >= columnsByModelIndex.length) {
+            return null;
+        }
+        return columnsByModelIndex[modelIndex];
+    }
+    
+    /**
+     * Adds the column appended to initialColumns to the lookup tables, 
+     * if they exist.
+     * 
+     * @param column the added column
+     */
+    private void indexColumn(TableColumn column) {
+        if (columnsByIdentifier != null) {
+            indexIdentifier(column);
+        }
+        if (columnsByModelIndex != null) {
+            indexModelIndex(column);
+        }
+    }
+
+    private void indexIdentifier(TableColumn column) {
+        Object identifier = column.getIdentifier();
+        if ((column instanceof TableColumnExt) && (identifier != null) 
+                && !columnsByIdentifier.containsKey(identifier)) {
+            columnsByIdentifier.put(identifier, (TableColumnExt) column);
+        }
+    }
+    
+    private void indexModelIndex(TableColumn column) {
+        int modelIndex = column.getModelIndex();
+        if (modelIndex < 0) return;
+        if (modelIndex >= columnsByModelIndex.length) {
+            columnsByModelIndex = Arrays.copyOf(columnsByModelIndex, 
+                    Math.max(modelIndex + 1, 2 * columnsByModelIndex.length));
+        }
+        if (columnsByModelIndex[modelIndex] == null) {
+            columnsByModelIndex[modelIndex] = column;
+        }
+    }
+    
+    /**
+     * Drops the lookup tables affected by the property change of a contained
+     * column.
+     * 
+     * @param evt the property change event fired by a column
+     */
+    private void updateIndices(PropertyChangeEvent evt) {
+        String property = evt.getPropertyName();
+        if ("identifier".equals(property) || "headerValue".equals(property)) {
+            // the header value is the identifier if none is set
+            columnsByIdentifier = null;
+        } else if ("modelIndex".equals(property)) {
+            columnsByModelIndex = null;
+        }
     }
     
     /**
@@ -176,6 +264,8 @@ public class DefaultTableColumnModelExt extends DefaultTableColumnModel
         }
         currentColumns.remove(column);
         initialColumns.remove(column);
+        columnsByIdentifier = null;
+        columnsByModelIndex = null;
         //let the superclass handle notification etc
         super.removeColumn(column);
         if (column instanceof TableColumnExt) {
@@ -203,6 +293,7 @@ public class DefaultTableColumnModelExt extends DefaultTableColumnModel
         // append the column to the end of both initial- and currentColumns. 
         currentColumns.add(aColumn);
         initialColumns.add(aColumn);
+        indexColumn(aColumn);
         // let super handle the event notification, super.book-keeping
         super.addColumn(aColumn);
         if (aColumn instanceof TableColumnExt) {
@@ -291,6 +382,7 @@ public class DefaultTableColumnModelExt extends DefaultTableColumnModel
     private class VisibilityListener implements PropertyChangeListener, Serializable {        
         @Override
         public void propertyChange(PropertyChangeEvent evt) {
+            updateIndices(evt);
             if ("visible".equals(evt.getPropertyName())) {
                 TableColumnExt columnExt = (TableColumnExt)evt.getSource();
 
@@ -324,6 +416,7 @@ public class DefaultTableColumnModelExt extends DefaultTableColumnModel
      */
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
+        updateIndices(evt);
         super.propertyChange(evt);
         fireColumnPropertyChange(evt);
     }
@@ -45,6 +45,11 @@ import org.jdesktop.swingx.text.NumberFormatExt;
 /**
  * 
  * Issue #393-swingx: localized NumberEditor. Added feature to use StrictNumberFormatter.
+ * <p>
+ * 
+ * If the table's model is a <code>PrimitiveTableModel</code>, the value
+ * class of primitive columns is the wrapper of the primitive type and the
+ * conversion of the edited value doesn't need reflection.
  * 
  * @author Noel Grandin
  * @author Jeanette Winzenburg
@@ -54,6 +59,8 @@ public class NumberEditorExt extends DefaultCellEditor {
     private static Class<?>[] argTypes = new Class[]{String.class};
     java.lang.reflect.Constructor<?> constructor;
     private boolean useStrictFormatter;
+    /** the primitive class of the edited column, if any. */
+    private Class<?> primitiveClass;
     
     /**
      * Instantiates an editor with default NumberFormat and default NumberFormatter.
@@ -158,8 +165,35 @@ public class NumberEditorExt extends DefaultCellEditor {
     protected Number getNumber() throws Exception {
         Number number = (Number) super.getCellEditorValue();
         if (number==null) return null;
-        return hasStrictFormatter() ? number :
-            (Number) constructor.newInstance(new Object[]{number.toString()});
+        if (hasStrictFormatter()) return number;
+        if (primitiveClass == double.class) {
+            return Double.valueOf(number.doubleValue());
+        }
+        if (primitiveClass == long.class) {
+            // same constraints as constructing a Long from the number's string
+            if (!(number instanceof Long || number instanceof Integer 
+                    || number instanceof Short || number instanceof Byte)) {
+                throw new NumberFormatException("not a long value: " + number);
+            }
+            return Long.valueOf(number.longValue());
+        }
+        return (Number) constructor.newInstance(new Object[]{number.toString()});
+    }
+
+    /**
+     * Returns the primitive class of the given column if the table's model
+     * is a <code>PrimitiveTableModel</code>.
+     * 
+     * @param table the table which is edited
+     * @param column the edited column in view coordinates
+     * @return <code>double.class</code>, <code>long.class</code> or null
+     */
+    private Class<?> getPrimitiveClass(JTable table, int column) {
+        if (!(table.getModel() instanceof PrimitiveTableModel)) return null;
+        Class<?> primitiveClass = ((PrimitiveTableModel) table.getModel())
+            .getPrimitiveClass(table.convertColumnIndexToModel(column));
+        return (primitiveClass == double.class || primitiveClass == long.class) 
+                ? primitiveClass : null;
     }
 
     /**
@@ -176,7 +210,10 @@ public class NumberEditorExt extends DefaultCellEditor {
                                              int row, int column) {
         ((JComponent)getComponent()).setBorder(new LineBorder(Color.black));
         try {
-            final Class<?> type = table.getColumnClass(column);
+            primitiveClass = getPrimitiveClass(table, column);
+            final Class<?> type = primitiveClass == double.class ? Double.class 
+                    : primitiveClass == long.class ? Long.class 
+                    : table.getColumnClass(column);
             if (hasStrictFormatter()) {
                 // delegate to formatter which decides at parsing time
                 // then either handles or throws
@@ -187,7 +224,7 @@ public class NumberEditorExt extends DefaultCellEditor {
                 if (!Number.class.isAssignableFrom(type)) {
                     throw new IllegalStateException("NumberEditor can only handle subclasses of java.lang.Number");
                 }
-                constructor = type.getConstructor(argTypes);
+                constructor = primitiveClass != null ? null : type.getConstructor(argTypes);
             }
             // JW: in strict mode this may fail in setting the value in the formatter 
             return super.getTableCellEditorComponent(table, value, isSelected, row, column);
@@ -0,0 +1,81 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.table;
+
+import javax.swing.table.TableModel;
+
+/**
+ * A <code>TableModel</code> which stores some of its columns as primitive
+ * <code>double</code> or <code>long</code> values and allows access to them
+ * without boxing. This is an optional extension, intended for large numeric
+ * models where the boxing in <code>getValueAt</code> shows up as garbage
+ * collection churn while sorting, editing and rendering.
+ * <p>
+ * 
+ * Collaborators which understand this interface are
+ * <ul>
+ * <li> {@link org.jdesktop.swingx.sort.TableSortController}, which compares
+ *   primitive columns by their primitive values and boxes each cell at most
+ *   once per sort
+ * <li> {@link NumberEditorExt}, which converts the edited value into the 
+ *   wrapper type matching the primitive type, without reflection
+ * </ul>
+ * 
+ * Implementations must keep the <code>Object</code> based api consistent with
+ * the primitive access: for a primitive column, <code>getColumnClass</code>
+ * must return the corresponding wrapper class (<code>Double</code> or
+ * <code>Long</code>) and <code>getValueAt</code> must return a value which
+ * is equal to the boxed primitive value.
+ * 
+ * @see org.jdesktop.swingx.renderer.CachingFormatStringValue
+ */
+public interface PrimitiveTableModel extends TableModel {
+
+    /**
+     * Returns the primitive type of the given column. 
+     * 
+     * @param columnIndex the column in model coordinates
+     * @return <code>double.class</code> or <code>long.class</code> if the column 
+     *   can be accessed by <code>getDouble</code> or <code>getLong</code>, 
+     *   respectively, or <code>null</code> if the column isn't primitive
+     */
+    Class<?> getPrimitiveClass(int columnIndex);
+
+    /**
+     * Returns the value of the given cell as double. Must be supported for 
+     * columns with a primitive class of <code>double.class</code>.
+     * 
+     * @param rowIndex the row in model coordinates
+     * @param columnIndex the column in model coordinates
+     * @return the value of the cell
+     */
+    double getDouble(int rowIndex, int columnIndex);
+
+    /**
+     * Returns the value of the given cell as long. Must be supported for 
+     * columns with a primitive class of <code>long.class</code>.
+     * 
+     * @param rowIndex the row in model coordinates
+     * @param columnIndex the column in model coordinates
+     * @return the value of the cell
+     */
+    long getLong(int rowIndex, int columnIndex);
+}
@@ -21,9 +21,13 @@
 package org.jdesktop.swingx.treetable;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Enumeration;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 import javax.swing.tree.TreeNode;
 
@@ -67,7 +71,9 @@ public abstract class AbstractMutableTreeTableNode implements
     /**
      * Creates the list used to manage the children of this node.
      * <p>
-     * This method is called by the constructor.
+     * This method is called by the constructor. Subclasses for nodes with many
+     * children may return an {@link IdentityIndexedList}, which makes
+     * {@link #getIndex(TreeNode)} a constant time operation.
      * 
      * @return a list; this list is guaranteed to be non-{@code null}
      */
@@ -100,6 +106,113 @@ public abstract class AbstractMutableTreeTableNode implements
         }
     }
 
+    /**
+     * Inserts all of the given nodes as children of this node, starting at the
+     * specified {@code index}. The nodes are removed from their current
+     * parents. This is more efficient than inserting the nodes one by one, as
+     * the children behind {@code index} are shifted only once.
+     * 
+     * @param newChildren
+     *            the nodes to insert, must not contain duplicates
+     * @param index
+     *            the index of the first inserted child
+     * @throws IllegalStateException
+     *             if this node does not allow children
+     * @throws IllegalArgumentException
+     *             if one of the nodes already is a child of this node
+     * @throws IndexOutOfBoundsException
+     *             if {@code index} is not a valid index
+     */
+    public void insertAll(List<? extends MutableTreeTableNode> newChildren, int index) {
+        if (!allowsChildren) {
+            throw new IllegalStateException("this node cannot accept children");
+        }
+        
+        if (index < 0 || index > getChildCount()) {
+            throw new IndexOutOfBoundsException("index " + index
+                    + " not in [0, " + getChildCount() + "]");
+        }
+        
+        for (MutableTreeTableNode child : newChildren) {
+            if (child.getParent() == this) {
+                throw new IllegalArgumentException("node is already a child of this node");
+            }
+        }
+        
+        for (MutableTreeTableNode child : newChildren) {
+            if (child.getParent() != null) {
+                child.removeFromParent();
+            }
+        }
+        
+        children.addAll(index, newChildren);
+        
+        for (MutableTreeTableNode child : newChildren) {
+            setParentOf(child, this);
+        }
+    }
+
+    /**
+     * Removes all of the given nodes which are children of this node. This is
+     * more efficient than removing the nodes one by one, as the remaining
+     * children are shifted only once.
+     * 
+     * @param nodes
+     *            the nodes to remove
+     */
+    public void removeAll(Collection<? extends MutableTreeTableNode> nodes) {
+        Set<MutableTreeTableNode> toRemove = Collections.newSetFromMap(
+                new IdentityHashMap<MutableTreeTableNode, Boolean>());
+        toRemove.addAll(nodes);
+        List<MutableTreeTableNode> kept = new ArrayList<MutableTreeTableNode>(children.size());
+        List<MutableTreeTableNode> removed = new ArrayList<MutableTreeTableNode>();
+        
+        for (MutableTreeTableNode child : children) {
+            if (toRemove.contains(child)) {
+                removed.add(child);
+            } else {
+                kept.add(child);
+            }
+        }
+        
+        if (removed.isEmpty()) {
+            return;
+        }
+        
+        children.clear();
+        children.addAll(kept);
+        
+        for (MutableTreeTableNode child : removed) {
+            setParentOf(child, null);
+        }
+    }
+
+    /**
+     * Sorts the children of this node according to the given comparator.
+     * 
+     * @param comparator
+     *            the comparator to determine the order of the children
+     */
+    public void sortChildren(Comparator<? super MutableTreeTableNode> comparator) {
+        List<MutableTreeTableNode> sorted = new ArrayList<MutableTreeTableNode>(children);
+        Collections.sort(sorted, comparator);
+        children.clear();
+        children.addAll(sorted);
+    }
+
+    /**
+     * Sets the parent of a node which already was added to or removed from
+     * the children list. Avoids the lookup of the node in the list done by
+     * {@link #setParent(MutableTreeTableNode)} for nodes of this type.
+     */
+    private static void setParentOf(MutableTreeTableNode child, MutableTreeTableNode parent) {
+        if (child instanceof AbstractMutableTreeTableNode) {
+            ((AbstractMutableTreeTableNode) child).parent = parent;
+        } else {
+            child.setParent(parent);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -21,7 +21,12 @@
 package org.jdesktop.swingx.treetable;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 import javax.swing.tree.TreePath;
 
@@ -379,6 +384,132 @@ public class DefaultTreeTableModel extends AbstractTreeTableModel {
                 newChild);
     }
 
+    /**
+     * Inserts all of the given nodes as children of {@code parent}, starting
+     * at location {@code index}, and fires a single event for all of them.
+     * This is the preferred way to add many children at once.
+     * <p>
+     * If {@code parent} is an {@code AbstractMutableTreeTableNode}, the nodes
+     * are inserted with {@link AbstractMutableTreeTableNode#insertAll(List, int)}.
+     * 
+     * @param newChildren
+     *            the nodes to insert, must not contain duplicates
+     * @param parent
+     *            the node to insert the nodes into
+     * @param index
+     *            the index of the first inserted child
+     */
+    public void insertNodesInto(List<? extends MutableTreeTableNode> newChildren,
+            MutableTreeTableNode parent, int index) {
+        if (newChildren.isEmpty()) {
+            return;
+        }
+        
+        if (parent instanceof AbstractMutableTreeTableNode) {
+            ((AbstractMutableTreeTableNode) parent).insertAll(newChildren, index);
+        } else {
+            int childIndex = index;
+            
+            for (MutableTreeTableNode child : newChildren) {
+                parent.insert(child, childIndex++);
+            }
+        }
+        
+        int[] indices = new int[newChildren.size()];
+        
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = index + i;
+        }
+        
+        modelSupport.fireChildrenAdded(new TreePath(getPathToRoot(parent)),
+                indices, newChildren.toArray());
+    }
+
+    /**
+     * Removes all of the given nodes which are children of {@code parent} and
+     * fires a single event for all of them. This is the preferred way to
+     * remove many children at once.
+     * <p>
+     * If {@code parent} is an {@code AbstractMutableTreeTableNode}, the nodes
+     * are removed with {@link AbstractMutableTreeTableNode#removeAll(Collection)}.
+     * 
+     * @param parent
+     *            the node to remove the children from
+     * @param nodes
+     *            the nodes to remove
+     */
+    public void removeNodesFromParent(MutableTreeTableNode parent,
+            Collection<? extends MutableTreeTableNode> nodes) {
+        Set<MutableTreeTableNode> toRemove = Collections.newSetFromMap(
+                new IdentityHashMap<MutableTreeTableNode, Boolean>());
+        toRemove.addAll(nodes);
+        List<Integer> indices = new ArrayList<Integer>();
+        List<MutableTreeTableNode> removed = new ArrayList<MutableTreeTableNode>();
+        
+        for (int i = 0, n = parent.getChildCount(); i < n; i++) {
+            TreeTableNode child = parent.getChildAt(i);
+            
+            if (toRemove.contains(child)) {
+                indices.add(i);
+                removed.add((MutableTreeTableNode) child);
+            }
+        }
+        
+        if (removed.isEmpty()) {
+            return;
+        }
+        
+        if (parent instanceof AbstractMutableTreeTableNode) {
+            ((AbstractMutableTreeTableNode) parent).removeAll(removed);
+        } else {
+            for (int i = indices.size() - 1; i >= 0; i--) {
+                parent.remove(indices.get(i));
+            }
+        }
+        
+        int[] childIndices = new int[indices.size()];
+        
+        for (int i = 0; i < childIndices.length; i++) {
+            childIndices[i] = indices.get(i);
+        }
+        
+        modelSupport.fireChildrenRemoved(new TreePath(getPathToRoot(parent)),
+                childIndices, removed.toArray());
+    }
+
+    /**
+     * Sorts the children of {@code parent} according to the given comparator
+     * and notifies the listeners that the structure below {@code parent} has
+     * changed.
+     * 
+     * @param parent
+     *            the node whose children to sort
+     * @param comparator
+     *            the comparator to determine the order of the children
+     */
+    public void sortChildren(MutableTreeTableNode parent,
+            Comparator<? super MutableTreeTableNode> comparator) {
+        if (parent instanceof AbstractMutableTreeTableNode) {
+            ((AbstractMutableTreeTableNode) parent).sortChildren(comparator);
+        } else {
+            List<MutableTreeTableNode> sorted = new ArrayList<MutableTreeTableNode>();
+            
+            for (int i = parent.getChildCount() - 1; i >= 0; i--) {
+                sorted.add((MutableTreeTableNode) parent.getChildAt(i));
+                parent.remove(i);
+            }
+            
+            Collections.reverse(sorted);
+            Collections.sort(sorted, comparator);
+            
+            for (int i = 0; i < sorted.size(); i++) {
+                parent.insert(sorted.get(i), i);
+            }
+        }
+        
+        modelSupport.fireTreeStructureChanged(new TreePath(getPathToRoot(parent)));
+    }
+
     /**
      * Message this to remove node from its parent. This will message
      * nodesWereRemoved to create the appropriate event. This is the preferred
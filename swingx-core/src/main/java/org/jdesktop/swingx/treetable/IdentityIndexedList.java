@@ -0,0 +1,222 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.treetable;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * A list which answers {@code indexOf} and {@code contains} in constant time
+ * by keeping a map from element identity to position. Intended as children
+ * list of {@code AbstractMutableTreeTableNode}s with many children, where
+ * {@code getIndex} is called for every event, see
+ * {@link AbstractMutableTreeTableNode#createChildrenList()}.
+ * <p>
+ *
+ * Elements are compared by identity, not by {@code equals}, and the list must
+ * not contain the same element twice. Appending keeps the map up to date;
+ * inserting or removing in the middle invalidates the positions behind the
+ * change, which are re-indexed by the next lookup. So a batch of changes costs
+ * at most one pass over the list.
+ *
+ * @param <E> the type of the elements
+ */
+public class IdentityIndexedList<E> extends AbstractList<E> implements RandomAccess {
+
+    private final ArrayList<E> elements;
+
+    private final Map<Object, Integer> indices;
+
+    /** the positions below are correctly indexed. */
+    private int indexedTo;
+
+    /**
+     * Creates an empty list.
+     */
+    public IdentityIndexedList() {
+        elements = new ArrayList<E>();
+        indices = new IdentityHashMap<Object, Integer>();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E get(int index) {
+        return elements.get(index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return elements.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E set(int index, E element) {
+        E old = elements.set(index, element);
+        // permutations by set() move the old element elsewhere first, f.i. swap
+        Integer oldIndex = indices.get(old);
+        if (oldIndex != null && oldIndex == index) {
+            indices.remove(old);
+        }
+        if (index < indexedTo) {
+            indices.put(element, index);
+        }
+        return old;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void add(int index, E element) {
+        elements.add(index, element);
+        modCount++;
+        if (index == indexedTo && index == elements.size() - 1) {
+            indices.put(element, index);
+            indexedTo++;
+        } else {
+            indexedTo = Math.min(indexedTo, index);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        return addAll(size(), c);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Overridden to shift the elements behind the index only once.
+     */
+    @Override
+    public boolean addAll(int index, Collection<? extends E> c) {
+        int oldSize = elements.size();
+        if (!elements.addAll(index, c)) {
+            return false;
+        }
+        modCount++;
+        if (index == oldSize && indexedTo == oldSize) {
+            reindex();
+        } else {
+            indexedTo = Math.min(indexedTo, index);
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E remove(int index) {
+        E old = elements.remove(index);
+        modCount++;
+        indices.remove(old);
+        indexedTo = Math.min(indexedTo, index);
+        return old;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Overridden to locate the element in constant time.
+     */
+    @Override
+    public boolean remove(Object o) {
+        int index = indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        elements.clear();
+        modCount++;
+        indices.clear();
+        indexedTo = 0;
+    }
+
+    /**
+     * Returns the position of the given element, compared by identity.
+     *
+     * @param o the element to look up
+     * @return the position of the element or -1 if it's not contained
+     */
+    @Override
+    public int indexOf(Object o) {
+        Integer index = indices.get(o);
+        if (index != null && index < indexedTo) {
+            return index;
+        }
+        if (indexedTo < elements.size()) {
+            reindex();
+            index = indices.get(o);
+            return index == null ? -1 : index;
+        }
+        return -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    /**
+     * Updates the positions from indexedTo to the end.
+     */
+    private void reindex() {
+        for (int i = indexedTo, n = elements.size(); i < n; i++) {
+            indices.put(elements.get(i), i);
+        }
+        indexedTo = elements.size();
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+
+import junit.framework.TestCase;
+
+import org.jdesktop.swingx.AnimationClock.Subscription;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit test of <code>AnimationClock</code>.
+ */
+@RunWith(JUnit4.class)
+public class AnimationClockTest extends TestCase {
+
+    private AnimationClock clock;
+
+    /**
+     * A component which claims to be showing. Created hidden to keep the 
+     * timer from ticking concurrently with the test, which ticks manually.
+     */
+    private static class ShowingComponent extends JComponent {
+        boolean showing;
+
+        @Override
+        public boolean isShowing() {
+            return showing;
+        }
+    }
+
+    /**
+     * Records the sources of the events.
+     */
+    private static class RecordingListener implements ActionListener {
+        final List<Object> sources = new ArrayList<Object>();
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            sources.add(e.getSource());
+        }
+    }
+
+    @Test
+    public void testPeriods() {
+        ShowingComponent fast = new ShowingComponent();
+        ShowingComponent slow = new ShowingComponent();
+        RecordingListener listener = new RecordingListener();
+        clock.subscribe(fast, 10, listener);
+        Subscription subscription = clock.subscribe(slow, 34, listener);
+        assertEquals(34, subscription.getPeriod());
+        fast.showing = true;
+        slow.showing = true;
+        for (int i = 1; i <= 6; i++) {
+            clock.tick(i * 10);
+        }
+        assertEquals(8, listener.sources.size());
+        // in phase: the slow component follows the fast one on every third tick
+        assertSame(slow, listener.sources.get(3));
+        assertSame(slow, listener.sources.get(7));
+        assertEquals(6, clock.getFrameCount());
+        assertEquals(10.0, clock.getAverageInterval());
+    }
+
+    @Test
+    public void testSkipsHidden() {
+        ShowingComponent component = new ShowingComponent();
+        RecordingListener listener = new RecordingListener();
+        clock.subscribe(component, 10, listener);
+        clock.tick(10);
+        assertEquals(0, listener.sources.size());
+        assertEquals(0, clock.getFrameCount());
+    }
+
+    @Test
+    public void testRunningWhileShowing() {
+        ShowingComponent hidden = new ShowingComponent();
+        Subscription subscription = clock.subscribe(hidden, 10, new RecordingListener());
+        assertFalse("must not tick for hidden components", clock.isRunning());
+        ShowingComponent showing = new ShowingComponent();
+        showing.showing = true;
+        Subscription other = clock.subscribe(showing, 10, new RecordingListener());
+        assertTrue(clock.isRunning());
+        other.cancel();
+        assertTrue(other.isCancelled());
+        assertFalse(clock.isRunning());
+        subscription.cancel();
+        assertEquals(0, clock.getSubscriptionCount());
+    }
+
+    @Test
+    public void testCancelWhileNotified() {
+        ShowingComponent component = new ShowingComponent();
+        final RecordingListener listener = new RecordingListener();
+        final Subscription[] subscription = new Subscription[1];
+        subscription[0] = clock.subscribe(component, 10, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                listener.actionPerformed(e);
+                subscription[0].cancel();
+            }
+        });
+        component.showing = true;
+        clock.tick(10);
+        clock.tick(20);
+        assertEquals(1, listener.sources.size());
+        assertEquals(0, clock.getSubscriptionCount());
+    }
+
+    /**
+     * The timer fires at the greatest common divisor of the showing periods.
+     */
+    @Test
+    public void testDelayOfShowingPeriods() {
+        ShowingComponent slow = new ShowingComponent();
+        slow.showing = true;
+        Subscription subscription = clock.subscribe(slow, 1000, new RecordingListener());
+        assertEquals(1000, clock.getDelay());
+        ShowingComponent other = new ShowingComponent();
+        other.showing = true;
+        Subscription otherSubscription = clock.subscribe(other, 600, new RecordingListener());
+        assertEquals(200, clock.getDelay());
+        otherSubscription.setPeriod(1500);
+        assertEquals(500, clock.getDelay());
+        otherSubscription.cancel();
+        assertEquals(1000, clock.getDelay());
+        subscription.cancel();
+        assertFalse(clock.isRunning());
+    }
+
+    /**
+     * Ticks advance by the step of the timer, periods stay due.
+     */
+    @Test
+    public void testPeriodsWithLargerStep() {
+        ShowingComponent component = new ShowingComponent();
+        RecordingListener listener = new RecordingListener();
+        Subscription subscription = clock.subscribe(component, 40, listener);
+        component.showing = true;
+        // hierarchy events aren't fired for the fake component
+        subscription.setPeriod(40);
+        clock.tick(40);
+        clock.tick(80);
+        assertEquals(2, listener.sources.size());
+        subscription.cancel();
+    }
+
+    /**
+     * A showing subscriber is notified right after subscribing.
+     */
+    @Test
+    public void testFirstNotificationImmediately() throws Exception {
+        ShowingComponent component = new ShowingComponent();
+        component.showing = true;
+        RecordingListener listener = new RecordingListener();
+        Subscription subscription = clock.subscribe(component, 5000, listener);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                // flush the EDT
+            }
+        });
+        assertEquals(1, listener.sources.size());
+        subscription.cancel();
+    }
+
+    @Test
+    public void testBusyLabelSubscribes() {
+        AnimationClock shared = AnimationClock.getDefault();
+        int count = shared.getSubscriptionCount();
+        JXBusyLabel label = new JXBusyLabel();
+        label.setBusy(true);
+        assertEquals(count + 1, shared.getSubscriptionCount());
+        label.setBusy(false);
+        assertEquals(count, shared.getSubscriptionCount());
+    }
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        clock = new AnimationClock(10);
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.swing.SwingUtilities;
+
+import junit.framework.TestCase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ImagePyramidTest extends TestCase {
+
+    private static final int WIDTH = 1200;
+
+    private static final int HEIGHT = 900;
+
+    private File file;
+
+    private ImagePyramid pyramid;
+
+    private final Semaphore loaded = new Semaphore(0);
+
+    private final ImagePyramid.Listener listener = new ImagePyramid.Listener() {
+        @Override
+        public void tileLoaded(ImagePyramid source) {
+            loaded.release();
+        }
+
+        @Override
+        public void tileFailed(ImagePyramid source, Throwable error) {
+            fail("tile failed " + error);
+        }
+    };
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                image.setRGB(x, y, pixel(x, y));
+            }
+        }
+        file = File.createTempFile("pyramid", ".png");
+        ImageIO.write(image, "png", file);
+    }
+
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        if (pyramid != null) {
+            SwingUtilities.invokeAndWait(new Runnable() {
+                @Override
+                public void run() {
+                    pyramid.dispose();
+                }
+            });
+        }
+        file.delete();
+    }
+
+    @Test
+    public void testLevels() throws Exception {
+        open(4);
+        assertEquals(WIDTH, pyramid.getWidth());
+        assertEquals(HEIGHT, pyramid.getHeight());
+        // 1200x900, 600x450, 300x225, 150x113
+        assertEquals(4, pyramid.getLevelCount());
+        assertEquals(5, pyramid.getColumnCount(0));
+        assertEquals(4, pyramid.getRowCount(0));
+        assertEquals(1, pyramid.getColumnCount(3));
+        assertEquals(0, pyramid.getLevel(2));
+        assertEquals(0, pyramid.getLevel(1));
+        assertEquals(0, pyramid.getLevel(0.7));
+        assertEquals(1, pyramid.getLevel(0.5));
+        assertEquals(2, pyramid.getLevel(0.25));
+        assertEquals(3, pyramid.getLevel(0.01));
+        assertEquals(new Rectangle(1024, 768, 176, 132), pyramid.getSourceRegion(0, 4, 3));
+        assertEquals(new Rectangle(512, 0, 512, 512), pyramid.getSourceRegion(1, 1, 0));
+    }
+
+    @Test
+    public void testTileIsSubsampledRegion() throws Exception {
+        open(4);
+        BufferedImage tile = load(1, 1, 1);
+        // source region 512,512 - 1024,900 at every second pixel
+        assertEquals(256, tile.getWidth());
+        assertEquals(194, tile.getHeight());
+        for (int y = 0; y < tile.getHeight(); y += 7) {
+            for (int x = 0; x < tile.getWidth(); x += 5) {
+                assertEquals(pixel(512 + 2 * x, 512 + 2 * y), tile.getRGB(x, y) & 0xFFFFFF);
+            }
+        }
+        BufferedImage overview = load(3, 0, 0);
+        assertEquals(150, overview.getWidth());
+        assertEquals(113, overview.getHeight());
+        assertEquals(pixel(8 * 100, 8 * 50), overview.getRGB(100, 50) & 0xFFFFFF);
+    }
+
+    @Test
+    public void testCacheIsBounded() throws Exception {
+        open(3);
+        load(3, 0, 0);
+        for (int column = 0; column < 5; column++) {
+            load(0, column, 0);
+        }
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                assertEquals(3, pyramid.getCachedTileCount());
+                assertNull("least recently used", pyramid.getCachedTile(0, 0, 0));
+                assertNotNull(pyramid.getCachedTile(0, 4, 0));
+                assertNotNull("top level is kept", pyramid.getCachedTile(3, 0, 0));
+                pyramid.setCacheSize(1);
+                assertEquals(1, pyramid.getCachedTileCount());
+                assertNotNull(pyramid.getCachedTile(0, 4, 0));
+            }
+        });
+    }
+
+    @Test
+    public void testPaintProgressive() throws Exception {
+        open(32);
+        load(3, 0, 0);
+        BufferedImage coarse = paint(0.5);
+        // not loaded yet, painted from the top level
+        assertEquals(pixel(40, 40), coarse.getRGB(20, 20) & 0xFFFFFF);
+        for (int row = 0; row < 2; row++) {
+            for (int column = 0; column < 3; column++) {
+                load(1, column, row);
+            }
+        }
+        BufferedImage fine = paint(0.5);
+        for (int y = 0; y < HEIGHT / 2; y += 11) {
+            for (int x = 0; x < WIDTH / 2; x += 13) {
+                assertEquals(pixel(2 * x, 2 * y), fine.getRGB(x, y) & 0xFFFFFF);
+            }
+        }
+    }
+
+    /**
+     * Streams of locations other than files are closed with the reader, or
+     * right away if there is no reader for them.
+     */
+    @Test
+    public void testStreamClosed() throws Exception {
+        final boolean[] closed = new boolean[1];
+        URLStreamHandler handler = new URLStreamHandler() {
+            @Override
+            protected URLConnection openConnection(URL url) {
+                return new URLConnection(url) {
+                    @Override
+                    public void connect() {
+                    }
+
+                    @Override
+                    public InputStream getInputStream() throws IOException {
+                        InputStream source = "test:image".equals(url.toString()) 
+                                ? new FileInputStream(file) 
+                                : new ByteArrayInputStream(new byte[] {1, 2, 3});
+                        return new FilterInputStream(source) {
+                            @Override
+                            public void close() throws IOException {
+                                closed[0] = true;
+                                super.close();
+                            }
+                        };
+                    }
+                };
+            }
+        };
+        ImageReader reader = ImagePyramid.createReader(new URL(null, "test:image", handler));
+        assertNotNull(reader);
+        assertFalse(closed[0]);
+        ImagePyramid.dispose(reader);
+        assertTrue("stream must be closed with the reader", closed[0]);
+        
+        closed[0] = false;
+        assertNull(ImagePyramid.createReader(new URL(null, "test:garbage", handler)));
+        assertTrue("stream must be closed without reader", closed[0]);
+    }
+
+    private static int pixel(int x, int y) {
+        return ((x & 0xFF) << 16) | ((y & 0xFF) << 8) | ((x + y) * 7 & 0xFF);
+    }
+
+    private void open(final int cacheSize) throws Exception {
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    ImageReader reader = ImagePyramid.createReader(file.toURI().toURL());
+                    pyramid = new ImagePyramid(reader, 256, cacheSize, listener);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+    }
+
+    private BufferedImage load(final int level, final int column, final int row) throws Exception {
+        final BufferedImage[] tile = new BufferedImage[1];
+        long deadline = System.currentTimeMillis() + 5000;
+        while (true) {
+            SwingUtilities.invokeAndWait(new Runnable() {
+                @Override
+                public void run() {
+                    tile[0] = pyramid.getTile(level, column, row);
+                }
+            });
+            if (tile[0] != null) {
+                return tile[0];
+            }
+            assertTrue("tile must load", System.currentTimeMillis() < deadline);
+            // the notification may be for another tile, check again
+            loaded.tryAcquire(100, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private BufferedImage paint(final double scale) throws Exception {
+        final BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                Graphics2D g = image.createGraphics();
+                pyramid.paint(g, 0, 0, scale);
+                g.dispose();
+            }
+        });
+        return image;
+    }
+}
@@ -24,6 +24,8 @@ package org.jdesktop.swingx;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.jdesktop.test.matchers.Matchers.property;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -63,4 +65,21 @@ public class JXCollapsiblePaneTest {
         // will enqueue on the EDT after this check
         verify(pcl).propertyChange(argThat(is(property("collapsed", false, true))));
     }
+    
+    /**
+     * Snapshot animation is off by default and a bound property.
+     */
+    @Test
+    public void testSnapshotAnimation() {
+        JXCollapsiblePane pane = new JXCollapsiblePane();
+        assertFalse(pane.isSnapshotAnimation());
+        
+        PropertyChangeListener pcl = mock(PropertyChangeListener.class);
+        pane.addPropertyChangeListener("snapshotAnimation", pcl);
+        
+        pane.setSnapshotAnimation(true);
+        
+        assertTrue(pane.isSnapshotAnimation());
+        verify(pcl).propertyChange(argThat(is(property("snapshotAnimation", false, true))));
+    }
  }
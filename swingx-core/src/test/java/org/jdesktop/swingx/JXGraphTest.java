@@ -0,0 +1,319 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import junit.framework.TestCase;
+
+import org.jdesktop.swingx.JXGraph.DataPlot;
+import org.jdesktop.swingx.JXGraph.Plot;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit test of JXGraph plot sampling.
+ */
+@RunWith(JUnit4.class)
+public class JXGraphTest extends TestCase {
+
+    private JXGraph graph;
+
+    /**
+     * Counts the evaluations.
+     */
+    private static class CountingPlot extends Plot {
+        volatile int computed;
+        double frequency;
+
+        CountingPlot(double frequency) {
+            this.frequency = frequency;
+        }
+
+        @Override
+        public double compute(double value) {
+            computed++;
+            return Math.sin(value * frequency);
+        }
+
+        void setFrequency(double frequency) {
+            double old = this.frequency;
+            this.frequency = frequency;
+            firePropertyChange("frequency", old, frequency);
+        }
+    }
+
+    @Test
+    public void testSamplesCached() {
+        CountingPlot plot = new CountingPlot(1);
+        graph.addPlots(Color.RED, plot);
+        paint();
+        int computed = plot.computed;
+        assertTrue(computed > 0);
+        paint();
+        assertEquals("unchanged view must not compute", computed, plot.computed);
+        Rectangle2D view = graph.getView();
+        graph.setView(new Rectangle2D.Double(view.getX(), view.getY() + 0.5, 
+                view.getWidth(), view.getHeight()));
+        paint();
+        assertEquals("vertical pan must not compute", computed, plot.computed);
+        graph.setView(new Rectangle2D.Double(view.getX() + 0.5, view.getY(), 
+                view.getWidth(), view.getHeight()));
+        paint();
+        assertTrue(plot.computed > computed);
+    }
+
+    @Test
+    public void testPlotChange() {
+        CountingPlot plot = new CountingPlot(1);
+        graph.addPlots(Color.RED, plot);
+        paint();
+        int computed = plot.computed;
+        plot.setFrequency(2);
+        paint();
+        assertTrue("changed plot must compute", plot.computed > computed);
+    }
+
+    @Test
+    public void testAdaptiveSampling() {
+        CountingPlot line = new CountingPlot(0.001);
+        graph.addPlots(Color.RED, line);
+        paint();
+        assertTrue("smooth plot: " + line.computed, line.computed <= graph.getWidth() / 2 + 2);
+        graph.removeAllPlots();
+        CountingPlot wave = new CountingPlot(100);
+        graph.addPlots(Color.RED, wave);
+        paint();
+        assertTrue("bent plot must be refined: " + wave.computed, 
+                wave.computed > graph.getWidth());
+    }
+
+    @Test
+    public void testAsynchronousSampling() throws Exception {
+        final CountDownLatch sampled = new CountDownLatch(1);
+        final Thread painter = Thread.currentThread();
+        CountingPlot plot = new CountingPlot(1) {
+            boolean slow = true;
+            @Override
+            public double compute(double value) {
+                if (slow) {
+                    // first sampling is expensive
+                    slow = false;
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                        // ignore
+                    }
+                }
+                if (Thread.currentThread() != painter) {
+                    sampled.countDown();
+                }
+                return super.compute(value);
+            }
+        };
+        graph.setAsynchronousSampling(true);
+        graph.addPlots(Color.RED, plot);
+        paint();
+        int computed = plot.computed;
+        Rectangle2D view = graph.getView();
+        graph.setView(new Rectangle2D.Double(view.getX() + 0.5, view.getY(), 
+                view.getWidth(), view.getHeight()));
+        paint();
+        assertTrue("must sample off the painting thread", sampled.await(5, TimeUnit.SECONDS));
+        // wait for the sampling to finish and the samples to be installed 
+        do {
+            computed = plot.computed;
+            Thread.sleep(20);
+        } while (computed != plot.computed);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+        computed = plot.computed;
+        paint();
+        assertEquals("installed samples must be used", computed, plot.computed);
+    }
+
+    @Test
+    public void testDataPlotRange() {
+        Random random = new Random(42);
+        double[] values = new double[5000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 97 == 0 ? Double.NaN : random.nextGaussian();
+        }
+        DataPlot plot = new DataPlot(0, 1, values);
+        double[] range = new double[2];
+        for (int n = 0; n < 500; n++) {
+            int from = random.nextInt(values.length);
+            int to = from + 1 + random.nextInt(values.length - from);
+            plot.getRange(from, to, range);
+            assertRange(values, from, to, range);
+        }
+        plot.getRange(97, 98, range);
+        assertTrue(Double.isNaN(range[0]) && Double.isNaN(range[1]));
+    }
+
+    @Test
+    public void testDataPlotAppend() {
+        final int[] sizes = new int[2];
+        DataPlot plot = new DataPlot(10, 0.5, ByteBuffer.allocateDirect(8 * 100)
+                .asDoubleBuffer());
+        plot.addPropertyChangeListener(new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                sizes[0] = (Integer) evt.getOldValue();
+                sizes[1] = (Integer) evt.getNewValue();
+            }
+        });
+        double[] values = new double[3100];
+        for (int i = 0; i < 3000; i += 30) {
+            double[] appended = new double[30];
+            for (int j = 0; j < appended.length; j++) {
+                appended[j] = values[100 + i + j] = Math.sin(i + j);
+            }
+            plot.append(appended);
+            assertEquals(100 + i, sizes[0]);
+            assertEquals(130 + i, sizes[1]);
+        }
+        // the plot has grown, the initial values are kept
+        assertEquals(values.length, plot.getSize());
+        assertEquals(0.0, plot.getValue(0));
+        double[] range = new double[2];
+        plot.getRange(0, plot.getSize(), range);
+        assertRange(values, 0, values.length, range);
+        plot.getRange(1500, 3071, range);
+        assertRange(values, 1500, 3071, range);
+    }
+
+    /**
+     * Levels added while appending must cover the values appended before.
+     */
+    @Test
+    public void testDataPlotAppendSingleValues() {
+        DataPlot plot = new DataPlot(0, 1);
+        double[] values = new double[1100];
+        double[] range = new double[2];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 5 + i;
+            plot.append(values[i]);
+            for (int to : new int[] {16, 64, 256, 1024}) {
+                if (to <= i + 1) {
+                    plot.getRange(0, to, range);
+                    assertRange(values, 0, to, range);
+                }
+            }
+        }
+        plot.getRange(0, values.length, range);
+        assertEquals(5.0, range[0]);
+        assertEquals(1104.0, range[1]);
+    }
+
+    @Test
+    public void testDataPlotCompute() {
+        DataPlot plot = new DataPlot(1, 2, 0, 10, 20);
+        assertEquals(5.0, plot.compute(2), 1e-9);
+        assertEquals(20.0, plot.compute(5), 1e-9);
+        assertTrue(Double.isNaN(plot.compute(0.5)));
+        assertTrue(Double.isNaN(plot.compute(5.5)));
+    }
+
+    @Test
+    public void testDataPlotPaint() {
+        double[] values = new double[1000000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.sin(i / 1000.0);
+        }
+        DataPlot plot = new DataPlot(-2, 1e-5, values);
+        graph.addPlots(Color.RED, plot);
+        paint();
+        // zoomed in far enough to plot the values themselves
+        graph.setView(new Rectangle2D.Double(0, -1, 0.001, 2));
+        paint();
+    }
+
+    private void assertRange(double[] values, int from, int to, double[] range) {
+        double min = Double.NaN;
+        double max = Double.NaN;
+        for (int i = from; i < to; i++) {
+            if (Double.isNaN(values[i])) {
+                continue;
+            }
+            min = Double.isNaN(min) ? values[i] : Math.min(min, values[i]);
+            max = Double.isNaN(max) ? values[i] : Math.max(max, values[i]);
+        }
+        assertEquals(min, range[0]);
+        assertEquals(max, range[1]);
+    }
+
+    /**
+     * The cached layers must not be used on a scaled graphics, as on HiDPI
+     * screens, where they would be blurred.
+     */
+    @Test
+    public void testLayersScaled() {
+        BufferedImage expected = paint(2);
+        BufferedImage actual = paint(2);
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals("pixel at " + x + ", " + y, expected.getRGB(x, y), 
+                        actual.getRGB(x, y));
+            }
+        }
+    }
+
+    private void paint() {
+        paint(1);
+    }
+
+    private BufferedImage paint(int scale) {
+        BufferedImage image = new BufferedImage(graph.getWidth() * scale, 
+                graph.getHeight() * scale, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.scale(scale, scale);
+            graph.paint(g);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        graph = new JXGraph();
+        graph.setSize(200, 100);
+    }
+}
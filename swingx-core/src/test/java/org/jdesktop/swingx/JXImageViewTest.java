@@ -5,7 +5,12 @@
 package org.jdesktop.swingx;
 
 import java.awt.Color;
+import java.awt.Image;
 import java.awt.image.BufferedImage;
+import java.io.File;
+
+import javax.imageio.ImageIO;
+import javax.swing.Action;
 
 import org.jdesktop.swingx.painter.MattePainter;
 import org.jdesktop.swingx.painter.Painter;
@@ -35,6 +40,44 @@ public class JXImageViewTest extends InteractiveTestCase {
                 , background instanceof MattePainter);
     }
     
+    /**
+     * Images above the tiling threshold are shown as tiles.
+     */
+    @Test
+    public void testTiledImage() throws Exception {
+        File file = File.createTempFile("imageview", ".png");
+        try {
+            ImageIO.write(new BufferedImage(300, 200, BufferedImage.TYPE_INT_RGB), "png", file);
+            JXImageView view = new JXImageView();
+            assertEquals(JXImageView.DEFAULT_TILING_THRESHOLD, view.getTilingThreshold());
+            view.setImage(file);
+            assertFalse("tiling is off by default", view.isImageTiled());
+            assertEquals(300, view.getImage().getWidth(null));
+            Action rotate = view.getRotateClockwiseAction();
+            assertTrue(rotate.isEnabled());
+            
+            view.setTilingThreshold(300 * 200 - 1);
+            view.setTileCacheSize(4);
+            view.setImage(file);
+            assertTrue(view.isImageTiled());
+            assertNull("tiled image has no image", view.getImage());
+            assertEquals(file.toURI().toURL(), view.getImageURL());
+            assertFalse("actions need an image", rotate.isEnabled());
+            assertFalse(view.getSaveAction().isEnabled());
+            // must be a no-op rather than failing on the missing image
+            rotate.actionPerformed(null);
+            // painting requests the tiles, mustn't fail before they're loaded
+            view.setSize(100, 100);
+            view.paint(new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB).getGraphics());
+            
+            view.setImage((Image) null);
+            assertFalse(view.isImageTiled());
+            assertTrue(rotate.isEnabled());
+        } finally {
+            file.delete();
+        }
+    }
+    
 //------------------ interactive
     
     public static void main(String[] args) {
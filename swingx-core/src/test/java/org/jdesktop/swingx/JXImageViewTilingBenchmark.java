@@ -0,0 +1,167 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+
+import javax.imageio.ImageIO;
+import javax.swing.SwingUtilities;
+
+/**
+ * Compares showing a large image in {@link JXImageView} decoded as a whole with showing it as
+ * tiles: the time until the view has something to paint, the time until the visible part is
+ * painted at full quality at the fitting and at the full scale, and the heap used afterwards.
+ * <p>
+ * 
+ * Run with {@code -Djava.awt.headless=true}, optionally passing the edge length of the image.
+ */
+public class JXImageViewTilingBenchmark {
+
+    private static final int VIEW_WIDTH = 800;
+
+    private static final int VIEW_HEIGHT = 600;
+
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 6000;
+        File file = File.createTempFile("tiling", ".png");
+        file.deleteOnExit();
+        BufferedImage image = new BufferedImage(size, size * 3 / 4, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        for (int i = 0; i < size; i += 50) {
+            g.setColor(new Color(i * 37 & 0xFFFFFF));
+            g.fillRect(i, 0, 50, image.getHeight());
+        }
+        g.dispose();
+        ImageIO.write(image, "png", file);
+        image = null;
+        
+        run("whole", file, Long.MAX_VALUE);
+        run("tiled", file, 0);
+    }
+    
+    private static void run(final String name, final File file, final long threshold) throws Exception {
+        gc();
+        final long heap = usedHeap();
+        final JXImageView[] view = new JXImageView[1];
+        long start = System.nanoTime();
+        onEDT(new Runnable() {
+            @Override
+            public void run() {
+                view[0] = new JXImageView();
+                view[0].setSize(VIEW_WIDTH, VIEW_HEIGHT);
+                view[0].setTilingThreshold(threshold);
+                try {
+                    view[0].setImage(file);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        long loaded = System.nanoTime() - start;
+        
+        int width = view[0].isImageTiled() ? view[0].getImagePyramid().getWidth()
+                : view[0].getImage().getWidth(null);
+        double fit = (double) VIEW_WIDTH / width;
+        start = System.nanoTime();
+        paintComplete(view[0], fit);
+        long fitted = System.nanoTime() - start;
+        start = System.nanoTime();
+        paintComplete(view[0], 1);
+        long full = System.nanoTime() - start;
+        gc();
+        System.out.printf("%s: set %6.1f ms, painted at %.2f %6.1f ms, at 1.0 %6.1f ms, heap %5.1f MB%n",
+                name, loaded / 1e6, fit, fitted / 1e6, full / 1e6, (usedHeap() - heap) / 1e6);
+        onEDT(new Runnable() {
+            @Override
+            public void run() {
+                view[0].setImage((Image) null);
+            }
+        });
+    }
+    
+    /**
+     * Paints the view at the given scale until all visible tiles are loaded.
+     */
+    private static void paintComplete(final JXImageView view, final double scale) throws Exception {
+        final BufferedImage screen = new BufferedImage(VIEW_WIDTH, VIEW_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        final boolean[] complete = new boolean[1];
+        onEDT(new Runnable() {
+            @Override
+            public void run() {
+                view.setScale(scale);
+            }
+        });
+        while (!complete[0]) {
+            onEDT(new Runnable() {
+                @Override
+                public void run() {
+                    Graphics2D g = screen.createGraphics();
+                    view.paint(g);
+                    g.dispose();
+                    complete[0] = isComplete(view);
+                }
+            });
+            Thread.sleep(1);
+        }
+    }
+    
+    private static boolean isComplete(JXImageView view) {
+        if (!view.isImageTiled()) {
+            return true;
+        }
+        ImagePyramid pyramid = view.getImagePyramid();
+        int level = pyramid.getLevel(view.getScale());
+        double span = pyramid.getTileSpan(level) * view.getScale();
+        double x = VIEW_WIDTH / 2.0 - pyramid.getWidth() * view.getScale() / 2;
+        double y = VIEW_HEIGHT / 2.0 - pyramid.getHeight() * view.getScale() / 2;
+        for (int row = Math.max(0, (int) Math.floor(-y / span)); 
+                row <= Math.min(pyramid.getRowCount(level) - 1, (int) Math.floor((VIEW_HEIGHT - y) / span)); row++) {
+            for (int column = Math.max(0, (int) Math.floor(-x / span)); 
+                    column <= Math.min(pyramid.getColumnCount(level) - 1, (int) Math.floor((VIEW_WIDTH - x) / span)); column++) {
+                if (pyramid.getCachedTile(level, column, row) == null) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    
+    private static void onEDT(Runnable runnable) throws InterruptedException, InvocationTargetException {
+        SwingUtilities.invokeAndWait(runnable);
+    }
+    
+    private static void gc() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+    }
+    
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -21,8 +21,13 @@
  */
 package org.jdesktop.swingx;
 
+import java.awt.font.TextAttribute;
+import java.util.Collections;
 import java.util.logging.Logger;
 
+import javax.swing.plaf.basic.BasicHTML;
+import javax.swing.text.View;
+
 import org.jdesktop.swingx.painter.AbstractPainter;
 import org.jdesktop.swingx.painter.Painter;
 import org.junit.Test;
@@ -62,4 +67,78 @@ public class JXLabelTest extends InteractiveTestCase {
         label.setForegroundPainter(null);
         assertEquals(defaultForeground, label.getForegroundPainter());
     }
+    
+    /**
+     * The wrapping view of a text shown before must be reused, still attached.
+     */
+    @Test
+    public void testWrappingViewReused() throws Exception {
+        JXLabel label = new JXLabel("first");
+        label.setLineWrap(true);
+        label.setText("second");
+        View second = (View) label.getClientProperty(BasicHTML.propertyKey);
+        label.setText("third");
+        label.setText("second");
+        View view = (View) label.getClientProperty(BasicHTML.propertyKey);
+        assertSame(second, view);
+        assertSame(view, view.getView(0).getParent());
+        assertEquals("second", view.getDocument().getText(0, view.getDocument().getLength()).trim());
+        
+        JXLabel other = new JXLabel("first");
+        other.setLineWrap(true);
+        other.setText("second");
+        View otherView = (View) other.getClientProperty(BasicHTML.propertyKey);
+        assertNotSame(view, otherView);
+        assertSame("document must be shared", view.getDocument(), otherView.getDocument());
+    }
+    
+    /**
+     * The lightweight wrapping must break lines without a document and grow
+     * the preferred height with the number of lines.
+     */
+    @Test
+    public void testLightweightLineWrap() {
+        JXLabel label = new JXLabel("word");
+        label.setLightweightLineWrap(true);
+        label.setLineWrap(true);
+        View view = (View) label.getClientProperty(BasicHTML.propertyKey);
+        assertTrue(view instanceof JXLabel.LayoutRenderer);
+        assertNull(view.getDocument());
+        float lineHeight = view.getPreferredSpan(View.Y_AXIS);
+        
+        label.setText("word word word word word word word word");
+        view = (View) label.getClientProperty(BasicHTML.propertyKey);
+        float width = view.getPreferredSpan(View.X_AXIS);
+        assertEquals(lineHeight, view.getPreferredSpan(View.Y_AXIS), 0.1f);
+        view.setSize(width / 3, 0);
+        assertTrue(view.getPreferredSpan(View.Y_AXIS) >= 3 * lineHeight - 0.1f);
+        
+        label.setText("word\n\nword");
+        view = (View) label.getClientProperty(BasicHTML.propertyKey);
+        assertEquals(3 * lineHeight, view.getPreferredSpan(View.Y_AXIS), 0.1f);
+        
+        label.setLightweightLineWrap(false);
+        assertTrue(label.getClientProperty(BasicHTML.propertyKey) instanceof JXLabel.Renderer);
+    }
+    
+    /**
+     * Lightweight line wrap of empty lines in a font with layout attributes.
+     */
+    @Test
+    public void testLightweightLineWrapUnderlinedEmptyLines() {
+        JXLabel label = new JXLabel();
+        label.setFont(label.getFont().deriveFont(
+                Collections.singletonMap(TextAttribute.UNDERLINE, TextAttribute.UNDERLINE_ON)));
+        label.setLightweightLineWrap(true);
+        label.setLineWrap(true);
+        label.setText("");
+        label.getPreferredSize();
+        label.setText("ab");
+        int oneLine = label.getPreferredSize().height;
+        label.setText("ab\n");
+        int twoLines = label.getPreferredSize().height;
+        assertTrue(twoLines > oneLine);
+        label.setText("first line\n\nthird");
+        assertTrue(label.getPreferredSize().height > twoLines);
+    }
 }
@@ -0,0 +1,92 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+import javax.swing.plaf.basic.BasicHTML;
+import javax.swing.text.View;
+
+/**
+ * Compares the two line wrapping engines of {@link JXLabel} as used by a cell renderer: one
+ * label stamps wrapped texts, computing the preferred height for the column width and painting
+ * the text. Each engine runs with 200 texts stamped over and over again, as while repainting a
+ * table, and with texts never seen before, as while scrolling through a large table.
+ * <p>
+ * 
+ * Run with {@code -Djava.awt.headless=true}, optionally passing the number of rounds.
+ */
+public class JXLabelWrapBenchmark {
+
+    private static final String LOREM = "Lorem ipsum dolor sit amet, consectetur adipisicing elit, "
+            + "sed do eiusmod tempor incididunt ut labore et dolore magna aliqua. ";
+
+    private static final int WIDTH = 180;
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        
+        for (boolean repeated : new boolean[] {true, false}) {
+            long views = run(false, repeated, rounds);
+            long lightweight = run(true, repeated, rounds);
+            System.out.printf("%-9s texts  views: %7.1f us/cell   lightweight: %7.1f us/cell%n",
+                    repeated ? "repeated" : "distinct", views / 1000.0 / rounds,
+                    lightweight / 1000.0 / rounds);
+        }
+    }
+    
+    /**
+     * Stamps the given number of cells.
+     * 
+     * @return the nanos taken, excluding the warm up
+     */
+    private static long run(boolean lightweight, boolean repeated, int rounds) {
+        JXLabel label = new JXLabel();
+        label.setLightweightLineWrap(lightweight);
+        label.setLineWrap(true);
+        BufferedImage cell = new BufferedImage(WIDTH, 200, BufferedImage.TYPE_INT_ARGB);
+        int warmup = rounds / 5;
+        long start = 0;
+        
+        for (int i = -warmup; i < rounds; i++) {
+            if (i == 0) {
+                start = System.nanoTime();
+            }
+            
+            int n = repeated ? (i + warmup) % 200 : i + warmup;
+            label.setText(n + " " + LOREM.substring(0, 40 + n % 80));
+            View view = (View) label.getClientProperty(BasicHTML.propertyKey);
+            view.setSize(WIDTH, 0);
+            int height = (int) view.getPreferredSpan(View.Y_AXIS);
+            Graphics2D g = cell.createGraphics();
+            
+            try {
+                view.paint(g, new Rectangle(0, 0, WIDTH, height));
+            } finally {
+                g.dispose();
+            }
+        }
+        
+        return System.nanoTime() - start;
+    }
+}
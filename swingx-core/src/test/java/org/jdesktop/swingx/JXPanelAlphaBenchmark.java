@@ -0,0 +1,178 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx;
+
+import java.awt.Color;
+import java.awt.Container;
+import java.awt.Graphics2D;
+import java.awt.GridLayout;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.RepaintManager;
+import javax.swing.SwingUtilities;
+
+/**
+ * Compares the two ways a repaint of a child reaches its translucent {@link JXPanel}: forwarded
+ * by {@link RepaintManagerX}, as needed before JDK 7, or routed to the painting origin, as done
+ * by {@code JComponent.paintImmediately} since JDK 7. The panels are stacked translucent overlays,
+ * the innermost with a grid of labels, one of which is changed and repainted per round, as f.i.
+ * by a blinking caret or an animated icon. Each round routes the bounds of the changed child to
+ * the outermost panel and paints that with the routed region as clip.
+ * <p>
+ * 
+ * Run with {@code -Djava.awt.headless=true}, optionally passing the number of rounds.
+ */
+public class JXPanelAlphaBenchmark {
+
+    private static final int WARMUP = 2000;
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        
+        for (int overlays : new int[] {1, 3}) {
+            for (int size : new int[] {200, 600, 1200}) {
+                long forwarded = run(true, overlays, size, rounds);
+                long origin = run(false, overlays, size, rounds);
+                System.out.printf("%d overlays %4dx%-4d RepaintManagerX: %8.1f us/paint"
+                        + "   painting origin: %8.1f us/paint%n", overlays, size, size * 3 / 4,
+                        forwarded / 1000.0 / rounds, origin / 1000.0 / rounds);
+            }
+        }
+    }
+    
+    /**
+     * Repaints a child region of stacked translucent panels the given number of rounds.
+     * 
+     * @return the nanos taken, excluding the warm up
+     */
+    private static long run(boolean forward, int overlays, int size, int rounds) {
+        JXPanel panel = new JXPanel(new GridLayout(10, 10));
+        panel.setBackground(Color.YELLOW);
+        
+        for (int i = 0; i < 100; i++) {
+            panel.add(new JLabel("label " + i));
+        }
+        
+        panel.setAlpha(.5f);
+        JXPanel root = panel;
+        
+        for (int i = 1; i < overlays; i++) {
+            JXPanel overlay = new JXPanel(new GridLayout());
+            overlay.setAlpha(.8f);
+            overlay.add(root);
+            root = overlay;
+        }
+        
+        root.setSize(size, size * 3 / 4);
+        layout(root);
+        
+        RecordingRepaintManager recorder = new RecordingRepaintManager();
+        RepaintManager manager = new RepaintManagerX(recorder);
+        BufferedImage screen = new BufferedImage(root.getWidth(), root.getHeight(),
+                BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(42);
+        long start = 0;
+        
+        for (int i = -WARMUP; i < rounds; i++) {
+            if (i == 0) {
+                start = System.nanoTime();
+            }
+            
+            JLabel child = (JLabel) panel.getComponent(random.nextInt(100));
+            child.setText("label " + i);
+            
+            if (forward) {
+                manager.addDirtyRegion(child, 0, 0, child.getWidth(), child.getHeight());
+            } else {
+                routeToPaintingOrigin(recorder, child);
+            }
+            
+            Graphics2D g = screen.createGraphics();
+            
+            try {
+                g.clip(recorder.region);
+                recorder.component.paint(g);
+            } finally {
+                g.dispose();
+            }
+        }
+        
+        return System.nanoTime() - start;
+    }
+    
+    /**
+     * Routes the bounds of the given component to its outermost painting origin, the same as
+     * {@code JComponent.paintImmediately}.
+     */
+    private static void routeToPaintingOrigin(RecordingRepaintManager recorder, JComponent c) {
+        Rectangle region = new Rectangle(0, 0, c.getWidth(), c.getHeight());
+        JComponent origin = getPaintingOrigin(c);
+        
+        while (origin != null) {
+            region = SwingUtilities.convertRectangle(c, region, origin);
+            c = origin;
+            origin = getPaintingOrigin(c);
+        }
+        
+        recorder.addDirtyRegion(c, region.x, region.y, region.width, region.height);
+    }
+    
+    private static JComponent getPaintingOrigin(JComponent c) {
+        Container p = c;
+        
+        while ((p = p.getParent()) instanceof JComponent) {
+            if (p instanceof JXPanel && ((JXPanel) p).isPaintingOrigin()) {
+                return (JComponent) p;
+            }
+        }
+        
+        return null;
+    }
+    
+    private static void layout(Container container) {
+        container.doLayout();
+        
+        for (int i = 0; i < container.getComponentCount(); i++) {
+            if (container.getComponent(i) instanceof Container) {
+                layout((Container) container.getComponent(i));
+            }
+        }
+    }
+    
+    /**
+     * Keeps the last dirty region instead of scheduling a paint.
+     */
+    private static class RecordingRepaintManager extends RepaintManager {
+        private JComponent component;
+        
+        private final Rectangle region = new Rectangle();
+        
+        @Override
+        public void addDirtyRegion(JComponent c, int x, int y, int w, int h) {
+            component = c;
+            region.setBounds(x, y, w, h);
+        }
+    }
+}
@@ -28,9 +28,15 @@ import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assume.assumeThat;
 
+import java.awt.AlphaComposite;
 import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GridLayout;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
 import java.util.logging.Logger;
 
+import javax.swing.JLabel;
 import javax.swing.plaf.ColorUIResource;
 
 import junit.framework.TestCase;
@@ -265,4 +271,68 @@ public class JXPanelTest extends TestCase {
         p2.add(p1);
         assertThat(p1.getEffectiveAlpha(), is(p1.getAlpha()));
     }
+    
+    /**
+     * A translucent panel painted with the region of a changed child as clip must paint
+     * the same as when painted completely.
+     */
+    @Test
+    public void testAlphaPaintClipped() {
+        JXPanel panel = createAlphaPanel();
+        BufferedImage actual = paint(panel, null, null);
+        
+        JLabel child = (JLabel) panel.getComponent(5);
+        child.setText("changed");
+        BufferedImage expected = paint(panel, null, null);
+        actual = paint(panel, child.getBounds(), actual);
+        assertImageEquals(expected, actual);
+    }
+    
+    private JXPanel createAlphaPanel() {
+        JXPanel panel = new JXPanel(new GridLayout(4, 4));
+        panel.setBackground(Color.YELLOW);
+        
+        for (int i = 0; i < 16; i++) {
+            JLabel label = new JLabel("label " + i);
+            label.setOpaque(i % 2 == 0);
+            label.setBackground(Color.BLUE);
+            panel.add(label);
+        }
+        
+        panel.setAlpha(.5f);
+        panel.setSize(200, 100);
+        panel.doLayout();
+        return panel;
+    }
+    
+    private BufferedImage paint(JXPanel panel, Rectangle clip, BufferedImage image) {
+        if (image == null) {
+            image = new BufferedImage(panel.getWidth(), panel.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        }
+        
+        Graphics2D g = image.createGraphics();
+        
+        try {
+            if (clip != null) {
+                g.setComposite(AlphaComposite.Clear);
+                g.fill(clip);
+                g.setComposite(AlphaComposite.SrcOver);
+                g.clip(clip);
+            }
+            
+            panel.paint(g);
+        } finally {
+            g.dispose();
+        }
+        
+        return image;
+    }
+    
+    private void assertImageEquals(BufferedImage expected, BufferedImage actual) {
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals("pixel at " + x + ", " + y, expected.getRGB(x, y), actual.getRGB(x, y));
+            }
+        }
+    }
 }
@@ -46,6 +46,54 @@ public class JXTableHeaderTest extends InteractiveTestCase {
      */
     private JXTableHeader header;
 
+    /**
+     * Preferred size is cached, a header value change re-measures the
+     * changed column only.
+     */
+    @Test
+    public void testPreferredSizeCached() {
+        JXTableHeader header = (JXTableHeader) table.getTableHeader();
+        final int[] measured = new int[1];
+        header.setDefaultRenderer(new DefaultTableCellRenderer() {
+            @Override
+            public Component getTableCellRendererComponent(JTable table,
+                    Object value, boolean isSelected, boolean hasFocus,
+                    int row, int column) {
+                measured[0]++;
+                return super.getTableCellRendererComponent(table, value, isSelected,
+                        hasFocus, row, column);
+            }
+        });
+        Dimension pref = header.getPreferredSize();
+        int count = measured[0];
+        assertEquals(pref, header.getPreferredSize());
+        assertEquals("cached size must not measure", count, measured[0]);
+        header.getColumnModel().moveColumn(0, 2);
+        assertEquals(pref, header.getPreferredSize());
+        assertEquals("moving must not measure", count, measured[0]);
+        count = measured[0];
+        header.getColumnModel().getColumn(1).setHeaderValue("<html>two<br>lines");
+        Dimension twoLines = header.getPreferredSize();
+        assertTrue(twoLines.height > pref.height);
+        assertTrue("must measure changed column only", 
+                measured[0] - count < header.getColumnModel().getColumnCount());
+        header.getColumnModel().getColumn(0).setPreferredWidth(200);
+        header.getColumnModel().getColumn(0).setWidth(200);
+        assertEquals(twoLines.height, header.getPreferredSize().height);
+        assertTrue(header.getPreferredSize().width > twoLines.width);
+    }
+    
+    /**
+     * Font change invalidates the cached preferred size.
+     */
+    @Test
+    public void testPreferredSizeFontChange() {
+        JXTableHeader header = (JXTableHeader) table.getTableHeader();
+        Dimension pref = header.getPreferredSize();
+        header.setFont(header.getFont().deriveFont(header.getFont().getSize2D() * 3));
+        assertTrue(header.getPreferredSize().height > pref.height);
+    }
+    
     @Test
     public void testSortsOnDoubleClick() {
         assertFalse(header.getResortsOnDoubleClick());
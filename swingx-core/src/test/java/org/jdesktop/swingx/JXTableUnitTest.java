@@ -537,6 +537,123 @@ public class JXTableUnitTest extends InteractiveTestCase {
         TestUtils.assertPropertyChangeEvent(report, "sortsOnUpdates", true, false);
     }
     
+    /**
+     * Coalescing updates: default value and change notification.
+     */
+    @Test
+    public void testCoalescingUpdatesChangeNotification() {
+        assertEquals("initial coalescingUpdates", false, table.isCoalescingUpdates());
+        PropertyChangeReport report = new PropertyChangeReport(table);
+        table.setCoalescingUpdates(true);
+        TestUtils.assertPropertyChangeEvent(report, "coalescingUpdates", false, true);
+    }
+    
+    /**
+     * Coalescing updates: cell updates are buffered and applied in one batch.
+     */
+    @Test
+    public void testCoalescingUpdatesBatched() {
+        DefaultTableModel model = new DefaultTableModel(100, 3);
+        JXTable table = new JXTable(model);
+        table.setCoalescingUpdates(true);
+        for (int row = 0; row < 50; row++) {
+            model.setValueAt("value" + row, row * 2, row % 3);
+        }
+        assertEquals(50, table.getReceivedUpdateCount());
+        assertEquals(0, table.getAppliedUpdateCount());
+        table.flushUpdates();
+        assertEquals(1, table.getAppliedUpdateCount());
+        table.flushUpdates();
+        assertEquals("nothing pending", 1, table.getAppliedUpdateCount());
+        assertEquals("value3", table.getValueAt(6, 0));
+    }
+    
+    /**
+     * Coalescing updates: sorting is updated when the batch is applied.
+     */
+    @Test
+    public void testCoalescingUpdatesSorted() {
+        DefaultTableModel model = new DefaultTableModel(new Object[][] {
+                {"a"}, {"b"}, {"c"}}, new Object[] {"name"});
+        JXTable table = new JXTable(model);
+        table.setCoalescingUpdates(true);
+        table.toggleSortOrder(0);
+        model.setValueAt("d", 0, 0);
+        model.setValueAt("e", 1, 0);
+        assertEquals("sort not yet updated", 0, table.convertRowIndexToModel(0));
+        table.flushUpdates();
+        assertEquals("c", table.getValueAt(0, 0));
+        assertEquals("e", table.getValueAt(2, 0));
+    }
+    
+    /**
+     * Coalescing updates: structural changes apply pending updates first, 
+     * disabling flushes.
+     */
+    @Test
+    public void testCoalescingUpdatesFlushedByOtherEvents() {
+        DefaultTableModel model = new DefaultTableModel(10, 2);
+        JXTable table = new JXTable(model);
+        table.setCoalescingUpdates(true);
+        model.setValueAt("x", 9, 1);
+        model.addRow(new Object[] {"y", "z"});
+        assertEquals(1, table.getAppliedUpdateCount());
+        assertEquals(11, table.getRowCount());
+        model.setValueAt("x", 5, 1);
+        model.fireTableDataChanged();
+        assertEquals("dataChanged is not coalesced", 1, table.getReceivedUpdateCount() - 1);
+        assertEquals(2, table.getAppliedUpdateCount());
+        model.setValueAt("x", 5, 1);
+        table.setCoalescingUpdates(false);
+        assertEquals(3, table.getAppliedUpdateCount());
+        model.setValueAt("x", 5, 1);
+        assertEquals(3, table.getReceivedUpdateCount());
+    }
+    
+    /**
+     * Coalescing updates: pending updates are moved by inserts and deletes
+     * before they reach the sorter.
+     */
+    @Test
+    public void testCoalescingUpdatesShiftedByInsert() {
+        DefaultTableModel model = new DefaultTableModel(new Object[][] {
+                {"b"}, {"d"}, {"f"}}, new Object[] {"name"});
+        JXTable table = new JXTable(model);
+        table.setCoalescingUpdates(true);
+        table.toggleSortOrder(0);
+        model.setValueAt("a", 2, 0);
+        model.insertRow(0, new Object[] {"c"});
+        assertEquals(1, table.getAppliedUpdateCount());
+        assertEquals("a", table.getValueAt(0, 0));
+        assertEquals("b", table.getValueAt(1, 0));
+        assertEquals("c", table.getValueAt(2, 0));
+        assertEquals("d", table.getValueAt(3, 0));
+        
+        model.setValueAt("e", 3, 0);
+        model.setValueAt("z", 0, 0);
+        model.setValueAt("y", 1, 0);
+        model.removeRow(1);
+        // rows: z, d, e - the update of the removed row is dropped
+        assertEquals(2, table.getAppliedUpdateCount());
+        assertEquals("d", table.getValueAt(0, 0));
+        assertEquals("e", table.getValueAt(1, 0));
+        assertEquals("z", table.getValueAt(2, 0));
+    }
+    
+    /**
+     * Coalescing updates: pending updates of a replaced model are dropped.
+     */
+    @Test
+    public void testCoalescingUpdatesModelReplaced() {
+        DefaultTableModel model = new DefaultTableModel(10, 2);
+        JXTable table = new JXTable(model);
+        table.setCoalescingUpdates(true);
+        model.setValueAt("x", 9, 1);
+        table.setModel(new DefaultTableModel(2, 2));
+        assertEquals(0, table.getAppliedUpdateCount());
+        assertEquals(2, table.getRowCount());
+    }
+    
     /**
      * Setting table's sortable property updates controller.
      */
@@ -0,0 +1,139 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx;
+
+import java.awt.Component;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.swing.JLabel;
+import javax.swing.RepaintManager;
+import javax.swing.SwingUtilities;
+
+import junit.framework.TestCase;
+
+import org.jdesktop.swingx.ProfilingRepaintManager.LongTask;
+import org.jdesktop.swingx.ProfilingRepaintManager.Snapshot;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit test of <code>ProfilingRepaintManager</code>.
+ */
+@RunWith(JUnit4.class)
+public class ProfilingRepaintManagerTest extends TestCase {
+
+    private RepaintManager old;
+
+    private ProfilingRepaintManager profiler;
+
+    @Test
+    public void testDirtyRegions() {
+        JLabel label = new JLabel();
+        label.setSize(10, 20);
+        profiler.reset();
+        label.repaint();
+        label.repaint(0, 0, 5, 5);
+        Snapshot snapshot = profiler.getSnapshot();
+        assertEquals(Long.valueOf(2), snapshot.getDirtyRegionCounts().get(JLabel.class.getName()));
+        assertEquals(Long.valueOf(225), snapshot.getDirtyRegionAreas().get(JLabel.class.getName()));
+        profiler.reset();
+        assertTrue(profiler.getSnapshot().getDirtyRegionCounts().isEmpty());
+    }
+
+    @Test
+    public void testDispatch() throws Exception {
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                profiler.reset();
+            }
+        });
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+        Snapshot snapshot = profiler.getSnapshot();
+        assertTrue(snapshot.getEventCount() >= 1);
+        assertTrue(snapshot.getMaxLatency() >= 0);
+        assertTrue(snapshot.getMaxDispatchTime() >= snapshot.getAverageDispatchTime());
+    }
+
+    @Test
+    public void testPaintDirtyRegions() {
+        profiler.paintDirtyRegions();
+        assertEquals(1, profiler.getSnapshot().getPaintCount());
+    }
+
+    @Test
+    public void testLongTask() throws Exception {
+        profiler.setLongTaskThreshold(50);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+            }
+        });
+        List<LongTask> tasks = profiler.getSnapshot().getLongTasks();
+        assertEquals(1, tasks.size());
+        assertTrue(tasks.get(0).getDuration() >= 50);
+        boolean found = false;
+        for (StackTraceElement element : tasks.get(0).getStackTrace()) {
+            found |= element.getClassName().startsWith(getClass().getName());
+        }
+        assertTrue("stack must contain the task", found);
+    }
+
+    @Test
+    public void testMBean() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(ProfilingRepaintManager.OBJECT_NAME);
+        assertTrue(server.isRegistered(name));
+        assertEquals(profiler.getLongTaskThreshold(), server.getAttribute(name, "LongTaskThreshold"));
+        profiler.uninstall();
+        assertFalse(server.isRegistered(name));
+        assertSame(old, RepaintManager.currentManager((Component) null));
+    }
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        old = RepaintManager.currentManager((Component) null);
+        profiler = ProfilingRepaintManager.install();
+    }
+
+    @After
+    @Override
+    public void tearDown() throws Exception {
+        profiler.uninstall();
+        RepaintManager.setCurrentManager(old);
+    }
+}
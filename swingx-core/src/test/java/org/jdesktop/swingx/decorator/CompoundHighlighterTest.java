@@ -22,13 +22,17 @@
 package org.jdesktop.swingx.decorator;
 
 import java.awt.Color;
+import java.awt.Component;
+import java.util.Arrays;
 import java.util.logging.Logger;
 
 import javax.swing.BorderFactory;
 import javax.swing.JLabel;
 import javax.swing.UIManager;
+import javax.swing.table.DefaultTableModel;
 
 import org.jdesktop.swingx.InteractiveTestCase;
+import org.jdesktop.swingx.decorator.ComponentAdapterTest.JXTableT;
 import org.jdesktop.swingx.renderer.JRendererLabel;
 import org.jdesktop.test.ChangeReport;
 import org.junit.Test;
@@ -94,6 +98,118 @@ public class CompoundHighlighterTest extends InteractiveTestCase {
     }
 
 
+    /**
+     * Compiled pipeline: must highlight the same cells as the uncompiled.
+     */
+    @Test
+    public void testCompiledSameAsUncompiled() {
+        JXTableT table = createCompileTable();
+        CompoundHighlighter pipeline = createCompilePipeline();
+        assertEquals(false, pipeline.isCompiled());
+        String[][] expected = highlightAll(table, pipeline);
+        pipeline.setCompiled(true);
+        assertEquals(true, pipeline.isCompiled());
+        assertTrue(Arrays.deepEquals(expected, highlightAll(table, pipeline)));
+        // cached plans
+        assertTrue(Arrays.deepEquals(expected, highlightAll(table, pipeline)));
+        table.moveColumn(0, 3);
+        assertTrue(Arrays.deepEquals(highlightAllUncompiled(table, pipeline), 
+                highlightAll(table, pipeline)));
+    }
+    
+    /**
+     * Compiled pipeline: changes to contained highlighters and column 
+     * identifiers must be picked up.
+     */
+    @Test
+    public void testCompiledUpdates() {
+        JXTableT table = createCompileTable();
+        CompoundHighlighter pipeline = createCompilePipeline();
+        pipeline.setCompiled(true);
+        highlightAll(table, pipeline);
+        ((AbstractHighlighter) pipeline.getHighlighters()[0]).setHighlightPredicate(
+                new HighlightPredicate.ColumnHighlightPredicate(1));
+        pipeline.addHighlighter(new MarkHighlighter(HighlightPredicate.IS_SELECTED, "S"));
+        table.setRowSelectionInterval(2, 2);
+        table.getColumnExt(3).setIdentifier("id");
+        assertTrue(Arrays.deepEquals(highlightAllUncompiled(table, pipeline), 
+                highlightAll(table, pipeline)));
+        pipeline.setCompiled(false);
+        assertEquals(false, pipeline.isCompiled());
+    }
+    
+    private String[][] highlightAllUncompiled(JXTableT table, CompoundHighlighter pipeline) {
+        boolean compiled = pipeline.isCompiled();
+        pipeline.setCompiled(false);
+        String[][] result = highlightAll(table, pipeline);
+        pipeline.setCompiled(compiled);
+        return result;
+    }
+    
+    private String[][] highlightAll(JXTableT table, CompoundHighlighter pipeline) {
+        String[][] result = new String[table.getRowCount()][table.getColumnCount()];
+        for (int row = 0; row < table.getRowCount(); row++) {
+            for (int column = 0; column < table.getColumnCount(); column++) {
+                JLabel label = new JLabel("");
+                pipeline.highlight(label, table.getComponentAdapter(row, column));
+                result[row][column] = label.getText();
+            }
+        }
+        return result;
+    }
+    
+    private JXTableT createCompileTable() {
+        DefaultTableModel model = new DefaultTableModel(13, 4) {
+            @Override
+            public Class<?> getColumnClass(int columnIndex) {
+                return columnIndex == 2 ? Integer.class : Object.class;
+            }
+        };
+        for (int row = 0; row < model.getRowCount(); row++) {
+            model.setValueAt(row % 3 == 0 ? "match" : "other", row, 1);
+        }
+        JXTableT table = new JXTableT(model);
+        table.getColumnExt(1).setIdentifier("name");
+        return table;
+    }
+
+    private CompoundHighlighter createCompilePipeline() {
+        HighlightPredicate value = new HighlightPredicate.EqualsHighlightPredicate("match");
+        return new CompoundHighlighter(
+                new MarkHighlighter(new HighlightPredicate.ColumnHighlightPredicate(0, 2), "a"),
+                new MarkHighlighter(new HighlightPredicate.IdentifierHighlightPredicate("name", "id"), "b"),
+                new MarkHighlighter(new HighlightPredicate.ColumnTypeHighlightPredicate(Number.class), "c"),
+                new MarkHighlighter(new HighlightPredicate.AndHighlightPredicate(
+                        new HighlightPredicate.IdentifierHighlightPredicate("name"), value), "d"),
+                new MarkHighlighter(new HighlightPredicate.OrHighlightPredicate(
+                        new HighlightPredicate.ColumnHighlightPredicate(3), 
+                        new HighlightPredicate.RowGroupHighlightPredicate(3)), "e"),
+                new MarkHighlighter(new HighlightPredicate.NotHighlightPredicate(
+                        new HighlightPredicate.AndHighlightPredicate(HighlightPredicate.ODD, 
+                                new HighlightPredicate.RowGroupHighlightPredicate(2))), "f"),
+                new MarkHighlighter(HighlightPredicate.ALWAYS, "g"),
+                new MarkHighlighter(new HighlightPredicate.NotHighlightPredicate(
+                        new HighlightPredicate.ColumnHighlightPredicate(1)), "h"));
+    }
+    
+    /**
+     * Appends a mark to the label's text.
+     */
+    private static class MarkHighlighter extends AbstractHighlighter {
+        private final String mark;
+
+        public MarkHighlighter(HighlightPredicate predicate, String mark) {
+            super(predicate);
+            this.mark = mark;
+        }
+
+        @Override
+        protected Component doHighlight(Component component, ComponentAdapter adapter) {
+            ((JLabel) component).setText(((JLabel) component).getText() + mark);
+            return component;
+        }
+    }
+
     /**
      * Test that the client is messaged on change to a managed Highlighter.
      */
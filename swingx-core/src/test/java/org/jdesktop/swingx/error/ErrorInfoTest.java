@@ -0,0 +1,86 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.error;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.logging.Level;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ErrorInfoTest extends TestCase {
+
+    @Test
+    public void testStateContainsSystemProperties() {
+        ErrorInfo info = new ErrorInfo("title", "basic", null, "category", null, null,
+                Collections.singletonMap("java.version", "custom"));
+        Map<String, String> state = info.getState();
+        assertEquals(System.getProperty("user.dir"), state.get("user.dir"));
+        assertEquals("custom", state.get("java.version"));
+        assertEquals("false", state.get("isOnEDT"));
+        assertNotNull(state.get("System.currentTimeMillis"));
+        assertEquals(Level.SEVERE, info.getErrorLevel());
+    }
+
+    @Test
+    public void testSystemStateShared() {
+        Map<String, String> first = ErrorInfo.getSystemState();
+        assertSame(first, ErrorInfo.getSystemState());
+        String key = "ErrorInfoTest.property";
+        System.setProperty(key, "value");
+        try {
+            Map<String, String> changed = ErrorInfo.getSystemState();
+            assertNotSame(first, changed);
+            assertEquals("value", changed.get(key));
+            assertEquals("value", new ErrorInfo(null, null, null, null, null, null, null)
+                    .getState().get(key));
+        } finally {
+            System.getProperties().remove(key);
+        }
+    }
+
+    /**
+     * ErrorInfo isn't Serializable, the event must serialize without it.
+     */
+    @Test
+    public void testErrorEventSerializable() throws Exception {
+        Exception exception = new Exception("failed");
+        ErrorEvent event = new ErrorEvent(
+                new ErrorInfo(null, null, null, null, exception, null, null), "source");
+        ObjectOutputStream out = new ObjectOutputStream(new ByteArrayOutputStream());
+        out.writeObject(event);
+        out.close();
+    }
+
+    @Test
+    public void testStateIsCopy() {
+        ErrorInfo info = new ErrorInfo(null, null, null, null, null, null, null);
+        info.getState().put("user.dir", "changed");
+        assertEquals(System.getProperty("user.dir"), info.getState().get("user.dir"));
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.error;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ErrorSupportTest extends TestCase {
+
+    private static class Report implements ErrorListener {
+        final List<ErrorEvent> events = new ArrayList<ErrorEvent>();
+
+        @Override
+        public void errorOccured(ErrorEvent event) {
+            events.add(event);
+        }
+    }
+
+    @Test
+    public void testDeliversAll() throws Exception {
+        ErrorSupport support = new ErrorSupport(this);
+        Report report = new Report();
+        support.addErrorListener(report);
+        for (int i = 0; i < 3; i++) {
+            support.fireErrorEvent(createException());
+        }
+        flush();
+        assertEquals(3, report.events.size());
+        assertSame(this, report.events.get(0).getSource());
+        assertEquals(0, support.getSuppressedCount());
+        assertEquals(1, support.getErrorListeners().length);
+    }
+
+    @Test
+    public void testSuppressDuplicates() throws Exception {
+        ErrorSupport support = new ErrorSupport(this);
+        support.setSuppressionInterval(60000);
+        Report report = new Report();
+        support.addErrorListener(report);
+        for (int i = 0; i < 10; i++) {
+            support.fireErrorEvent(createException());
+        }
+        support.fireErrorEvent(new IllegalStateException());
+        flush();
+        assertEquals(2, report.events.size());
+        assertEquals(11, support.getErrorCount());
+        assertEquals(9, support.getSuppressedCount());
+        support.resetCounts();
+        support.fireErrorEvent(createException());
+        flush();
+        assertEquals("signatures must be forgotten on reset", 3, report.events.size());
+    }
+
+    @Test
+    public void testRateLimit() throws Exception {
+        ErrorSupport support = new ErrorSupport(this);
+        support.setMaxEventsPerSecond(5);
+        Report report = new Report();
+        support.addErrorListener(report);
+        for (int i = 0; i < 20; i++) {
+            support.fireErrorEvent(new IllegalStateException("" + i));
+        }
+        flush();
+        assertTrue(report.events.size() <= 10);
+        assertEquals(20, support.getErrorCount());
+        assertEquals(20 - report.events.size(), support.getSuppressedCount());
+    }
+
+    @Test
+    public void testCategoryCounts() {
+        ErrorSupport support = new ErrorSupport(this);
+        support.fireErrorEvent(createInfo("db"));
+        support.fireErrorEvent(createInfo("db"));
+        support.fireErrorEvent(createInfo("net"));
+        support.fireErrorEvent(createException());
+        assertEquals(2, support.getErrorCount("db"));
+        assertEquals(1, support.getErrorCount("net"));
+        assertEquals(1, support.getErrorCount(null));
+        assertEquals(0, support.getErrorCount("other"));
+        assertEquals(3, support.getCategoryCounts().size());
+    }
+
+    @Test
+    public void testReportersBatched() throws Exception {
+        ErrorSupport support = new ErrorSupport(this);
+        support.setReportDelay(50);
+        final CountDownLatch latch = new CountDownLatch(3);
+        final List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>());
+        support.addErrorReporter(new ErrorReporter() {
+            @Override
+            public void reportError(ErrorInfo info) {
+                threads.add(Thread.currentThread());
+                latch.countDown();
+            }
+        });
+        ErrorInfo info = createInfo("db");
+        support.fireErrorEvent(info);
+        support.fireErrorEvent(createInfo("db"));
+        support.fireErrorEvent(createException());
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(3, threads.size());
+        assertNotSame(Thread.currentThread(), threads.get(0));
+        assertSame(threads.get(0), threads.get(2));
+    }
+
+    private ErrorInfo createInfo(String category) {
+        return new ErrorInfo("title", "basic", null, category, null, null, null);
+    }
+
+    private Exception createException() {
+        return new IllegalArgumentException("same place");
+    }
+
+    private void flush() throws Exception {
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+    }
+}
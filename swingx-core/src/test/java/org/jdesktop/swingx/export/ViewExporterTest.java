@@ -0,0 +1,178 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.export;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ConcurrentModificationException;
+import java.util.concurrent.ExecutionException;
+
+import javax.swing.DefaultListModel;
+import javax.swing.SwingUtilities;
+import javax.swing.table.DefaultTableModel;
+
+import junit.framework.TestCase;
+
+import org.jdesktop.swingx.JXList;
+import org.jdesktop.swingx.JXTable;
+import org.jdesktop.swingx.renderer.DefaultTableRenderer;
+import org.jdesktop.swingx.renderer.StringValue;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ViewExporterTest extends TestCase {
+
+    @Test
+    public void testFormatQuoting() throws IOException {
+        StringWriter writer = new StringWriter();
+        DelimitedFormat.CSV.writeRecord(writer, "plain", "a,b", "say \"hi\"", null, "line\nbreak");
+        assertEquals("plain,\"a,b\",\"say \"\"hi\"\"\",,\"line\nbreak\"\r\n", writer.toString());
+        writer = new StringWriter();
+        DelimitedFormat.TSV.writeRecord(writer, "a,b", "c\td");
+        assertEquals("a,b\t\"c\td\"\n", writer.toString());
+    }
+
+    @Test
+    public void testTableInViewOrder() throws Exception {
+        final JXTable table = createTable();
+        final StringWriter writer = new StringWriter();
+        final ViewExporter[] exporter = new ViewExporter[1];
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                table.getColumnExt(1).setVisible(false);
+                table.moveColumn(1, 0);
+                table.toggleSortOrder(0);
+                exporter[0] = new ViewExporter.TableExporter(table, writer, DelimitedFormat.CSV);
+                exporter[0].setChunkSize(2);
+            }
+        });
+        exporter[0].execute();
+        assertEquals(5, exporter[0].get().intValue());
+        assertEquals("Amount,Name\r\n<1>,a\r\n<2>,b\r\n<3>,c\r\n<4>,d\r\n<5>,e\r\n", 
+                writer.toString());
+        assertEquals(100, exporter[0].getProgress());
+        assertEquals(5, exporter[0].getExportedRowCount());
+    }
+
+    @Test
+    public void testList() throws Exception {
+        DefaultListModel model = new DefaultListModel();
+        model.addElement("one");
+        model.addElement("two, three");
+        final JXList list = new JXList(model, true);
+        list.setComparator(String.CASE_INSENSITIVE_ORDER);
+        list.toggleSortOrder();
+        StringWriter writer = new StringWriter();
+        ViewExporter exporter = new ViewExporter.ListExporter(list, writer, DelimitedFormat.TSV);
+        exporter.execute();
+        assertEquals(2, exporter.get().intValue());
+        assertEquals("one\ntwo, three\n", writer.toString());
+    }
+
+    @Test
+    public void testViewChanged() throws Exception {
+        final JXTable table = createTable();
+        final DefaultTableModel model = (DefaultTableModel) table.getModel();
+        // changes the model while the first chunk is read
+        table.getColumnExt("Name").setCellRenderer(new DefaultTableRenderer(new StringValue() {
+            @Override
+            public String getString(Object value) {
+                if (model.getRowCount() == 5) {
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            model.addRow(new Object[] {"f", 6, 6});
+                        }
+                    });
+                }
+                return String.valueOf(value);
+            }
+        }));
+        StringWriter writer = new StringWriter();
+        ViewExporter exporter = new ViewExporter.TableExporter(table, writer, DelimitedFormat.CSV);
+        exporter.setChunkSize(1);
+        exporter.setHeaderIncluded(false);
+        exporter.execute();
+        try {
+            exporter.get();
+            fail("export must fail if the model changed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ConcurrentModificationException);
+        }
+        assertTrue(exporter.getExportedRowCount() < 5);
+    }
+
+    /**
+     * Updates of hidden columns and of rows not read yet don't fail the export.
+     */
+    @Test
+    public void testUnreadUpdates() throws Exception {
+        final JXTable table = createTable();
+        final DefaultTableModel model = (DefaultTableModel) table.getModel();
+        table.getColumnExt("Hidden").setVisible(false);
+        // updates the model after the first chunk is read
+        table.getColumnExt("Name").setCellRenderer(new DefaultTableRenderer(new StringValue() {
+            @Override
+            public String getString(Object value) {
+                if ("c".equals(value)) {
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            model.setValueAt(9, 0, 1);
+                            model.setValueAt("z", 4, 0);
+                        }
+                    });
+                }
+                return String.valueOf(value);
+            }
+        }));
+        StringWriter writer = new StringWriter();
+        ViewExporter exporter = new ViewExporter.TableExporter(table, writer, DelimitedFormat.CSV);
+        exporter.setChunkSize(1);
+        exporter.setHeaderIncluded(false);
+        exporter.execute();
+        assertEquals(5, exporter.get().intValue());
+        assertEquals("c,<3>\r\na,<1>\r\ne,<5>\r\nb,<2>\r\nz,<4>\r\n", writer.toString());
+    }
+
+    private JXTable createTable() {
+        DefaultTableModel model = new DefaultTableModel(new Object[][] {
+                {"c", 3}, {"a", 1}, {"e", 5}, {"b", 2}, {"d", 4}}, 
+                new Object[] {"Name", "Hidden"}) {
+            @Override
+            public Class<?> getColumnClass(int columnIndex) {
+                return columnIndex == 0 ? String.class : Integer.class;
+            }
+        };
+        model.addColumn("Amount", new Object[] {3, 1, 5, 2, 4});
+        JXTable table = new JXTable(model);
+        table.getColumnExt("Amount").setCellRenderer(new DefaultTableRenderer(new StringValue() {
+            @Override
+            public String getString(Object value) {
+                return "<" + value + ">";
+            }
+        }));
+        return table;
+    }
+}
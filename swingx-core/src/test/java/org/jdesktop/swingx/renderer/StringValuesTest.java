@@ -22,6 +22,8 @@
 package org.jdesktop.swingx.renderer;
 
 import java.io.File;
+import java.text.DecimalFormat;
+import java.text.FieldPosition;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.Locale;
@@ -203,6 +205,42 @@ public class StringValuesTest extends TestCase {
                 StringValues.FILE_TYPE.getString(f));
     }
     
+    @Test
+    public void testCachingFormatStringValue() {
+        final int[] formatted = new int[1];
+        DecimalFormat format = new DecimalFormat("0.00") {
+            @Override
+            public StringBuffer format(double number, StringBuffer toAppendTo, FieldPosition pos) {
+                formatted[0]++;
+                return super.format(number, toAppendTo, pos);
+            }
+        };
+        String expected = format.format(1.5);
+        formatted[0] = 0;
+        CachingFormatStringValue sv = new CachingFormatStringValue(format, 2);
+        assertEquals("", sv.getString(null));
+        assertEquals(expected, sv.getString(1.5));
+        assertEquals(expected, sv.getString(1.5));
+        assertEquals(1, formatted[0]);
+        sv.getString(2.5);
+        sv.getString(1.5);
+        // evicts the least recently used 2.5
+        sv.getString(3.5);
+        assertEquals(3, formatted[0]);
+        sv.getString(1.5);
+        assertEquals(3, formatted[0]);
+        sv.getString(2.5);
+        assertEquals(4, formatted[0]);
+        sv.clearCache();
+        sv.getString(2.5);
+        assertEquals(5, formatted[0]);
+    }
+    
+    @Test (expected = IllegalArgumentException.class)
+    public void testCachingFormatStringValueSize() {
+        new CachingFormatStringValue(null, 0);
+    }
+    
     @BeforeClass
     public static void beforeClass() {
         // force loading of resource files
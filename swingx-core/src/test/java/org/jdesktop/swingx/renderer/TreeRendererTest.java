@@ -51,6 +51,7 @@ import org.jdesktop.swingx.InteractiveTestCase;
 import org.jdesktop.swingx.JXEditorPaneTest;
 import org.jdesktop.swingx.JXFrame;
 import org.jdesktop.swingx.JXHyperlink;
+import org.jdesktop.swingx.JXLabel;
 import org.jdesktop.swingx.JXTable;
 import org.jdesktop.swingx.JXTree;
 import org.jdesktop.swingx.action.AbstractActionExt;
@@ -145,6 +146,23 @@ public class TreeRendererTest extends InteractiveTestCase {
         assertEquals("hyperlink color must be preserved", foreground, context.rendererComponent.getForeground());
     }
     
+    /**
+     * A line wrapping JXLabel as node content must use the lightweight wrapping.
+     */
+    @Test
+    public void testWrappeeLightweightLineWrap() {
+        final JXLabel label = new JXLabel();
+        label.setLineWrap(true);
+        LabelProvider wrappee = new LabelProvider() {
+            @Override
+            protected JLabel createRendererComponent() {
+                return label;
+            }
+        };
+        new WrappingProvider(wrappee);
+        assertTrue(label.isLightweightLineWrap());
+    }
+    
     /**
      * related to Issue #22-swingx: tree background highlighting broken.
      * test if background color is moved down to delegate component.
@@ -0,0 +1,278 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ */
+package org.jdesktop.swingx.search;
+
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.swing.SwingUtilities;
+import javax.swing.text.Highlighter.Highlight;
+import javax.swing.text.PlainDocument;
+
+import junit.framework.TestCase;
+
+import org.jdesktop.swingx.JXEditorPane;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests for IndexedDocumentSearchable and DocumentCharSequence.
+ */
+@RunWith(JUnit4.class)
+public class IndexedDocumentSearchableTest extends TestCase {
+
+    private static final String TEXT = "one two one three one";
+
+    @Test
+    public void testCharSequenceContent() throws Exception {
+        PlainDocument document = new PlainDocument();
+        document.insertString(0, "some text", null);
+        // force a gap in the middle
+        document.insertString(4, " more", null);
+        DocumentCharSequence sequence = new DocumentCharSequence(document);
+        assertEquals(document.getLength(), sequence.length());
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < sequence.length(); i++) {
+            builder.append(sequence.charAt(i));
+        }
+        assertEquals("some more text", builder.toString());
+        assertEquals("more", sequence.subSequence(5, 9).toString());
+        Matcher matcher = Pattern.compile("more t").matcher(sequence);
+        assertTrue(matcher.find());
+        assertEquals(5, matcher.start());
+    }
+
+    @Test (expected = IndexOutOfBoundsException.class)
+    public void testCharSequenceOutOfBounds() throws Exception {
+        PlainDocument document = new PlainDocument();
+        document.insertString(0, "some", null);
+        new DocumentCharSequence(document, 2, 3);
+    }
+
+    @Test (expected = NullPointerException.class)
+    public void testFailsOnNullTarget() {
+        new IndexedDocumentSearchable(null);
+    }
+
+    @Test
+    public void testSearchForward() throws Exception {
+        final JXEditorPane editor = createEditor();
+        final IndexedDocumentSearchable searchable = new IndexedDocumentSearchable(editor);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                int found = searchable.search("one");
+                assertEquals(0, found);
+                found = searchable.search("one", found);
+                assertEquals(8, found);
+                assertEquals("one", editor.getSelectedText());
+                found = searchable.search("one", found);
+                assertEquals(18, found);
+                assertEquals(-1, searchable.search("one", found));
+            }
+        });
+    }
+
+    @Test
+    public void testSearchBackward() throws Exception {
+        final JXEditorPane editor = createEditor();
+        final IndexedDocumentSearchable searchable = new IndexedDocumentSearchable(editor);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                int found = searchable.search("one", -1, true);
+                assertEquals(18, found);
+                found = searchable.search("one", found, true);
+                assertEquals(8, found);
+                found = searchable.search("one", found, true);
+                assertEquals(0, found);
+                assertEquals(-1, searchable.search("one", found, true));
+            }
+        });
+    }
+
+    @Test
+    public void testExtendedMatch() throws Exception {
+        final JXEditorPane editor = createEditor();
+        final IndexedDocumentSearchable searchable = new IndexedDocumentSearchable(editor);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                int found = searchable.search("t");
+                assertEquals(4, found);
+                assertEquals("incremental typing must keep position",
+                        4, searchable.search("tw", found));
+                assertEquals(12, searchable.search("th", found));
+            }
+        });
+    }
+
+    @Test
+    public void testIndexAllMatches() throws Exception {
+        final JXEditorPane editor = createEditor();
+        final IndexedDocumentSearchable searchable = new IndexedDocumentSearchable(editor);
+        searchable.setChunkSize(5);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                searchable.search("one");
+            }
+        });
+        waitForIndex(searchable);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                assertTrue(Arrays.equals(new int[] {0, 8, 18}, searchable.getMatchStarts()));
+                assertEquals(3, getMatchHighlightCount(searchable));
+                searchable.setHighlightAll(false);
+                assertEquals(0, getMatchHighlightCount(searchable));
+            }
+        });
+    }
+
+    /**
+     * Matches longer than the chunk and the region margin are found whole.
+     */
+    @Test
+    public void testIndexMatchesAcrossChunks() throws Exception {
+        final JXEditorPane editor = createEditor();
+        final IndexedDocumentSearchable searchable = new IndexedDocumentSearchable(editor);
+        searchable.setChunkSize(4);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                editor.setText("a xxxxxxxxxxxxxxxxxxxxxxx b xx c xxxxxxx d x");
+                searchable.search("x+");
+            }
+        });
+        waitForIndex(searchable);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                assertTrue(Arrays.toString(searchable.getMatchStarts()),
+                        Arrays.equals(new int[] {2, 28, 33, 43}, searchable.getMatchStarts()));
+            }
+        });
+    }
+
+    /**
+     * A pattern without matches scans each chunk once, not up to the end
+     * of the document.
+     */
+    @Test
+    public void testIndexLargeDocumentWithoutMatches() throws Exception {
+        final JXEditorPane editor = createEditor();
+        final IndexedDocumentSearchable searchable = new IndexedDocumentSearchable(editor);
+        final char[] text = new char[4000000];
+        Arrays.fill(text, 'a');
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                editor.setText(new String(text));
+            }
+        });
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                searchable.search("ab");
+            }
+        });
+        // waits at most 2 seconds
+        waitForIndex(searchable);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                assertEquals(0, searchable.getMatchCount());
+            }
+        });
+    }
+
+    @Test
+    public void testInvalidateOnDocumentChange() throws Exception {
+        final JXEditorPane editor = createEditor();
+        final IndexedDocumentSearchable searchable = new IndexedDocumentSearchable(editor);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                searchable.search("one");
+            }
+        });
+        waitForIndex(searchable);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    editor.getDocument().insertString(12, "one ", null);
+                } catch (Exception e) {
+                    fail(e.getMessage());
+                }
+                assertTrue(Arrays.equals(new int[] {0, 8}, searchable.getMatchStarts()));
+            }
+        });
+        waitForIndex(searchable);
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                assertTrue(Arrays.equals(new int[] {0, 8, 12, 22}, searchable.getMatchStarts()));
+                assertEquals(4, getMatchHighlightCount(searchable));
+            }
+        });
+    }
+
+    private int getMatchHighlightCount(IndexedDocumentSearchable searchable) {
+        int count = 0;
+        for (Highlight highlight : searchable.getTarget().getHighlighter().getHighlights()) {
+            if (highlight.getPainter() == searchable.getHighlightPainter()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private JXEditorPane createEditor() throws Exception {
+        final JXEditorPane[] editor = new JXEditorPane[1];
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                editor[0] = new JXEditorPane();
+                editor[0].setText(TEXT);
+            }
+        });
+        return editor[0];
+    }
+
+    private void waitForIndex(final IndexedDocumentSearchable searchable) throws Exception {
+        final boolean[] complete = new boolean[1];
+        for (int i = 0; i < 200 && !complete[0]; i++) {
+            Thread.sleep(10);
+            SwingUtilities.invokeAndWait(new Runnable() {
+                @Override
+                public void run() {
+                    complete[0] = searchable.isIndexComplete();
+                }
+            });
+        }
+        assertTrue("index must be complete", complete[0]);
+    }
+}
@@ -3,9 +3,15 @@ package org.jdesktop.swingx.search;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.util.Arrays;
 import java.util.prefs.Preferences;
 
+import org.jdesktop.swingx.search.RecentSearchesStore.FileStore;
+import org.jdesktop.swingx.search.RecentSearchesStore.MemoryStore;
+
 import org.jdesktop.swingx.JXSearchField;
 import org.junit.Before;
 import org.junit.Test;
@@ -102,4 +108,87 @@ public class RecentSearchesTest {
 		assertSame(0, searchHistory.getChangeListeners().length);
 		assertNull(searchField.getFindPopupMenu());
 	}
+
+	@Test
+	public void testMemoryStore() throws Exception {
+		MemoryStore store = new MemoryStore();
+		RecentSearches rs = new RecentSearches(store, 0);
+		assertSame(store, rs.getStore());
+		rs.put("search1");
+		rs.put("search2");
+		assertEquals(Arrays.asList("search2", "search1"), store.load());
+		assertSame(2, new RecentSearches(store, 0).getLength());
+	}
+
+	@Test
+	public void testFileStore() throws Exception {
+		File file = File.createTempFile("recentsearches", ".txt");
+		file.deleteOnExit();
+		RecentSearches rs = new RecentSearches(new FileStore(file), 0);
+		rs.put("search1");
+		rs.put("search2");
+		RecentSearches loaded = new RecentSearches(new FileStore(file), 0);
+		assertEquals("search2", loaded.getRecentSearches()[0]);
+		assertEquals("search1", loaded.getRecentSearches()[1]);
+	}
+
+	/**
+	 * A store interrupted between deleting the file and renaming the
+	 * temporary file must not lose the list.
+	 */
+	@Test
+	public void testFileStoreInterruptedRename() throws Exception {
+		File file = File.createTempFile("recentsearches", ".txt");
+		file.deleteOnExit();
+		File tmp = new File(file.getPath() + ".tmp");
+		tmp.deleteOnExit();
+		RecentSearches rs = new RecentSearches(new FileStore(file), 0);
+		rs.put("search1");
+		assertTrue(file.renameTo(tmp));
+		RecentSearches loaded = new RecentSearches(new FileStore(file), 0);
+		assertEquals("search1", loaded.getRecentSearches()[0]);
+	}
+
+	@Test
+	public void testWriteBehindCoalesces() throws Exception {
+		final int[] writes = new int[1];
+		MemoryStore store = new MemoryStore() {
+			@Override
+			public synchronized void store(java.util.List<String> recentSearches) {
+				writes[0]++;
+				super.store(recentSearches);
+			}
+		};
+		RecentSearches rs = new RecentSearches(store, 10000);
+		rs.put("search1");
+		rs.put("search2");
+		rs.put("search3");
+		assertSame(0, writes[0]);
+		assertTrue(store.load().isEmpty());
+		rs.flush();
+		assertSame(1, writes[0]);
+		assertEquals(Arrays.asList("search3", "search2", "search1"), store.load());
+		rs.flush();
+		assertSame(1, writes[0]);
+	}
+
+	@Test
+	public void testWriteBehindBackgroundFlush() throws Exception {
+		MemoryStore store = new MemoryStore();
+		RecentSearches rs = new RecentSearches(store, 1);
+		rs.put("search1");
+		for (int i = 0; i < 100 && store.load().isEmpty(); i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(Arrays.asList("search1"), store.load());
+	}
+
+	@Test
+	public void testDisableWriteBehindFlushes() throws Exception {
+		MemoryStore store = new MemoryStore();
+		RecentSearches rs = new RecentSearches(store, 10000);
+		rs.put("search1");
+		rs.setWriteBehindDelay(0);
+		assertEquals(Arrays.asList("search1"), store.load());
+	}
 }
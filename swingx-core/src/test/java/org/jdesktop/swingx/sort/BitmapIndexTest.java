@@ -0,0 +1,149 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.sort;
+
+import java.util.BitSet;
+
+import javax.swing.table.DefaultTableModel;
+
+import junit.framework.TestCase;
+
+import org.jdesktop.swingx.JXTable;
+import org.jdesktop.swingx.sort.BitmapIndex.IndexFilter;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Unit test of BitmapIndex.
+ */
+@RunWith(JUnit4.class)
+public class BitmapIndexTest extends TestCase {
+
+    private DefaultTableModel model;
+    private JXTable table;
+    private BitmapIndex index;
+
+    @Test
+    public void testRows() {
+        assertEquals(bits(0, 2, 4), index.getRows(0, "a"));
+        assertEquals(new BitSet(), index.getRows(0, "x"));
+        assertEquals(2, index.getRowCount(1, 1));
+        assertEquals(3, index.getValues(0).size());
+    }
+
+    @Test
+    public void testFilters() {
+        table.setRowFilter(index.equalFilter(0, "a"));
+        assertEquals(3, table.getRowCount());
+        table.setRowFilter(index.andFilter(index.inFilter(0, "a", "c"), 
+                index.equalFilter(1, 1)));
+        assertEquals(2, table.getRowCount());
+        assertEquals(0, table.convertRowIndexToModel(0));
+        assertEquals(5, table.convertRowIndexToModel(1));
+        table.setRowFilter(index.orFilter(index.equalFilter(0, "b"), 
+                index.equalFilter(1, 1)));
+        assertEquals(4, table.getRowCount());
+        table.setRowFilter(index.notFilter(index.equalFilter(0, "a")));
+        assertEquals(3, table.getRowCount());
+    }
+
+    @Test
+    public void testUpdate() {
+        table.setSortsOnUpdates(true);
+        table.setRowFilter(index.equalFilter(0, "a"));
+        model.setValueAt("b", 0, 0);
+        assertEquals(2, table.getRowCount());
+        assertEquals(bits(0, 1, 3), index.getRows(0, "b"));
+        model.setValueAt("d", 5, 0);
+        assertFalse(index.getValues(0).contains("c"));
+        assertTrue(index.getValues(0).contains("d"));
+    }
+
+    @Test
+    public void testInsertRemove() {
+        table.setRowFilter(index.equalFilter(0, "a"));
+        model.addRow(new Object[] {"a", 3});
+        assertEquals(4, table.getRowCount());
+        assertEquals(bits(0, 2, 4, 6), index.getRows(0, "a"));
+        model.removeRow(6);
+        assertEquals(3, table.getRowCount());
+        // not at the end: discarded and rebuilt
+        model.removeRow(0);
+        assertEquals(2, table.getRowCount());
+        assertEquals(bits(1, 3), index.getRows(0, "a"));
+        model.insertRow(0, new Object[] {"a", 2});
+        assertEquals(3, table.getRowCount());
+        assertEquals(bits(0, 2, 4), index.getRows(0, "a"));
+    }
+
+    @Test
+    public void testCachedRows() {
+        final int[] computed = new int[1];
+        IndexFilter filter = new IndexFilter(index) {
+            @Override
+            protected BitSet computeRows() {
+                computed[0]++;
+                return new BitSet();
+            }
+        };
+        table.setRowFilter(filter);
+        assertEquals(1, computed[0]);
+        table.setRowFilter(null);
+        table.setRowFilter(filter);
+        assertEquals(1, computed[0]);
+        model.setValueAt("b", 0, 0);
+        table.setRowFilter(null);
+        table.setRowFilter(filter);
+        assertEquals(2, computed[0]);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testForeignFilter() {
+        index.andFilter(new BitmapIndex(model).equalFilter(0, "a"));
+    }
+
+    @Test
+    public void testDispose() {
+        int listeners = model.getTableModelListeners().length;
+        index.dispose();
+        assertEquals(listeners - 1, model.getTableModelListeners().length);
+    }
+
+    private static BitSet bits(int... rows) {
+        BitSet bits = new BitSet();
+        for (int row : rows) {
+            bits.set(row);
+        }
+        return bits;
+    }
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        model = new DefaultTableModel(new Object[][] {
+                {"a", 1}, {"b", 2}, {"a", 2}, {"b", 2}, {"a", 3}, {"c", 1}},
+                new Object[] {"category", "level"});
+        table = new JXTable(model);
+        index = new BitmapIndex(model);
+    }
+}
@@ -24,15 +24,19 @@ package org.jdesktop.swingx.sort;
 import static org.junit.Assert.*;
 
 import java.awt.Color;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.logging.Logger;
 
 import javax.swing.RowFilter;
 import javax.swing.SortOrder;
+import javax.swing.table.AbstractTableModel;
 import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableModel;
 
+import org.jdesktop.swingx.table.PrimitiveTableModel;
 import org.jdesktop.test.AncientSwingTeam;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -210,6 +214,118 @@ public class TableSortControllerTest extends
         registry.setColumnClasses(classPerColumn);
     }
 
+    /**
+     * Primitive columns are compared by their primitive values.
+     */
+    @Test
+    public void testPrimitiveComparator() {
+        PrimitiveModel model = new PrimitiveModel(new double[] {1}, new long[] {1});
+        controller.setModel(model);
+        assertSame(TableSortController.DOUBLE_COMPARATOR, controller.getComparator(0));
+        assertSame(TableSortController.LONG_COMPARATOR, controller.getComparator(1));
+        assertFalse(controller.useToString(0));
+        assertFalse(controller.useToString(1));
+        // custom comparator wins
+        controller.setComparator(0, Collections.reverseOrder());
+        assertSame(Collections.reverseOrder(), controller.getComparator(0));
+    }
+    
+    /**
+     * Sorting primitive columns doesn't access the boxed cell values of the model.
+     */
+    @Test
+    public void testPrimitiveSort() {
+        double[] doubles = {3.5, -1, 2, Double.NaN, 0};
+        long[] longs = {Long.MAX_VALUE, 7, Long.MIN_VALUE, 0, 7};
+        PrimitiveModel model = new PrimitiveModel(doubles, longs);
+        controller.setModel(model);
+        controller.toggleSortOrder(0);
+        assertEquals(0, model.valueAccess);
+        double[] sortedDoubles = doubles.clone();
+        Arrays.sort(sortedDoubles);
+        for (int i = 0; i < doubles.length; i++) {
+            assertEquals(sortedDoubles[i], doubles[controller.convertRowIndexToModel(i)], 0);
+        }
+        controller.toggleSortOrder(1);
+        assertEquals(0, model.valueAccess);
+        long[] sortedLongs = longs.clone();
+        Arrays.sort(sortedLongs);
+        for (int i = 0; i < longs.length; i++) {
+            assertEquals(sortedLongs[i], longs[controller.convertRowIndexToModel(i)]);
+        }
+    }
+    
+    /**
+     * Sorting primitive columns picks up changed values.
+     */
+    @Test
+    public void testPrimitiveSortAfterUpdate() {
+        double[] doubles = {1, 2, 3};
+        PrimitiveModel model = new PrimitiveModel(doubles, new long[3]);
+        controller.setModel(model);
+        controller.setSortsOnUpdates(true);
+        controller.toggleSortOrder(0);
+        assertEquals(0, controller.convertRowIndexToModel(0));
+        doubles[0] = 4;
+        controller.rowsUpdated(0, 0);
+        assertEquals(0, controller.convertRowIndexToModel(2));
+        doubles[1] = 5;
+        controller.allRowsChanged();
+        assertEquals(1, controller.convertRowIndexToModel(2));
+    }
+    
+    /**
+     * A model with a primitive double and long column, counting the 
+     * access of the boxed values.
+     */
+    public static class PrimitiveModel extends AbstractTableModel implements PrimitiveTableModel {
+        private final double[] doubles;
+        private final long[] longs;
+        int valueAccess;
+        
+        public PrimitiveModel(double[] doubles, long[] longs) {
+            this.doubles = doubles;
+            this.longs = longs;
+        }
+
+        @Override
+        public Class<?> getPrimitiveClass(int columnIndex) {
+            return columnIndex == 0 ? double.class : long.class;
+        }
+
+        @Override
+        public Class<?> getColumnClass(int columnIndex) {
+            return columnIndex == 0 ? Double.class : Long.class;
+        }
+
+        @Override
+        public double getDouble(int rowIndex, int columnIndex) {
+            return doubles[rowIndex];
+        }
+
+        @Override
+        public long getLong(int rowIndex, int columnIndex) {
+            return longs[rowIndex];
+        }
+
+        @Override
+        public int getRowCount() {
+            return doubles.length;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return 2;
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            valueAccess++;
+            return columnIndex == 0 ? (Object) getDouble(rowIndex, columnIndex) 
+                    : (Object) getLong(rowIndex, columnIndex);
+        }
+    }
+    
     @Override
     protected TableSortController<TableModel> createDefaultSortController(
             TableModel model) {
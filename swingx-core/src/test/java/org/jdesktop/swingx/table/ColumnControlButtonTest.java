@@ -9,6 +9,8 @@ package org.jdesktop.swingx.table;
 import java.awt.Component;
 import java.awt.GraphicsEnvironment;
 import java.awt.event.ActionEvent;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Logger;
 
 import javax.swing.AbstractAction;
@@ -22,6 +24,8 @@ import javax.swing.JToggleButton;
 import javax.swing.KeyStroke;
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
 import javax.swing.table.TableColumn;
 import javax.swing.table.TableModel;
 
@@ -32,6 +36,7 @@ import org.jdesktop.swingx.action.ActionContainerFactory;
 import org.jdesktop.swingx.icon.EmptyIcon;
 import org.jdesktop.swingx.plaf.ColumnControlButtonAddon;
 import org.jdesktop.swingx.plaf.LookAndFeelAddons;
+import org.jdesktop.swingx.table.ColumnControlButton.ColumnChooserPopup;
 import org.jdesktop.swingx.table.ColumnControlButton.ColumnVisibilityAction;
 import org.jdesktop.swingx.table.ColumnControlButton.DefaultColumnControlPopup;
 import org.jdesktop.swingx.table.ColumnControlButtonVisualCheck.GroupKeyActionGrouper;
@@ -117,6 +122,113 @@ public class ColumnControlButtonTest extends InteractiveTestCase {
         
     }
     
+    /**
+     * ColumnChooserPopup: visibility actions are created on toggle only.
+     */
+    @Test
+    public void testColumnChooserLazyActions() {
+        JXTable table = new JXTable(10, 4);
+        ColumnControlButton button = createChooserControl(table);
+        ColumnChooserPopup popup = (ColumnChooserPopup) button.getColumnControlPopup();
+        assertEquals(table.getColumnCount(), popup.getList().getElementCount());
+        assertEquals(0, button.getColumnVisibilityActions().size());
+        TableColumnExt column = table.getColumnExt(1);
+        popup.toggleColumn(1);
+        assertEquals(1, button.getColumnVisibilityActions().size());
+        assertEquals(3, table.getColumnCount());
+        assertFalse(column.isVisible());
+        popup.toggleColumn(1);
+        assertEquals(1, button.getColumnVisibilityActions().size());
+        assertTrue(column.isVisible());
+    }
+
+    /**
+     * ColumnChooserPopup: hiding the last visible column is not allowed.
+     */
+    @Test
+    public void testColumnChooserLastVisible() {
+        JXTable table = new JXTable(10, 2);
+        ColumnControlButton button = createChooserControl(table);
+        ColumnChooserPopup popup = (ColumnChooserPopup) button.getColumnControlPopup();
+        TableColumnExt last = table.getColumnExt(1);
+        popup.toggleColumn(0);
+        popup.toggleColumn(1);
+        assertEquals(1, table.getColumnCount());
+        assertTrue(last.isVisible());
+    }
+
+    /**
+     * ColumnChooserPopup: columns are added/removed without re-populating.
+     */
+    @Test
+    public void testColumnChooserColumnModelChanges() {
+        JXTable table = new JXTable(10, 4);
+        ColumnControlButton button = createChooserControl(table);
+        ColumnChooserPopup popup = (ColumnChooserPopup) button.getColumnControlPopup();
+        JComponent list = popup.getList();
+        TableColumnExt removed = table.getColumnExt(0);
+        popup.toggleColumn(0);
+        TableColumnExt added = new TableColumnExt(0);
+        table.addColumn(added);
+        assertSame(list, popup.getList());
+        assertEquals(5, popup.getList().getElementCount());
+        assertSame(added, popup.getList().getElementAt(4));
+        removed.setVisible(true);
+        assertEquals(5, popup.getList().getElementCount());
+        final List<ListDataEvent> events = new ArrayList<ListDataEvent>();
+        popup.getListModel().addListDataListener(new ListDataListener() {
+            @Override
+            public void intervalAdded(ListDataEvent e) {
+                events.add(e);
+            }
+
+            @Override
+            public void intervalRemoved(ListDataEvent e) {
+                events.add(e);
+            }
+
+            @Override
+            public void contentsChanged(ListDataEvent e) {
+                events.add(e);
+            }
+        });
+        table.removeColumn(removed);
+        assertEquals(4, popup.getList().getElementCount());
+        assertEquals("only the row of the removed column is removed", 1, events.size());
+        assertEquals(ListDataEvent.INTERVAL_REMOVED, events.get(0).getType());
+        assertEquals(0, events.get(0).getIndex0());
+        assertEquals("action of removed column must be released", 
+                0, button.getColumnVisibilityActions().size());
+    }
+
+    /**
+     * ColumnChooserPopup: the filter field filters by header value.
+     */
+    @Test
+    public void testColumnChooserFilter() {
+        JXTable table = new JXTable(10, 4);
+        table.getColumn(2).setHeaderValue("Priority");
+        ColumnControlButton button = createChooserControl(table);
+        ColumnChooserPopup popup = (ColumnChooserPopup) button.getColumnControlPopup();
+        popup.getFilterField().setText("prio");
+        popup.updateFilter();
+        assertEquals(1, popup.getList().getElementCount());
+        popup.toggleColumn(0);
+        assertFalse(table.getColumnExt("Priority").isVisible());
+        popup.getFilterField().setText("");
+        popup.updateFilter();
+        assertEquals(4, popup.getList().getElementCount());
+    }
+
+    private ColumnControlButton createChooserControl(JXTable table) {
+        return new ColumnControlButton(table) {
+            @Override
+            protected ColumnControlPopup createColumnControlPopup() {
+                return new ColumnChooserPopup();
+            }
+        };
+    }
+
     /**
      * Issue #1573-swingx: !hideable column action must be disabled
      * Problem: isn't initially
@@ -52,6 +52,7 @@ import org.jdesktop.swingx.text.StrictNumberFormatter;
 import org.jdesktop.swingx.JXFrame;
 import org.jdesktop.swingx.JXTable;
 import org.jdesktop.swingx.JXTable.NumberEditor;
+import org.jdesktop.swingx.sort.TableSortControllerTest;
 import org.jdesktop.test.CellEditorReport;
 import org.junit.Before;
 import org.junit.Test;
@@ -145,6 +146,25 @@ public class NumberEditorExtTest extends InteractiveTestCase {
         cellEditor.getTableCellEditorComponent(table, null, false, 0, OBJECT_COLUMN);
     }
 
+    /**
+     * Primitive columns of a PrimitiveTableModel are edited as wrapper types.
+     */
+    @Test
+    public void testPrimitiveColumns() {
+        JXTable primitiveTable = new JXTable(new TableSortControllerTest.PrimitiveModel(
+                new double[] {1.5}, new long[] {3}));
+        NumberFormat format = NumberFormat.getInstance();
+        NumberEditorExt editor = new NumberEditorExt();
+        editor.getTableCellEditorComponent(primitiveTable, 1.5, false, 0, 0);
+        editor.getComponent().setText(format.format(2.5));
+        assertEquals(Double.valueOf(2.5), editor.getCellEditorValue());
+        editor.getTableCellEditorComponent(primitiveTable, 3L, false, 0, 1);
+        editor.getComponent().setText(format.format(4));
+        assertEquals(Long.valueOf(4), editor.getCellEditorValue());
+        editor.getComponent().setText(format.format(4.5));
+        assertFalse("fraction is invalid for long column", editor.isValid());
+    }
+    
 //---------------- Sanity testing: StrictNumberFormatter - 
     
     /**
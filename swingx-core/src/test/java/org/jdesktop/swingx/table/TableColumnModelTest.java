@@ -481,6 +481,64 @@ public class TableColumnModelTest extends InteractiveTestCase {
         assertEquals("out of range", -1, model.getColumnIndexAtX(totalWidth - 10));
     }
 
+    /**
+     * Identifier lookup must include hidden columns and 
+     * follow changes of the identifier.
+     */
+    @Test
+    public void testGetColumnExtByIdentifier() {
+        TableColumnModelExt model = createColumnModel(COLUMN_COUNT);
+        TableColumnExt column = model.getColumnExt("1");
+        assertSame(model.getColumn(1), column);
+        column.setVisible(false);
+        assertSame("hidden column must be found", column, model.getColumnExt("1"));
+        column.setIdentifier("changed");
+        assertNull(model.getColumnExt("1"));
+        assertSame(column, model.getColumnExt("changed"));
+        model.removeColumn(column);
+        assertNull(model.getColumnExt("changed"));
+        TableColumnExt added = createTableColumnExt(COLUMN_COUNT);
+        model.addColumn(added);
+        assertSame(added, model.getColumnExt(String.valueOf(COLUMN_COUNT)));
+    }
+    
+    /**
+     * Identifier lookup must return the first column with the identifier,
+     * the header value is used if no identifier is set.
+     */
+    @Test
+    public void testGetColumnExtByHeaderValue() {
+        TableColumnModelExt model = createColumnModel(COLUMN_COUNT);
+        TableColumnExt first = model.getColumnExt(0);
+        first.setIdentifier(null);
+        first.setHeaderValue("duplicate");
+        TableColumnExt second = model.getColumnExt(1);
+        second.setIdentifier("duplicate");
+        assertSame(first, model.getColumnExt("duplicate"));
+        first.setHeaderValue("other");
+        assertSame(second, model.getColumnExt("duplicate"));
+        assertSame(first, model.getColumnExt("other"));
+    }
+    
+    /**
+     * Model index lookup must include hidden columns and 
+     * follow changes of the model index.
+     */
+    @Test
+    public void testGetColumnByModelIndex() {
+        DefaultTableColumnModelExt model = (DefaultTableColumnModelExt) createColumnModel(COLUMN_COUNT);
+        TableColumnExt column = model.getColumnExt(2);
+        assertSame(column, model.getColumnByModelIndex(2));
+        column.setVisible(false);
+        assertSame(column, model.getColumnByModelIndex(2));
+        column.setModelIndex(5);
+        assertNull(model.getColumnByModelIndex(2));
+        assertSame(column, model.getColumnByModelIndex(5));
+        assertNull(model.getColumnByModelIndex(-1));
+        model.removeColumn(column);
+        assertNull(model.getColumnByModelIndex(5));
+    }
+
 //------------------  factory methods
     
     /**
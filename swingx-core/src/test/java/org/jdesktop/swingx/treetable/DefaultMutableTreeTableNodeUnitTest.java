@@ -3,7 +3,12 @@
  */
 package org.jdesktop.swingx.treetable;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Enumeration;
+import java.util.List;
 
 import javax.swing.tree.DefaultMutableTreeNode;
 
@@ -18,6 +23,140 @@ import org.junit.runners.JUnit4;
  */
 @RunWith(JUnit4.class)
 public class DefaultMutableTreeTableNodeUnitTest extends TestCase {
+    /**
+     * A node using an identity indexed children list.
+     */
+    private static class IndexedNode extends DefaultMutableTreeTableNode {
+        IndexedNode(Object userObject) {
+            super(userObject);
+        }
+        
+        @Override
+        protected List<MutableTreeTableNode> createChildrenList() {
+            return new IdentityIndexedList<MutableTreeTableNode>();
+        }
+    }
+    
+    @Test
+    public void testInsertAll() {
+        DefaultMutableTreeTableNode root = new DefaultMutableTreeTableNode("root");
+        DefaultMutableTreeTableNode other = new DefaultMutableTreeTableNode("other");
+        DefaultMutableTreeTableNode a = new DefaultMutableTreeTableNode("a");
+        DefaultMutableTreeTableNode b = new DefaultMutableTreeTableNode("b");
+        DefaultMutableTreeTableNode c = new DefaultMutableTreeTableNode("c");
+        root.add(a);
+        other.add(c);
+        
+        root.insertAll(Arrays.asList(b, c), 0);
+        
+        assertEquals(3, root.getChildCount());
+        assertSame(b, root.getChildAt(0));
+        assertSame(c, root.getChildAt(1));
+        assertSame(a, root.getChildAt(2));
+        assertSame(root, c.getParent());
+        assertEquals(0, other.getChildCount());
+        
+        try {
+            root.insertAll(Arrays.asList(a), 0);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            //do nothing
+        }
+        
+        DefaultMutableTreeTableNode d = new DefaultMutableTreeTableNode("d");
+        other.add(d);
+        try {
+            root.insertAll(Arrays.asList(d, a), 0);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertSame("nodes must not be detached on failure", other, d.getParent());
+        }
+    }
+    
+    @Test
+    public void testRemoveAll() {
+        DefaultMutableTreeTableNode root = new IndexedNode("root");
+        List<DefaultMutableTreeTableNode> nodes = new ArrayList<DefaultMutableTreeTableNode>();
+        
+        for (int i = 0; i < 5; i++) {
+            nodes.add(new DefaultMutableTreeTableNode(i));
+        }
+        
+        root.insertAll(nodes, 0);
+        root.removeAll(Arrays.asList(nodes.get(1), nodes.get(3),
+                new DefaultMutableTreeTableNode("unrelated")));
+        
+        assertEquals(3, root.getChildCount());
+        assertEquals(1, root.getIndex(nodes.get(2)));
+        assertEquals(2, root.getIndex(nodes.get(4)));
+        assertEquals(-1, root.getIndex(nodes.get(3)));
+        assertNull(nodes.get(3).getParent());
+    }
+    
+    @Test
+    public void testSortChildren() {
+        DefaultMutableTreeTableNode root = new IndexedNode("root");
+        
+        for (String s : new String[] {"c", "a", "b"}) {
+            root.add(new DefaultMutableTreeTableNode(s));
+        }
+        
+        root.sortChildren(new Comparator<MutableTreeTableNode>() {
+            @Override
+            public int compare(MutableTreeTableNode o1, MutableTreeTableNode o2) {
+                return o1.getUserObject().toString().compareTo(o2.getUserObject().toString());
+            }
+        });
+        
+        assertEquals("a", root.getChildAt(0).getUserObject());
+        assertEquals("b", root.getChildAt(1).getUserObject());
+        assertEquals("c", root.getChildAt(2).getUserObject());
+        assertEquals(2, root.getIndex(root.getChildAt(2)));
+    }
+    
+    @Test
+    public void testIdentityIndexedList() {
+        IdentityIndexedList<String> list = new IdentityIndexedList<String>();
+        String a = new String("a");
+        String otherA = new String("a");
+        list.addAll(Arrays.asList(a, "b", "c"));
+        
+        assertEquals(0, list.indexOf(a));
+        assertEquals("elements must be compared by identity", -1, list.indexOf(otherA));
+        
+        list.add(1, otherA);
+        assertEquals(1, list.indexOf(otherA));
+        assertEquals(3, list.indexOf("c"));
+        
+        list.remove(0);
+        assertEquals(-1, list.indexOf(a));
+        assertEquals(0, list.indexOf(otherA));
+        assertEquals(2, list.indexOf("c"));
+        
+        list.set(2, "d");
+        assertFalse(list.contains("c"));
+        assertEquals(2, list.indexOf("d"));
+        assertEquals(Arrays.asList("a", "b", "d"), list);
+    }
+    
+    @Test
+    public void testIdentityIndexedListPermutations() {
+        IdentityIndexedList<String> list = new IdentityIndexedList<String>();
+        list.addAll(Arrays.asList("a", "b", "c", "d"));
+        
+        Collections.swap(list, 0, 2);
+        assertEquals(Arrays.asList("c", "b", "a", "d"), list);
+        assertEquals(2, list.indexOf("a"));
+        assertEquals(0, list.indexOf("c"));
+        assertTrue(list.contains("a"));
+        
+        Collections.reverse(list);
+        assertEquals(Arrays.asList("d", "a", "b", "c"), list);
+        for (int i = 0; i < list.size(); i++) {
+            assertEquals(i, list.indexOf(list.get(i)));
+        }
+    }
+    
     @Test
      public void testAdd() {
          DefaultMutableTreeTableNode root = new DefaultMutableTreeTableNode("root");
@@ -1,12 +1,17 @@
 package org.jdesktop.swingx.treetable;
 
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Vector;
 
+import javax.swing.event.TreeModelEvent;
 import javax.swing.tree.TreeNode;
 import javax.swing.tree.TreePath;
 
 import junit.framework.TestCase;
 
+import org.jdesktop.test.TreeModelReport;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -430,6 +435,56 @@ public class DefaultTreeTableModelUnitTest extends TestCase {
         }
     }
     
+    @Test
+    public void testInsertNodesInto() {
+        TreeModelReport report = new TreeModelReport(model);
+        List<DefaultMutableTreeTableNode> nodes = Arrays.asList(
+                new DefaultMutableTreeTableNode("new1"),
+                new DefaultMutableTreeTableNode("new2"));
+        
+        model.insertNodesInto(nodes, child1, 1);
+        
+        assertEquals(5, model.getChildCount(child1));
+        assertEquals(2, model.getIndexOfChild(child1, nodes.get(1)));
+        assertEquals(3, model.getIndexOfChild(child1, grandchild2));
+        assertEquals(1, report.getInsertEventCount());
+        TreeModelEvent e = report.getLastInsertEvent();
+        assertTrue(Arrays.equals(new int[] {1, 2}, e.getChildIndices()));
+        assertTrue(Arrays.equals(nodes.toArray(), e.getChildren()));
+        assertSame(child1, e.getTreePath().getLastPathComponent());
+    }
+    
+    @Test
+    public void testRemoveNodesFromParent() {
+        TreeModelReport report = new TreeModelReport(model);
+        
+        model.removeNodesFromParent(child1, Arrays.asList(grandchild3, grandchild1));
+        
+        assertEquals(1, model.getChildCount(child1));
+        assertNull(grandchild1.getParent());
+        assertEquals(1, report.getDeleteEventCount());
+        TreeModelEvent e = report.getLastDeleteEvent();
+        assertTrue(Arrays.equals(new int[] {0, 2}, e.getChildIndices()));
+        assertTrue(Arrays.equals(new Object[] {grandchild1, grandchild3}, e.getChildren()));
+    }
+    
+    @Test
+    public void testSortChildren() {
+        TreeModelReport report = new TreeModelReport(model);
+        
+        model.sortChildren(child2, new Comparator<MutableTreeTableNode>() {
+            @Override
+            public int compare(MutableTreeTableNode o1, MutableTreeTableNode o2) {
+                return o2.getUserObject().toString().compareTo(o1.getUserObject().toString());
+            }
+        });
+        
+        assertSame(grandchild6, model.getChild(child2, 0));
+        assertSame(grandchild4, model.getChild(child2, 2));
+        assertEquals(1, report.getStructureEventCount());
+        assertSame(child2, report.getLastStructureEvent().getTreePath().getLastPathComponent());
+    }
+    
     @Test
     public void testSetUserObject() {
         //Test expected cases
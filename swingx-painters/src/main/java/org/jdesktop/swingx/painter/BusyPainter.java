@@ -24,21 +24,35 @@ package org.jdesktop.swingx.painter;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.awt.Shape;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.PathIterator;
 import java.awt.geom.Point2D;
 import java.awt.geom.Point2D.Float;
 import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 import org.jdesktop.beans.JavaBean;
+import org.jdesktop.swingx.util.GraphicsUtilities;
 import org.jdesktop.swingx.util.PaintUtils;
 
 /**
  * A specific painter that paints an "infinite progress" like animation.
+ * <p>
+ * The positions of the points are computed once per configuration and the
+ * frames are rendered once into images, which are shared by all painters with
+ * the same trajectory, point shape, number of points, trail length, colors,
+ * direction and size. Painting a frame to a graphics which is only translated
+ * draws a single image; other graphics are painted point by point from the 
+ * shared positions.
  */
 @JavaBean
 @SuppressWarnings("nls")
@@ -76,6 +90,31 @@ public class BusyPainter extends AbstractPainter<Object> {
     private Direction direction = Direction.RIGHT;
 
     private boolean paintCentered;
+    
+    /**
+     * The maximum number of pixels of the frames of a configuration for them
+     * to be cached as images.
+     */
+    private static final int MAX_CACHED_PIXELS = 1 << 20;
+    
+    private static final int MAX_CACHED_CONFIGURATIONS = 32;
+    
+    private static final Map<List<Object>, Geometry> GEOMETRIES = createCache();
+    
+    private static final Map<List<Object>, FrameCache> FRAMES = createCache();
+    
+    private transient Geometry geometry;
+    
+    private transient FrameCache frames;
+    
+    private static <V> Map<List<Object>, V> createCache() {
+        return new LinkedHashMap<List<Object>, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, V> eldest) {
+                return size() > MAX_CACHED_CONFIGURATIONS;
+            }
+        };
+    }
 
     /**
      * Creates new busy painter initialized to the shape of circle and bounds size 26x26 points.
@@ -128,12 +167,76 @@ public class BusyPainter extends AbstractPainter<Object> {
      */
     @Override
     protected void doPaint(Graphics2D g, Object t, int width, int height) {
+        Geometry geometry = getGeometry(width, height);
+        if (geometry == null) {
+            // invalid object definition - one of the bounds is zero or less
+            return;
+        }
+        
+        int index = getFrame() == -1 ? getPoints() : getFrame() % Math.max(1, getPoints());
+        FrameCache frames = getFrameCache(g, geometry);
+        if (frames != null && getFrame() >= -1) {
+            frames.paintFrame(g, index);
+        } else {
+            paintFrame(g, geometry, getFrameColors(geometry, getFrame()));
+        }
+    }
+    
+    /**
+     * Returns the colors of the points in the given frame.
+     */
+    private Color[] getFrameColors(Geometry geometry, int frame) {
+        Color[] colors = new Color[geometry.angles.length];
+        for (int i = 0; i < colors.length; i++) {
+            colors[i] = calcFrameColor(i, frame);
+        }
+        return colors;
+    }
+    
+    /**
+     * Paints the points with the given colors.
+     */
+    private static void paintFrame(Graphics2D g, Geometry geometry, Color[] colors) {
+        g.translate(geometry.offsetX, geometry.offsetY);
+        for (int i = 0; i < geometry.angles.length; i++) {
+            g.setColor(colors[i]);
+            g.rotate(geometry.angles[i]);
+            g.translate(geometry.xs[i], geometry.ys[i]);
+            g.fill(geometry.pointShape);
+            g.translate(-geometry.xs[i], -geometry.ys[i]);
+            g.rotate(-geometry.angles[i]);
+        }
+        g.translate(-geometry.offsetX, -geometry.offsetY);
+    }
+    
+    /**
+     * Returns the position of the points for the current trajectory, point 
+     * shape and number of points, shared by all painters with the same
+     * configuration. Returns null if the trajectory is invalid.
+     */
+    private Geometry getGeometry(int width, int height) {
+        List<Object> key = Arrays.<Object>asList(getTrajectory(), getPointShape(), 
+                getPoints(), isPaintCentered(), width, height);
+        if (geometry != null && geometry.key.equals(key)) {
+            return geometry;
+        }
+        
+        synchronized (GEOMETRIES) {
+            geometry = GEOMETRIES.get(key);
+            if (geometry == null) {
+                geometry = createGeometry(key, width, height);
+                if (geometry != null) {
+                    GEOMETRIES.put(key, geometry);
+                }
+            }
+        }
+        return geometry;
+    }
+    
+    private Geometry createGeometry(List<Object> key, int width, int height) {
         Rectangle r = getTrajectory().getBounds();
         int tw = width - r.width - 2*r.x;
         int th = height - r.height - 2*r.y;
-        if (isPaintCentered()) {
-            g.translate(tw/2, th/2);
-        }
 
         PathIterator pi = trajectory.getPathIterator(null);
         float[] coords = new float[6];
@@ -147,7 +250,7 @@ public class BusyPainter extends AbstractPainter<Object> {
                 ret = pi.currentSegment(coords);
             } catch (NoSuchElementException e) {
                 // invalid object definition - one of the bounds is zero or less
-                return;
+                return null;
             }
             if (ret == PathIterator.SEG_LINETO || (ret == PathIterator.SEG_CLOSE && (sp.x != cp.x || sp.y != cp.y))) {
                 //close by line
@@ -189,7 +292,6 @@ public class BusyPainter extends AbstractPainter<Object> {
         float[] sgmt = segStack.get(sgIdx);
         float len = sgmt[0];
         float travDist = nxtP;
-        Float center = new Float(sp.x, sp.y);
         for (int i = 1; i < getPoints(); i++) {
             while (len < nxtP) {
                 sgIdx++;
@@ -203,25 +305,18 @@ public class BusyPainter extends AbstractPainter<Object> {
             len -= nxtP;
             Float p = calcPoint(travDist, sp, sgmt, width, height);
             pList.add(p);
-            center.x += p.x;
-            center.y += p.y;
             travDist += nxtP;
         }
         // calculate center
-        center.x = ((float) width) / 2;
-        center.y = ((float) height) / 2;
-
-        // draw the stuff
-        int i = 0;
-        g.translate(center.x, center.y);
-        for (Point2D.Float p : pList) {
-            drawAt(g, i++, p, center);
-        }
-        g.translate(-center.x, -center.y);
-
-        if (isPaintCentered()) {
-            g.translate(-tw/2, -th/2);
+        Float center = new Float(((float) width) / 2, ((float) height) / 2);
+        
+        Geometry result = new Geometry(key, getPointShape(), pList.size());
+        result.offsetX = center.x + (isPaintCentered() ? tw/2 : 0);
+        result.offsetY = center.y + (isPaintCentered() ? th/2 : 0);
+        for (int i = 0; i < pList.size(); i++) {
+            calcRotatedCenteredShapeAtPoint(pList.get(i), center, result, i);
         }
+        return result;
     }
 
     /**
@@ -242,12 +337,7 @@ public class BusyPainter extends AbstractPainter<Object> {
         firePropertyChange("paintCentered", old, isPaintCentered());
     }
 
-    private void drawAt(Graphics2D g, int i, Point2D.Float p, Float c) {
-        g.setColor(calcFrameColor(i));
-        paintRotatedCenteredShapeAtPoint(p, c, g);
-    }
-
-    private void paintRotatedCenteredShapeAtPoint(Float p, Float c, Graphics2D g) {
+    private void calcRotatedCenteredShapeAtPoint(Float p, Float c, Geometry geometry, int i) {
         Shape s = getPointShape();
         double hh = s.getBounds().getHeight() / 2;
         double wh = s.getBounds().getWidth() / 2;
@@ -264,12 +354,9 @@ public class BusyPainter extends AbstractPainter<Object> {
         t = sa > 0 ? sb > 0 ? -t : -Math.PI + t : sb > 0 ? t : Math.PI - t;
         x = Math.sqrt(a * a + b * b) - wh;
         y = -hh;
-        g.rotate(t);
-        g.translate(x, y);
-        g.fill(s);
-        g.translate(-x, -y);
-        g.rotate(-t);
-
+        geometry.angles[i] = t;
+        geometry.xs[i] = x;
+        geometry.ys[i] = y;
     }
 
     private Point2D.Float calcPoint(float dist2go, Point2D.Float startPoint,
@@ -456,10 +543,11 @@ public class BusyPainter extends AbstractPainter<Object> {
     
     /**
      * Selects appropriate color for given frame based on the frame position and gradient difference.
-     * @param i Frame.
+     * @param i Point.
+     * @param frame Frame.
      * @return Frame color.
      */
-    private Color calcFrameColor(final int i) {
+    private Color calcFrameColor(final int i, final int frame) {
         if (frame == -1) {
             return getBaseColor();
         }
@@ -623,4 +711,132 @@ public class BusyPainter extends AbstractPainter<Object> {
         this.direction = dir;
         firePropertyChange("direction", old, getDirection());
     }
+
+    /**
+     * Returns the frame images for the configuration of this painter, or null
+     * if the graphics isn't suitable for painting images or the frames are
+     * too large to be cached.
+     */
+    private FrameCache getFrameCache(Graphics2D g, Geometry geometry) {
+        AffineTransform transform = g.getTransform();
+        if (transform == null 
+                || (transform.getType() & ~AffineTransform.TYPE_TRANSLATION) != 0
+                || transform.getTranslateX() != Math.rint(transform.getTranslateX())
+                || transform.getTranslateY() != Math.rint(transform.getTranslateY())) {
+            return null;
+        }
+        
+        Rectangle bounds = geometry.getBounds();
+        if ((long) bounds.width * bounds.height * (getPoints() + 1) > MAX_CACHED_PIXELS) {
+            return null;
+        }
+        
+        List<Object> key = Arrays.<Object>asList(geometry.key, getTrailLength(), 
+                getBaseColor(), getHighlightColor(), getDirection(), 
+                g.getRenderingHint(RenderingHints.KEY_ANTIALIASING));
+        if (frames != null && frames.key.equals(key)) {
+            return frames;
+        }
+        
+        synchronized (FRAMES) {
+            frames = FRAMES.get(key);
+            if (frames == null) {
+                Color[][] colors = new Color[getPoints() + 1][];
+                for (int i = 0; i < colors.length; i++) {
+                    colors[i] = getFrameColors(geometry, i == colors.length - 1 ? -1 : i);
+                }
+                frames = new FrameCache(key, geometry, colors);
+                FRAMES.put(key, frames);
+            }
+        }
+        return frames;
+    }
+    
+    /**
+     * The positions of the points of a configuration.
+     */
+    private static final class Geometry {
+        final List<Object> key;
+        final Shape pointShape;
+        final double[] angles;
+        final double[] xs;
+        final double[] ys;
+        double offsetX;
+        double offsetY;
+        Rectangle bounds;
+        
+        Geometry(List<Object> key, Shape pointShape, int points) {
+            this.key = key;
+            this.pointShape = pointShape;
+            angles = new double[points];
+            xs = new double[points];
+            ys = new double[points];
+        }
+        
+        /**
+         * Returns the bounds of the painted points.
+         */
+        Rectangle getBounds() {
+            if (bounds == null) {
+                bounds = new Rectangle();
+                AffineTransform transform = new AffineTransform();
+                for (int i = 0; i < angles.length; i++) {
+                    transform.setToTranslation(offsetX, offsetY);
+                    transform.rotate(angles[i]);
+                    transform.translate(xs[i], ys[i]);
+                    bounds.add(transform.createTransformedShape(pointShape).getBounds());
+                }
+                // antialiasing may touch the adjacent pixels
+                bounds.grow(1, 1);
+            }
+            return bounds;
+        }
+    }
+    
+    /**
+     * The frames of a configuration, rendered into images on first use. The 
+     * last one is frame -1.
+     */
+    private static final class FrameCache {
+        final List<Object> key;
+        private final Geometry geometry;
+        private final Color[][] colors;
+        private final BufferedImage[] images;
+        private final Object antialiasing;
+        
+        FrameCache(List<Object> key, Geometry geometry, Color[][] colors) {
+            this.key = key;
+            this.geometry = geometry;
+            this.colors = colors;
+            this.antialiasing = key.get(key.size() - 1);
+            images = new BufferedImage[colors.length];
+        }
+        
+        void paintFrame(Graphics2D g, int index) {
+            Rectangle bounds = geometry.getBounds();
+            BufferedImage image;
+            
+            synchronized (this) {
+                image = images[index];
+                if (image == null) {
+                    image = GraphicsUtilities.createCompatibleTranslucentImage(
+                            bounds.width, bounds.height);
+                    Graphics2D gfx = image.createGraphics();
+                    
+                    try {
+                        if (antialiasing != null) {
+                            gfx.setRenderingHint(RenderingHints.KEY_ANTIALIASING, antialiasing);
+                        }
+                        gfx.translate(-bounds.x, -bounds.y);
+                        BusyPainter.paintFrame(gfx, geometry, colors[index]);
+                    } finally {
+                        gfx.dispose();
+                    }
+                    images[index] = image;
+                }
+            }
+            
+            g.drawImage(image, bounds.x, bounds.y, null);
+        }
+    }
 }
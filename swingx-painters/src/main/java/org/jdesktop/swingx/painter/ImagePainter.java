@@ -27,14 +27,26 @@ import java.awt.Image;
 import java.awt.Insets;
 import java.awt.Paint;
 import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.awt.Shape;
 import java.awt.TexturePaint;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Area;
 import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.logging.Logger;
 
+import javax.swing.SwingUtilities;
+
 import org.jdesktop.beans.JavaBean;
 import org.jdesktop.swingx.painter.effects.AreaEffect;
+import org.jdesktop.swingx.util.GraphicsUtilities;
 
 /**
  * <p>A Painter instance that paints an image. Any Image is acceptable. This
@@ -61,6 +73,21 @@ import org.jdesktop.swingx.painter.effects.AreaEffect;
  * </li>
  * </ul>
  *
+ * <p>When the image is painted at another size than its own, f.i. scaled to
+ * fit, the painter scales it once into a display compatible image of the target
+ * size and keeps a few of these variants, keyed by size and interpolation. So
+ * repainting at a size painted recently, as happens when the painter is shared
+ * by components of different sizes, draws the image unscaled. A variant is
+ * created only once a size is painted a second time: sizes painted just once,
+ * like the ones passed while resizing a component, are scaled while drawing. Downscaling by
+ * more than half is done in steps of halving the size, which looks better than
+ * a single step with bilinear or bicubic interpolation. With
+ * {@link #setBackgroundScaling(boolean) background scaling} enabled, the
+ * variants are computed on a background thread; meanwhile the painter draws
+ * the variant used last, scaled with nearest neighbor interpolation, and
+ * marks itself dirty once the new variant is ready. Variants are dropped when
+ * the image is replaced.</p>
+ *
  * @author Richard
  */
 @JavaBean
@@ -86,6 +113,42 @@ public class ImagePainter extends AbstractAreaPainter<Object> {
     private ScaleType scaleType = ScaleType.InsideFit;
 
     private double imageScale = 1.0;
+    
+    private boolean backgroundScaling;
+    
+    /**
+     * The maximum number of scaled variants kept per painter.
+     */
+    private static final int MAX_VARIANTS = 4;
+    
+    private static ExecutorService scalingExecutor;
+    
+    /**
+     * The scaled variants of the image, guarded by itself.
+     */
+    private final transient Map<List<Object>, BufferedImage> variants = 
+            new LinkedHashMap<List<Object>, BufferedImage>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, BufferedImage> eldest) {
+            return size() > MAX_VARIANTS;
+        }
+    };
+    
+    /**
+     * The keys of the sizes painted once without a variant, guarded by variants.
+     */
+    private final transient Map<List<Object>, Boolean> paintedOnce = 
+            new LinkedHashMap<List<Object>, Boolean>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, Boolean> eldest) {
+            return size() > MAX_VARIANTS;
+        }
+    };
+    
+    /**
+     * The key of the variant being scaled in the background, guarded by variants.
+     */
+    private transient List<Object> pendingVariant;
 
     /**
      * Create a new ImagePainter. By default there is no image, and the alignment
@@ -131,6 +194,10 @@ public class ImagePainter extends AbstractAreaPainter<Object> {
         if (image != img) {
             Image oldImage = img;
             img = image;
+            synchronized (variants) {
+                variants.clear();
+                paintedOnce.clear();
+            }
             setDirty(true);
             firePropertyChange("image", oldImage, img);
         }
@@ -278,7 +345,7 @@ public class ImagePainter extends AbstractAreaPainter<Object> {
                             default:
                                 break;
                         }
-                        g.drawImage(img, x, y, sw, sh, null);
+                        drawImage(g, x, y, sw, sh);
                     } else {
                         int sw = rect.width;
                         int sh = rect.height;
@@ -286,7 +353,7 @@ public class ImagePainter extends AbstractAreaPainter<Object> {
                             sw = (int)(sw * imageScale);
                             sh = (int)(sh * imageScale);
                         }
-                        g.drawImage(img, rect.x, rect.y, sw, sh, null);
+                        drawImage(g, rect.x, rect.y, sw, sh);
                     }
                 }
             }
@@ -294,6 +361,145 @@ public class ImagePainter extends AbstractAreaPainter<Object> {
         
     }
     
+    /**
+     * Draws the image at the given size, from a cached variant if the image
+     * is scaled.
+     */
+    private void drawImage(Graphics2D g, int x, int y, int width, int height) {
+        BufferedImage image = img;
+        if (width <= 0 || height <= 0 
+                || (width == image.getWidth() && height == image.getHeight())
+                || (g.getTransform().getType() & ~AffineTransform.TYPE_TRANSLATION) != 0) {
+            // the variant would be scaled again
+            g.drawImage(image, x, y, width, height, null);
+            return;
+        }
+        BufferedImage variant = getVariant(image, width, height);
+        if (variant != null) {
+            g.drawImage(variant, x, y, null);
+            return;
+        }
+        if (!isBackgroundScaling()) {
+            // a size painted the first time, f.i. while resizing
+            g.drawImage(image, x, y, width, height, null);
+            return;
+        }
+        synchronized (variants) {
+            for (BufferedImage last : variants.values()) {
+                variant = last;
+            }
+        }
+        Object interpolation = g.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, 
+                RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        g.drawImage(variant != null ? variant : image, x, y, width, height, null);
+        if (interpolation != null) {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+        }
+    }
+    
+    /**
+     * Returns the variant of the given image scaled to the given size. If
+     * it's not cached, scales it or, with background scaling, schedules it for
+     * scaling and returns null. Without background scaling, returns null if
+     * the size isn't painted repeatedly.
+     */
+    private BufferedImage getVariant(final BufferedImage image, final int width, final int height) {
+        final Object interpolation = getInterpolationHint();
+        final List<Object> key = Arrays.<Object>asList(width, height, interpolation);
+        synchronized (variants) {
+            BufferedImage variant = variants.get(key);
+            if (variant != null || (isBackgroundScaling() && pendingVariant != null)) {
+                return variant;
+            }
+            if (isBackgroundScaling()) {
+                pendingVariant = key;
+            } else if (paintedOnce.put(key, Boolean.TRUE) == null) {
+                return null;
+            } else {
+                paintedOnce.remove(key);
+            }
+        }
+        if (!isBackgroundScaling()) {
+            BufferedImage variant = createVariant(image, width, height, interpolation);
+            synchronized (variants) {
+                variants.put(key, variant);
+            }
+            return variant;
+        }
+        getScalingExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final BufferedImage variant = createVariant(image, width, height, interpolation);
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        synchronized (variants) {
+                            pendingVariant = null;
+                            if (image != img) {
+                                return;
+                            }
+                            variants.put(key, variant);
+                        }
+                        setDirty(true);
+                    }
+                });
+            }
+        });
+        return null;
+    }
+    
+    private Object getInterpolationHint() {
+        switch (getInterpolation()) {
+        case Bicubic:
+            return RenderingHints.VALUE_INTERPOLATION_BICUBIC;
+        case Bilinear:
+            return RenderingHints.VALUE_INTERPOLATION_BILINEAR;
+        default:
+            return RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR;
+        }
+    }
+    
+    /**
+     * Scales the image to a compatible image of the given size. Unless using
+     * nearest neighbor interpolation, halves the size with bilinear
+     * interpolation while the image is more than twice as large as the target,
+     * then scales to the target with the given interpolation.
+     */
+    static BufferedImage createVariant(BufferedImage image, int width, int height, Object interpolation) {
+        boolean stepwise = interpolation != RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR;
+        BufferedImage result = image;
+        do {
+            int w = stepwise && result.getWidth() / 2 >= width ? result.getWidth() / 2 : width;
+            int h = stepwise && result.getHeight() / 2 >= height ? result.getHeight() / 2 : height;
+            BufferedImage scaled = GraphicsUtilities.createCompatibleImage(image, w, h);
+            Graphics2D g = scaled.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, w == width && h == height 
+                        ? interpolation : RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(result, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            result = scaled;
+        } while (result.getWidth() != width || result.getHeight() != height);
+        return result;
+    }
+    
+    private static synchronized ExecutorService getScalingExecutor() {
+        if (scalingExecutor == null) {
+            scalingExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "ImagePainter-scaler");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return scalingExecutor;
+    }
+    
     private void drawBorder(Graphics2D g, Shape shape, int width, int height) {
         if(getBorderPaint() != null) {
             g.setPaint(getBorderPaint());
@@ -343,6 +549,29 @@ public class ImagePainter extends AbstractAreaPainter<Object> {
         firePropertyChange("imageScale",old,this.imageScale);
     }
     
+    /**
+     * Indicates if scaled variants of the image are computed on a background
+     * thread.
+     * @return if the image is scaled in the background
+     */
+    public boolean isBackgroundScaling() {
+        return backgroundScaling;
+    }
+    
+    /**
+     * Sets if scaled variants of the image are computed on a background
+     * thread. While a variant is scaled, the painter draws the variant used
+     * last with nearest neighbor interpolation, and is set dirty when the new
+     * variant is available, so the components using the painter repaint. The
+     * default is false.
+     * @param backgroundScaling if the image is scaled in the background
+     */
+    public void setBackgroundScaling(boolean backgroundScaling) {
+        boolean old = this.isBackgroundScaling();
+        this.backgroundScaling = backgroundScaling;
+        firePropertyChange("backgroundScaling", old, this.backgroundScaling);
+    }
+    
     /**
      * Indicates if the image will be repeated horizontally.
      * @return if the image will be repeated horizontally
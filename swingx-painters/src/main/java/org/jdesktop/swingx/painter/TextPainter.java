@@ -25,12 +25,10 @@ import static org.jdesktop.swingx.painter.PainterUtils.getComponentFont;
 import static org.jdesktop.swingx.painter.PainterUtils.getForegroundPaint;
 
 import java.awt.Font;
-import java.awt.FontMetrics;
 import java.awt.Graphics2D;
 import java.awt.Paint;
 import java.awt.Rectangle;
 import java.awt.Shape;
-import java.awt.font.GlyphVector;
 
 import javax.swing.AbstractButton;
 import javax.swing.JLabel;
@@ -38,10 +36,15 @@ import javax.swing.text.JTextComponent;
 
 import org.jdesktop.beans.JavaBean;
 import org.jdesktop.swingx.painter.effects.AreaEffect;
+import org.jdesktop.swingx.util.TextLayoutCache;
+import org.jdesktop.swingx.util.TextLayoutCache.Glyphs;
 
 /**
  * A painter which draws text. If the font, text, and paint are not provided they will be
  * obtained from the object being painted if it is a Swing text component.
+ * <p>
+ * The laid-out text is kept in the {@linkplain TextLayoutCache#getShared() shared text layout
+ * cache}, so painters stamping the same strings don't lay them out again for each paint.
  *
  * @author rbair
  */
@@ -145,12 +148,11 @@ public class TextPainter extends AbstractAreaPainter<Object> {
         Paint paint = getForegroundPaint(getFillPaint(), component);
         String t = calculateText(component);
         
-        // get the font metrics
-        FontMetrics metrics = g.getFontMetrics(g.getFont());
-        //Rectangle2D rect = metrics.getStringBounds(text,g);
+        // get the laid-out text
+        Glyphs glyphs = TextLayoutCache.getShared().getGlyphs(t, g.getFont(), g);
         
-        int tw = metrics.stringWidth(t);
-        int th = metrics.getHeight();
+        int tw = glyphs.getWidth();
+        int th = glyphs.getHeight();
         Rectangle res = calculateLayout(tw, th, width, height);
         
         g.translate(res.x, res.y);
@@ -163,7 +165,7 @@ public class TextPainter extends AbstractAreaPainter<Object> {
             g.setPaint(paint);
         }
         
-        g.drawString(t, 0, 0 + metrics.getAscent());
+        glyphs.draw(g, 0, glyphs.getAscent());
         if(getAreaEffects() != null) {
             Shape shape = provideShape(g, component, width, height);
             for(AreaEffect ef : getAreaEffects()) {
@@ -208,8 +210,7 @@ public class TextPainter extends AbstractAreaPainter<Object> {
     protected Shape provideShape(Graphics2D g2, Object comp, int width, int height) {
         Font f = calculateFont(comp);
         String t = calculateText(comp);
-        FontMetrics metrics = g2.getFontMetrics(f);
-        GlyphVector vect = f.createGlyphVector(g2.getFontRenderContext(),t);
-        return vect.getOutline(0f,0f+ metrics.getAscent());
+        Glyphs glyphs = TextLayoutCache.getShared().getGlyphs(t, f, g2);
+        return glyphs.getGlyphVector().getOutline(0f, glyphs.getAscent());
     }
 }
@@ -21,9 +21,13 @@
 package org.jdesktop.swingx.painter;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.junit.Assert.assertThat;
 
 import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
 
 import org.junit.Test;
 
@@ -56,4 +60,75 @@ public class BusyPainterTest extends AbstractPainterTest {
         assertThat(bp.getTrajectory(), is(BusyPainter.getScaledDefaultTrajectory(26)));
         assertThat(bp.isPaintCentered(), is(false));
     }
+    
+    /**
+     * Painters with the same configuration share the frames, changing the
+     * configuration paints different frames.
+     */
+    @Test
+    public void testSharedFrames() {
+        BusyPainter first = createAnimatedPainter();
+        first.setFrame(2);
+        BusyPainter second = createAnimatedPainter();
+        second.setFrame(2);
+        assertThat(paint(second), is(paint(first)));
+        
+        second.setHighlightColor(Color.RED);
+        assertThat(paint(second), is(not(paint(first))));
+        second.setHighlightColor(first.getHighlightColor());
+        assertThat(paint(second), is(paint(first)));
+    }
+    
+    /**
+     * Frames wrap around the number of points.
+     */
+    @Test
+    public void testFrameWrap() {
+        BusyPainter painter = createAnimatedPainter();
+        painter.setFrame(1);
+        int[] expected = paint(painter);
+        painter.setFrame(1 + painter.getPoints());
+        assertThat(paint(painter), is(expected));
+        painter.setFrame(-1);
+        assertThat(paint(painter), is(not(expected)));
+    }
+    
+    /**
+     * Painting to a scaled graphics paints the points instead of the cached
+     * frames.
+     */
+    @Test
+    public void testScaledPaint() {
+        BusyPainter painter = createAnimatedPainter();
+        painter.setFrame(1);
+        BufferedImage image = new BufferedImage(80, 80, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.scale(2, 2);
+        painter.paint(g, null, 40, 40);
+        g.dispose();
+        
+        // the highlighted points reach the far corner of the scaled image
+        int[] pixels = image.getRGB(40, 40, 40, 40, null, 0, 40);
+        assertThat(Arrays.equals(pixels, new int[pixels.length]), is(false));
+    }
+    
+    /**
+     * Creates a painter configured like the one of a <code>JXBusyLabel</code>.
+     */
+    private BusyPainter createAnimatedPainter() {
+        BusyPainter painter = new BusyPainter(40);
+        painter.setCacheable(false);
+        
+        return painter;
+    }
+    
+    private int[] paint(BusyPainter painter) {
+        BufferedImage image = new BufferedImage(50, 50, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.translate(3, 5);
+        painter.paint(g, null, 40, 40);
+        g.dispose();
+        
+        return image.getRGB(0, 0, 50, 50, null, 0, 50);
+    }
 }
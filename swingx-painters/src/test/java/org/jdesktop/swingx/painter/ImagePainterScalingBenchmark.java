@@ -0,0 +1,84 @@
+/*
+ * $Id$
+ *
+ * Copyright 2009 Sun Microsystems, Inc., 4150 Network Circle,
+ * Santa Clara, California 95054, U.S.A. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.jdesktop.swingx.painter;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+/**
+ * Compares painting a large background image scaled to fit with bicubic interpolation through
+ * {@link ImagePainter} against scaling it while drawing, as the painter did before it cached
+ * scaled variants. The painter is shared by two panels of different sizes, so its own cache of
+ * the painted result is invalidated on every paint.
+ * <p>
+ * 
+ * Run with {@code -Djava.awt.headless=true}, optionally passing the number of rounds.
+ */
+public class ImagePainterScalingBenchmark {
+
+    private static final int WARMUP = 20;
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        BufferedImage image = new BufferedImage(2400, 1800, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        
+        ImagePainter painter = new ImagePainter(image);
+        painter.setScaleToFit(true);
+        painter.setInterpolation(AbstractPainter.Interpolation.Bicubic);
+        BufferedImage[] panels = {
+                new BufferedImage(800, 600, BufferedImage.TYPE_INT_ARGB),
+                new BufferedImage(640, 480, BufferedImage.TYPE_INT_ARGB) };
+        
+        long direct = 0;
+        long cached = 0;
+        for (int i = -WARMUP; i < rounds; i++) {
+            BufferedImage panel = panels[i & 1];
+            
+            long start = System.nanoTime();
+            Graphics2D g = panel.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, 
+                    RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.drawImage(image, 0, 0, panel.getWidth(), panel.getWidth() * 3 / 4, null);
+            g.dispose();
+            long middle = System.nanoTime();
+            
+            g = panel.createGraphics();
+            painter.paint(g, null, panel.getWidth(), panel.getHeight());
+            g.dispose();
+            long end = System.nanoTime();
+            
+            if (i >= 0) {
+                direct += middle - start;
+                cached += end - middle;
+            }
+        }
+        System.out.printf("scaled while drawing: %8.1f us/paint   cached variants: %8.1f us/paint%n",
+                direct / 1000.0 / rounds, cached / 1000.0 / rounds);
+    }
+}
@@ -21,10 +21,20 @@
 package org.jdesktop.swingx.painter;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 
+import java.awt.Color;
+import java.awt.Graphics2D;
 import java.awt.Insets;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.jdesktop.swingx.painter.effects.AreaEffect;
 import org.junit.Test;
@@ -77,5 +87,156 @@ public class ImagePainterTest extends AbstractAreaPainterTest {
         assertThat(ip.isHorizontalRepeat(), is(false));
         assertThat(ip.isScaleToFit(), is(false));
         assertThat(ip.isVerticalRepeat(), is(false));
+        assertThat(ip.isBackgroundScaling(), is(false));
+    }
+    
+    /**
+     * A cached variant paints the same as scaling while drawing.
+     */
+    @Test
+    public void testVariantPaintsLikeScaledImage() {
+        BufferedImage image = createNoise(200, 100);
+        ImagePainter painter = createScalingPainter(image);
+        painter.setInterpolation(AbstractPainter.Interpolation.NearestNeighbor);
+        
+        BufferedImage expected = new BufferedImage(60, 45, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = expected.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, 
+                RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        g.drawImage(image, 0, 0, 60, 45, null);
+        g.dispose();
+        assertThat(paint(painter, 60, 45), is(pixels(expected)));
+    }
+    
+    /**
+     * Variants are kept per repeatedly painted size until the image is replaced.
+     */
+    @Test
+    public void testVariantsCachedPerSize() {
+        BufferedImage image = createNoise(200, 100);
+        ImagePainter painter = createScalingPainter(image);
+        paint(painter, 60, 45);
+        paint(painter, 30, 20);
+        int[] large = paint(painter, 60, 45);
+        int[] small = paint(painter, 30, 20);
+        
+        // content changes aren't noticed
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.RED);
+        g.fillRect(0, 0, 200, 100);
+        g.dispose();
+        assertThat(paint(painter, 60, 45), is(large));
+        assertThat(paint(painter, 30, 20), is(small));
+        
+        painter.setImage(createNoise(200, 100));
+        painter.setImage(image);
+        assertThat(paint(painter, 60, 45), is(not(large)));
+    }
+    
+    /**
+     * Sizes painted once, f.i. while resizing, are scaled while drawing.
+     */
+    @Test
+    public void testNoVariantForSizePaintedOnce() {
+        BufferedImage image = createNoise(200, 100);
+        ImagePainter painter = createScalingPainter(image);
+        int[] first = paint(painter, 60, 45);
+        
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.RED);
+        g.fillRect(0, 0, 200, 100);
+        g.dispose();
+        int[] red = paint(painter, 60, 45);
+        assertThat("size painted once must not be cached", red, is(not(first)));
+        
+        g = image.createGraphics();
+        g.setColor(Color.BLUE);
+        g.fillRect(0, 0, 200, 100);
+        g.dispose();
+        assertThat("repeated size must be cached", paint(painter, 60, 45), is(red));
+    }
+    
+    /**
+     * Large reductions are done stepwise, so fine patterns are averaged
+     * instead of sampled.
+     */
+    @Test
+    public void testStepwiseDownscale() {
+        BufferedImage checker = new BufferedImage(800, 800, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 800; y++) {
+            for (int x = 0; x < 800; x++) {
+                checker.setRGB(x, y, (x + y) % 2 == 0 ? 0xFFFFFF : 0);
+            }
+        }
+        BufferedImage variant = ImagePainter.createVariant(checker, 100, 100,
+                RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        assertThat(variant.getWidth(), is(100));
+        assertThat(variant.getHeight(), is(100));
+        for (int y = 0; y < 100; y += 3) {
+            for (int x = 0; x < 100; x += 3) {
+                int gray = variant.getRGB(x, y) & 0xFF;
+                assertThat("gray at " + x + "," + y + ": " + gray, gray > 0x60 && gray < 0xA0, is(true));
+            }
+        }
+    }
+    
+    /**
+     * With background scaling the painter is dirty when the variant is ready.
+     */
+    @Test
+    public void testBackgroundScaling() throws Exception {
+        BufferedImage image = createNoise(400, 300);
+        ImagePainter painter = createScalingPainter(image);
+        painter.setInterpolation(AbstractPainter.Interpolation.Bicubic);
+        painter.setBackgroundScaling(true);
+        final CountDownLatch scaled = new CountDownLatch(1);
+        painter.addPropertyChangeListener(new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                if ("dirty".equals(evt.getPropertyName()) && Boolean.TRUE.equals(evt.getNewValue())) {
+                    scaled.countDown();
+                }
+            }
+        });
+        paint(painter, 90, 70);
+        assertThat(scaled.await(5, TimeUnit.SECONDS), is(true));
+        
+        BufferedImage variant = ImagePainter.createVariant(image, 90, 70, 
+                RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        assertThat(paint(painter, 90, 70), is(pixels(variant)));
+    }
+    
+    private ImagePainter createScalingPainter(BufferedImage image) {
+        ImagePainter painter = new ImagePainter(image);
+        painter.setScaleToFit(true);
+        painter.setScaleType(ImagePainter.ScaleType.Distort);
+        painter.setCacheable(false);
+        
+        return painter;
+    }
+    
+    private BufferedImage createNoise(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(width * 31 + height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        
+        return image;
+    }
+    
+    private int[] paint(ImagePainter painter, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        painter.paint(g, null, width, height);
+        g.dispose();
+        
+        return pixels(image);
+    }
+    
+    private int[] pixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
     }
 }